@@ -0,0 +1,63 @@
+package com.reservations.entity.utils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.reservations.entity.EpochDayRange;
+
+/**
+ * Measures the expansion of a range into its dates, compared with iterating its epoch-days, for ranges as long as a
+ * stay and as long as an availability query
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DateUtilsBenchmark {
+	@Param({"1", "3", "30", "365"})
+	private int days;
+
+	private LocalDate start;
+	private LocalDate end;
+
+	@Setup
+	public void setup() {
+		start = LocalDate.now();
+		end = start.plusDays(days);
+	}
+
+	@Benchmark
+	public List<LocalDate> daysBetween() {
+		return DateUtils.daysBetween(start, end);
+	}
+
+	@Benchmark
+	public List<LocalDate> daysBetweenInclusive() {
+		return DateUtils.daysBetweenInclusive(start, end);
+	}
+
+	@Benchmark
+	public long iterateNights() {
+		EpochDayRange nights = EpochDayRange.nights(start, end);
+		long sum = 0;
+		for (long day = nights.getStart(); day < nights.getEnd(); day++) {
+			sum += day;
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,109 @@
+package com.reservations.executor;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Measures the time to complete a burst of concurrent requests on each execution mode, within the same fixed heap. Each
+ * request holds a connection of a JDBC pool as large as the default one while it runs a query and waits for a
+ * simulated round trip, so the pool is what limits the concurrency in both modes: the platform threads beyond it wait
+ * in the queue of a pool as large as the default reads one, while every request gets its own virtual thread, which
+ * waits for a connection without holding a platform thread. H2 runs the query inside synchronized blocks, which pin the
+ * virtual thread to its carrier, as MySQL Connector/J 5.1 does, so the virtual mode comes out slower.
+ *
+ * The virtual mode needs Java 21, so put it first on the PATH before running the benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx128m")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RequestExecutionBenchmark {
+	private static final int JDBC_POOL_SIZE = 20;
+	private static final int PLATFORM_POOL_SIZE = 20;
+	private static final long ROUND_TRIP_MS = 1L;
+	private static final String QUERY = "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES";
+
+	@Param({"platform", "virtual"})
+	private String mode;
+
+	@Param({"100", "1000", "10000"})
+	private int requests;
+
+	private DataSource dataSource;
+	private AsyncTaskExecutor executor;
+	private RequestTaskExecutor platformExecutor;
+
+	@Setup
+	public void setup() {
+		dataSource = new DataSource();
+		dataSource.setDriverClassName("org.h2.Driver");
+		dataSource.setUrl("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+		dataSource.setInitialSize(JDBC_POOL_SIZE);
+		dataSource.setMaxActive(JDBC_POOL_SIZE);
+		dataSource.setMaxIdle(JDBC_POOL_SIZE);
+		dataSource.setMaxWait((int) TimeUnit.MINUTES.toMillis(1));
+		if ("virtual".equals(mode)) {
+			executor = new VirtualThreadTaskExecutor();
+		} else {
+			// The queue holds the whole burst, so no request is rejected
+			platformExecutor = new RequestTaskExecutor("benchmark", PLATFORM_POOL_SIZE, requests, RejectionPolicy.ABORT, 0L);
+			platformExecutor.initialize();
+			executor = platformExecutor;
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (platformExecutor != null) {
+			platformExecutor.shutdown();
+		}
+		dataSource.close();
+	}
+
+	@Benchmark
+	public long handleBurst() throws Exception {
+		List<Future<Long>> futures = Lists.newArrayListWithCapacity(requests);
+		for (int i = 0; i < requests; i++) {
+			futures.add(executor.submit(this::query));
+		}
+		long sum = 0;
+		for (Future<Long> future : futures) {
+			sum += future.get();
+		}
+		return sum;
+	}
+
+	private long query() throws SQLException, InterruptedException {
+		try (Connection connection = dataSource.getConnection();
+			 Statement statement = connection.createStatement();
+			 ResultSet resultSet = statement.executeQuery(QUERY)) {
+			resultSet.next();
+			Thread.sleep(ROUND_TRIP_MS);
+			return resultSet.getLong(1);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.reservations.extensibility.utils;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.StaticMessageSource;
+
+import com.google.common.collect.Sets;
+import com.reservations.entity.EventType;
+import com.reservations.extensibility.registry.ExtensionRegistry;
+import com.reservations.service.ReservationService;
+import com.reservations.validation.DefaultReservationValidatorExtensionImpl;
+import com.reservations.validation.ReservationCancellationValidatorExtensionImpl;
+import com.reservations.validation.ReservationCreationValidatorExtensionImpl;
+import com.reservations.validation.ReservationUpdateValidatorExtensionImpl;
+import com.reservations.validation.ReservationValidatorExtension;
+
+/**
+ * Measures the lookup of the validator for each {@link EventType}, among the same extensions registered in the
+ * application, compared with reading it from the {@link ExtensionRegistry} resolved on start
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ExtensionUtilsBenchmark {
+	@Param({"CREATION", "UPDATE", "CANCELLATION"})
+	private EventType eventType;
+
+	private Set<ReservationValidatorExtension> extensions;
+	private ExtensionRegistry<EventType, ReservationValidatorExtension> registry;
+
+	@Setup
+	public void setup() {
+		ReservationService reservationService = mock(ReservationService.class);
+		StaticMessageSource messages = new StaticMessageSource();
+		messages.setUseCodeAsDefaultMessage(true);
+		extensions = Sets.newHashSet(
+				new DefaultReservationValidatorExtensionImpl(),
+				new ReservationCreationValidatorExtensionImpl(1, 30, 1, 3, true, reservationService, messages),
+				new ReservationUpdateValidatorExtensionImpl(1, 30, 1, 3, true, reservationService, messages),
+				new ReservationCancellationValidatorExtensionImpl(12, 0, 1, 30, 1, 3, false, reservationService, messages));
+		registry = new ExtensionRegistry<>(EventType.class, extensions);
+	}
+
+	@Benchmark
+	public ReservationValidatorExtension get() {
+		return ExtensionUtils.get(extensions, eventType);
+	}
+
+	@Benchmark
+	public ReservationValidatorExtension getFromRegistry() {
+		return registry.get(eventType);
+	}
+}
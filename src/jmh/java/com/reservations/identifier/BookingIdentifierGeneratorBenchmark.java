@@ -0,0 +1,40 @@
+package com.reservations.identifier;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the identifiers generated per second by several threads at once, as happens with concurrent requests,
+ * where the random generator contends on the SecureRandom shared by all of them
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BookingIdentifierGeneratorBenchmark {
+	private final BookingIdentifierGenerator randomGenerator = new RandomBookingIdentifierGenerator();
+	private final BookingIdentifierGenerator timeOrderedGenerator = new TimeOrderedBookingIdentifierGenerator();
+
+	@Benchmark
+	public String generateRandom() {
+		return randomGenerator.generate();
+	}
+
+	@Benchmark
+	public String generateTimeOrdered() {
+		return timeOrderedGenerator.generate();
+	}
+}
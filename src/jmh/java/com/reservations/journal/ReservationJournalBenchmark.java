@@ -0,0 +1,125 @@
+package com.reservations.journal;
+
+import static com.reservations.TestUtils.basicReservation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import com.reservations.Application;
+import com.reservations.entity.Reservation;
+import com.reservations.entity.ReservationStatus;
+import com.reservations.identifier.BookingIdentifierGenerator;
+import com.reservations.occupancy.DailyOccupancyReconciler;
+import com.reservations.repository.ReservationRepository;
+
+/**
+ * Measures loading the occupancy ledger on start, either reconciling it from the reservations table or recovering it
+ * from the {@link ReservationJournal}, as the history of the table grows while the ACTIVE reservations within the
+ * horizon stay the same. The table is the in-memory H2 database of the integration profile, so reading it is cheaper
+ * than against MySQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ReservationJournalBenchmark {
+	private static final int ACTIVE_RESERVATIONS = 1000;
+	private static final int HORIZON_DAYS = 30;
+	private static final int SAVE_BATCH = 1000;
+
+	@Param({"0", "20000", "100000"})
+	private int history;
+
+	private Path directory;
+	private ConfigurableApplicationContext context;
+	private DailyOccupancyReconciler dailyOccupancyReconciler;
+	private ReservationJournal reservationJournal;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("journal");
+		context = new SpringApplicationBuilder(Application.class)
+				.web(false)
+				.profiles("integration")
+				.properties("logging.level.ROOT=WARN")
+				// Arguments, since the defaults of application.yml override the properties of the builder
+				.run("--reservations.journal.enabled=true", "--reservations.journal.directory=" + directory);
+		dailyOccupancyReconciler = context.getBean(DailyOccupancyReconciler.class);
+		reservationJournal = context.getBean(ReservationJournal.class);
+
+		Random random = new Random(42);
+		// Cancelled and past reservations, which aren't part of the occupancy
+		save(history, i -> {
+			LocalDate arrivalDate = i % 2 == 0 ?
+					LocalDate.now().plusDays(random.nextInt(HORIZON_DAYS)) :
+					LocalDate.now().minusDays(2 + random.nextInt(3650));
+			return reservation(arrivalDate, i % 2 == 0 ? ReservationStatus.CANCELLED : ReservationStatus.ACTIVE);
+		});
+		save(ACTIVE_RESERVATIONS, i -> reservation(LocalDate.now().plusDays(random.nextInt(HORIZON_DAYS)), ReservationStatus.ACTIVE));
+		// The journal starts from the stays read by the reconciliation
+		dailyOccupancyReconciler.reconcile();
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+		FileSystemUtils.deleteRecursively(directory.toFile());
+	}
+
+	@Benchmark
+	public DailyOccupancyReconciler reconcileFromDatabase() {
+		dailyOccupancyReconciler.reconcile();
+		return dailyOccupancyReconciler;
+	}
+
+	@Benchmark
+	public boolean recoverFromJournal() {
+		return reservationJournal.recover();
+	}
+
+	private void save(int quantity, IntFunction<Reservation> reservations) {
+		ReservationRepository reservationRepository = context.getBean(ReservationRepository.class);
+		TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+		for (int start = 0; start < quantity; start += SAVE_BATCH) {
+			List<Reservation> batch = IntStream.range(start, Math.min(quantity, start + SAVE_BATCH))
+					.mapToObj(reservations)
+					.collect(Collectors.toList());
+			transactionTemplate.execute(status -> reservationRepository.save(batch));
+		}
+	}
+
+	private Reservation reservation(LocalDate arrivalDate, ReservationStatus status) {
+		Reservation reservation = basicReservation(arrivalDate, arrivalDate.plusDays(1));
+		reservation.setId(null);
+		reservation.setStatus(status);
+		reservation.setBookingIdentifierUuid(context.getBean(BookingIdentifierGenerator.class).generate());
+		return reservation;
+	}
+}
@@ -0,0 +1,143 @@
+package com.reservations.service;
+
+import static com.reservations.TestUtils.basicReservation;
+import static com.reservations.TestUtils.stayOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.Lists;
+import com.reservations.entity.DailyOccupancy;
+import com.reservations.entity.DateRange;
+import com.reservations.entity.ReservationAvailability;
+import com.reservations.entity.ReservationStay;
+import com.reservations.identifier.TimeOrderedBookingIdentifierGenerator;
+import com.reservations.occupancy.DailyOccupancyCache;
+import com.reservations.occupancy.DailyOccupancyReconciler;
+import com.reservations.occupancy.OccupancyLedger;
+import com.reservations.repository.DailyOccupancyRepository;
+import com.reservations.repository.ReservationRepository;
+import com.reservations.validation.DefaultReservationValidatorExtensionImpl;
+import com.reservations.validation.ReservationValidatorExtensionRegistry;
+
+/**
+ * Measures {@link ReservationServiceImpl#getAvailability(DateRange)} over synthetic sets of ACTIVE reservations, both
+ * when it's answered by the {@link OccupancyLedger} and when it's read from a stubbed daily occupancy table, with and
+ * without the {@link DailyOccupancyCache} in front of it. The aggregation of the reservations into nights happens
+ * when the ledger is reloaded, so it's measured separately.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ReservationServiceImplBenchmark {
+	private static final int HORIZON_DAYS = 33;
+	private static final int MAX_DURATION = 3;
+	private static final int AVAILABILITY_DAYS = 30;
+	private static final int TABLE_DAYS = 365;
+	private static final long CACHE_MAXIMUM_SIZE = 1000L;
+
+	@Param({"1000", "10000", "100000", "1000000"})
+	private int reservations;
+
+	private List<ReservationStay> activeStays;
+	private ReservationServiceImpl reservationService;
+	private ReservationServiceImpl uncachedReservationService;
+	private DateRange withinHorizon;
+	private DateRange beyondHorizon;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		activeStays = Lists.newArrayListWithCapacity(reservations);
+		for (int i = 0; i < reservations; i++) {
+			LocalDate arrivalDate = LocalDate.now().plusDays(random.nextInt(HORIZON_DAYS - MAX_DURATION));
+			activeStays.add(stayOf(basicReservation(arrivalDate, arrivalDate.plusDays(1 + random.nextInt(MAX_DURATION)))));
+		}
+		// The capacity never limits the synthetic reservations
+		OccupancyLedger occupancyLedger = new OccupancyLedger(HORIZON_DAYS, reservations);
+		occupancyLedger.reload(activeStays.stream());
+
+		withinHorizon = DateRange.builder()
+				.start(LocalDate.now())
+				.end(LocalDate.now().plusDays(AVAILABILITY_DAYS - 1))
+				.build();
+		beyondHorizon = DateRange.builder()
+				.start(LocalDate.now().plusDays(HORIZON_DAYS))
+				.end(LocalDate.now().plusDays(HORIZON_DAYS + TABLE_DAYS - 1))
+				.build();
+		List<DailyOccupancy> rows = Lists.newArrayListWithCapacity(TABLE_DAYS);
+		for (LocalDate date = beyondHorizon.getStart(); !date.isAfter(beyondHorizon.getEnd()); date = date.plusDays(1)) {
+			rows.add(new DailyOccupancy(date, random.nextInt(reservations)));
+		}
+		DailyOccupancyRepository dailyOccupancyRepository = mock(DailyOccupancyRepository.class);
+		when(dailyOccupancyRepository.findByDateBetween(any(Date.class), any(Date.class))).thenReturn(rows);
+
+		reservationService = new ReservationServiceImpl(mock(ReservationRepository.class),
+				dailyOccupancyRepository,
+				mock(DailyOccupancyReconciler.class),
+				new ReservationValidatorExtensionRegistry(Collections.singleton(new DefaultReservationValidatorExtensionImpl())),
+				occupancyLedger,
+				new DailyOccupancyCache(CACHE_MAXIMUM_SIZE, TimeUnit.HOURS.toMillis(1)),
+				new ActiveReservationCache(0L, 0L),
+				new TimeOrderedBookingIdentifierGenerator(),
+				Optional.empty(),
+				reservations);
+		// Nothing is ever cached, so every call reads the table
+		uncachedReservationService = new ReservationServiceImpl(mock(ReservationRepository.class),
+				dailyOccupancyRepository,
+				mock(DailyOccupancyReconciler.class),
+				new ReservationValidatorExtensionRegistry(Collections.singleton(new DefaultReservationValidatorExtensionImpl())),
+				occupancyLedger,
+				new DailyOccupancyCache(0L, 0L),
+				new ActiveReservationCache(0L, 0L),
+				new TimeOrderedBookingIdentifierGenerator(),
+				Optional.empty(),
+				reservations);
+	}
+
+	@Benchmark
+	public Set<ReservationAvailability> getAvailabilityWithinHorizon() {
+		return reservationService.getAvailability(withinHorizon);
+	}
+
+	@Benchmark
+	public Set<ReservationAvailability> getAvailabilityBeyondHorizon() {
+		return uncachedReservationService.getAvailability(beyondHorizon);
+	}
+
+	@Benchmark
+	public Set<ReservationAvailability> getCachedAvailabilityBeyondHorizon() {
+		return reservationService.getAvailability(beyondHorizon);
+	}
+
+	@Benchmark
+	public OccupancyLedger reloadOccupancyLedger() {
+		OccupancyLedger occupancyLedger = new OccupancyLedger(HORIZON_DAYS, reservations);
+		occupancyLedger.reload(activeStays.stream());
+		return occupancyLedger;
+	}
+}
@@ -0,0 +1,103 @@
+package com.reservations.validation;
+
+import static com.reservations.TestUtils.basicReservation;
+import static org.mockito.Mockito.mock;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.StaticMessageSource;
+
+import com.reservations.entity.Reservation;
+import com.reservations.exception.ReservationValidationException;
+import com.reservations.identifier.TimeOrderedBookingIdentifierGenerator;
+import com.reservations.occupancy.DailyOccupancyCache;
+import com.reservations.occupancy.DailyOccupancyReconciler;
+import com.reservations.occupancy.OccupancyLedger;
+import com.reservations.repository.DailyOccupancyRepository;
+import com.reservations.repository.ReservationRepository;
+import com.reservations.service.ActiveReservationCache;
+import com.reservations.service.ReservationServiceImpl;
+
+/**
+ * Measures the whole chain of rules checked when creating a reservation, including the availability check answered by
+ * the {@link OccupancyLedger}, for a valid reservation and for one that violates several rules
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ReservationCompleteValidatorExtensionBenchmark {
+	private static final int MIN_ARRIVAL_AHEAD_DAYS = 1;
+	private static final int MAX_ADVANCE_DAYS = 30;
+	private static final int MIN_DURATION = 1;
+	private static final int MAX_DURATION = 3;
+	private static final int MAX_CAPACITY = 10;
+
+	@Param({"true", "false"})
+	private boolean failFast;
+
+	private ReservationCompleteValidatorExtension reservationValidatorExtension;
+	private Reservation validReservation;
+	private Reservation invalidReservation;
+
+	@Setup
+	public void setup() {
+		OccupancyLedger occupancyLedger = new OccupancyLedger(MAX_ADVANCE_DAYS + MAX_DURATION, MAX_CAPACITY);
+		ReservationServiceImpl reservationService = new ReservationServiceImpl(mock(ReservationRepository.class),
+				mock(DailyOccupancyRepository.class),
+				mock(DailyOccupancyReconciler.class),
+				new ReservationValidatorExtensionRegistry(Collections.singleton(new DefaultReservationValidatorExtensionImpl())),
+				occupancyLedger,
+				new DailyOccupancyCache(0L, 0L),
+				new ActiveReservationCache(0L, 0L),
+				new TimeOrderedBookingIdentifierGenerator(),
+				Optional.empty(),
+				MAX_CAPACITY);
+		StaticMessageSource messages = new StaticMessageSource();
+		messages.setUseCodeAsDefaultMessage(true);
+		reservationValidatorExtension = new ReservationCreationValidatorExtensionImpl(MIN_ARRIVAL_AHEAD_DAYS,
+				MAX_ADVANCE_DAYS,
+				MIN_DURATION,
+				MAX_DURATION,
+				failFast,
+				reservationService,
+				messages);
+
+		validReservation = basicReservation(LocalDate.now().plusDays(5), LocalDate.now().plusDays(7));
+		// Arrives today and exceeds the maximum duration
+		invalidReservation = basicReservation(LocalDate.now(), LocalDate.now().plusDays(MAX_DURATION + 1));
+		occupancyLedger.add(validReservation.getBookingIdentifierUuid(), validReservation.getArrivalDate(), validReservation.getDepartureDate());
+	}
+
+	@Benchmark
+	public Reservation validateValidReservation() {
+		reservationValidatorExtension.validate(validReservation);
+		return validReservation;
+	}
+
+	@Benchmark
+	public ReservationValidationException validateInvalidReservation() {
+		try {
+			reservationValidatorExtension.validate(invalidReservation);
+			return null;
+		} catch (ReservationValidationException e) {
+			return e;
+		}
+	}
+}
@@ -2,9 +2,11 @@ package com.reservations;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 
 @SpringBootApplication
+@EnableScheduling
 public class Application extends WebMvcConfigurerAdapter {
 	public static void main(String... args) {
 		SpringApplication.run(Application.class, args);
@@ -1,21 +1,28 @@
 package com.reservations.controller;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.concurrent.Callable;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import com.reservations.entity.Reservation;
 
 public interface ReservationController {
 	Callable<ResponseEntity> getAvailability(@RequestParam(value = "start", required = false) LocalDate start,
-											 @RequestParam(value = "end", required = false) LocalDate end);
+											 @RequestParam(value = "end", required = false) LocalDate end,
+											 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
 
 	Callable<ResponseEntity> createReservation(@RequestBody Reservation reservation);
 
+	Callable<ResponseEntity> createReservations(@RequestBody List<Reservation> reservations,
+												@RequestParam(value = "atomic", required = false, defaultValue = "false") boolean atomic);
+
 	Callable<ResponseEntity> updateReservation(@PathVariable("bookingIdentifierUuid") String bookingIdentifierUuid, @RequestBody Reservation reservation);
 
 	Callable<ResponseEntity> cancelReservation(@PathVariable("bookingIdentifierUuid") String bookingIdentifierUuid);
@@ -1,7 +1,9 @@
 package com.reservations.controller;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.Callable;
 
 import lombok.extern.slf4j.Slf4j;
@@ -9,11 +11,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -21,29 +26,45 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.reservations.entity.DateRange;
 import com.reservations.entity.Reservation;
+import com.reservations.entity.ReservationResult;
 import com.reservations.entity.ReservationStatus;
+import com.reservations.exception.BatchSizeExceededException;
 import com.reservations.exception.ReservationServiceException;
 import com.reservations.exception.ReservationValidationException;
+import com.reservations.pipeline.ReservationWritePipeline;
 import com.reservations.service.ReservationService;
 
 @Slf4j
 @RestController
 @RequestMapping(value = "/api/v1/reservations", produces = MediaType.APPLICATION_JSON_VALUE)
 public class ReservationControllerImpl implements ReservationController {
+	private static final String ANY_ETAG = "*";
+	private static final String WEAK_ETAG_PREFIX = "W/";
+
 	private final ReservationService reservationService;
+	private final Optional<ReservationWritePipeline> reservationWritePipeline;
 	private final int availabilityDefaultDays;
+	private final int batchMaxSize;
 
+	/**
+	 * The creations and cancellations are applied through the {@link ReservationWritePipeline} only when it's enabled
+	 */
 	@Autowired
 	public ReservationControllerImpl(ReservationService reservationService,
-									 @Value("${reservations.availability-default-days}") int availabilityDefaultDays) {
+									 Optional<ReservationWritePipeline> reservationWritePipeline,
+									 @Value("${reservations.availability-default-days}") int availabilityDefaultDays,
+									 @Value("${reservations.batch-max-size}") int batchMaxSize) {
 		this.reservationService = reservationService;
+		this.reservationWritePipeline = reservationWritePipeline;
 		this.availabilityDefaultDays = availabilityDefaultDays;
+		this.batchMaxSize = batchMaxSize;
 	}
 
 	@Override
 	@RequestMapping(method = RequestMethod.GET, value = "/availability")
 	public Callable<ResponseEntity> getAvailability(@RequestParam(value = "start", required = false) @DateTimeFormat(pattern = "MM-dd-yyyy") LocalDate start,
-													@RequestParam(value = "end", required = false) @DateTimeFormat(pattern = "MM-dd-yyyy") LocalDate end) {
+													@RequestParam(value = "end", required = false) @DateTimeFormat(pattern = "MM-dd-yyyy") LocalDate end,
+													@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 		return () -> {
 			DateRange dateRange = DateRange.builder()
 					.start(start)
@@ -52,7 +73,16 @@ public class ReservationControllerImpl implements ReservationController {
 			applyDefaultRange(dateRange);
 			log.info("Received API call to get campsite availability start={}, end={}", dateRange.getStart(), dateRange.getEnd());
 			try {
-				return ResponseEntity.ok(reservationService.getAvailability(dateRange));
+				// The tag is taken before calculating the availability, so it's never newer than the response body
+				Optional<String> eTag = reservationService.getAvailabilityTag(dateRange).map(tag -> "\"" + tag + "\"");
+				if (!eTag.isPresent()) {
+					return ResponseEntity.ok(reservationService.getAvailability(dateRange));
+				}
+				if (matchesAny(ifNoneMatch, eTag.get())) {
+					log.debug("Availability in range start={}, end={} not modified since eTag={}", dateRange.getStart(), dateRange.getEnd(), eTag.get());
+					return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag.get()).build();
+				}
+				return ResponseEntity.ok().eTag(eTag.get()).body(reservationService.getAvailability(dateRange));
 			} catch (ReservationServiceException e) {
 				log.error("Error getting availability in range start={}, end={}, error={}", dateRange.getStart(), dateRange.getEnd(), e.getMessage());
 				return ResponseEntity.status(e.getResponseStatus()).body(e.getResponseBody());
@@ -69,7 +99,13 @@ public class ReservationControllerImpl implements ReservationController {
 		return () -> {
 			log.info("Received API call to create a reservation for user with fullName={}", reservation.getFullName());
 			try {
-				return ResponseEntity.status(HttpStatus.CREATED).body(reservationService.createReservation(reservation));
+				Reservation created = reservationWritePipeline.isPresent() ?
+						reservationWritePipeline.get().createReservation(reservation) :
+						reservationService.createReservation(reservation);
+				return ResponseEntity.status(HttpStatus.CREATED).body(created);
+			} catch (ReservationServiceException e) {
+				log.error("Error creating reservation={}, error={}", reservation, e.getMessage());
+				return ResponseEntity.status(e.getResponseStatus()).body(e.getResponseBody());
 			} catch (ReservationValidationException e) {
 				log.error("Error validating reservation={}, error={}", reservation, e.getMessage());
 				return ResponseEntity.badRequest().body(e.getErrors());
@@ -80,6 +116,32 @@ public class ReservationControllerImpl implements ReservationController {
 		};
 	}
 
+	/**
+	 * Returns 201 when every reservation was created. Otherwise, returns 207 with the result of each one.
+	 */
+	@Override
+	@RequestMapping(method = RequestMethod.POST, value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public Callable<ResponseEntity> createReservations(@RequestBody List<Reservation> reservations,
+													   @RequestParam(value = "atomic", required = false, defaultValue = "false") boolean atomic) {
+		return () -> {
+			log.info("Received API call to create a batch of reservations with size={}, atomic={}", reservations.size(), atomic);
+			try {
+				if (reservations.isEmpty() || reservations.size() > batchMaxSize) {
+					throw new BatchSizeExceededException(reservations.size(), batchMaxSize);
+				}
+				List<ReservationResult> results = reservationService.createReservations(reservations, atomic);
+				HttpStatus status = results.stream().allMatch(ReservationResult::isCreated) ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+				return ResponseEntity.status(status).body(results);
+			} catch (ReservationServiceException e) {
+				log.error("Error creating batch of reservations with size={}, error={}", reservations.size(), e.getMessage());
+				return ResponseEntity.status(e.getResponseStatus()).body(e.getResponseBody());
+			} catch (Exception e) {
+				log.error("Error creating batch of reservations with size={}, error={}", reservations.size(), e.getMessage());
+				return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+			}
+		};
+	}
+
 	@Override
 	@RequestMapping(method = RequestMethod.PATCH, value = "/{bookingIdentifierUuid}", consumes = MediaType.APPLICATION_JSON_VALUE)
 	public Callable<ResponseEntity> updateReservation(@PathVariable("bookingIdentifierUuid") String bookingIdentifierUuid, @RequestBody Reservation updatedReservation) {
@@ -106,7 +168,12 @@ public class ReservationControllerImpl implements ReservationController {
 		return () -> {
 			log.info("Received API call to cancel reservation with bookingIdentifierUuid={}", bookingIdentifierUuid);
 			try {
-				reservationService.cancelReservation(reservationService.getByBookingIdentifierUuidAndStatus(bookingIdentifierUuid, ReservationStatus.ACTIVE));
+				Reservation reservation = reservationService.getByBookingIdentifierUuidAndStatus(bookingIdentifierUuid, ReservationStatus.ACTIVE);
+				if (reservationWritePipeline.isPresent()) {
+					reservationWritePipeline.get().cancelReservation(reservation);
+				} else {
+					reservationService.cancelReservation(reservation);
+				}
 				return ResponseEntity.noContent().build();
 			} catch (ReservationServiceException e) {
 				log.error("Error cancelling reservation with bookingIdentifierUuid={}, error={}", bookingIdentifierUuid, e.getMessage());
@@ -121,6 +188,36 @@ public class ReservationControllerImpl implements ReservationController {
 		};
 	}
 
+	/**
+	 * Completes the requests that failed before their handler was called, such as the ones rejected because all the
+	 * threads and the queue of their executor are busy
+	 */
+	@ExceptionHandler(ReservationServiceException.class)
+	public ResponseEntity handleReservationServiceException(ReservationServiceException e) {
+		log.error("Error handling request, error={}", e.getMessage());
+		return ResponseEntity.status(e.getResponseStatus()).body(e.getResponseBody());
+	}
+
+	/**
+	 * Checks if the eTag is part of the If-None-Match header, which holds a comma-separated list of tags or "*".
+	 * Tags are compared with the weak comparison, as required for this header.
+	 */
+	private boolean matchesAny(String ifNoneMatch, String eTag) {
+		if (Objects.isNull(ifNoneMatch)) {
+			return false;
+		}
+		for (String tag : ifNoneMatch.split(",")) {
+			String trimmed = tag.trim();
+			if (trimmed.startsWith(WEAK_ETAG_PREFIX)) {
+				trimmed = trimmed.substring(WEAK_ETAG_PREFIX.length());
+			}
+			if (trimmed.equals(ANY_ETAG) || trimmed.equals(eTag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private void applyDefaultRange(DateRange dateRange) {
 		if (Objects.isNull(dateRange.getStart()) && Objects.isNull(dateRange.getEnd())) {
 			// Applying default filter values
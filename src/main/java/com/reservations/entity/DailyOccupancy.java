@@ -0,0 +1,53 @@
+package com.reservations.entity;
+
+import static com.reservations.entity.utils.DateUtils.toDate;
+import static com.reservations.entity.utils.DateUtils.toLocalDate;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Quantity of ACTIVE reservations occupying a particular night
+ */
+@NoArgsConstructor
+@Entity
+@Data
+@ToString
+@Table(name = "reservation_daily_occupancy")
+public class DailyOccupancy implements Serializable {
+	private static final long serialVersionUID = 4398027612380947193L;
+
+	// Attribute converters aren't applied to identifiers, so the date is mapped as a temporal instead of a LocalDate
+	@Id
+	@Temporal(TemporalType.DATE)
+	@Column(name = "date", nullable = false)
+	private Date date;
+
+	@Column(name = "active_count", nullable = false)
+	private long activeCount;
+
+	public DailyOccupancy(LocalDate date, long activeCount) {
+		this.date = toDate(date);
+		this.activeCount = activeCount;
+	}
+
+	public LocalDate getDate() {
+		return toLocalDate(date);
+	}
+
+	public void setDate(LocalDate date) {
+		this.date = toDate(date);
+	}
+}
@@ -18,4 +18,18 @@ public class DateRange {
 	public boolean isPast() {
 		return start.isBefore(LocalDate.now());
 	}
+
+	/**
+	 * Returns all the days within the range, including the end
+	 */
+	public EpochDayRange days() {
+		return EpochDayRange.inclusive(start, end);
+	}
+
+	/**
+	 * Returns the nights of a stay arriving on the start and leaving on the end
+	 */
+	public EpochDayRange nights() {
+		return EpochDayRange.nights(start, end);
+	}
 }
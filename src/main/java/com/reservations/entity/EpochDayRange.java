@@ -0,0 +1,124 @@
+package com.reservations.entity;
+
+import java.time.LocalDate;
+import java.util.function.LongConsumer;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Immutable range of days represented by their epoch-day, from start (inclusive) to end (exclusive). Membership,
+ * intersection and size are resolved with plain arithmetic, and the days can be iterated as primitive longs, so
+ * working with a range never materializes its dates.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public final class EpochDayRange {
+	public static final EpochDayRange EMPTY = new EpochDayRange(0L, 0L);
+
+	private final long start;
+	private final long end;
+
+	private EpochDayRange(long start, long end) {
+		this.start = start;
+		this.end = end;
+	}
+
+	/**
+	 * Creates the range from start (inclusive) to end (exclusive). It's empty when end isn't after start.
+	 */
+	public static EpochDayRange of(long start, long end) {
+		return start < end ? new EpochDayRange(start, end) : EMPTY;
+	}
+
+	/**
+	 * Creates the range with all the days from start to end, both inclusive
+	 */
+	public static EpochDayRange inclusive(LocalDate start, LocalDate end) {
+		return of(start.toEpochDay(), end.toEpochDay() + 1);
+	}
+
+	/**
+	 * Creates the range with the nights occupied by a stay. The departure date is not occupied, unless it's the same
+	 * day as the arrival date.
+	 */
+	public static EpochDayRange nights(LocalDate arrivalDate, LocalDate departureDate) {
+		return nights(arrivalDate.toEpochDay(), departureDate.toEpochDay());
+	}
+
+	/**
+	 * Same as {@link #nights(LocalDate, LocalDate)}, for the epoch-days of the arrival and departure dates
+	 */
+	public static EpochDayRange nights(long arrivalEpochDay, long departureEpochDay) {
+		return arrivalEpochDay == departureEpochDay ?
+				of(arrivalEpochDay, arrivalEpochDay + 1) :
+				of(arrivalEpochDay, departureEpochDay);
+	}
+
+	public int size() {
+		return (int) (end - start);
+	}
+
+	public boolean isEmpty() {
+		return start == end;
+	}
+
+	public boolean contains(long epochDay) {
+		return epochDay >= start && epochDay < end;
+	}
+
+	/**
+	 * Checks if every day of the other range is also part of this one. The empty range is part of any range.
+	 */
+	public boolean contains(EpochDayRange other) {
+		return other.isEmpty() || (other.start >= start && other.end <= end);
+	}
+
+	public EpochDayRange intersect(EpochDayRange other) {
+		return of(Math.max(start, other.start), Math.min(end, other.end));
+	}
+
+	/**
+	 * Returns the smallest range that contains both, including the days between them when they don't overlap. The
+	 * empty range is ignored.
+	 */
+	public EpochDayRange span(EpochDayRange other) {
+		if (isEmpty()) {
+			return other;
+		}
+		return other.isEmpty() ? this : of(Math.min(start, other.start), Math.max(end, other.end));
+	}
+
+	/**
+	 * Returns the position of the day within the range, so it can be used to index an array with one position per day
+	 */
+	public int indexOf(long epochDay) {
+		return (int) (epochDay - start);
+	}
+
+	public void forEach(LongConsumer action) {
+		for (long day = start; day < end; day++) {
+			action.accept(day);
+		}
+	}
+
+	public LocalDate startDate() {
+		return LocalDate.ofEpochDay(start);
+	}
+
+	/**
+	 * Returns the first date after the range
+	 */
+	public LocalDate endDate() {
+		return LocalDate.ofEpochDay(end);
+	}
+
+	/**
+	 * Returns the last date within the range
+	 */
+	public LocalDate lastDate() {
+		return LocalDate.ofEpochDay(end - 1);
+	}
+}
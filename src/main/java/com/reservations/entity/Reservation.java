@@ -3,9 +3,11 @@ package com.reservations.entity;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Objects;
 import java.util.UUID;
 
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
@@ -15,6 +17,7 @@ import javax.persistence.Id;
 import javax.persistence.PrePersist;
 import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import javax.validation.constraints.NotNull;
 
 import lombok.AllArgsConstructor;
@@ -23,6 +26,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import org.hibernate.validator.constraints.NotEmpty;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
@@ -32,15 +38,24 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 @AllArgsConstructor
 @Entity
 @Data
-@Builder
+@Builder(toBuilder = true)
 @ToString
 @Table(name = "reservations")
-@JsonIgnoreProperties(value = {"id"})
+@JsonIgnoreProperties(value = {"id", "version"})
 public class Reservation implements Serializable {
 	private static final long serialVersionUID = -6507963547063710509L;
+	private static final String ID_GENERATOR = "reservations_id_generator";
+	private static final String ID_ALLOCATION_SIZE = "50";
 
+	// Identifiers are allocated in blocks from a table, so inserts can be batched, unlike with AUTO_INCREMENT columns
 	@Id
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_GENERATOR)
+	@GenericGenerator(name = ID_GENERATOR, strategy = "enhanced-sequence", parameters = {
+			@Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "reservations_id_sequence"),
+			@Parameter(name = SequenceStyleGenerator.FORCE_TBL_PARAM, value = "true"),
+			@Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = ID_ALLOCATION_SIZE),
+			@Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled-lo")
+	})
 	private Long id;
 
 	@Column(name = "created_on", nullable = false)
@@ -72,14 +87,22 @@ public class Reservation implements Serializable {
 	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "MM-dd-yyyy")
 	private LocalDate departureDate;
 
-	@Column(name = "booking_identifier_uuid", nullable = false, length = 50)
+	@Column(name = "booking_identifier_uuid", nullable = false, columnDefinition = "VARBINARY(16)")
+	@Convert(converter = UuidAttributeConverter.class)
 	private String bookingIdentifierUuid;
 
+	// Incremented by every update, which is rejected if the row was written since the reservation was read
+	@Version
+	@Column(name = "version", nullable = false)
+	private Long version;
+
 	@PrePersist
 	protected void onCreate() {
 		createdOn = LocalDateTime.now();
 		lastModified = LocalDateTime.now();
-		bookingIdentifierUuid = UUID.randomUUID().toString();
+		if (Objects.isNull(bookingIdentifierUuid)) {
+			bookingIdentifierUuid = UUID.randomUUID().toString();
+		}
 	}
 
 	@PreUpdate
@@ -0,0 +1,50 @@
+package com.reservations.entity;
+
+import lombok.Builder;
+import lombok.Data;
+
+import org.springframework.http.HttpStatus;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of each reservation within a batch. The status and errors are the same ones the reservation would have
+ * received if it was created on its own.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReservationResult {
+	int status;
+	Reservation reservation;
+	Object errors;
+
+	public static ReservationResult created(Reservation reservation) {
+		return ReservationResult.builder()
+				.status(HttpStatus.CREATED.value())
+				.reservation(reservation)
+				.build();
+	}
+
+	public static ReservationResult failed(HttpStatus status, Object errors) {
+		return ReservationResult.builder()
+				.status(status.value())
+				.errors(errors)
+				.build();
+	}
+
+	/**
+	 * Result of a valid reservation that wasn't created because another one of the same atomic batch failed
+	 */
+	public static ReservationResult notCreated() {
+		return ReservationResult.builder()
+				.status(HttpStatus.FAILED_DEPENDENCY.value())
+				.build();
+	}
+
+	@JsonIgnore
+	public boolean isCreated() {
+		return status == HttpStatus.CREATED.value();
+	}
+}
@@ -0,0 +1,22 @@
+package com.reservations.entity;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Projection of a {@link Reservation} with only what's needed to know the nights it occupies, and the version of the
+ * reservation they belong to. It's built directly from the query results, so it's never tracked by the persistence
+ * context.
+ */
+@Value
+@Builder
+@AllArgsConstructor
+public class ReservationStay {
+	String bookingIdentifierUuid;
+	LocalDate arrivalDate;
+	LocalDate departureDate;
+	long version;
+}
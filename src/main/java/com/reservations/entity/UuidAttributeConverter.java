@@ -0,0 +1,23 @@
+package com.reservations.entity;
+
+import static com.reservations.entity.utils.UuidUtils.fromBytes;
+import static com.reservations.entity.utils.UuidUtils.toBytes;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores a UUID kept as text in the entities as its 16 bytes. It's applied explicitly, as any other text is stored as is.
+ */
+@Converter
+public class UuidAttributeConverter implements AttributeConverter<String, byte[]> {
+	@Override
+	public byte[] convertToDatabaseColumn(String uuid) {
+		return toBytes(uuid);
+	}
+
+	@Override
+	public String convertToEntityAttribute(byte[] bytes) {
+		return fromBytes(bytes);
+	}
+}
@@ -4,22 +4,23 @@ import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.time.temporal.ChronoUnit;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
-import com.google.common.collect.Lists;
 import com.reservations.entity.DateRange;
+import com.reservations.entity.EpochDayRange;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class DateUtils {
 	public static LocalDate toLocalDate(Date date) {
+		if (date instanceof java.sql.Date) {
+			// java.sql.Date doesn't support toInstant(), but it's already a date without time
+			return ((java.sql.Date) date).toLocalDate();
+		}
 		return date == null ? null : date.toInstant()
 				.atZone(ZoneId.systemDefault())
 				.toLocalDate();
@@ -44,15 +45,7 @@ public class DateUtils {
 	 * The end is only included when start and end are the same day.
 	 */
 	public static List<LocalDate> daysBetween(LocalDate start, LocalDate end) {
-		if (rangeInvalid(start, end)) {
-			return Lists.newArrayList();
-		}
-		// ChronoUnit.DAYS.between() is exclusive.
-		return start.isEqual(end) ?
-				daysBetweenInclusive(start, end) :
-				Stream.iterate(start, date -> date.plusDays(1))
-						.limit(ChronoUnit.DAYS.between(start, end))
-						.collect(Collectors.toList());
+		return toDates(EpochDayRange.nights(start, end));
 	}
 
 	/**
@@ -67,13 +60,7 @@ public class DateUtils {
 	 * Returns a {@link List} with all the dates within a range. It's incluse, meaning that the end is also included.
 	 */
 	public static List<LocalDate> daysBetweenInclusive(LocalDate start, LocalDate end) {
-		if (rangeInvalid(start, end)) {
-			return Lists.newArrayList();
-		}
-		// ChronoUnit.DAYS.between() is exclusive. So we sum 1 to the limit
-		return Stream.iterate(start, date -> date.plusDays(1))
-				.limit(ChronoUnit.DAYS.between(start, end) + 1)
-				.collect(Collectors.toList());
+		return toDates(EpochDayRange.inclusive(start, end));
 	}
 
 	/**
@@ -84,9 +71,12 @@ public class DateUtils {
 	}
 
 	/**
-	 * Checks if the range is valid
+	 * Returns a {@link List} with the dates of an {@link EpochDayRange}. Prefer iterating the range itself when the
+	 * dates aren't needed as objects.
 	 */
-	private static boolean rangeInvalid(LocalDate start, LocalDate end) {
-		return start.isAfter(end);
+	public static List<LocalDate> toDates(EpochDayRange range) {
+		List<LocalDate> dates = new ArrayList<>(range.size());
+		range.forEach(day -> dates.add(LocalDate.ofEpochDay(day)));
+		return dates;
 	}
 }
@@ -0,0 +1,44 @@
+package com.reservations.entity.utils;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class UuidUtils {
+	public static final int UUID_BYTES = 16;
+
+	private static final Pattern CANONICAL_UUID = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+	/**
+	 * Checks if the text is a UUID in its canonical form of 36 characters
+	 */
+	public static boolean isValid(String uuid) {
+		return uuid != null && CANONICAL_UUID.matcher(uuid).matches();
+	}
+
+	/**
+	 * Returns the 16 bytes of the UUID, most significant first, so the order of the bytes is the order of the text
+	 */
+	public static byte[] toBytes(String uuid) {
+		if (uuid == null) {
+			return null;
+		}
+		UUID parsed = UUID.fromString(uuid);
+		return ByteBuffer.allocate(UUID_BYTES)
+				.putLong(parsed.getMostSignificantBits())
+				.putLong(parsed.getLeastSignificantBits())
+				.array();
+	}
+
+	public static String fromBytes(byte[] bytes) {
+		if (bytes == null) {
+			return null;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		return new UUID(buffer.getLong(), buffer.getLong()).toString();
+	}
+}
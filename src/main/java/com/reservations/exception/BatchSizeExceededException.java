@@ -0,0 +1,12 @@
+package com.reservations.exception;
+
+import lombok.Getter;
+
+import org.springframework.http.HttpStatus;
+
+@Getter
+public class BatchSizeExceededException extends ReservationServiceException {
+	public BatchSizeExceededException(int size, int maxSize) {
+		super(HttpStatus.BAD_REQUEST, String.format("Invalid batch: size=%d must be between 1 and maxSize=%d", size, maxSize));
+	}
+}
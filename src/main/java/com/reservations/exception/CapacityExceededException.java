@@ -0,0 +1,14 @@
+package com.reservations.exception;
+
+import java.time.LocalDate;
+
+import lombok.Getter;
+
+import org.springframework.http.HttpStatus;
+
+@Getter
+public class CapacityExceededException extends ReservationServiceException {
+	public CapacityExceededException(LocalDate arrivalDate, LocalDate departureDate) {
+		super(HttpStatus.CONFLICT, String.format("The campsite is at full capacity in range arrivalDate=%s, departureDate=%s", arrivalDate, departureDate));
+	}
+}
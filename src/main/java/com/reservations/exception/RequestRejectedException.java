@@ -0,0 +1,12 @@
+package com.reservations.exception;
+
+import lombok.Getter;
+
+import org.springframework.http.HttpStatus;
+
+@Getter
+public class RequestRejectedException extends ReservationServiceException {
+	public RequestRejectedException(String executorName) {
+		super(HttpStatus.SERVICE_UNAVAILABLE, String.format("Too many requests in progress: executor=%s is saturated", executorName));
+	}
+}
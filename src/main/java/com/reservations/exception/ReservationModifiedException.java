@@ -0,0 +1,12 @@
+package com.reservations.exception;
+
+import lombok.Getter;
+
+import org.springframework.http.HttpStatus;
+
+@Getter
+public class ReservationModifiedException extends ReservationServiceException {
+	public ReservationModifiedException(String bookingIdentifierUuid) {
+		super(HttpStatus.CONFLICT, String.format("Reservation with bookingIdentifierUuid=%s was modified by another request", bookingIdentifierUuid));
+	}
+}
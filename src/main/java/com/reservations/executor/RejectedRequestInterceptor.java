@@ -0,0 +1,23 @@
+package com.reservations.executor;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptorAdapter;
+
+import com.reservations.exception.RequestRejectedException;
+
+/**
+ * Fails the requests rejected by a {@link RequestTaskExecutor} before their handler is called, so they are completed
+ * with 503 through the exception handlers of the controller
+ */
+public class RejectedRequestInterceptor extends CallableProcessingInterceptorAdapter {
+	@Override
+	public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+		RequestTaskExecutor rejecting = RequestTaskExecutor.rejecting();
+		if (Objects.nonNull(rejecting)) {
+			throw new RequestRejectedException(rejecting.getName());
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package com.reservations.executor;
+
+/**
+ * What a {@link RequestTaskExecutor} does with a task once all its threads are busy and its queue is full. Rejected
+ * requests are completed with 503 without running their handler.
+ */
+public enum RejectionPolicy {
+	/**
+	 * Rejects the task right away
+	 */
+	ABORT,
+	/**
+	 * Blocks the container thread that received the request until there's room in the queue, which slows down the
+	 * intake of new requests, and rejects the task if there's still no room after a while
+	 */
+	WAIT
+}
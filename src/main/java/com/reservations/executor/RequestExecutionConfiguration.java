@@ -0,0 +1,76 @@
+package com.reservations.executor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+/**
+ * Runs the {@link java.util.concurrent.Callable}s returned by the controller on bounded pools, one for reads and one
+ * for writes, instead of the default executor that creates a new thread for every request. When the virtual execution
+ * mode is selected and the JDK supports it, they run on a {@link VirtualThreadTaskExecutor} instead, and the pools are
+ * left unused.
+ */
+@Slf4j
+@Configuration
+public class RequestExecutionConfiguration extends WebMvcConfigurerAdapter {
+	private static final String VIRTUAL_MODE = "virtual";
+
+	private final int readPoolSize;
+	private final int readQueueCapacity;
+	private final int writePoolSize;
+	private final int writeQueueCapacity;
+	private final RejectionPolicy rejectionPolicy;
+	private final long rejectionWaitMs;
+	private final String mode;
+	private final ObjectProvider<VirtualThreadTaskExecutor> virtualThreadTaskExecutor;
+
+	@Autowired
+	public RequestExecutionConfiguration(@Value("${reservations.executor.mode}") String mode,
+										 ObjectProvider<VirtualThreadTaskExecutor> virtualThreadTaskExecutor,
+										 @Value("${reservations.executor.reads.pool-size}") int readPoolSize,
+										 @Value("${reservations.executor.reads.queue-capacity}") int readQueueCapacity,
+										 @Value("${reservations.executor.writes.pool-size}") int writePoolSize,
+										 @Value("${reservations.executor.writes.queue-capacity}") int writeQueueCapacity,
+										 @Value("${reservations.executor.rejection-policy}") RejectionPolicy rejectionPolicy,
+										 @Value("${reservations.executor.rejection-wait-ms}") long rejectionWaitMs) {
+		this.readPoolSize = readPoolSize;
+		this.readQueueCapacity = readQueueCapacity;
+		this.writePoolSize = writePoolSize;
+		this.writeQueueCapacity = writeQueueCapacity;
+		this.rejectionPolicy = rejectionPolicy;
+		this.rejectionWaitMs = rejectionWaitMs;
+		this.mode = mode;
+		this.virtualThreadTaskExecutor = virtualThreadTaskExecutor;
+	}
+
+	@Bean
+	public RequestTaskExecutor readRequestTaskExecutor() {
+		return new RequestTaskExecutor("reads", readPoolSize, readQueueCapacity, rejectionPolicy, rejectionWaitMs);
+	}
+
+	@Bean
+	public RequestTaskExecutor writeRequestTaskExecutor() {
+		return new RequestTaskExecutor("writes", writePoolSize, writeQueueCapacity, rejectionPolicy, rejectionWaitMs);
+	}
+
+	@Override
+	public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+		VirtualThreadTaskExecutor virtualExecutor = virtualThreadTaskExecutor.getIfAvailable();
+		if (virtualExecutor != null) {
+			log.warn("Running requests on virtual threads, which are pinned to their carrier while the JDBC driver blocks");
+			configurer.setTaskExecutor(virtualExecutor);
+		} else {
+			if (VIRTUAL_MODE.equals(mode)) {
+				log.warn("Virtual threads aren't supported by Java {}, running requests on platform threads", System.getProperty("java.version"));
+			}
+			configurer.setTaskExecutor(new RequestTaskExecutorRouter(readRequestTaskExecutor(), writeRequestTaskExecutor()));
+		}
+		configurer.registerCallableInterceptors(new RejectedRequestInterceptor());
+	}
+}
@@ -0,0 +1,177 @@
+package com.reservations.executor;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import com.reservations.exception.RequestRejectedException;
+
+/**
+ * Bounded pool that runs the {@link java.util.concurrent.Callable}s returned by the controller. Tasks wait in a bounded
+ * queue once all the threads are busy, and they are handled according to the {@link RejectionPolicy} once the queue is
+ * full, so a burst of requests never creates more threads than the pool allows.
+ *
+ * The request of a rejected task must still be completed, so the task is run by a separate thread, marked as rejected:
+ * {@link RejectedRequestInterceptor} fails it before its handler is called, so it takes no time. That thread has a
+ * bounded queue as well, so rejections never pile up in memory. Once it's full, the 503 is written straight to the
+ * response of the request being submitted, which is completed without running the task: running it on the submitting
+ * thread would run the interceptors of the request on the thread that's still handling it, and the ones that bind
+ * resources to the thread, such as the open EntityManager in view, would fail it with 500 instead. The active threads,
+ * queued and rejected tasks and the time tasks wait in the queue are exposed through the actuator metrics endpoint.
+ */
+@Slf4j
+public class RequestTaskExecutor extends ThreadPoolTaskExecutor implements PublicMetrics {
+	private static final String METRIC_PREFIX = "executor.";
+	private static final ThreadLocal<RequestTaskExecutor> REJECTING = new ThreadLocal<>();
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	@Getter
+	private final String name;
+	private final RejectionPolicy rejectionPolicy;
+	private final long rejectionWaitMs;
+	private final ExecutorService rejectedTaskExecutor;
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder started = new LongAdder();
+	private final LongAdder totalWaitNanos = new LongAdder();
+	private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0L);
+
+	public RequestTaskExecutor(String name, int poolSize, int queueCapacity, RejectionPolicy rejectionPolicy, long rejectionWaitMs) {
+		this.name = name;
+		this.rejectionPolicy = rejectionPolicy;
+		this.rejectionWaitMs = rejectionWaitMs;
+		CustomizableThreadFactory rejectedThreadFactory = new CustomizableThreadFactory(name + "-rejected-");
+		rejectedThreadFactory.setDaemon(true);
+		// Failing a rejected task is immediate, so a single thread keeps up unless the container is flooded
+		this.rejectedTaskExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), rejectedThreadFactory);
+		setCorePoolSize(poolSize);
+		setMaxPoolSize(poolSize);
+		setQueueCapacity(queueCapacity);
+		setThreadNamePrefix(name + "-");
+		setTaskDecorator(this::measureWait);
+		setRejectedExecutionHandler(this::reject);
+	}
+
+	/**
+	 * Returns the executor that rejected the task running on the current thread, or null if it wasn't rejected
+	 */
+	public static RequestTaskExecutor rejecting() {
+		return REJECTING.get();
+	}
+
+	@Override
+	public void shutdown() {
+		super.shutdown();
+		rejectedTaskExecutor.shutdown();
+	}
+
+	private Runnable measureWait(Runnable task) {
+		long submittedAt = System.nanoTime();
+		return () -> {
+			// Rejected tasks never waited in the queue
+			if (REJECTING.get() == null) {
+				long waitNanos = System.nanoTime() - submittedAt;
+				started.increment();
+				totalWaitNanos.add(waitNanos);
+				maxWaitNanos.accumulate(waitNanos);
+			}
+			task.run();
+		};
+	}
+
+	private void reject(Runnable task, ThreadPoolExecutor executor) {
+		if (rejectionPolicy == RejectionPolicy.WAIT && !executor.isShutdown() && offer(task, executor)) {
+			return;
+		}
+		rejected.increment();
+		Runnable rejectedTask = () -> {
+			REJECTING.set(this);
+			try {
+				task.run();
+			} finally {
+				REJECTING.remove();
+			}
+		};
+		try {
+			rejectedTaskExecutor.execute(rejectedTask);
+		} catch (RejectedExecutionException e) {
+			// Outside of a request there are no interceptors, so the task can still be failed by the submitting thread
+			if (!respondRejected()) {
+				rejectedTask.run();
+			}
+		}
+	}
+
+	/**
+	 * Completes the asynchronous request being submitted from the current thread with the 503 of a
+	 * {@link RequestRejectedException}, without dispatching it again. Returns false if there's no such request.
+	 */
+	private boolean respondRejected() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (!(attributes instanceof ServletRequestAttributes)) {
+			return false;
+		}
+		HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+		HttpServletResponse response = ((ServletRequestAttributes) attributes).getResponse();
+		if (Objects.isNull(response) || !request.isAsyncStarted()) {
+			return false;
+		}
+		RequestRejectedException exception = new RequestRejectedException(name);
+		try {
+			response.setStatus(exception.getResponseStatus().value());
+			response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+			OBJECT_MAPPER.writeValue(response.getOutputStream(), exception.getResponseBody());
+		} catch (IOException e) {
+			log.warn("Error writing rejected response of executor={}, error={}", name, e.getMessage());
+		} finally {
+			request.getAsyncContext().complete();
+		}
+		return true;
+	}
+
+	private boolean offer(Runnable task, ThreadPoolExecutor executor) {
+		try {
+			return executor.getQueue().offer(task, rejectionWaitMs, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		String prefix = METRIC_PREFIX + name + ".";
+		long startedTasks = started.sum();
+		return Lists.newArrayList(
+				new Metric<>(prefix + "active", getActiveCount()),
+				new Metric<>(prefix + "pool-size", getPoolSize()),
+				new Metric<>(prefix + "queued", getThreadPoolExecutor().getQueue().size()),
+				new Metric<>(prefix + "rejected", rejected.sum()),
+				new Metric<>(prefix + "wait-time.mean-ms", startedTasks == 0 ? 0L : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum() / startedTasks)),
+				new Metric<>(prefix + "wait-time.max-ms", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get())));
+	}
+}
@@ -0,0 +1,57 @@
+package com.reservations.executor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Runs the tasks of the requests that only read on one executor, and the rest on another one, so a burst of writes
+ * can't delay the reads and the other way around. Tasks are submitted from the thread that handles the request, which
+ * is the one holding its attributes.
+ */
+public class RequestTaskExecutorRouter implements AsyncTaskExecutor {
+	private final AsyncTaskExecutor readExecutor;
+	private final AsyncTaskExecutor writeExecutor;
+
+	public RequestTaskExecutorRouter(AsyncTaskExecutor readExecutor, AsyncTaskExecutor writeExecutor) {
+		this.readExecutor = readExecutor;
+		this.writeExecutor = writeExecutor;
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		route().execute(task);
+	}
+
+	@Override
+	public void execute(Runnable task, long startTimeout) {
+		route().execute(task, startTimeout);
+	}
+
+	@Override
+	public Future<?> submit(Runnable task) {
+		return route().submit(task);
+	}
+
+	@Override
+	public <T> Future<T> submit(Callable<T> task) {
+		return route().submit(task);
+	}
+
+	private AsyncTaskExecutor route() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes instanceof ServletRequestAttributes && isRead(((ServletRequestAttributes) attributes).getRequest().getMethod())) {
+			return readExecutor;
+		}
+		return writeExecutor;
+	}
+
+	private static boolean isRead(String method) {
+		return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method);
+	}
+}
@@ -0,0 +1,66 @@
+package com.reservations.executor;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Runs every {@link java.util.concurrent.Callable} returned by the controller on a new virtual thread, so there's no
+ * pool to size and no queue: the number of requests doing work at the same time is limited by the JDBC connection pool
+ * instead.
+ *
+ * Experimental, and off by default. MySQL Connector/J 5.1 and H2 block inside synchronized blocks, which pin the virtual
+ * thread to its carrier on Java 21, so every JDBC call still holds one of the few carrier threads and requests end up
+ * slower than on the platform pools. Only worth enabling with a driver that doesn't block while synchronized.
+ *
+ * Only created when the virtual execution mode is selected and the JDK supports it. The active and started tasks are
+ * exposed through the actuator metrics endpoint.
+ */
+@Component
+@ConditionalOnProperty(name = "reservations.executor.mode", havingValue = "virtual")
+@Conditional(VirtualThreadsCondition.class)
+public class VirtualThreadTaskExecutor extends SimpleAsyncTaskExecutor implements PublicMetrics {
+	private static final String METRIC_PREFIX = "executor.virtual.";
+	private static final String THREAD_NAME_PREFIX = "virtual-";
+
+	private final LongAdder active = new LongAdder();
+	private final LongAdder started = new LongAdder();
+
+	public VirtualThreadTaskExecutor() {
+		this(VirtualThreads.factory(THREAD_NAME_PREFIX)
+				.orElseThrow(() -> new IllegalStateException("Virtual threads aren't supported by Java " + System.getProperty("java.version"))));
+	}
+
+	VirtualThreadTaskExecutor(ThreadFactory threadFactory) {
+		super(threadFactory);
+	}
+
+	@Override
+	protected void doExecute(Runnable task) {
+		super.doExecute(() -> {
+			active.increment();
+			started.increment();
+			try {
+				task.run();
+			} finally {
+				active.decrement();
+			}
+		});
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		return Lists.newArrayList(
+				new Metric<>(METRIC_PREFIX + "active", active.sum()),
+				new Metric<>(METRIC_PREFIX + "started", started.sum()));
+	}
+}
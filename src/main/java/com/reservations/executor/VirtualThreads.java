@@ -0,0 +1,35 @@
+package com.reservations.executor;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Creates virtual threads when the JDK running the service supports them. The service is compiled for Java 8, so the
+ * builder introduced by Java 21 is reached through reflection, using only its public interfaces.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class VirtualThreads {
+	private static final String BUILDER_CLASS = "java.lang.Thread$Builder";
+
+	/**
+	 * Returns a factory of virtual threads named after the prefix followed by a counter, or an empty result if the JDK
+	 * doesn't support them, either because it's older or because they are still a preview feature that isn't enabled
+	 */
+	public static Optional<ThreadFactory> factory(String prefix) {
+		try {
+			Class<?> builderClass = Class.forName(BUILDER_CLASS);
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+			return Optional.of((ThreadFactory) builderClass.getMethod("factory").invoke(builder));
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return Optional.empty();
+		}
+	}
+
+	public static boolean isSupported() {
+		return factory("").isPresent();
+	}
+}
@@ -0,0 +1,18 @@
+package com.reservations.executor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * Matches when the JDK running the service supports virtual threads
+ */
+public class VirtualThreadsCondition extends SpringBootCondition {
+	@Override
+	public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+		return VirtualThreads.isSupported()
+				? ConditionOutcome.match("Virtual threads are supported by Java " + System.getProperty("java.version"))
+				: ConditionOutcome.noMatch("Virtual threads aren't supported by Java " + System.getProperty("java.version"));
+	}
+}
@@ -0,0 +1,32 @@
+package com.reservations.extensibility.registry;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+import com.reservations.exception.extension.ExtensionNotFoundException;
+import com.reservations.extensibility.extension.Extension;
+import com.reservations.extensibility.utils.ExtensionUtils;
+
+/**
+ * Resolves the extension used for every value of the context once, when it's created, with the same rules as
+ * {@link ExtensionUtils#get(Set, Object)}. Looking up the extension of a context is then a read from an
+ * {@link EnumMap}, without iterating the candidates. Fails with {@link ExtensionNotFoundException} when created if any
+ * context has no candidate, so a missing extension is detected on start instead of on the first request.
+ */
+public class ExtensionRegistry<C extends Enum<C>, T extends Extension<C>> {
+	private final EnumMap<C, T> extensions;
+
+	public ExtensionRegistry(Class<C> contextType, Collection<T> candidates) {
+		Set<T> candidateSet = ImmutableSet.copyOf(candidates);
+		this.extensions = new EnumMap<>(contextType);
+		for (C context : contextType.getEnumConstants()) {
+			extensions.put(context, ExtensionUtils.get(candidateSet, context));
+		}
+	}
+
+	public T get(C context) {
+		return extensions.get(context);
+	}
+}
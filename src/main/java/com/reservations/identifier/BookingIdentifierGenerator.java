@@ -0,0 +1,9 @@
+package com.reservations.identifier;
+
+/**
+ * Generates the bookingIdentifierUuid of the new reservations, as a UUID in its canonical text form. The generator in
+ * use is chosen through reservations.booking-identifier.
+ */
+public interface BookingIdentifierGenerator {
+	String generate();
+}
@@ -0,0 +1,19 @@
+package com.reservations.identifier;
+
+import java.util.UUID;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generates random (version 4) UUIDs. They are spread over the whole index, and every call goes through the
+ * {@link java.security.SecureRandom} shared by {@link UUID#randomUUID()}.
+ */
+@Component
+@ConditionalOnProperty(name = "reservations.booking-identifier", havingValue = "random")
+public class RandomBookingIdentifierGenerator implements BookingIdentifierGenerator {
+	@Override
+	public String generate() {
+		return UUID.randomUUID().toString();
+	}
+}
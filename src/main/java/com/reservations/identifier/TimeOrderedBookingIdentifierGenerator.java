@@ -0,0 +1,81 @@
+package com.reservations.identifier;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generates UUIDs laid out as version 7: the first 48 bits are the milliseconds since the epoch, followed by the
+ * version, and the remaining 74 bits are random apart from the variant. Identifiers generated later sort after the
+ * previous ones, byte by byte and as text, so new reservations are appended at the end of the identifier index
+ * instead of splitting pages all over it.
+ *
+ * The identifier is the only credential required to update or cancel a reservation, so the random bits must not be
+ * guessable from other identifiers, even from the same millisecond. They come from a small pool of
+ * {@link SecureRandom}s, picked by the id of the calling thread, so concurrent requests rarely contend on the same
+ * generator. A generator per thread would be built again for every request running on its own virtual thread, while
+ * the pool is built once. Each one is seeded once from the shared one of the platform.
+ */
+@Component
+@ConditionalOnProperty(name = "reservations.booking-identifier", havingValue = "time-ordered", matchIfMissing = true)
+public class TimeOrderedBookingIdentifierGenerator implements BookingIdentifierGenerator {
+	private static final long VERSION = 0x7000L;
+	private static final long RANDOM_A_MASK = 0x0FFFL;
+	private static final long VARIANT = 0x8000000000000000L;
+	private static final long RANDOM_B_MASK = 0x3FFFFFFFFFFFFFFFL;
+	private static final String RANDOM_ALGORITHM = "SHA1PRNG";
+	private static final int SEED_BYTES = 32;
+	private static final SecureRandom SEEDS = new SecureRandom();
+	// Power of two, so the stripe of a thread is taken from the low bits of its id
+	private static final int STRIPES = 16;
+	private static final SecureRandom[] RANDOMS = newRandoms();
+
+	private final Clock clock;
+
+	@Autowired
+	public TimeOrderedBookingIdentifierGenerator() {
+		this(Clock.systemUTC());
+	}
+
+	public TimeOrderedBookingIdentifierGenerator(Clock clock) {
+		this.clock = clock;
+	}
+
+	@Override
+	public String generate() {
+		// SecureRandom is thread-safe, the stripes only spread the callers over several locks
+		SecureRandom random = RANDOMS[(int) (Thread.currentThread().getId() & (STRIPES - 1))];
+		long mostSignificantBits = (clock.millis() << 16) | VERSION | (random.nextLong() & RANDOM_A_MASK);
+		long leastSignificantBits = VARIANT | (random.nextLong() & RANDOM_B_MASK);
+		return new UUID(mostSignificantBits, leastSignificantBits).toString();
+	}
+
+	private static SecureRandom[] newRandoms() {
+		SecureRandom[] randoms = new SecureRandom[STRIPES];
+		for (int i = 0; i < STRIPES; i++) {
+			randoms[i] = newRandom();
+		}
+		return randoms;
+	}
+
+	/**
+	 * Seeding it before its first use replaces the seed it would read from the entropy source of the platform, which
+	 * may block
+	 */
+	private static SecureRandom newRandom() {
+		try {
+			byte[] seed = new byte[SEED_BYTES];
+			SEEDS.nextBytes(seed);
+			SecureRandom random = SecureRandom.getInstance(RANDOM_ALGORITHM);
+			random.setSeed(seed);
+			return random;
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
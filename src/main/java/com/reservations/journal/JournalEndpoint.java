@@ -0,0 +1,30 @@
+package com.reservations.journal;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes the {@link JournalVerifier} as the /journal actuator endpoint, so the journal of a running instance can be
+ * checked against the database before trusting it for the next start. Every call scans the reservations table, so it's
+ * sensitive and disabled unless an operator sets endpoints.journal.enabled, and it only reports counts.
+ */
+@Component
+@ConditionalOnProperty(name = "reservations.journal.enabled", havingValue = "true")
+@ConfigurationProperties(prefix = "endpoints.journal")
+public class JournalEndpoint extends AbstractEndpoint<JournalVerification> {
+	private final JournalVerifier journalVerifier;
+
+	@Autowired
+	public JournalEndpoint(JournalVerifier journalVerifier) {
+		super("journal", true, false);
+		this.journalVerifier = journalVerifier;
+	}
+
+	@Override
+	public JournalVerification invoke() {
+		return journalVerifier.verify();
+	}
+}
@@ -0,0 +1,108 @@
+package com.reservations.journal;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+import lombok.Value;
+
+import com.reservations.entity.EventType;
+import com.reservations.entity.ReservationStay;
+import com.reservations.entity.utils.UuidUtils;
+
+/**
+ * Creation, update or cancellation of a reservation as appended to the journal. Every record has the same size and ends
+ * with the CRC32 of the rest of its bytes, so a record that was only partially written is detected when reading it.
+ *
+ * Records are appended once each transaction completes, after the row of the reservation is unlocked, so two writes of
+ * the same booking may be appended in the opposite order they were committed. Each record carries the version the
+ * reservation got when it was written, and applying it only sets the stay of its booking if that version is newer than
+ * the known one, so applying records more than once or out of order leads to the same state.
+ */
+@Value
+class JournalRecord {
+	// Sequence, event type, booking identifier, arrival and departure epoch-days, version and checksum
+	static final int SIZE = Long.BYTES + Byte.BYTES + UuidUtils.UUID_BYTES + 2 * Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+	private static final EventType[] EVENT_TYPES = EventType.values();
+
+	long sequence;
+	EventType eventType;
+	String bookingIdentifierUuid;
+	LocalDate arrivalDate;
+	LocalDate departureDate;
+	long version;
+
+	void writeTo(ByteBuffer buffer) {
+		int start = buffer.position();
+		buffer.putLong(sequence)
+				.put((byte) eventType.ordinal())
+				.put(UuidUtils.toBytes(bookingIdentifierUuid))
+				.putInt((int) arrivalDate.toEpochDay())
+				.putInt((int) departureDate.toEpochDay())
+				.putLong(version);
+		buffer.putInt(checksum(buffer, start));
+	}
+
+	/**
+	 * Reads the record at the position of the buffer. Returns empty, without moving the position, if there are not
+	 * enough bytes left or they aren't a valid record.
+	 */
+	static Optional<JournalRecord> readFrom(ByteBuffer buffer) {
+		if (buffer.remaining() < SIZE) {
+			return Optional.empty();
+		}
+		int start = buffer.position();
+		long sequence = buffer.getLong();
+		int eventType = buffer.get();
+		byte[] bookingIdentifier = new byte[UuidUtils.UUID_BYTES];
+		buffer.get(bookingIdentifier);
+		int arrivalEpochDay = buffer.getInt();
+		int departureEpochDay = buffer.getInt();
+		long version = buffer.getLong();
+		int checksum = checksum(buffer, start);
+		if (buffer.getInt() != checksum || sequence <= 0 || eventType < 0 || eventType >= EVENT_TYPES.length) {
+			buffer.position(start);
+			return Optional.empty();
+		}
+		return Optional.of(new JournalRecord(sequence,
+				EVENT_TYPES[eventType],
+				UuidUtils.fromBytes(bookingIdentifier),
+				LocalDate.ofEpochDay(arrivalEpochDay),
+				LocalDate.ofEpochDay(departureEpochDay),
+				version));
+	}
+
+	/**
+	 * Applies the record to the ACTIVE stays and the cancelled ones, both keyed by bookingIdentifierUuid. The record is
+	 * ignored if either of them already has the same or a newer version of its booking.
+	 */
+	void applyTo(Map<String, ReservationStay> stays, Map<String, ReservationStay> cancelled) {
+		ReservationStay known = stays.containsKey(bookingIdentifierUuid) ? stays.get(bookingIdentifierUuid) : cancelled.get(bookingIdentifierUuid);
+		if (known != null && known.getVersion() >= version) {
+			return;
+		}
+		ReservationStay stay = new ReservationStay(bookingIdentifierUuid, arrivalDate, departureDate, version);
+		if (eventType == EventType.CANCELLATION) {
+			stays.remove(bookingIdentifierUuid);
+			cancelled.put(bookingIdentifierUuid, stay);
+		} else {
+			cancelled.remove(bookingIdentifierUuid);
+			stays.put(bookingIdentifierUuid, stay);
+		}
+	}
+
+	/**
+	 * Returns the CRC32 of the bytes from start to the current position of the buffer
+	 */
+	private static int checksum(ByteBuffer buffer, int start) {
+		ByteBuffer written = buffer.duplicate();
+		written.limit(buffer.position());
+		written.position(start);
+		CRC32 crc = new CRC32();
+		crc.update(written);
+		return (int) crc.getValue();
+	}
+}
@@ -0,0 +1,79 @@
+package com.reservations.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * File of a fixed size, mapped in memory, where the records of a generation are appended one after the other. A record
+ * is in the page cache as soon as it's appended, so it survives the process crashing. It only reaches the disk once
+ * the segment is forced or the operating system writes it back.
+ */
+class JournalSegment implements Closeable {
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+
+	private JournalSegment(FileChannel channel, MappedByteBuffer buffer) {
+		this.channel = channel;
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Creates the file with room for capacityBytes and maps it. The file must not exist.
+	 */
+	static JournalSegment create(Path path, int capacityBytes) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			return new JournalSegment(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacityBytes));
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the records of a segment up to the first one that isn't valid, which is either the free space at its end or
+	 * a record that was only partially written
+	 */
+	static List<JournalRecord> read(Path path) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+		List<JournalRecord> records = new ArrayList<>();
+		for (Optional<JournalRecord> record = JournalRecord.readFrom(buffer); record.isPresent(); record = JournalRecord.readFrom(buffer)) {
+			records.add(record.get());
+		}
+		return records;
+	}
+
+	/**
+	 * Appends the record, unless there's no room left for it. Returns whether it was appended.
+	 */
+	boolean append(JournalRecord record) {
+		if (buffer.remaining() < JournalRecord.SIZE) {
+			return false;
+		}
+		record.writeTo(buffer);
+		return true;
+	}
+
+	int usedBytes() {
+		return buffer.position();
+	}
+
+	void force() {
+		buffer.force();
+	}
+
+	@Override
+	public void close() throws IOException {
+		force();
+		channel.close();
+	}
+}
@@ -0,0 +1,105 @@
+package com.reservations.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import lombok.Value;
+
+import com.reservations.entity.ReservationStay;
+import com.reservations.entity.utils.UuidUtils;
+
+/**
+ * ACTIVE and cancelled stays known by the journal once the records up to sequence were applied, taken when the segment
+ * of its generation was started. The cancelled ones are only kept so records of older versions appended after them are
+ * still ignored. Only the booking identifier, the arrival and departure epoch-days and the version of each stay are
+ * kept, followed by the CRC32 of the whole file.
+ */
+@Value
+class JournalSnapshot {
+	// Snapshots written before the stays had versions have a different magic, so they aren't recovered
+	private static final int MAGIC = 0x52534E51;
+	private static final int HEADER_SIZE = Integer.BYTES + 2 * Long.BYTES + 2 * Integer.BYTES;
+	private static final int STAY_SIZE = UuidUtils.UUID_BYTES + 2 * Integer.BYTES + Long.BYTES;
+
+	long generation;
+	long sequence;
+	Collection<ReservationStay> stays;
+	Collection<ReservationStay> cancelled;
+
+	/**
+	 * Writes the snapshot aside and moves it to the path once it's flushed to the disk, so a snapshot is never seen
+	 * half-written
+	 */
+	void writeTo(Path path) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + (stays.size() + cancelled.size()) * STAY_SIZE + Integer.BYTES);
+		buffer.putInt(MAGIC).putLong(generation).putLong(sequence).putInt(stays.size()).putInt(cancelled.size());
+		stays.forEach(stay -> write(buffer, stay));
+		cancelled.forEach(stay -> write(buffer, stay));
+		buffer.putInt(checksum(buffer.array(), buffer.position()));
+		buffer.flip();
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Reads the snapshot, throwing an {@link IOException} if it isn't complete or its checksum doesn't match
+	 */
+	static JournalSnapshot readFrom(Path path) throws IOException {
+		byte[] bytes = Files.readAllBytes(path);
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		if (bytes.length < HEADER_SIZE + Integer.BYTES || buffer.getInt() != MAGIC) {
+			throw new IOException(String.format("Not a journal snapshot: %s", path));
+		}
+		long generation = buffer.getLong();
+		long sequence = buffer.getLong();
+		int size = buffer.getInt();
+		int cancelledSize = buffer.getInt();
+		if (size < 0 || cancelledSize < 0 || bytes.length != HEADER_SIZE + ((long) size + cancelledSize) * STAY_SIZE + Integer.BYTES
+				|| ByteBuffer.wrap(bytes, bytes.length - Integer.BYTES, Integer.BYTES).getInt() != checksum(bytes, bytes.length - Integer.BYTES)) {
+			throw new IOException(String.format("Corrupted journal snapshot: %s", path));
+		}
+		return new JournalSnapshot(generation, sequence, read(buffer, size), read(buffer, cancelledSize));
+	}
+
+	private static void write(ByteBuffer buffer, ReservationStay stay) {
+		buffer.put(UuidUtils.toBytes(stay.getBookingIdentifierUuid()))
+				.putInt((int) stay.getArrivalDate().toEpochDay())
+				.putInt((int) stay.getDepartureDate().toEpochDay())
+				.putLong(stay.getVersion());
+	}
+
+	private static List<ReservationStay> read(ByteBuffer buffer, int size) {
+		List<ReservationStay> stays = new ArrayList<>(size);
+		byte[] bookingIdentifier = new byte[UuidUtils.UUID_BYTES];
+		for (int i = 0; i < size; i++) {
+			buffer.get(bookingIdentifier);
+			stays.add(new ReservationStay(UuidUtils.fromBytes(bookingIdentifier),
+					LocalDate.ofEpochDay(buffer.getInt()),
+					LocalDate.ofEpochDay(buffer.getInt()),
+					buffer.getLong()));
+		}
+		return stays;
+	}
+
+	private static int checksum(byte[] bytes, int length) {
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, length);
+		return (int) crc.getValue();
+	}
+}
@@ -0,0 +1,20 @@
+package com.reservations.journal;
+
+import java.util.Map;
+
+import lombok.Value;
+
+import com.reservations.entity.ReservationStay;
+
+/**
+ * ACTIVE and cancelled stays rebuilt from the latest snapshot and the records appended after it, both keyed by
+ * bookingIdentifierUuid
+ */
+@Value
+class JournalState {
+	long generation;
+	long sequence;
+	long replayedRecords;
+	Map<String, ReservationStay> stays;
+	Map<String, ReservationStay> cancelled;
+}
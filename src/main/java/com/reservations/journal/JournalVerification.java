@@ -0,0 +1,26 @@
+package com.reservations.journal;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Outcome of comparing the ACTIVE stays rebuilt from the journal with the ones in the database, within the horizon of
+ * the occupancy ledger. Only the quantities are reported, never the booking identifiers, since they grant access to the
+ * reservations.
+ */
+@Value
+@Builder
+public class JournalVerification {
+	boolean recoverable;
+	boolean consistent;
+	long generation;
+	long sequence;
+	long journalReservations;
+	long databaseReservations;
+	// ACTIVE in the database but not in the journal
+	long missing;
+	// ACTIVE in the journal but not in the database
+	long unexpected;
+	// ACTIVE in both, with different dates
+	long mismatched;
+}
@@ -0,0 +1,84 @@
+package com.reservations.journal;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.reservations.entity.DateRange;
+import com.reservations.entity.ReservationStatus;
+import com.reservations.entity.ReservationStay;
+import com.reservations.occupancy.OccupancyLedger;
+import com.reservations.repository.ReservationRepository;
+
+/**
+ * Checks the files of the {@link ReservationJournal} against the database: the ACTIVE stays rebuilt from the latest
+ * snapshot and the records after it must be the same ones read from the reservations table. Writes from other instances
+ * aren't journaled by this one, so they are reported as missing until the next reconciliation.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "reservations.journal.enabled", havingValue = "true")
+public class JournalVerifier {
+	private final ReservationJournal reservationJournal;
+	private final ReservationRepository reservationRepository;
+	private final OccupancyLedger occupancyLedger;
+
+	@Autowired
+	public JournalVerifier(ReservationJournal reservationJournal,
+						   ReservationRepository reservationRepository,
+						   OccupancyLedger occupancyLedger) {
+		this.reservationJournal = reservationJournal;
+		this.reservationRepository = reservationRepository;
+		this.occupancyLedger = occupancyLedger;
+	}
+
+	@Transactional(readOnly = true)
+	public JournalVerification verify() {
+		DateRange horizon = occupancyLedger.getHorizon();
+		Optional<JournalState> state = reservationJournal.read();
+		if (!state.isPresent()) {
+			return JournalVerification.builder()
+					.recoverable(false)
+					.build();
+		}
+		// Only the stays the database query returns for the horizon are compared
+		Map<String, ReservationStay> journaled = state.get().getStays();
+		journaled.values().removeIf(stay -> !stay.getArrivalDate().isBefore(horizon.getEnd().plusDays(1)) || !stay.getDepartureDate().isAfter(horizon.getStart()));
+		long journalReservations = journaled.size();
+		long databaseReservations = 0;
+		long missing = 0;
+		long mismatched = 0;
+		try (Stream<ReservationStay> stays = reservationRepository.streamStaysByDateRangeAndStatus(horizon.getStart(), horizon.getEnd().plusDays(1), ReservationStatus.ACTIVE)) {
+			for (ReservationStay stay : (Iterable<ReservationStay>) stays::iterator) {
+				databaseReservations++;
+				ReservationStay journaledStay = journaled.remove(stay.getBookingIdentifierUuid());
+				if (journaledStay == null) {
+					missing++;
+				} else if (!journaledStay.equals(stay)) {
+					mismatched++;
+				}
+			}
+		}
+		JournalVerification verification = JournalVerification.builder()
+				.recoverable(true)
+				.consistent(missing == 0 && mismatched == 0 && journaled.isEmpty())
+				.generation(state.get().getGeneration())
+				.sequence(state.get().getSequence())
+				.journalReservations(journalReservations)
+				.databaseReservations(databaseReservations)
+				.missing(missing)
+				// What's left was never found in the database
+				.unexpected(journaled.size())
+				.mismatched(mismatched)
+				.build();
+		log.info("Successfully verified journal with consistent={}, missing={}, unexpected={}, mismatched={}", verification.isConsistent(), missing, journaled.size(), mismatched);
+		return verification;
+	}
+}
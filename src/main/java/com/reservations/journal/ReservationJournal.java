@@ -0,0 +1,308 @@
+package com.reservations.journal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.Lists;
+import com.reservations.entity.EventType;
+import com.reservations.entity.Reservation;
+import com.reservations.entity.ReservationStay;
+import com.reservations.occupancy.DailyOccupancyReconciler;
+import com.reservations.occupancy.OccupancyLedger;
+
+/**
+ * Local journal with every creation, update and cancellation committed by this instance, used to rebuild the
+ * {@link OccupancyLedger} on start without reading the reservations table.
+ *
+ * The records are appended to memory-mapped segments. Every segment starts a new generation, together with a snapshot
+ * of the ACTIVE stays known at that moment, and the previous generations are deleted once the snapshot is on disk. A
+ * new generation is started when the segment is full, every snapshot-interval-ms, and whenever the
+ * {@link DailyOccupancyReconciler} reloads the stays from the database, so the time to recover depends on the stays
+ * within the horizon and the records of the last segment instead of the whole history. Cancelled stays are kept until
+ * they leave as well, so a record of an older version of the booking appended after its cancellation is ignored.
+ *
+ * Records that can't be written make the snapshots be discarded, so the next start reads the database instead of an
+ * incomplete journal.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "reservations.journal.enabled", havingValue = "true")
+public class ReservationJournal implements PublicMetrics {
+	private static final String METRIC_PREFIX = "journal.";
+	private static final String SEGMENT_SUFFIX = ".journal";
+	private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+	private final OccupancyLedger occupancyLedger;
+	private final Path directory;
+	private final int segmentSizeBytes;
+	// ACTIVE and cancelled stays as of the last record, keyed by bookingIdentifierUuid
+	private final Map<String, ReservationStay> stays = new HashMap<>();
+	private final Map<String, ReservationStay> cancelled = new HashMap<>();
+	private long generation;
+	private long sequence;
+	private JournalSegment segment;
+	private long snapshots;
+	private long failures;
+	private long recoveredStays;
+	private long replayedRecords;
+	private long recoveryMs;
+
+	@Autowired
+	public ReservationJournal(OccupancyLedger occupancyLedger,
+							  @Value("${reservations.journal.directory}") String directory,
+							  @Value("${reservations.journal.segment-size-bytes}") int segmentSizeBytes) {
+		this.occupancyLedger = occupancyLedger;
+		this.directory = Paths.get(directory);
+		this.segmentSizeBytes = segmentSizeBytes;
+	}
+
+	/**
+	 * Reloads the {@link OccupancyLedger} from the latest snapshot and the records appended after it, and starts a new
+	 * generation with the result. Returns false, without modifying the ledger, if there's no snapshot or any record
+	 * after it is missing.
+	 */
+	public synchronized boolean recover() {
+		long started = System.nanoTime();
+		Optional<JournalState> state = read();
+		if (!state.isPresent()) {
+			log.info("No journal to recover from in directory={}", directory);
+			return false;
+		}
+		stays.clear();
+		stays.putAll(state.get().getStays());
+		cancelled.clear();
+		cancelled.putAll(state.get().getCancelled());
+		occupancyLedger.reload(stays.values().stream());
+		generation = state.get().getGeneration();
+		sequence = state.get().getSequence();
+		roll();
+		recoveredStays = stays.size();
+		replayedRecords = state.get().getReplayedRecords();
+		recoveryMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+		log.info("Successfully recovered occupancy from journal with reservations={}, replayedRecords={}, elapsedMs={}", recoveredStays, replayedRecords, recoveryMs);
+		return true;
+	}
+
+	/**
+	 * Replaces the stays known by the journal with the ACTIVE stays read from the database, starting a new generation
+	 * with them. The known stays that aren't ACTIVE anymore are kept as cancelled ones.
+	 */
+	public synchronized void rebase(Collection<ReservationStay> activeStays) {
+		cancelled.putAll(stays);
+		stays.clear();
+		activeStays.forEach(stay -> {
+			cancelled.remove(stay.getBookingIdentifierUuid());
+			stays.put(stay.getBookingIdentifierUuid(), stay);
+		});
+		roll();
+	}
+
+	/**
+	 * Appends a committed write of the reservation, with the version it got when it was written. Records appended
+	 * before the journal is recovered or rebased, or while the segment can't be written, are only kept in the next
+	 * snapshot.
+	 */
+	public synchronized void append(EventType eventType, Reservation reservation) {
+		JournalRecord record = new JournalRecord(++sequence,
+				eventType,
+				reservation.getBookingIdentifierUuid(),
+				reservation.getArrivalDate(),
+				reservation.getDepartureDate(),
+				reservation.getVersion());
+		record.applyTo(stays, cancelled);
+		// The record is already part of the snapshot of the next generation
+		if (segment != null && !segment.append(record)) {
+			roll();
+		}
+	}
+
+	/**
+	 * Starts a new generation if any record was appended since the last one
+	 */
+	@Scheduled(initialDelayString = "${reservations.journal.snapshot-interval-ms}", fixedDelayString = "${reservations.journal.snapshot-interval-ms}")
+	public synchronized void snapshot() {
+		if (segment != null && segment.usedBytes() > 0) {
+			roll();
+		}
+	}
+
+	/**
+	 * Rebuilds the ACTIVE and cancelled stays from the files of the journal, without modifying it. Returns empty if it can't be
+	 * recovered.
+	 */
+	synchronized Optional<JournalState> read() {
+		if (!Files.isDirectory(directory)) {
+			return Optional.empty();
+		}
+		try {
+			List<Long> snapshotGenerations = generations(SNAPSHOT_SUFFIX);
+			snapshotGenerations.sort(Comparator.reverseOrder());
+			for (long snapshotGeneration : snapshotGenerations) {
+				JournalSnapshot snapshot;
+				try {
+					snapshot = JournalSnapshot.readFrom(path(snapshotGeneration, SNAPSHOT_SUFFIX));
+				} catch (IOException e) {
+					log.warn("Skipping journal snapshot generation={}, error={}", snapshotGeneration, e.getMessage());
+					continue;
+				}
+				return replay(snapshot);
+			}
+		} catch (IOException e) {
+			log.error("Error reading journal directory={}, error={}", directory, e.getMessage());
+		}
+		return Optional.empty();
+	}
+
+	@PreDestroy
+	public synchronized void close() {
+		closeSegment();
+	}
+
+	/**
+	 * Applies the records of the snapshot generation and the following ones, which must continue the sequence of the
+	 * snapshot without gaps
+	 */
+	private Optional<JournalState> replay(JournalSnapshot snapshot) throws IOException {
+		Map<String, ReservationStay> replayed = new HashMap<>();
+		snapshot.getStays().forEach(stay -> replayed.put(stay.getBookingIdentifierUuid(), stay));
+		Map<String, ReservationStay> replayedCancelled = new HashMap<>();
+		snapshot.getCancelled().forEach(stay -> replayedCancelled.put(stay.getBookingIdentifierUuid(), stay));
+		long lastGeneration = snapshot.getGeneration();
+		long lastSequence = snapshot.getSequence();
+		List<Long> segmentGenerations = generations(SEGMENT_SUFFIX).stream()
+				.filter(segmentGeneration -> segmentGeneration >= snapshot.getGeneration())
+				.sorted()
+				.collect(Collectors.toList());
+		for (long segmentGeneration : segmentGenerations) {
+			for (JournalRecord record : JournalSegment.read(path(segmentGeneration, SEGMENT_SUFFIX))) {
+				if (record.getSequence() != lastSequence + 1) {
+					log.warn("Missing journal records between sequence={} and sequence={}", lastSequence, record.getSequence());
+					return Optional.empty();
+				}
+				record.applyTo(replayed, replayedCancelled);
+				lastSequence = record.getSequence();
+			}
+			lastGeneration = segmentGeneration;
+		}
+		return Optional.of(new JournalState(lastGeneration, lastSequence, lastSequence - snapshot.getSequence(), replayed, replayedCancelled));
+	}
+
+	/**
+	 * Starts the segment of the next generation, writes its snapshot and deletes the previous generations, including
+	 * the ones left by a previous run that couldn't be recovered. The stays that already left are discarded first.
+	 */
+	private void roll() {
+		try {
+			Files.createDirectories(directory);
+			long next = Math.max(generation, generations(SEGMENT_SUFFIX, SNAPSHOT_SUFFIX).stream().mapToLong(Long::longValue).max().orElse(0L)) + 1;
+			JournalSegment nextSegment = JournalSegment.create(path(next, SEGMENT_SUFFIX), segmentSizeBytes);
+			closeSegment();
+			segment = nextSegment;
+			generation = next;
+			LocalDate today = LocalDate.now();
+			stays.values().removeIf(stay -> stay.getDepartureDate().isBefore(today));
+			cancelled.values().removeIf(stay -> stay.getDepartureDate().isBefore(today));
+			new JournalSnapshot(next, sequence, new ArrayList<>(stays.values()), new ArrayList<>(cancelled.values())).writeTo(path(next, SNAPSHOT_SUFFIX));
+			for (long previous : generations(SEGMENT_SUFFIX, SNAPSHOT_SUFFIX)) {
+				if (previous < next) {
+					Files.deleteIfExists(path(previous, SEGMENT_SUFFIX));
+					Files.deleteIfExists(path(previous, SNAPSHOT_SUFFIX));
+				}
+			}
+			snapshots++;
+			log.debug("Started journal generation={}, sequence={}, reservations={}", next, sequence, stays.size());
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+
+	/**
+	 * Stops appending records and discards the snapshots, since the journal no longer has every write. The next
+	 * {@link #rebase(Collection)} starts writing it again.
+	 */
+	private void fail(IOException e) {
+		log.error("Error writing journal directory={}, error={}", directory, e.getMessage());
+		failures++;
+		closeSegment();
+		try {
+			for (long previous : generations(SNAPSHOT_SUFFIX)) {
+				Files.deleteIfExists(path(previous, SNAPSHOT_SUFFIX));
+			}
+		} catch (IOException deleteError) {
+			log.error("Error discarding journal snapshots in directory={}, error={}", directory, deleteError.getMessage());
+		}
+	}
+
+	private void closeSegment() {
+		if (segment == null) {
+			return;
+		}
+		try {
+			segment.close();
+		} catch (IOException e) {
+			log.warn("Error closing journal segment generation={}, error={}", generation, e.getMessage());
+		}
+		segment = null;
+	}
+
+	/**
+	 * Returns the generations of the files with any of the suffixes, without duplicates
+	 */
+	private List<Long> generations(String... suffixes) throws IOException {
+		if (!Files.isDirectory(directory)) {
+			return Lists.newArrayList();
+		}
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.map(file -> file.getFileName().toString())
+					.flatMap(name -> Stream.of(suffixes)
+							.filter(suffix -> name.endsWith(suffix) && name.length() > suffix.length())
+							.map(suffix -> name.substring(0, name.length() - suffix.length())))
+					.filter(generation -> generation.chars().allMatch(Character::isDigit))
+					.map(Long::valueOf)
+					.distinct()
+					.collect(Collectors.toList());
+		}
+	}
+
+	private Path path(long generation, String suffix) {
+		return directory.resolve(String.format("%020d%s", generation, suffix));
+	}
+
+	@Override
+	public synchronized Collection<Metric<?>> metrics() {
+		return Lists.newArrayList(
+				new Metric<>(METRIC_PREFIX + "generation", generation),
+				new Metric<>(METRIC_PREFIX + "sequence", sequence),
+				new Metric<>(METRIC_PREFIX + "segment.used-bytes", segment == null ? 0 : segment.usedBytes()),
+				new Metric<>(METRIC_PREFIX + "snapshots", snapshots),
+				new Metric<>(METRIC_PREFIX + "failures", failures),
+				new Metric<>(METRIC_PREFIX + "recovery.reservations", recoveredStays),
+				new Metric<>(METRIC_PREFIX + "recovery.replayed-records", replayedRecords),
+				new Metric<>(METRIC_PREFIX + "recovery.elapsed-ms", recoveryMs));
+	}
+}
@@ -0,0 +1,123 @@
+package com.reservations.occupancy;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Lists;
+import com.reservations.entity.EpochDayRange;
+
+/**
+ * Bounded cache with the occupancy of each day read from the reservation_daily_occupancy table, keyed by epoch-day so
+ * overlapping ranges share their entries. The table is read for any range that the {@link OccupancyLedger} doesn't
+ * cover entirely, so the days of such a range within the horizon are cached as well.
+ *
+ * Concurrent requests that miss the same days share a single read of the table, so a burst of requests for the same
+ * range reads it once, however many arrive while the read is in flight.
+ *
+ * The days touched by a write are invalidated once it completes. A read that was in flight at that moment may have
+ * returned the occupancy from before the write, so it's discarded instead of cached. Writes from other instances aren't
+ * seen, so every entry also expires after a while. The hits, misses, evictions, reads, requests that shared a read and
+ * discarded reads are exposed through the actuator metrics endpoint.
+ */
+@Component
+public class DailyOccupancyCache implements PublicMetrics {
+	private static final String METRIC_PREFIX = "cache.daily-occupancy.";
+
+	private final Cache<Long, Long> cache;
+	private final SingleFlight<EpochDayRange, long[]> loads = new SingleFlight<>();
+	// Incremented before discarding any day, so loads can tell if it happened while they were reading
+	private final AtomicLong invalidations = new AtomicLong();
+	private final LongAdder discardedLoads = new LongAdder();
+
+	@Autowired
+	public DailyOccupancyCache(@Value("${reservations.occupancy.cache.maximum-size}") long maximumSize,
+							   @Value("${reservations.occupancy.cache.expire-after-write-ms}") long expireAfterWriteMs) {
+		this.cache = CacheBuilder.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWriteMs, TimeUnit.MILLISECONDS)
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * Returns the occupancy of each day within the range, where the first position belongs to its start. The days that
+	 * aren't cached are read with a single call to the loader, for the range that spans all of them, which must return
+	 * the occupancy of each day in the same way. Callers that miss the same range while it's being read wait for that
+	 * call instead, so every caller must pass an equivalent loader.
+	 */
+	public long[] getOccupancy(EpochDayRange days, Function<EpochDayRange, long[]> loader) {
+		long[] occupancy = new long[days.size()];
+		long firstMiss = days.getEnd();
+		long lastMiss = days.getStart() - 1;
+		for (long day = days.getStart(); day < days.getEnd(); day++) {
+			Long cached = cache.getIfPresent(day);
+			if (cached == null) {
+				firstMiss = Math.min(firstMiss, day);
+				lastMiss = day;
+			} else {
+				occupancy[days.indexOf(day)] = cached;
+			}
+		}
+		EpochDayRange misses = EpochDayRange.of(firstMiss, lastMiss + 1);
+		if (!misses.isEmpty()) {
+			long[] loaded = loads.execute(misses, () -> load(misses, loader));
+			for (long day = misses.getStart(); day < misses.getEnd(); day++) {
+				occupancy[days.indexOf(day)] = loaded[misses.indexOf(day)];
+			}
+		}
+		return occupancy;
+	}
+
+	/**
+	 * Reads the days and caches them. They are put before checking for invalidations, so an invalidation either happens
+	 * after the check and discards them itself, or is seen by the check.
+	 */
+	private long[] load(EpochDayRange days, Function<EpochDayRange, long[]> loader) {
+		long invalidationsBefore = invalidations.get();
+		long[] loaded = loader.apply(days);
+		days.forEach(day -> cache.put(day, loaded[days.indexOf(day)]));
+		if (invalidations.get() != invalidationsBefore) {
+			discardedLoads.increment();
+			days.forEach(cache::invalidate);
+		}
+		return loaded;
+	}
+
+	/**
+	 * Discards the cached occupancy of the days within the range
+	 */
+	public void invalidate(EpochDayRange days) {
+		invalidations.incrementAndGet();
+		days.forEach(cache::invalidate);
+	}
+
+	public void invalidateAll() {
+		invalidations.incrementAndGet();
+		cache.invalidateAll();
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		CacheStats stats = cache.stats();
+		return Lists.newArrayList(
+				new Metric<>(METRIC_PREFIX + "size", cache.size()),
+				new Metric<>(METRIC_PREFIX + "hit", stats.hitCount()),
+				new Metric<>(METRIC_PREFIX + "miss", stats.missCount()),
+				new Metric<>(METRIC_PREFIX + "eviction", stats.evictionCount()),
+				new Metric<>(METRIC_PREFIX + "load", loads.executed()),
+				new Metric<>(METRIC_PREFIX + "load.coalesced", loads.coalesced()),
+				new Metric<>(METRIC_PREFIX + "load.discarded", discardedLoads.sum()));
+	}
+}
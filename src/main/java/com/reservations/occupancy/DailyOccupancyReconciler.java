@@ -0,0 +1,183 @@
+package com.reservations.occupancy;
+
+import static com.reservations.entity.utils.DateUtils.toDate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.google.common.collect.Lists;
+import com.reservations.entity.DailyOccupancy;
+import com.reservations.entity.DateRange;
+import com.reservations.entity.EpochDayRange;
+import com.reservations.entity.ReservationStatus;
+import com.reservations.entity.ReservationStay;
+import com.reservations.journal.ReservationJournal;
+import com.reservations.repository.DailyOccupancyRepository;
+import com.reservations.repository.ReservationRepository;
+
+/**
+ * Rebuilds the reservation_daily_occupancy table and the {@link OccupancyLedger} from the ACTIVE reservations, and
+ * discards the {@link DailyOccupancyCache}. Runs when the application starts and periodically afterwards, fixing any
+ * drift caused by writes from other instances or by manual changes in the database. In between, the occupancy of the
+ * ledger is refreshed from the reservation_daily_occupancy table much more often, so it follows the writes of the
+ * other instances without reading the reservations.
+ *
+ * When the {@link ReservationJournal} is enabled, the ledger is recovered from it on start instead, and the stays read
+ * by every reconciliation become its next snapshot.
+ */
+@Slf4j
+@Component
+public class DailyOccupancyReconciler {
+	private final ReservationRepository reservationRepository;
+	private final DailyOccupancyRepository dailyOccupancyRepository;
+	private final OccupancyLedger occupancyLedger;
+	private final DailyOccupancyCache dailyOccupancyCache;
+	private final Optional<ReservationJournal> reservationJournal;
+
+	@Autowired
+	public DailyOccupancyReconciler(ReservationRepository reservationRepository,
+									DailyOccupancyRepository dailyOccupancyRepository,
+									OccupancyLedger occupancyLedger,
+									DailyOccupancyCache dailyOccupancyCache,
+									Optional<ReservationJournal> reservationJournal) {
+		this.reservationRepository = reservationRepository;
+		this.dailyOccupancyRepository = dailyOccupancyRepository;
+		this.occupancyLedger = occupancyLedger;
+		this.dailyOccupancyCache = dailyOccupancyCache;
+		this.reservationJournal = reservationJournal;
+	}
+
+	/**
+	 * Loads the ledger when the application starts. Recovering it from the journal takes the same time however many
+	 * reservations the table has, and the daily occupancy table is reconciled later by the scheduled runs. Otherwise,
+	 * it's reconciled right away.
+	 */
+	@Transactional
+	@EventListener(ContextRefreshedEvent.class)
+	public void start() {
+		if (reservationJournal.isPresent() && reservationJournal.get().recover()) {
+			dailyOccupancyCache.invalidateAll();
+			return;
+		}
+		reconcile();
+	}
+
+	/**
+	 * Recalculates the occupancy of every night from today onwards. The rows are locked before reading the
+	 * reservations, so writers that touch the same nights wait until the reconciliation is committed and none of them
+	 * is lost.
+	 */
+	@Transactional
+	@Scheduled(initialDelayString = "${reservations.occupancy.reconciliation-interval-ms}", fixedDelayString = "${reservations.occupancy.reconciliation-interval-ms}")
+	public void reconcile() {
+		DateRange horizon = occupancyLedger.getHorizon();
+		Map<LocalDate, DailyOccupancy> rows = dailyOccupancyRepository.findFromDateForUpdate(toDate(horizon.getStart())).stream()
+				.collect(Collectors.toMap(DailyOccupancy::getDate, Function.identity()));
+		NightCounter nightCounter = new NightCounter(horizon.days());
+		List<ReservationStay> journaled = Lists.newArrayList();
+		try (Stream<ReservationStay> stays = reservationRepository.streamStaysByDateRangeAndStatus(horizon.getStart(), horizon.getEnd().plusDays(1), ReservationStatus.ACTIVE)) {
+			// The nights are counted in the same pass that loads the ledger
+			occupancyLedger.reload(reservationJournal.isPresent() ? stays.peek(nightCounter).peek(journaled::add) : stays.peek(nightCounter));
+		}
+		reservationJournal.ifPresent(journal -> journal.rebase(journaled));
+
+		List<DailyOccupancy> corrected = Lists.newArrayList();
+		LocalDate date = horizon.getStart();
+		for (long occupied : nightCounter.occupancy) {
+			DailyOccupancy row = rows.remove(date);
+			if (row == null) {
+				corrected.add(new DailyOccupancy(date, occupied));
+			} else if (row.getActiveCount() != occupied) {
+				row.setActiveCount(occupied);
+				corrected.add(row);
+			}
+			date = date.plusDays(1);
+		}
+		// Nights beyond the horizon can't be booked
+		rows.values().stream()
+				.filter(row -> row.getActiveCount() != 0)
+				.forEach(row -> {
+					row.setActiveCount(0);
+					corrected.add(row);
+				});
+		dailyOccupancyRepository.save(corrected);
+		dailyOccupancyCache.invalidateAll();
+		log.info("Successfully reconciled daily occupancy with reservations={}, corrected={}, start={}, end={}", nightCounter.reservations, corrected.size(), horizon.getStart(), horizon.getEnd());
+	}
+
+	/**
+	 * Replaces the occupancy of the ledger with the one of the reservation_daily_occupancy table, keeping the nights of
+	 * each booking. The rows aren't locked, so writers never wait for it.
+	 */
+	@Transactional(readOnly = true)
+	@Scheduled(initialDelayString = "${reservations.occupancy.refresh-interval-ms}", fixedDelayString = "${reservations.occupancy.refresh-interval-ms}")
+	public void refresh() {
+		DateRange horizon = occupancyLedger.getHorizon();
+		EpochDayRange days = horizon.days();
+		long[] occupancy = new long[days.size()];
+		// Nights without a row aren't occupied by any reservation
+		dailyOccupancyRepository.findByDateBetween(toDate(horizon.getStart()), toDate(horizon.getEnd()))
+				.forEach(row -> occupancy[days.indexOf(row.getDate().toEpochDay())] = row.getActiveCount());
+		occupancyLedger.refresh(horizon.getStart(), occupancy);
+		log.debug("Refreshed occupancy ledger from daily occupancy with start={}, end={}", horizon.getStart(), horizon.getEnd());
+	}
+
+	/**
+	 * Creates the rows for the nights from start (inclusive) to end (exclusive) that don't exist yet, in a separate
+	 * transaction so they are visible to every writer. Most of them are already created by {@link #reconcile()}.
+	 */
+	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	public void ensureNights(LocalDate start, LocalDate end) {
+		Set<LocalDate> existing = dailyOccupancyRepository.findByDateBetween(toDate(start), toDate(end.minusDays(1))).stream()
+				.map(DailyOccupancy::getDate)
+				.collect(Collectors.toSet());
+		List<DailyOccupancy> missing = Lists.newArrayList();
+		for (LocalDate date = start; date.isBefore(end); date = date.plusDays(1)) {
+			if (!existing.contains(date)) {
+				missing.add(new DailyOccupancy(date, 0L));
+			}
+		}
+		dailyOccupancyRepository.save(missing);
+	}
+
+	/**
+	 * Counts the quantity of reservations occupying each night within the horizon, where the first position belongs to
+	 * the start of the horizon
+	 */
+	private static final class NightCounter implements Consumer<ReservationStay> {
+		private final EpochDayRange days;
+		private final long[] occupancy;
+		private long reservations;
+
+		private NightCounter(EpochDayRange days) {
+			this.days = days;
+			this.occupancy = new long[days.size()];
+		}
+
+		@Override
+		public void accept(ReservationStay stay) {
+			EpochDayRange nights = EpochDayRange.nights(stay.getArrivalDate(), stay.getDepartureDate()).intersect(days);
+			for (long day = nights.getStart(); day < nights.getEnd(); day++) {
+				occupancy[days.indexOf(day)]++;
+			}
+			reservations++;
+		}
+	}
+}
@@ -0,0 +1,373 @@
+package com.reservations.occupancy;
+
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import lombok.Getter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.reservations.entity.DateRange;
+import com.reservations.entity.EpochDayRange;
+import com.reservations.entity.ReservationStay;
+
+/**
+ * In-memory ledger with the quantity of ACTIVE reservations occupying each night within the bookable horizon. The
+ * nights are stored in a ring of primitive counters keyed by epoch-day, therefore the slots from past days are
+ * recycled lazily as the horizon moves forward.
+ *
+ * The ledger is also the capacity reservation engine: {@link #tryReserve(String, LocalDate, LocalDate)} checks and
+ * occupies all the nights of a booking as a single step. Writers only lock the stripes of the nights they touch, always
+ * in ascending order, while readers never lock. The nights of each booking are kept by bookingIdentifierUuid, so they
+ * can be released or excluded from the capacity check without the caller knowing them.
+ *
+ * The whole state can be replaced through {@link #reload(Stream)}, which builds it aside and publishes it at once,
+ * so readers never observe a half-loaded ledger. The occupancy alone can be replaced through
+ * {@link #refresh(LocalDate, long[])}, to follow the writes of other instances between reloads.
+ *
+ * Every change of the occupancy bumps a version, so readers can tell if what they computed from the ledger may be
+ * outdated without computing it again.
+ */
+@Component
+public class OccupancyLedger {
+	private static final int STRIPES = 16;
+	private static final long EMPTY_SLOT = slotValue(Integer.MIN_VALUE, 0);
+
+	@Getter
+	private final int horizonDays;
+	@Getter
+	private final int capacity;
+	private final ReentrantLock[] stripes;
+	private volatile State state;
+	// Starts at a random value, so two instances are unlikely to ever share a version for a different occupancy
+	private final AtomicLong version = new AtomicLong(ThreadLocalRandom.current().nextLong());
+
+	/**
+	 * The horizon must include every night that can be booked and every date that can be requested by default
+	 * through the availability endpoint.
+	 */
+	@Autowired
+	public OccupancyLedger(@Value("${reservations.max-advance-days}") int maxAdvanceDays,
+						   @Value("${reservations.max-duration}") int maxDuration,
+						   @Value("${reservations.availability-default-days}") int availabilityDefaultDays,
+						   @Value("${reservations.max-capacity}") int capacity) {
+		this(Math.max(maxAdvanceDays + maxDuration, availabilityDefaultDays + 1), capacity);
+	}
+
+	public OccupancyLedger(int horizonDays, int capacity) {
+		this.horizonDays = horizonDays;
+		this.capacity = capacity;
+		this.stripes = new ReentrantLock[Math.min(STRIPES, horizonDays)];
+		for (int i = 0; i < stripes.length; i++) {
+			stripes[i] = new ReentrantLock();
+		}
+		this.state = new State(horizonDays);
+	}
+
+	/**
+	 * Returns the {@link DateRange} currently covered by the ledger, starting today. The end is inclusive.
+	 */
+	public DateRange getHorizon() {
+		LocalDate today = LocalDate.now();
+		return DateRange.builder()
+				.start(today)
+				.end(today.plusDays(horizonDays - 1))
+				.build();
+	}
+
+	/**
+	 * Returns the current version of the occupancy. It's bumped after every change is applied, so the version read
+	 * before {@link #getOccupancy(DateRange)} is never newer than the occupancy returned.
+	 */
+	public long getVersion() {
+		return version.get();
+	}
+
+	/**
+	 * Checks if all the dates within the {@link DateRange} (inclusive) are covered by the ledger
+	 */
+	public boolean covers(DateRange dateRange) {
+		return horizonDays().contains(dateRange.days());
+	}
+
+	/**
+	 * Returns the occupancy for each date within the {@link DateRange} (inclusive), where the first position of the
+	 * array belongs to {@link DateRange#getStart()}. The range must be covered by the ledger.
+	 */
+	public long[] getOccupancy(DateRange dateRange) {
+		State current = state;
+		EpochDayRange days = dateRange.days();
+		long[] result = new long[days.size()];
+		for (long day = days.getStart(); day < days.getEnd(); day++) {
+			result[days.indexOf(day)] = get(current, day);
+		}
+		return result;
+	}
+
+	/**
+	 * Checks if every night of a stay from arrivalDate to departureDate is covered by the ledger
+	 */
+	public boolean coversStay(LocalDate arrivalDate, LocalDate departureDate) {
+		return horizonDays().contains(EpochDayRange.nights(arrivalDate, departureDate));
+	}
+
+	/**
+	 * Checks if every night of a stay from arrivalDate to departureDate is below {@link #capacity}. The nights
+	 * occupied by the booking identified by excludedBookingIdentifierUuid aren't taken into account, so a booking can
+	 * be moved to a range that overlaps with itself.
+	 */
+	public boolean hasCapacity(LocalDate arrivalDate, LocalDate departureDate, String excludedBookingIdentifierUuid) {
+		State current = state;
+		Long excludedStay = Objects.isNull(excludedBookingIdentifierUuid) ? null : current.stays.get(excludedBookingIdentifierUuid);
+		return hasCapacity(current, nightsWithinHorizon(arrivalDate, departureDate), nightsWithinHorizon(excludedStay));
+	}
+
+	/**
+	 * Occupies all the nights of a booking from arrivalDate to departureDate only if every one of them is below
+	 * {@link #capacity}. If the booking already occupied other nights, these are released in the same step. Returns
+	 * false, without modifying the ledger, otherwise.
+	 */
+	public boolean tryReserve(String bookingIdentifierUuid, LocalDate arrivalDate, LocalDate departureDate) {
+		return place(state, bookingIdentifierUuid, arrivalDate, departureDate, true);
+	}
+
+	/**
+	 * Registers the nights occupied by a booking from arrivalDate to departureDate, releasing the ones it occupied
+	 * before, even if the capacity is exceeded. Used to load bookings that were already persisted and to undo a
+	 * previous {@link #tryReserve(String, LocalDate, LocalDate)} or confirm it once it was persisted.
+	 */
+	public void add(String bookingIdentifierUuid, LocalDate arrivalDate, LocalDate departureDate) {
+		place(state, bookingIdentifierUuid, arrivalDate, departureDate, false);
+	}
+
+	/**
+	 * Releases the nights occupied by a booking
+	 */
+	public void release(String bookingIdentifierUuid) {
+		State current = state;
+		current.stays.computeIfPresent(bookingIdentifierUuid, (key, stay) -> {
+			EpochDayRange nights = nightsWithinHorizon(stay);
+			boolean[] locked = lock(nights, EpochDayRange.EMPTY);
+			try {
+				apply(current, nights, -1);
+			} finally {
+				unlock(locked);
+			}
+			version.incrementAndGet();
+			return null;
+		});
+	}
+
+	/**
+	 * Removes all the occupancy registered in the ledger
+	 */
+	public void clear() {
+		state = new State(horizonDays);
+		version.incrementAndGet();
+	}
+
+	/**
+	 * Replaces the whole occupancy with the nights of the stays received as parameter, consuming them in a single
+	 * pass. The new state is built aside and published at once. A writer that was still working over the
+	 * previous state is lost, so bookings being persisted at the same time must be confirmed again through
+	 * {@link #add(String, LocalDate, LocalDate)}.
+	 */
+	public void reload(Stream<ReservationStay> stays) {
+		State next = new State(horizonDays);
+		stays.forEach(stay -> place(next, stay.getBookingIdentifierUuid(), stay.getArrivalDate(), stay.getDepartureDate(), false));
+		state = next;
+		version.incrementAndGet();
+	}
+
+	/**
+	 * Replaces the occupancy of the nights from start onwards with the one received as parameter, where the first
+	 * position belongs to start, keeping the nights of each booking. The occupancy read from the daily occupancy table
+	 * only has committed writes, so the nights being persisted by this instance at the same time may be missing until
+	 * the next refresh. The version is only bumped if any night changed.
+	 */
+	public void refresh(LocalDate start, long[] occupancy) {
+		State current = state;
+		EpochDayRange days = EpochDayRange.of(start.toEpochDay(), start.toEpochDay() + occupancy.length).intersect(horizonDays());
+		boolean changed = false;
+		boolean[] locked = lock(days, EpochDayRange.EMPTY);
+		try {
+			for (long day = days.getStart(); day < days.getEnd(); day++) {
+				long occupied = occupancy[(int) (day - start.toEpochDay())];
+				changed |= get(current, day) != occupied;
+				current.slots.set(slot(day), slotValue((int) day, (int) occupied));
+			}
+		} finally {
+			unlock(locked);
+		}
+		if (changed) {
+			version.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Moves a booking to its new nights. The booking entry is locked during the whole operation, so two concurrent
+	 * operations over the same booking are applied one after the other.
+	 */
+	private boolean place(State current, String bookingIdentifierUuid, LocalDate arrivalDate, LocalDate departureDate, boolean checkCapacity) {
+		boolean[] placed = new boolean[1];
+		current.stays.compute(bookingIdentifierUuid, (key, previousStay) -> {
+			EpochDayRange previousNights = nightsWithinHorizon(previousStay);
+			EpochDayRange nights = nightsWithinHorizon(arrivalDate, departureDate);
+			boolean[] locked = lock(previousNights, nights);
+			try {
+				if (checkCapacity && !hasCapacity(current, nights, previousNights)) {
+					return previousStay;
+				}
+				apply(current, previousNights, -1);
+				apply(current, nights, 1);
+				placed[0] = true;
+				version.incrementAndGet();
+				return stay(arrivalDate, departureDate);
+			} finally {
+				unlock(locked);
+			}
+		});
+		return placed[0];
+	}
+
+	/**
+	 * Checks that every night is below {@link #capacity}. The nights that are also part of releasedNights are
+	 * checked as if the reservation that occupies them was already released.
+	 */
+	private boolean hasCapacity(State current, EpochDayRange nights, EpochDayRange releasedNights) {
+		for (long day = nights.getStart(); day < nights.getEnd(); day++) {
+			long occupied = get(current, day) - (releasedNights.contains(day) ? 1 : 0);
+			if (occupied >= capacity) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Applies the delta to every night. The caller must hold the stripes of all the nights.
+	 */
+	private void apply(State current, EpochDayRange nights, int delta) {
+		for (long day = nights.getStart(); day < nights.getEnd(); day++) {
+			int slot = slot(day);
+			long value = current.slots.get(slot);
+			// The slot might belong to a day that already left the horizon
+			int occupied = epochDay(value) == day ? occupancy(value) : 0;
+			current.slots.set(slot, slotValue((int) day, Math.max(0, occupied + delta)));
+		}
+	}
+
+	private long get(State current, long epochDay) {
+		long value = current.slots.get(slot(epochDay));
+		return epochDay(value) == epochDay ? occupancy(value) : 0L;
+	}
+
+	/**
+	 * Returns the days currently covered by the ledger, starting today
+	 */
+	private EpochDayRange horizonDays() {
+		long today = LocalDate.now().toEpochDay();
+		return EpochDayRange.of(today, today + horizonDays);
+	}
+
+	/**
+	 * Returns the nights of a reservation that fall within the horizon. Follows the semantics of
+	 * {@link EpochDayRange#nights(LocalDate, LocalDate)}: the departure date is not occupied, unless it's the same day
+	 * as the arrival date.
+	 */
+	private EpochDayRange nightsWithinHorizon(LocalDate arrivalDate, LocalDate departureDate) {
+		return EpochDayRange.nights(arrivalDate, departureDate).intersect(horizonDays());
+	}
+
+	private EpochDayRange nightsWithinHorizon(Long stay) {
+		return Objects.isNull(stay) ?
+				EpochDayRange.EMPTY :
+				EpochDayRange.nights(arrivalEpochDay(stay), departureEpochDay(stay)).intersect(horizonDays());
+	}
+
+	/**
+	 * Locks the stripes of all the nights received as parameter in ascending order, which prevents deadlocks between
+	 * writers. Returns the stripes that were locked.
+	 */
+	private boolean[] lock(EpochDayRange nights, EpochDayRange otherNights) {
+		boolean[] locked = new boolean[stripes.length];
+		markStripes(nights, locked);
+		markStripes(otherNights, locked);
+		for (int i = 0; i < stripes.length; i++) {
+			if (locked[i]) {
+				stripes[i].lock();
+			}
+		}
+		return locked;
+	}
+
+	private void unlock(boolean[] locked) {
+		for (int i = stripes.length - 1; i >= 0; i--) {
+			if (locked[i]) {
+				stripes[i].unlock();
+			}
+		}
+	}
+
+	private void markStripes(EpochDayRange nights, boolean[] locked) {
+		// The stripe depends on the slot, so two days that share the same slot always share the same stripe
+		for (long day = nights.getStart(); day < nights.getEnd() && day < nights.getStart() + horizonDays; day++) {
+			locked[slot(day) % stripes.length] = true;
+		}
+	}
+
+	private int slot(long epochDay) {
+		return (int) Math.floorMod(epochDay, (long) horizonDays);
+	}
+
+	private static long slotValue(int epochDay, int occupancy) {
+		return ((long) epochDay << 32) | (occupancy & 0xFFFFFFFFL);
+	}
+
+	private static int epochDay(long slotValue) {
+		return (int) (slotValue >> 32);
+	}
+
+	private static int occupancy(long slotValue) {
+		return (int) slotValue;
+	}
+
+	private static long stay(LocalDate arrivalDate, LocalDate departureDate) {
+		return (arrivalDate.toEpochDay() << 32) | (departureDate.toEpochDay() & 0xFFFFFFFFL);
+	}
+
+	private static int arrivalEpochDay(long stay) {
+		return (int) (stay >> 32);
+	}
+
+	private static int departureEpochDay(long stay) {
+		return (int) stay;
+	}
+
+	/**
+	 * Occupancy of every night within the horizon plus the nights of each booking
+	 */
+	private static final class State {
+		// Each slot packs the epoch-day it belongs to (high 32 bits) and its occupancy (low 32 bits), so readers always
+		// get a consistent pair with a single volatile read
+		private final AtomicLongArray slots;
+		// Arrival and departure epoch-days of each booking, packed in the same way as the slots
+		private final ConcurrentMap<String, Long> stays = new ConcurrentHashMap<>();
+
+		private State(int horizonDays) {
+			this.slots = new AtomicLongArray(horizonDays);
+			for (int i = 0; i < horizonDays; i++) {
+				slots.set(i, EMPTY_SLOT);
+			}
+		}
+	}
+}
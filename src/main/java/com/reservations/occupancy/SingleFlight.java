@@ -0,0 +1,72 @@
+package com.reservations.occupancy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent computations of the same key: the first caller runs it, and the callers that arrive while it's
+ * in flight wait for it and share its result, or its exception, instead of running their own. Nothing is kept once
+ * it completes, so the next caller runs it again.
+ */
+public class SingleFlight<K, V> {
+	private final ConcurrentMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+	private final LongAdder executed = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+
+	/**
+	 * Returns the result of the computation of the key, running the supplier only if there isn't one in flight. Every
+	 * caller of the same key must pass an equivalent supplier.
+	 */
+	public V execute(K key, Supplier<V> supplier) {
+		CompletableFuture<V> flight = new CompletableFuture<>();
+		CompletableFuture<V> inFlight = flights.putIfAbsent(key, flight);
+		if (inFlight != null) {
+			coalesced.increment();
+			return join(inFlight);
+		}
+		executed.increment();
+		try {
+			V value = supplier.get();
+			flight.complete(value);
+			return value;
+		} catch (RuntimeException | Error e) {
+			flight.completeExceptionally(e);
+			throw e;
+		} finally {
+			flights.remove(key, flight);
+		}
+	}
+
+	/**
+	 * Number of computations run
+	 */
+	public long executed() {
+		return executed.sum();
+	}
+
+	/**
+	 * Number of callers that shared a computation run by another one
+	 */
+	public long coalesced() {
+		return coalesced.sum();
+	}
+
+	private static <V> V join(CompletableFuture<V> flight) {
+		try {
+			return flight.join();
+		} catch (CompletionException e) {
+			// Rethrows what the supplier threw, as the caller that ran it got it
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package com.reservations.pipeline;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latest latencies recorded, up to its size, so their percentiles reflect the recent behaviour instead of
+ * the whole life of the service
+ */
+class LatencyReservoir {
+	private final long[] samples;
+	private long recorded;
+
+	LatencyReservoir(int size) {
+		this.samples = new long[size];
+	}
+
+	synchronized void record(long latencyNanos) {
+		samples[(int) (recorded++ % samples.length)] = latencyNanos;
+	}
+
+	/**
+	 * Returns the latency below which the given percentage of the kept samples are, or 0 if there isn't any
+	 */
+	long percentile(double percentage) {
+		long[] sorted = snapshot();
+		if (sorted.length == 0) {
+			return 0L;
+		}
+		int rank = (int) Math.ceil(percentage / 100 * sorted.length);
+		return sorted[Math.max(rank, 1) - 1];
+	}
+
+	private synchronized long[] snapshot() {
+		long[] sorted = Arrays.copyOf(samples, (int) Math.min(recorded, samples.length));
+		Arrays.sort(sorted);
+		return sorted;
+	}
+}
@@ -0,0 +1,49 @@
+package com.reservations.pipeline;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts events in one-second buckets over a sliding window, so the rate reflects the last seconds instead of the
+ * whole life of the service
+ */
+class RateWindow {
+	private final LongSupplier nanoClock;
+	private final long[] counts;
+	private final long[] seconds;
+
+	RateWindow(int windowSeconds, LongSupplier nanoClock) {
+		this.nanoClock = nanoClock;
+		this.counts = new long[windowSeconds];
+		this.seconds = new long[windowSeconds];
+	}
+
+	synchronized void mark(long events) {
+		long second = currentSecond();
+		int bucket = (int) (second % counts.length);
+		if (seconds[bucket] != second) {
+			seconds[bucket] = second;
+			counts[bucket] = 0L;
+		}
+		counts[bucket] += events;
+	}
+
+	/**
+	 * Returns the mean quantity of events per second within the window, excluding the current second, which is still
+	 * incomplete
+	 */
+	synchronized double perSecond() {
+		long second = currentSecond();
+		long events = 0L;
+		for (int bucket = 0; bucket < counts.length; bucket++) {
+			if (seconds[bucket] < second && seconds[bucket] >= second - counts.length) {
+				events += counts[bucket];
+			}
+		}
+		return (double) events / counts.length;
+	}
+
+	private long currentSecond() {
+		return TimeUnit.NANOSECONDS.toSeconds(nanoClock.getAsLong());
+	}
+}
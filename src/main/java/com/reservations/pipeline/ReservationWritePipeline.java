@@ -0,0 +1,266 @@
+package com.reservations.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.reservations.entity.Reservation;
+import com.reservations.exception.RequestRejectedException;
+import com.reservations.occupancy.OccupancyLedger;
+import com.reservations.service.ReservationService;
+import com.reservations.service.ReservationWrite;
+
+/**
+ * Applies the creations and cancellations of reservations in batches, each one in a single transaction, instead of
+ * one transaction per request. The requests are validated, and the creations reserved in the ledger, by the threads
+ * that receive them, which then wait until the batch of their write is committed. A single thread takes the writes
+ * from the queue: a batch is applied as soon as it's full, or once its first write has waited for the maximum linger.
+ *
+ * Callers wait for room once the queue is full. Writes left in the queue once the pipeline is stopped are rejected,
+ * releasing the nights reserved by their creations. The latency from receiving each write until its batch is committed,
+ * the commits and the writes per second are exposed through the actuator metrics endpoint.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "reservations.pipeline.enabled", havingValue = "true")
+public class ReservationWritePipeline implements SmartLifecycle, PublicMetrics {
+	private static final String NAME = "write-pipeline";
+	private static final String METRIC_PREFIX = "pipeline.writes.";
+	private static final int LATENCY_SAMPLES = 1024;
+	private static final int RATE_WINDOW_SECONDS = 10;
+	// Bounds the time the applier takes to notice it's being stopped
+	private static final long POLL_TIMEOUT_MS = 100L;
+
+	private final ReservationService reservationService;
+	private final OccupancyLedger occupancyLedger;
+	private final int batchSize;
+	private final long maxLingerNanos;
+	private final BlockingQueue<PendingWrite> queue;
+	private final LatencyReservoir latencies = new LatencyReservoir(LATENCY_SAMPLES);
+	private final RateWindow commitRate = new RateWindow(RATE_WINDOW_SECONDS, System::nanoTime);
+	private final RateWindow writeRate = new RateWindow(RATE_WINDOW_SECONDS, System::nanoTime);
+	private final LongAdder commits = new LongAdder();
+	private final LongAdder rollbacks = new LongAdder();
+	private final LongAdder appliedWrites = new LongAdder();
+	private volatile boolean running;
+	private Thread applier;
+
+	@Autowired
+	public ReservationWritePipeline(ReservationService reservationService,
+									OccupancyLedger occupancyLedger,
+									@Value("${reservations.pipeline.batch-size}") int batchSize,
+									@Value("${reservations.pipeline.max-linger-ms}") long maxLingerMs,
+									@Value("${reservations.pipeline.queue-capacity}") int queueCapacity) {
+		this.reservationService = reservationService;
+		this.occupancyLedger = occupancyLedger;
+		this.batchSize = batchSize;
+		this.maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(maxLingerMs);
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+	}
+
+	/**
+	 * Creates the reservation within the next batch, returning once it's committed
+	 */
+	public Reservation createReservation(Reservation reservation) {
+		checkRunning();
+		reservationService.reserveCreation(reservation);
+		return submit(ReservationWrite.creation(reservation));
+	}
+
+	/**
+	 * Cancels the reservation within the next batch, returning once it's committed
+	 */
+	public void cancelReservation(Reservation reservation) {
+		checkRunning();
+		reservationService.validateCancellation(reservation);
+		submit(ReservationWrite.cancellation(reservation));
+	}
+
+	@Override
+	public synchronized void start() {
+		running = true;
+		applier = new Thread(this::applyQueuedWrites, NAME);
+		applier.start();
+	}
+
+	/**
+	 * Stops accepting writes and waits until the queued ones are applied
+	 */
+	@Override
+	public synchronized void stop() {
+		running = false;
+		if (applier != null) {
+			Uninterruptibles.joinUninterruptibly(applier);
+		}
+		// Writes queued while the applier was finishing aren't applied
+		List<PendingWrite> remaining = Lists.newArrayList();
+		queue.drainTo(remaining);
+		remaining.forEach(this::reject);
+	}
+
+	@Override
+	public void stop(Runnable callback) {
+		stop();
+		callback.run();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public boolean isAutoStartup() {
+		return true;
+	}
+
+	@Override
+	public int getPhase() {
+		return 0;
+	}
+
+	private void checkRunning() {
+		if (!running) {
+			throw new RequestRejectedException(NAME);
+		}
+	}
+
+	private Reservation submit(ReservationWrite write) {
+		PendingWrite pending = new PendingWrite(write);
+		// Waiting for room can't be interrupted, since the nights of a creation are already reserved in the ledger
+		Uninterruptibles.putUninterruptibly(queue, pending);
+		// The pipeline may have been stopped, and its queue drained, before the write was queued. Whoever removes it
+		// from the queue completes it, so it's rejected here unless the applier or stop() already took it
+		if (!running && queue.remove(pending)) {
+			reject(pending);
+		}
+		try {
+			return pending.result.join();
+		} catch (CompletionException e) {
+			// Rethrows what failed the write, as if it was applied by this thread
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private void reject(PendingWrite pending) {
+		if (pending.write.isCreation()) {
+			occupancyLedger.release(pending.write.getReservation().getBookingIdentifierUuid());
+		}
+		pending.result.completeExceptionally(new RequestRejectedException(NAME));
+	}
+
+	private void applyQueuedWrites() {
+		List<PendingWrite> batch = new ArrayList<>(batchSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				PendingWrite first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				fill(batch, first.receivedAt + maxLingerNanos);
+				apply(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				log.warn("Interrupted while waiting for writes, stopping the write pipeline");
+				return;
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	/**
+	 * Adds the writes already queued to the batch, and waits for more until it's full or the deadline is reached
+	 */
+	private void fill(List<PendingWrite> batch, long deadline) throws InterruptedException {
+		while (batch.size() < batchSize) {
+			queue.drainTo(batch, batchSize - batch.size());
+			long remaining = deadline - System.nanoTime();
+			if (batch.size() == batchSize || remaining <= 0) {
+				return;
+			}
+			PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+			if (next == null) {
+				return;
+			}
+			batch.add(next);
+		}
+	}
+
+	private void apply(List<PendingWrite> batch) {
+		try {
+			reservationService.applyWrites(batch.stream().map(pending -> pending.write).collect(Collectors.toList()));
+		} catch (RuntimeException e) {
+			log.error("Error applying batch of writes={}, error={}", batch.size(), e.getMessage());
+			rollbacks.increment();
+			batch.forEach(pending -> pending.result.completeExceptionally(e));
+			return;
+		}
+		long committedAt = System.nanoTime();
+		commits.increment();
+		appliedWrites.add(batch.size());
+		commitRate.mark(1L);
+		writeRate.mark(batch.size());
+		for (PendingWrite pending : batch) {
+			latencies.record(committedAt - pending.receivedAt);
+			if (pending.write.isFailed()) {
+				pending.result.completeExceptionally(pending.write.getFailure());
+			} else {
+				pending.result.complete(pending.write.getReservation());
+			}
+		}
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		long committed = commits.sum();
+		return Lists.newArrayList(
+				new Metric<>(METRIC_PREFIX + "queued", queue.size()),
+				new Metric<>(METRIC_PREFIX + "commits", committed),
+				new Metric<>(METRIC_PREFIX + "rollbacks", rollbacks.sum()),
+				new Metric<>(METRIC_PREFIX + "commits-per-second", commitRate.perSecond()),
+				new Metric<>(METRIC_PREFIX + "writes-per-second", writeRate.perSecond()),
+				new Metric<>(METRIC_PREFIX + "batch-size.mean", committed == 0 ? 0.0 : (double) appliedWrites.sum() / committed),
+				new Metric<>(METRIC_PREFIX + "latency.p50-ms", toMillis(latencies.percentile(50))),
+				new Metric<>(METRIC_PREFIX + "latency.p95-ms", toMillis(latencies.percentile(95))),
+				new Metric<>(METRIC_PREFIX + "latency.p99-ms", toMillis(latencies.percentile(99))),
+				new Metric<>(METRIC_PREFIX + "latency.max-ms", toMillis(latencies.percentile(100))));
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	private static final class PendingWrite {
+		private final ReservationWrite write;
+		private final CompletableFuture<Reservation> result = new CompletableFuture<>();
+		private final long receivedAt = System.nanoTime();
+
+		private PendingWrite(ReservationWrite write) {
+			this.write = write;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.reservations.repository;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import com.reservations.entity.DailyOccupancy;
+
+// The dates are received as Date, since they are compared with the identifier of DailyOccupancy
+public interface DailyOccupancyRepository extends CrudRepository<DailyOccupancy, Date> {
+	// Both dates are inclusive
+	List<DailyOccupancy> findByDateBetween(Date start, Date end);
+
+	// Both dates are inclusive
+	long countByDateBetween(Date start, Date end);
+
+	// Locks the rows, so writers wait until the table is rebuilt
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT o FROM DailyOccupancy o WHERE o.date >= ?1 ORDER BY o.date ASC")
+	List<DailyOccupancy> findFromDateForUpdate(Date start);
+
+	// Locks the rows from start (inclusive) to end (exclusive), so the capacity of all of them is checked at once
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT o FROM DailyOccupancy o WHERE o.date >= ?1 AND o.date < ?2 ORDER BY o.date ASC")
+	List<DailyOccupancy> findByDateRangeForUpdate(Date start, Date end);
+
+	// Occupies the nights from start (inclusive) to end (exclusive) that are below the capacity. Returns the quantity
+	// of nights that were occupied, so any night at full capacity makes it lower than the quantity of nights
+	@Modifying
+	@Query("UPDATE DailyOccupancy o SET o.activeCount = o.activeCount + 1 WHERE o.date >= ?1 AND o.date < ?2 AND o.activeCount < ?3")
+	int occupy(Date start, Date end, long capacity);
+
+	// Releases the nights from start (inclusive) to end (exclusive)
+	@Modifying
+	@Query("UPDATE DailyOccupancy o SET o.activeCount = o.activeCount - 1 WHERE o.date >= ?1 AND o.date < ?2 AND o.activeCount > 0")
+	int release(Date start, Date end);
+}
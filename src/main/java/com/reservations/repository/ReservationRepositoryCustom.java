@@ -0,0 +1,21 @@
+package com.reservations.repository;
+
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import com.reservations.entity.Reservation;
+import com.reservations.entity.ReservationStatus;
+import com.reservations.entity.ReservationStay;
+
+/**
+ * Queries of {@link ReservationRepository} that can't be expressed as Spring Data query methods
+ */
+public interface ReservationRepositoryCustom {
+	/**
+	 * Streams the stays of the reservations with the status received as parameter that occupy any night from start
+	 * (inclusive) to end (exclusive), running a single query. Only the identifier and the dates are selected, and the
+	 * rows are fetched in batches without hydrating any entity, so the memory used doesn't depend on the quantity of
+	 * reservations. Must be called within a transaction, and the {@link Stream} must be closed afterwards.
+	 */
+	Stream<ReservationStay> streamStaysByDateRangeAndStatus(LocalDate start, LocalDate end, ReservationStatus reservationStatus);
+}
@@ -0,0 +1,83 @@
+package com.reservations.repository;
+
+import java.time.LocalDate;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.data.util.StreamUtils;
+
+import com.reservations.entity.ReservationStatus;
+import com.reservations.entity.ReservationStay;
+
+public class ReservationRepositoryImpl implements ReservationRepositoryCustom {
+	private final int fetchSize;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	public ReservationRepositoryImpl(@Value("${reservations.occupancy.fetch-size}") int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	@Override
+	public Stream<ReservationStay> streamStaysByDateRangeAndStatus(LocalDate start, LocalDate end, ReservationStatus reservationStatus) {
+		// The range predicate is written as two comparisons, so it can use the (status, arrival_date, departure_date)
+		// index. The constructor expression builds the projections straight from the rows, without managed entities
+		ScrollableResults results = entityManager.createQuery("SELECT NEW com.reservations.entity.ReservationStay(r.bookingIdentifierUuid, r.arrivalDate, r.departureDate, r.version) " +
+				"FROM Reservation r WHERE r.status = :status AND r.arrivalDate < :end AND r.departureDate > :start ORDER BY r.arrivalDate ASC", ReservationStay.class)
+				.setParameter("status", reservationStatus)
+				.setParameter("start", start)
+				.setParameter("end", end)
+				.unwrap(Query.class)
+				.setFetchSize(fetchSize)
+				.setReadOnly(true)
+				.scroll(ScrollMode.FORWARD_ONLY);
+		return StreamUtils.createStreamFromIterator(new ScrollableResultsIterator<>(results));
+	}
+
+	/**
+	 * Iterates the first column of each row of the results
+	 */
+	private static class ScrollableResultsIterator<T> implements CloseableIterator<T> {
+		private final ScrollableResults results;
+		private T next;
+
+		private ScrollableResultsIterator(ScrollableResults results) {
+			this.results = results;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean hasNext() {
+			if (next == null && results.next()) {
+				next = (T) results.get(0);
+			}
+			return next != null;
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			T current = next;
+			next = null;
+			return current;
+		}
+
+		@Override
+		public void close() {
+			results.close();
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.reservations.service;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.reservations.entity.Reservation;
+
+/**
+ * Bounded cache with the ACTIVE reservation of each bookingIdentifierUuid, so lookups don't query the database. Updates
+ * and cancellations read the reservation again before writing, since the cached one may be outdated. Identifiers
+ * without an ACTIVE reservation are cached as well, so retries with unknown or cancelled identifiers don't reach the
+ * database either. Identifiers are kept in their canonical lower-case form, so every spelling of a UUID shares the same
+ * entry.
+ *
+ * The service keeps it up to date once its own writes are committed. Writes from other instances aren't seen, so every
+ * entry also expires after a while. Reservations are copied in and out, so changes made by a caller, even if they are
+ * rolled back later, never reach the cached ones. The hits, misses and evictions are exposed through the actuator
+ * metrics endpoint.
+ */
+@Component
+public class ActiveReservationCache implements PublicMetrics {
+	private static final String METRIC_PREFIX = "cache.active-reservations.";
+
+	private final Cache<String, Optional<Reservation>> cache;
+
+	@Autowired
+	public ActiveReservationCache(@Value("${reservations.active-reservations.cache.maximum-size}") long maximumSize,
+								  @Value("${reservations.active-reservations.cache.expire-after-write-ms}") long expireAfterWriteMs) {
+		this.cache = CacheBuilder.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWriteMs, TimeUnit.MILLISECONDS)
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * Returns the ACTIVE reservation with the bookingIdentifierUuid, which is read through the loader if it isn't
+	 * cached. Concurrent lookups of the same identifier wait for a single load, and a load is discarded if the
+	 * reservation was written in the meantime.
+	 */
+	public Optional<Reservation> get(String bookingIdentifierUuid, Function<String, Optional<Reservation>> loader) {
+		String key = key(bookingIdentifierUuid);
+		try {
+			return cache.get(key, () -> loader.apply(key).map(ActiveReservationCache::copy))
+					.map(ActiveReservationCache::copy);
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			Throwables.throwIfUnchecked(e.getCause());
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Registers a reservation that was created or updated, which must be ACTIVE
+	 */
+	public void put(Reservation reservation) {
+		cache.put(key(reservation.getBookingIdentifierUuid()), Optional.of(copy(reservation)));
+	}
+
+	/**
+	 * Registers that the booking doesn't have an ACTIVE reservation anymore
+	 */
+	public void remove(String bookingIdentifierUuid) {
+		cache.put(key(bookingIdentifierUuid), Optional.empty());
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		CacheStats stats = cache.stats();
+		return Lists.newArrayList(
+				new Metric<>(METRIC_PREFIX + "size", cache.size()),
+				new Metric<>(METRIC_PREFIX + "hit", stats.hitCount()),
+				new Metric<>(METRIC_PREFIX + "miss", stats.missCount()),
+				new Metric<>(METRIC_PREFIX + "eviction", stats.evictionCount()));
+	}
+
+	private static String key(String bookingIdentifierUuid) {
+		return UUID.fromString(bookingIdentifierUuid).toString();
+	}
+
+	private static Reservation copy(Reservation reservation) {
+		return reservation.toBuilder().build();
+	}
+}
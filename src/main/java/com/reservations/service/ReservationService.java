@@ -1,22 +1,70 @@
 package com.reservations.service;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import com.reservations.entity.DateRange;
 import com.reservations.entity.Reservation;
 import com.reservations.entity.ReservationAvailability;
+import com.reservations.entity.ReservationResult;
 import com.reservations.entity.ReservationStatus;
 
 public interface ReservationService {
 	Set<ReservationAvailability> getAvailability(DateRange dateRange);
 
+	/**
+	 * Returns a tag that changes whenever the availability within the {@link DateRange} may change, so it can be
+	 * compared with the one of a previous response without calculating the availability again. It's empty when the
+	 * availability can't be tagged.
+	 */
+	Optional<String> getAvailabilityTag(DateRange dateRange);
+
 	boolean checkAvailability(DateRange dateRange, String bookingIdentifierUuid);
 
 	Reservation createReservation(Reservation reservation);
 
+	/**
+	 * Assigns the booking identifier of a new reservation, validates it and reserves its nights in this instance,
+	 * without persisting it. It must be persisted afterwards through {@link #applyWrites(List)}, which releases the
+	 * nights if it isn't created.
+	 */
+	void reserveCreation(Reservation reservation);
+
+	/**
+	 * Creates all the valid reservations that fit within the capacity, returning the result of each one in the same
+	 * order. In atomic mode, none of them is created if any of them fails.
+	 */
+	List<ReservationResult> createReservations(List<Reservation> reservations, boolean atomic);
+
+	/**
+	 * Returns the reservation with the bookingIdentifierUuid and status. ACTIVE reservations may be served from a cache,
+	 * so they can be outdated by a few seconds.
+	 */
 	Reservation getByBookingIdentifierUuidAndStatus(String bookingIdentifierUuid, ReservationStatus reservationStatus);
 
+	/**
+	 * Updates the ACTIVE reservation of the booking of oldReservation, which is read again from the database, so the
+	 * update is applied over its current nights.
+	 */
 	Reservation updateReservation(Reservation oldReservation, Reservation newReservation);
 
+	/**
+	 * Cancels the ACTIVE reservation of the booking, which is read again from the database. Throws a
+	 * {@link com.reservations.exception.ReservationNotFoundException} if it was cancelled in the meantime.
+	 */
 	void cancelReservation(Reservation reservation);
+
+	/**
+	 * Validates the cancellation of a reservation, without persisting it. It must be persisted afterwards through
+	 * {@link #applyWrites(List)}.
+	 */
+	void validateCancellation(Reservation reservation);
+
+	/**
+	 * Persists creations prepared with {@link #reserveCreation(Reservation)} and cancellations validated with
+	 * {@link #validateCancellation(Reservation)} in a single transaction. The writes that can't be applied get their
+	 * failure set, without affecting the rest. If the transaction fails, none of them is applied.
+	 */
+	void applyWrites(List<ReservationWrite> writes);
 }
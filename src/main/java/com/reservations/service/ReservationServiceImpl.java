@@ -1,101 +1,301 @@
 package com.reservations.service;
 
+import static com.reservations.entity.utils.DateUtils.toDate;
+
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import com.google.common.collect.Maps;
+import com.reservations.entity.DailyOccupancy;
 import com.reservations.entity.DateRange;
+import com.reservations.entity.EpochDayRange;
 import com.reservations.entity.EventType;
 import com.reservations.entity.Reservation;
 import com.reservations.entity.ReservationAvailability;
+import com.reservations.entity.ReservationResult;
 import com.reservations.entity.ReservationStatus;
-import com.reservations.entity.utils.DateUtils;
+import com.reservations.entity.utils.UuidUtils;
+import com.reservations.exception.CapacityExceededException;
 import com.reservations.exception.InvalidRangeException;
+import com.reservations.exception.ReservationModifiedException;
 import com.reservations.exception.ReservationNotFoundException;
-import com.reservations.extensibility.utils.ExtensionUtils;
+import com.reservations.exception.ReservationServiceException;
+import com.reservations.exception.ReservationValidationException;
+import com.reservations.identifier.BookingIdentifierGenerator;
+import com.reservations.journal.ReservationJournal;
+import com.reservations.occupancy.DailyOccupancyCache;
+import com.reservations.occupancy.DailyOccupancyReconciler;
+import com.reservations.occupancy.OccupancyLedger;
+import com.reservations.repository.DailyOccupancyRepository;
 import com.reservations.repository.ReservationRepository;
 import com.reservations.validation.ReservationValidatorExtension;
+import com.reservations.validation.ReservationValidatorExtensionRegistry;
 
 @Slf4j
 @Service
 public class ReservationServiceImpl implements ReservationService {
 	private final ReservationRepository reservationRepository;
-	private final Set<ReservationValidatorExtension> reservationValidatorExtensions;
+	private final DailyOccupancyRepository dailyOccupancyRepository;
+	private final DailyOccupancyReconciler dailyOccupancyReconciler;
+	private final ReservationValidatorExtensionRegistry reservationValidatorExtensionRegistry;
+	private final OccupancyLedger occupancyLedger;
+	private final DailyOccupancyCache dailyOccupancyCache;
+	private final ActiveReservationCache activeReservationCache;
+	private final BookingIdentifierGenerator bookingIdentifierGenerator;
+	private final Optional<ReservationJournal> reservationJournal;
 	private final long maxCapacity;
 
 	@Autowired
 	public ReservationServiceImpl(ReservationRepository reservationRepository,
-								  Set<ReservationValidatorExtension> reservationValidatorExtensions,
+								  DailyOccupancyRepository dailyOccupancyRepository,
+								  DailyOccupancyReconciler dailyOccupancyReconciler,
+								  ReservationValidatorExtensionRegistry reservationValidatorExtensionRegistry,
+								  OccupancyLedger occupancyLedger,
+								  DailyOccupancyCache dailyOccupancyCache,
+								  ActiveReservationCache activeReservationCache,
+								  BookingIdentifierGenerator bookingIdentifierGenerator,
+								  Optional<ReservationJournal> reservationJournal,
 								  @Value("${reservations.max-capacity}") long maxCapacity) {
 		this.reservationRepository = reservationRepository;
-		this.reservationValidatorExtensions = reservationValidatorExtensions;
+		this.dailyOccupancyRepository = dailyOccupancyRepository;
+		this.dailyOccupancyReconciler = dailyOccupancyReconciler;
+		this.reservationValidatorExtensionRegistry = reservationValidatorExtensionRegistry;
+		this.occupancyLedger = occupancyLedger;
+		this.dailyOccupancyCache = dailyOccupancyCache;
+		this.activeReservationCache = activeReservationCache;
+		this.bookingIdentifierGenerator = bookingIdentifierGenerator;
+		this.reservationJournal = reservationJournal;
 		this.maxCapacity = maxCapacity;
 	}
 
 	@Override
 	public Set<ReservationAvailability> getAvailability(DateRange dateRange) {
 		checkValidRange(dateRange);
-		return getReservationsPerDate(dateRange)
-				.entrySet()
-				.stream()
-				.map(entry -> ReservationAvailability.builder()
-						.date(entry.getKey())
-						.availability(maxCapacity - entry.getValue())
-						.build())
-				.collect(Collectors.toCollection(() -> new TreeSet<>(Comparator.comparing(
-						ReservationAvailability::getDate,
-						LocalDate::compareTo))));
+		// The ledger answers without a database round trip. Only ranges it doesn't cover entirely, reaching beyond its
+		// horizon, are read from the daily occupancy table
+		long[] occupancy = occupancyLedger.covers(dateRange) ?
+				occupancyLedger.getOccupancy(dateRange) :
+				getDailyOccupancy(dateRange.days());
+		Set<ReservationAvailability> availability = new TreeSet<>(Comparator.comparing(
+				ReservationAvailability::getDate,
+				LocalDate::compareTo));
+		LocalDate date = dateRange.getStart();
+		for (long occupied : occupancy) {
+			availability.add(ReservationAvailability.builder()
+					.date(date)
+					.availability(maxCapacity - occupied)
+					.build());
+			date = date.plusDays(1);
+		}
+		return availability;
+	}
+
+	@Override
+	public Optional<String> getAvailabilityTag(DateRange dateRange) {
+		// Only the occupancy answered by the ledger is versioned. The daily occupancy table also changes through other
+		// instances, and a range that's no longer covered may have become invalid
+		if (!dateRange.isValid() || !occupancyLedger.covers(dateRange)) {
+			return Optional.empty();
+		}
+		return Optional.of(String.format("%x-%x-%x",
+				occupancyLedger.getVersion(),
+				dateRange.getStart().toEpochDay(),
+				dateRange.getEnd().toEpochDay()));
 	}
 
 	@Override
 	public boolean checkAvailability(DateRange dateRange, String bookingIdentifierUuid) {
 		checkValidRange(dateRange);
-		return reservationRepository.findQuantityByDateRangeAndStatusOmittingBookingIdentifierUuid(dateRange.getStart(), dateRange.getEnd(), ReservationStatus.ACTIVE, bookingIdentifierUuid) < maxCapacity;
+		if (occupancyLedger.coversStay(dateRange.getStart(), dateRange.getEnd())) {
+			// Every night must be below the capacity, reservations on disjoint nights don't compete with each other. The
+			// ledger may still count nights released by other instances, so what it rejects is checked in the table
+			return occupancyLedger.hasCapacity(dateRange.getStart(), dateRange.getEnd(), bookingIdentifierUuid)
+					|| hasCapacityInDailyOccupancy(dateRange.nights(), nightsOf(bookingIdentifierUuid));
+		}
+		// Nights beyond the horizon can't be booked, so it's enough to check them conservatively, without excluding
+		// the nights of the booking itself
+		return LongStream.of(getDailyOccupancy(dateRange.nights())).allMatch(occupied -> occupied < maxCapacity);
 	}
 
 	@Override
+	@Transactional
 	public Reservation createReservation(Reservation reservation) {
-		ExtensionUtils.get(reservationValidatorExtensions, EventType.CREATION).validate(reservation);
-		reservation.setStatus(ReservationStatus.ACTIVE);
-		reservationRepository.save(reservation);
+		reserveCreation(reservation);
+		persist(() -> {
+			reservation.setStatus(ReservationStatus.ACTIVE);
+			reservationRepository.save(reservation);
+			occupyNights(reservation.getArrivalDate(), reservation.getDepartureDate());
+		}, () -> confirmCreation(reservation), () -> occupancyLedger.release(reservation.getBookingIdentifierUuid()));
 		log.info("Successfully created reservation={}", reservation);
 		return reservation;
 	}
 
+	@Override
+	public void reserveCreation(Reservation reservation) {
+		// The identifier is assigned before validating, so the booking can be tracked by the ledger from the beginning
+		reservation.setBookingIdentifierUuid(bookingIdentifierGenerator.generate());
+		reservationValidatorExtensionRegistry.get(EventType.CREATION).validate(reservation);
+		// The nights are reserved in the ledger before persisting, so concurrent creations in this instance can't
+		// exceed the capacity. The daily occupancy table does the same across instances
+		reserveNights(reservation.getBookingIdentifierUuid(), reservation.getArrivalDate(), reservation.getDepartureDate(), EpochDayRange.EMPTY);
+	}
+
+	/**
+	 * Every reservation is validated and reserved in the ledger one after the other, so each one is checked against the
+	 * occupancy left by the previous ones. The accepted reservations are persisted in a single transaction. If the daily
+	 * occupancy table rejects any of them, because of writes from other instances, the whole batch fails.
+	 */
+	@Override
+	@Transactional
+	public List<ReservationResult> createReservations(List<Reservation> reservations, boolean atomic) {
+		ReservationValidatorExtension reservationValidatorExtension = reservationValidatorExtensionRegistry.get(EventType.CREATION);
+		List<ReservationResult> results = new ArrayList<>(reservations.size());
+		List<Reservation> reserved = new ArrayList<>(reservations.size());
+		for (Reservation reservation : reservations) {
+			reservation.setBookingIdentifierUuid(bookingIdentifierGenerator.generate());
+			try {
+				reservationValidatorExtension.validate(reservation);
+				reserveNights(reservation.getBookingIdentifierUuid(), reservation.getArrivalDate(), reservation.getDepartureDate(), EpochDayRange.EMPTY);
+				reserved.add(reservation);
+				results.add(ReservationResult.created(reservation));
+			} catch (ReservationServiceException e) {
+				results.add(ReservationResult.failed(e.getResponseStatus(), e.getResponseBody()));
+			} catch (ReservationValidationException e) {
+				results.add(ReservationResult.failed(HttpStatus.BAD_REQUEST, e.getErrors()));
+			}
+		}
+		if (atomic && reserved.size() < reservations.size()) {
+			reserved.forEach(reservation -> occupancyLedger.release(reservation.getBookingIdentifierUuid()));
+			results.replaceAll(result -> result.isCreated() ? ReservationResult.notCreated() : result);
+			log.info("Rejected atomic batch of reservations with failures={}", reservations.size() - reserved.size());
+			return results;
+		}
+		if (reserved.isEmpty()) {
+			return results;
+		}
+		persist(() -> {
+			reserved.forEach(reservation -> reservation.setStatus(ReservationStatus.ACTIVE));
+			reservationRepository.save(reserved);
+			reserved.forEach(reservation -> occupyNights(reservation.getArrivalDate(), reservation.getDepartureDate()));
+		}, () -> reserved.forEach(this::confirmCreation), () -> reserved.forEach(reservation -> occupancyLedger.release(reservation.getBookingIdentifierUuid())));
+		log.info("Successfully created batch of reservations={}, failures={}", reserved.size(), reservations.size() - reserved.size());
+		return results;
+	}
+
 	@Override
 	public Reservation getByBookingIdentifierUuidAndStatus(String bookingIdentifierUuid, ReservationStatus reservationStatus){
-		return reservationRepository.findByBookingIdentifierUuidAndStatus(bookingIdentifierUuid, reservationStatus)
-				.orElseThrow(() -> new ReservationNotFoundException(bookingIdentifierUuid, reservationStatus));
+		// Identifiers are stored as bytes, so anything that isn't a UUID can't be found
+		if (!UuidUtils.isValid(bookingIdentifierUuid)) {
+			throw new ReservationNotFoundException(bookingIdentifierUuid, reservationStatus);
+		}
+		Optional<Reservation> reservation = reservationStatus == ReservationStatus.ACTIVE ?
+				activeReservationCache.get(bookingIdentifierUuid, key -> reservationRepository.findByBookingIdentifierUuidAndStatus(key, reservationStatus)) :
+				reservationRepository.findByBookingIdentifierUuidAndStatus(bookingIdentifierUuid, reservationStatus);
+		return reservation.orElseThrow(() -> new ReservationNotFoundException(bookingIdentifierUuid, reservationStatus));
 	}
 
 	@Override
+	@Transactional
 	public Reservation updateReservation(Reservation oldReservation, Reservation newReservation) {
-		Reservation updatedReservation = patchReservation(oldReservation, newReservation);
-		ExtensionUtils.get(reservationValidatorExtensions, EventType.UPDATE).validate(updatedReservation);
-		reservationRepository.save(updatedReservation);
+		// The reservation is read again, since the one received may be outdated. It's patched in place, so the occupied
+		// nights are kept in case they must be restored
+		Reservation currentReservation = getForUpdate(oldReservation.getBookingIdentifierUuid());
+		LocalDate oldArrivalDate = currentReservation.getArrivalDate();
+		LocalDate oldDepartureDate = currentReservation.getDepartureDate();
+		Reservation updatedReservation = patchReservation(currentReservation, newReservation);
+		reservationValidatorExtensionRegistry.get(EventType.UPDATE).validate(updatedReservation);
+		String bookingIdentifierUuid = updatedReservation.getBookingIdentifierUuid();
+		LocalDate arrivalDate = updatedReservation.getArrivalDate();
+		LocalDate departureDate = updatedReservation.getDepartureDate();
+		reserveNights(bookingIdentifierUuid, arrivalDate, departureDate, EpochDayRange.nights(oldArrivalDate, oldDepartureDate));
+		persist(() -> {
+			saveIfUnmodified(updatedReservation);
+			moveNights(oldArrivalDate, oldDepartureDate, arrivalDate, departureDate);
+		}, () -> {
+			occupancyLedger.add(bookingIdentifierUuid, arrivalDate, departureDate);
+			dailyOccupancyCache.invalidate(EpochDayRange.nights(oldArrivalDate, oldDepartureDate));
+			dailyOccupancyCache.invalidate(EpochDayRange.nights(arrivalDate, departureDate));
+			activeReservationCache.put(updatedReservation);
+			reservationJournal.ifPresent(journal -> journal.append(EventType.UPDATE, updatedReservation));
+		}, () -> occupancyLedger.add(bookingIdentifierUuid, oldArrivalDate, oldDepartureDate));
 		log.info("Successfully updated reservation={}", updatedReservation);
 		return updatedReservation;
 	}
 
 	@Override
+	@Transactional
 	public void cancelReservation(Reservation reservation) {
-		ExtensionUtils.get(reservationValidatorExtensions, EventType.CANCELLATION).validate(reservation);
-		reservation.setStatus(ReservationStatus.CANCELLED);
-		reservationRepository.save(reservation);
-		log.info("Successfully cancelled reservation={}", reservation);
+		// The reservation is read again, since the one received may be outdated or already cancelled
+		Reservation currentReservation = getForUpdate(reservation.getBookingIdentifierUuid());
+		validateCancellation(currentReservation);
+		// The nights are released from the ledger only after committing, so they are never offered while still occupied
+		persist(() -> {
+			currentReservation.setStatus(ReservationStatus.CANCELLED);
+			saveIfUnmodified(currentReservation);
+			releaseNights(currentReservation.getArrivalDate(), currentReservation.getDepartureDate());
+		}, () -> confirmCancellation(currentReservation), () -> {});
+		log.info("Successfully cancelled reservation={}", currentReservation);
+	}
+
+	@Override
+	public void validateCancellation(Reservation reservation) {
+		reservationValidatorExtensionRegistry.get(EventType.CANCELLATION).validate(reservation);
+	}
+
+	/**
+	 * The nights of every write are checked against the capacity with a single read of the daily occupancy table, in
+	 * the same order the writes were received, so a cancellation frees its nights for the creations after it. All the
+	 * writes that fit are persisted together, and the ledger is updated once they are committed.
+	 */
+	@Override
+	@Transactional
+	public void applyWrites(List<ReservationWrite> writes) {
+		List<ReservationWrite> applied = new ArrayList<>(writes.size());
+		persist(() -> {
+			applied.addAll(occupyNights(writes));
+			applied.forEach(write -> write.getReservation().setStatus(write.isCreation() ? ReservationStatus.ACTIVE : ReservationStatus.CANCELLED));
+			reservationRepository.save(applied.stream().map(ReservationWrite::getReservation).collect(Collectors.toList()));
+		}, () -> applied.forEach(write -> {
+			if (write.isCreation()) {
+				confirmCreation(write.getReservation());
+			} else {
+				confirmCancellation(write.getReservation());
+			}
+		}), () -> writes.stream()
+				.filter(ReservationWrite::isCreation)
+				.forEach(write -> occupancyLedger.release(write.getReservation().getBookingIdentifierUuid())));
+		log.info("Successfully applied batch of writes={}, failures={}", applied.size(), writes.size() - applied.size());
+	}
+
+	/**
+	 * Reads the ACTIVE reservation of the booking from the database, locking its row until the transaction finishes, so
+	 * concurrent writes of the same booking are applied one after the other. Otherwise, throws a
+	 * {@link ReservationNotFoundException}
+	 */
+	private Reservation getForUpdate(String bookingIdentifierUuid) {
+		return reservationRepository.findByBookingIdentifierUuidAndStatusForUpdate(bookingIdentifierUuid, ReservationStatus.ACTIVE)
+				.orElseThrow(() -> new ReservationNotFoundException(bookingIdentifierUuid, ReservationStatus.ACTIVE));
 	}
 
 	/**
@@ -112,42 +312,241 @@ public class ReservationServiceImpl implements ReservationService {
 	}
 
 	/**
-	 * Private method that fetches the Reservation for a particular {@link DateRange}, applies some operations and
-	 * returns a {@link Map} by {@link LocalDate} and {@link Long}
+	 * Private method that returns the quantity of reservations for each date of a particular {@link EpochDayRange},
+	 * where the first position belongs to the start of the range. Only the dates that aren't cached are read from the
+	 * daily occupancy table.
 	 */
-	private Map<LocalDate, Long> getReservationsPerDate(DateRange dateRange) {
-		checkValidRange(dateRange);
-		Map<LocalDate, Long> availabilityMap = Maps.newHashMap();
-		int pageNumber = 0;
-		int pageSize = 10;
-		List<LocalDate> desiredDates = DateUtils.daysBetweenInclusive(dateRange);
-		List<Reservation> reservations;
-		do {
-			reservations = reservationRepository.findReservationsByDateRangeAndStatus(dateRange.getStart(), dateRange.getEnd(), ReservationStatus.ACTIVE, new PageRequest(pageNumber++, pageSize)).getContent();
-			// Map Page<Reservation> to Map<LocalDate, Long> and updates the availabilityMap
-			reservations.stream()
-					.flatMap(reservation -> DateUtils.daysBetween(
-									reservation.getArrivalDate(),
-									reservation.getDepartureDate())
-							.stream())
-					.collect(Collectors.groupingBy(
-							localDate -> localDate,
-							Collectors.reducing(
-									0L,
-									localDate -> 1L,
-									Long::sum)))
-					// Now we have a Map<LocalDate, Long> that contains all the dates from the Reservations that occupied
-					// at least one day from the desired range. We need to filter the map to preserve only the dates
-					// from the desired range.
-					.entrySet()
-					.stream()
-					.filter(entry -> desiredDates.contains(entry.getKey()))
-					.forEach(entry -> availabilityMap.merge(entry.getKey(), entry.getValue(), Long::sum));
-		} while (!reservations.isEmpty());
-		// However, not all the dates within the desired range will be in the Map that we created, because we flattened
-		// the existing reservations. We must merge the Map with all the dates - the existing and the missing ones
-		desiredDates.forEach(date -> availabilityMap.merge(date, 0L, Long::sum));
-		return availabilityMap;
+	private long[] getDailyOccupancy(EpochDayRange days) {
+		return dailyOccupancyCache.getOccupancy(days, this::readDailyOccupancy);
+	}
+
+	/**
+	 * Reserves the nights of a booking in the ledger, releasing the ones it occupied before. The ledger of this instance
+	 * only learns about the writes of other instances when it's refreshed, so a stay it rejects is checked again in the
+	 * daily occupancy table before throwing a {@link CapacityExceededException}. If the table still has room, the
+	 * nights are registered in the ledger anyway, and the conditional update of the table decides when persisting.
+	 */
+	private void reserveNights(String bookingIdentifierUuid, LocalDate arrivalDate, LocalDate departureDate, EpochDayRange releasedNights) {
+		if (occupancyLedger.tryReserve(bookingIdentifierUuid, arrivalDate, departureDate)) {
+			return;
+		}
+		if (!hasCapacityInDailyOccupancy(EpochDayRange.nights(arrivalDate, departureDate), releasedNights)) {
+			throw new CapacityExceededException(arrivalDate, departureDate);
+		}
+		occupancyLedger.add(bookingIdentifierUuid, arrivalDate, departureDate);
+	}
+
+	/**
+	 * Checks that every night is below the capacity in the daily occupancy table, read without the cache since it's
+	 * only asked when the ledger disagrees. The nights that are also part of releasedNights are checked as if the
+	 * booking that occupies them was already released.
+	 */
+	private boolean hasCapacityInDailyOccupancy(EpochDayRange nights, EpochDayRange releasedNights) {
+		long[] occupancy = readDailyOccupancy(nights);
+		return LongStream.range(nights.getStart(), nights.getEnd())
+				.allMatch(day -> occupancy[nights.indexOf(day)] - (releasedNights.contains(day) ? 1 : 0) < maxCapacity);
+	}
+
+	/**
+	 * Returns the nights occupied by an ACTIVE booking, or none if it isn't one
+	 */
+	private EpochDayRange nightsOf(String bookingIdentifierUuid) {
+		if (bookingIdentifierUuid == null || !UuidUtils.isValid(bookingIdentifierUuid)) {
+			return EpochDayRange.EMPTY;
+		}
+		return reservationRepository.findByBookingIdentifierUuidAndStatus(bookingIdentifierUuid, ReservationStatus.ACTIVE)
+				.map(reservation -> EpochDayRange.nights(reservation.getArrivalDate(), reservation.getDepartureDate()))
+				.orElse(EpochDayRange.EMPTY);
+	}
+
+	private long[] readDailyOccupancy(EpochDayRange days) {
+		long[] occupancy = new long[days.size()];
+		// Nights without a row aren't occupied by any reservation
+		dailyOccupancyRepository.findByDateBetween(toDate(days.startDate()), toDate(days.lastDate()))
+				.forEach(dailyOccupancy -> occupancy[days.indexOf(dailyOccupancy.getDate().toEpochDay())] = dailyOccupancy.getActiveCount());
+		return occupancy;
+	}
+
+	/**
+	 * Occupies the nights of a stay in the daily occupancy table, only if all of them are below the capacity.
+	 * Otherwise, throws a {@link CapacityExceededException} so the whole transaction is rolled back.
+	 */
+	private void occupyNights(LocalDate arrivalDate, LocalDate departureDate) {
+		EpochDayRange nights = EpochDayRange.nights(arrivalDate, departureDate);
+		ensureNights(nights);
+		if (dailyOccupancyRepository.occupy(toDate(nights.startDate()), toDate(nights.endDate()), maxCapacity) < nights.size()) {
+			throw new CapacityExceededException(arrivalDate, departureDate);
+		}
+	}
+
+	/**
+	 * Occupies and releases the nights of the writes in the daily occupancy table. The rows of all the nights are read
+	 * and locked at once, and updated when the transaction is flushed. The creations that would exceed the capacity of
+	 * any night get a {@link CapacityExceededException} as failure and release their nights in the ledger. Returns the
+	 * writes that were applied.
+	 */
+	private List<ReservationWrite> occupyNights(List<ReservationWrite> batch) {
+		List<ReservationWrite> writes = lockCancellations(batch);
+		if (writes.isEmpty()) {
+			return writes;
+		}
+		EpochDayRange nights = writes.stream()
+				.map(write -> EpochDayRange.nights(write.getReservation().getArrivalDate(), write.getReservation().getDepartureDate()))
+				.reduce(EpochDayRange.EMPTY, EpochDayRange::span);
+		DailyOccupancy[] rows = lockNights(nights);
+		List<ReservationWrite> applied = new ArrayList<>(writes.size());
+		for (ReservationWrite write : writes) {
+			Reservation reservation = write.getReservation();
+			EpochDayRange stay = EpochDayRange.nights(reservation.getArrivalDate(), reservation.getDepartureDate());
+			if (!write.isCreation()) {
+				stay.forEach(day -> rows[nights.indexOf(day)].setActiveCount(Math.max(0L, rows[nights.indexOf(day)].getActiveCount() - 1)));
+				applied.add(write);
+			} else if (LongStream.range(stay.getStart(), stay.getEnd()).allMatch(day -> rows[nights.indexOf(day)].getActiveCount() < maxCapacity)) {
+				stay.forEach(day -> rows[nights.indexOf(day)].setActiveCount(rows[nights.indexOf(day)].getActiveCount() + 1));
+				applied.add(write);
+			} else {
+				occupancyLedger.release(reservation.getBookingIdentifierUuid());
+				write.setFailure(new CapacityExceededException(reservation.getArrivalDate(), reservation.getDepartureDate()));
+			}
+		}
+		return applied;
+	}
+
+	/**
+	 * Moves the nights of an updated stay in the daily occupancy table. The rows of the old and the new nights are read
+	 * and locked at once, in ascending order as batches do, so a move never waits for a writer that locked them in the
+	 * opposite order. The old nights are released first, so the booking can be moved to nights that overlap with them.
+	 * If any of the new nights would exceed the capacity, throws a {@link CapacityExceededException} so the whole
+	 * transaction is rolled back.
+	 */
+	private void moveNights(LocalDate oldArrivalDate, LocalDate oldDepartureDate, LocalDate arrivalDate, LocalDate departureDate) {
+		EpochDayRange oldNights = EpochDayRange.nights(oldArrivalDate, oldDepartureDate);
+		EpochDayRange newNights = EpochDayRange.nights(arrivalDate, departureDate);
+		EpochDayRange nights = oldNights.span(newNights);
+		DailyOccupancy[] rows = lockNights(nights);
+		oldNights.forEach(day -> rows[nights.indexOf(day)].setActiveCount(Math.max(0L, rows[nights.indexOf(day)].getActiveCount() - 1)));
+		if (!LongStream.range(newNights.getStart(), newNights.getEnd()).allMatch(day -> rows[nights.indexOf(day)].getActiveCount() < maxCapacity)) {
+			throw new CapacityExceededException(arrivalDate, departureDate);
+		}
+		newNights.forEach(day -> rows[nights.indexOf(day)].setActiveCount(rows[nights.indexOf(day)].getActiveCount() + 1));
+	}
+
+	/**
+	 * Reads and locks the rows of the nights in ascending order, creating the missing ones first. Returns them with one
+	 * position per night, so they are updated when the transaction is flushed.
+	 */
+	private DailyOccupancy[] lockNights(EpochDayRange nights) {
+		ensureNights(nights);
+		DailyOccupancy[] rows = new DailyOccupancy[nights.size()];
+		dailyOccupancyRepository.findByDateRangeForUpdate(toDate(nights.startDate()), toDate(nights.endDate()))
+				.forEach(row -> rows[nights.indexOf(row.getDate().toEpochDay())] = row);
+		return rows;
+	}
+
+	/**
+	 * Reads the reservation of every cancellation again, locking its row before the rows of the daily occupancy, as
+	 * single updates and cancellations do. The cancellations whose reservation isn't ACTIVE anymore, or whose booking is
+	 * cancelled earlier in the same batch, get a {@link ReservationNotFoundException} as failure, so their nights are
+	 * never released twice. Returns the writes that can still be applied.
+	 */
+	private List<ReservationWrite> lockCancellations(List<ReservationWrite> writes) {
+		Set<String> cancelledBookings = new HashSet<>();
+		List<ReservationWrite> lockedWrites = new ArrayList<>(writes.size());
+		for (ReservationWrite write : writes) {
+			if (!write.isCreation()) {
+				String bookingIdentifierUuid = write.getReservation().getBookingIdentifierUuid();
+				Optional<Reservation> reservation = cancelledBookings.add(bookingIdentifierUuid) ?
+						reservationRepository.findByBookingIdentifierUuidAndStatusForUpdate(bookingIdentifierUuid, ReservationStatus.ACTIVE) :
+						Optional.empty();
+				if (!reservation.isPresent()) {
+					write.setFailure(new ReservationNotFoundException(bookingIdentifierUuid, ReservationStatus.ACTIVE));
+					continue;
+				}
+				write.setReservation(reservation.get());
+			}
+			lockedWrites.add(write);
+		}
+		return lockedWrites;
+	}
+
+	/**
+	 * Creates the rows of the nights that don't exist yet, which can only happen for nights created by another writer
+	 * since the last reconciliation
+	 */
+	private void ensureNights(EpochDayRange nights) {
+		if (dailyOccupancyRepository.countByDateBetween(toDate(nights.startDate()), toDate(nights.lastDate())) < nights.size()) {
+			try {
+				dailyOccupancyReconciler.ensureNights(nights.startDate(), nights.endDate());
+			} catch (DataIntegrityViolationException e) {
+				// Another writer created the same rows at the same time
+				log.debug("Daily occupancy rows already created for start={}, end={}", nights.startDate(), nights.endDate());
+			}
+		}
+	}
+
+	private void confirmCreation(Reservation reservation) {
+		occupancyLedger.add(reservation.getBookingIdentifierUuid(), reservation.getArrivalDate(), reservation.getDepartureDate());
+		dailyOccupancyCache.invalidate(EpochDayRange.nights(reservation.getArrivalDate(), reservation.getDepartureDate()));
+		activeReservationCache.put(reservation);
+		reservationJournal.ifPresent(journal -> journal.append(EventType.CREATION, reservation));
+	}
+
+	private void confirmCancellation(Reservation reservation) {
+		occupancyLedger.release(reservation.getBookingIdentifierUuid());
+		dailyOccupancyCache.invalidate(EpochDayRange.nights(reservation.getArrivalDate(), reservation.getDepartureDate()));
+		activeReservationCache.remove(reservation.getBookingIdentifierUuid());
+		reservationJournal.ifPresent(journal -> journal.append(EventType.CANCELLATION, reservation));
+	}
+
+	/**
+	 * Writes the changes of an existing reservation right away, so its nights are only released or occupied once its
+	 * row was updated. The row is only updated if it wasn't written since the reservation was read, which means that
+	 * it's still ACTIVE with the same nights. Otherwise, throws a {@link ReservationModifiedException} so the whole
+	 * transaction is rolled back.
+	 */
+	private void saveIfUnmodified(Reservation reservation) {
+		try {
+			Reservation saved = reservationRepository.save(reservation);
+			reservationRepository.flush();
+			// The version is only incremented in the copy managed by the transaction
+			reservation.setVersion(saved.getVersion());
+		} catch (OptimisticLockingFailureException e) {
+			throw new ReservationModifiedException(reservation.getBookingIdentifierUuid());
+		}
+	}
+
+	private void releaseNights(LocalDate arrivalDate, LocalDate departureDate) {
+		EpochDayRange nights = EpochDayRange.nights(arrivalDate, departureDate);
+		dailyOccupancyRepository.release(toDate(nights.startDate()), toDate(nights.endDate()));
+	}
+
+	/**
+	 * Runs the persistence and applies the ledger changes depending on its outcome: onCommit once the transaction is
+	 * committed, onRollback if it fails. Confirming after the commit also restores the booking if the ledger was
+	 * reloaded in the meantime. Without an active transaction, the outcome is known as soon as the persistence returns.
+	 */
+	private void persist(Runnable persistence, Runnable onCommit, Runnable onRollback) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					if (status == TransactionSynchronization.STATUS_COMMITTED) {
+						onCommit.run();
+					} else {
+						onRollback.run();
+					}
+				}
+			});
+			persistence.run();
+			return;
+		}
+		try {
+			persistence.run();
+		} catch (RuntimeException e) {
+			onRollback.run();
+			throw e;
+		}
+		onCommit.run();
 	}
 
 	/**
@@ -0,0 +1,43 @@
+package com.reservations.service;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import com.reservations.entity.EventType;
+import com.reservations.entity.Reservation;
+import com.reservations.exception.ReservationServiceException;
+
+/**
+ * Creation or cancellation of a reservation applied within a batch by {@link ReservationService#applyWrites}. The
+ * reservation of a cancellation is replaced by the one read again from the database before applying it. The failure is
+ * set when the write couldn't be applied without affecting the rest of the batch.
+ */
+@Getter
+public class ReservationWrite {
+	private final EventType eventType;
+	@Setter
+	private Reservation reservation;
+	@Setter
+	private ReservationServiceException failure;
+
+	private ReservationWrite(EventType eventType, Reservation reservation) {
+		this.eventType = eventType;
+		this.reservation = reservation;
+	}
+
+	public static ReservationWrite creation(Reservation reservation) {
+		return new ReservationWrite(EventType.CREATION, reservation);
+	}
+
+	public static ReservationWrite cancellation(Reservation reservation) {
+		return new ReservationWrite(EventType.CANCELLATION, reservation);
+	}
+
+	public boolean isCreation() {
+		return eventType == EventType.CREATION;
+	}
+
+	public boolean isFailed() {
+		return failure != null;
+	}
+}
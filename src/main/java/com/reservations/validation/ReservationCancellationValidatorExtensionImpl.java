@@ -3,10 +3,10 @@ package com.reservations.validation;
 import static com.reservations.validation.ReservationValidatorConstants.ARRIVAL_DATE_FIELD;
 import static com.reservations.validation.ReservationValidatorConstants.VALIDATION_ERROR_RESERVATION_ALREADY_STARTED;
 
-import java.sql.Time;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.Collections;
+import java.util.List;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -16,10 +16,8 @@ import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
-import com.google.common.collect.Sets;
 import com.reservations.entity.EventType;
 import com.reservations.entity.Reservation;
-import com.reservations.exception.ReservationValidationException;
 import com.reservations.service.ReservationService;
 
 /**
@@ -29,6 +27,7 @@ import com.reservations.service.ReservationService;
 @Component
 public class ReservationCancellationValidatorExtensionImpl extends ReservationCompleteValidatorExtension {
 	private final LocalTime checkinTime;
+	private final List<ReservationValidationRule> cancellationRules;
 
 	public ReservationCancellationValidatorExtensionImpl(@Value("${reservations.check-in-time-hour}") int checkInTimeHour,
 														 @Value("${reservations.check-in-time-minute}") int checkInTimeMinute,
@@ -36,10 +35,16 @@ public class ReservationCancellationValidatorExtensionImpl extends ReservationCo
 														 @Value("${reservations.max-advance-days}") int maxAdvanceTime,
 														 @Value("${reservations.min-duration}") int minDuration,
 														 @Value("${reservations.max-duration}") int maxDuration,
+														 @Value("${reservations.validation.fail-fast.cancellation}") boolean failFast,
 														 @Lazy ReservationService reservationService,
 														 @Autowired MessageSource messages) {
-		super(minimumArrivalAheadDays, maxAdvanceTime, minDuration, maxDuration, reservationService, messages);
+		super(minimumArrivalAheadDays, maxAdvanceTime, minDuration, maxDuration, failFast, reservationService, messages);
 		this.checkinTime = LocalTime.of(checkInTimeHour, checkInTimeMinute);
+		this.cancellationRules = Collections.singletonList(ReservationValidationRule.violatedWhen(this::reservationAlreadyStarted,
+				ReservationValidatorError.builder()
+						.fields(Collections.singletonList(ARRIVAL_DATE_FIELD))
+						.description(getMessage(VALIDATION_ERROR_RESERVATION_ALREADY_STARTED))
+						.build()));
 	}
 
 	@Override
@@ -54,12 +59,7 @@ public class ReservationCancellationValidatorExtensionImpl extends ReservationCo
 
 	@Override
 	public void validate(Reservation reservation) {
-		if (reservationAlreadyStarted(reservation)) {
-			throw new ReservationValidationException(Sets.newHashSet(ReservationValidatorError.builder()
-					.fields(Collections.singletonList(ARRIVAL_DATE_FIELD))
-					.description(getMessage(VALIDATION_ERROR_RESERVATION_ALREADY_STARTED))
-					.build()));
-		}
+		checkRules(reservation, cancellationRules);
 	}
 
 	/**
@@ -1,5 +1,6 @@
 package com.reservations.validation;
 
+import static com.reservations.validation.ReservationValidationRule.violatedWhen;
 import static com.reservations.validation.ReservationValidatorConstants.ARRIVAL_DATE_FIELD;
 import static com.reservations.validation.ReservationValidatorConstants.DEPARTURE_DATE_FIELD;
 import static com.reservations.validation.ReservationValidatorConstants.VALIDATION_ERROR_BASE;
@@ -13,23 +14,27 @@ import static java.time.temporal.ChronoUnit.DAYS;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
-import java.util.Set;
-import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.context.MessageSource;
 
-import com.google.common.collect.Sets;
 import com.reservations.entity.DateRange;
 import com.reservations.entity.Reservation;
-import com.reservations.exception.ReservationValidationException;
 import com.reservations.service.ReservationService;
 
 /**
- * Intermediary class that has the logic to validate all the business rules applicable to Reservations
+ * Intermediary class that has the logic to validate all the business rules applicable to Reservations. The rules and
+ * their errors are built once, and every validation collects its errors in its own {@link ReservationValidationResult},
+ * so the same instance can validate several reservations at the same time.
+ *
+ * The rules are checked from the cheapest to the most expensive one. By default all of them are checked, so every error
+ * is reported. In fail-fast mode, the rules that aren't checked in memory are skipped once any rule has failed, since
+ * the reservation is going to be rejected anyway.
  */
 @Slf4j
 public abstract class ReservationCompleteValidatorExtension implements ReservationValidatorExtension {
@@ -37,51 +42,70 @@ public abstract class ReservationCompleteValidatorExtension implements Reservati
 	private final int maxAdvanceTime;
 	private final int minDuration;
 	private final int maxDuration;
+	private final boolean failFast;
 	private final ReservationService reservationService;
 	private final MessageSource messages;
-	private final List<Predicate<Reservation>> validationsList;
-
-	private Set<ReservationValidatorError> errors;
+	private final List<ReservationValidationRule> validationsList;
 
 	public ReservationCompleteValidatorExtension(int minimumArrivalAheadDays,
 												 int maxAdvanceTime,
 												 int minDuration,
 												 int maxDuration,
+												 boolean failFast,
 												 ReservationService reservationService,
 												 MessageSource messages) {
 		this.minimumArrivalAheadDays = minimumArrivalAheadDays;
 		this.maxAdvanceTime = maxAdvanceTime;
 		this.minDuration = minDuration;
 		this.maxDuration = maxDuration;
+		this.failFast = failFast;
 		this.reservationService = reservationService;
 		this.messages = messages;
-		this.validationsList = Arrays.asList(
+		this.validationsList = orderByCost(Arrays.asList(
 				validateArrivalDateHasMinimumAheadDays(),
 				validateArrivalDateDoesntExceedMaximumAdvanceDays(),
 				validateMinimumDuration(),
 				validateMaximumDuration(),
-				validateCampsiteAvailability());
+				validateCampsiteAvailability()));
 	}
 
 	@Override
 	public void validate(Reservation reservation) {
-		errors = Sets.newHashSet();
-		// Can't use anyMatch() or allMatch() because these are short-circuited, and we want to list all the errors
-		if (!validationsList.stream()
-				.map(validation -> validation.test(reservation))
-				.reduce(Boolean::logicalAnd)
-				.orElse(Boolean.TRUE)) {
-			throw new ReservationValidationException(errors);
-		}
+		checkRules(reservation, validationsList);
 		log.info("Successfully validated reservation creation");
 	}
 
 	/**
-	 * Predicate that checks that the reservation can be created minimum {@link ReservationCreationValidatorExtensionImpl#minimumArrivalAheadDays}
+	 * Checks the rules received as parameter, which must be ordered by cost, and throws a
+	 * {@link com.reservations.exception.ReservationValidationException} with the errors of the ones that were violated
+	 */
+	protected void checkRules(Reservation reservation, List<ReservationValidationRule> rules) {
+		ReservationValidationResult result = new ReservationValidationResult();
+		for (ReservationValidationRule rule : rules) {
+			if (failFast && !result.isValid() && rule.getCost() != ReservationValidationCost.IN_MEMORY) {
+				break;
+			}
+			rule.check(reservation, result);
+		}
+		result.throwIfInvalid();
+	}
+
+	/**
+	 * Returns the rules sorted from the cheapest to the most expensive one, keeping the order of the rules with the
+	 * same cost
+	 */
+	protected static List<ReservationValidationRule> orderByCost(List<ReservationValidationRule> rules) {
+		return rules.stream()
+				.sorted(Comparator.comparing(ReservationValidationRule::getCost))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Rule that checks that the reservation can be created minimum {@link ReservationCreationValidatorExtensionImpl#minimumArrivalAheadDays}
 	 * days ahead from arrival. E.g. a reservation can be created minimum 1 day ahead from arrivalDate.
 	 */
-	private Predicate<Reservation> validateArrivalDateHasMinimumAheadDays() {
-		return checkPredicate(reservation -> reservation.getArrivalDate().isBefore(LocalDate.now().plusDays(minimumArrivalAheadDays)),
+	private ReservationValidationRule validateArrivalDateHasMinimumAheadDays() {
+		return violatedWhen(reservation -> reservation.getArrivalDate().isBefore(LocalDate.now().plusDays(minimumArrivalAheadDays)),
 				ReservationValidatorError.builder()
 						.fields(Collections.singletonList(ARRIVAL_DATE_FIELD))
 						.description(String.format(getMessage(VALIDATION_ERROR_MINIMUM_AHEAD_DAYS), minimumArrivalAheadDays))
@@ -89,11 +113,11 @@ public abstract class ReservationCompleteValidatorExtension implements Reservati
 	}
 
 	/**
-	 * Predicate that checks that the reservation can be created up to {@link ReservationCreationValidatorExtensionImpl#maxAdvanceTime}
+	 * Rule that checks that the reservation can be created up to {@link ReservationCreationValidatorExtensionImpl#maxAdvanceTime}
 	 * days in advance. E.g. a reservation can be created up to 30 days (1 month) in advance.
 	 */
-	private Predicate<Reservation> validateArrivalDateDoesntExceedMaximumAdvanceDays() {
-		return checkPredicate(reservation -> !reservation.getArrivalDate().isBefore(LocalDate.now().plusDays(maxAdvanceTime)),
+	private ReservationValidationRule validateArrivalDateDoesntExceedMaximumAdvanceDays() {
+		return violatedWhen(reservation -> !reservation.getArrivalDate().isBefore(LocalDate.now().plusDays(maxAdvanceTime)),
 				ReservationValidatorError.builder()
 						.fields(Collections.singletonList(ARRIVAL_DATE_FIELD))
 						.description(String.format(getMessage(VALIDATION_ERROR_MAXIMUM_ADVANCE_DAYS), maxAdvanceTime))
@@ -101,11 +125,11 @@ public abstract class ReservationCompleteValidatorExtension implements Reservati
 	}
 
 	/**
-	 * Predicate that checks that the reservation has a minimum duration of {@link ReservationCreationValidatorExtensionImpl#minDuration}
+	 * Rule that checks that the reservation has a minimum duration of {@link ReservationCreationValidatorExtensionImpl#minDuration}
 	 * days. E.g. a reservation must have a minimum duration of 1 day.
 	 */
-	private Predicate<Reservation> validateMinimumDuration() {
-		return checkPredicate(reservation -> DAYS.between(reservation.getArrivalDate(), reservation.getDepartureDate()) < minDuration,
+	private ReservationValidationRule validateMinimumDuration() {
+		return violatedWhen(reservation -> DAYS.between(reservation.getArrivalDate(), reservation.getDepartureDate()) < minDuration,
 				ReservationValidatorError.builder()
 						.fields(Arrays.asList(ARRIVAL_DATE_FIELD, DEPARTURE_DATE_FIELD))
 						.description(String.format(getMessage(VALIDATION_ERROR_MINIMUM_DURATION), minDuration))
@@ -113,11 +137,11 @@ public abstract class ReservationCompleteValidatorExtension implements Reservati
 	}
 
 	/**
-	 * Predicate that checks that the reservation doesnt exceed the maximum duration of {@link ReservationCreationValidatorExtensionImpl#maxDuration}
+	 * Rule that checks that the reservation doesnt exceed the maximum duration of {@link ReservationCreationValidatorExtensionImpl#maxDuration}
 	 * days. E.g. a reservation can't exceed 3 days.
 	 */
-	private Predicate<Reservation> validateMaximumDuration() {
-		return checkPredicate(reservation -> DAYS.between(reservation.getArrivalDate(), reservation.getDepartureDate()) > maxDuration,
+	private ReservationValidationRule validateMaximumDuration() {
+		return violatedWhen(reservation -> DAYS.between(reservation.getArrivalDate(), reservation.getDepartureDate()) > maxDuration,
 				ReservationValidatorError.builder()
 						.fields(Arrays.asList(ARRIVAL_DATE_FIELD, DEPARTURE_DATE_FIELD))
 						.description(String.format(getMessage(VALIDATION_ERROR_MAXIMUM_DURATION), maxDuration))
@@ -125,11 +149,11 @@ public abstract class ReservationCompleteValidatorExtension implements Reservati
 	}
 
 	/**
-	 * Predicate that checks that the campsite is available in the range starting in {@link Reservation#arrivalDate}
+	 * Rule that checks that the campsite is available in the range starting in {@link Reservation#arrivalDate}
 	 * and finishing in {@link Reservation#departureDate}.
 	 */
-	private Predicate<Reservation> validateCampsiteAvailability() {
-		return checkPredicate(reservation -> !reservationService.checkAvailability(
+	private ReservationValidationRule validateCampsiteAvailability() {
+		return violatedWhen(reservation -> !reservationService.checkAvailability(
 						DateRange.builder()
 								.start(reservation.getArrivalDate())
 								.end(reservation.getDepartureDate())
@@ -138,21 +162,8 @@ public abstract class ReservationCompleteValidatorExtension implements Reservati
 				ReservationValidatorError.builder()
 						.fields(Arrays.asList(ARRIVAL_DATE_FIELD, DEPARTURE_DATE_FIELD))
 						.description(getMessage(VALIDATION_ERROR_MAXIMUM_CAPACITY))
-						.build());
-	}
-
-	/**
-	 * Internal method that validates a negative predicate received as parameter.
-	 * If the {@link Predicate} received as parameter is false, the error is added to the {@link ReservationCreationValidatorExtensionImpl#errors} attribute.
-	 */
-	private Predicate<Reservation> checkPredicate(Predicate<Reservation> predicate, ReservationValidatorError error) {
-		return reservation -> {
-			if (predicate.test(reservation)) {
-				errors.add(error);
-				return false;
-			}
-			return true;
-		};
+						.build(),
+				ReservationValidationCost.DATABASE);
 	}
 
 	/**
@@ -22,9 +22,10 @@ public class ReservationUpdateValidatorExtensionImpl extends ReservationComplete
 													 @Value("${reservations.max-advance-days}") int maxAdvanceTime,
 													 @Value("${reservations.min-duration}") int minDuration,
 													 @Value("${reservations.max-duration}") int maxDuration,
+													 @Value("${reservations.validation.fail-fast.update}") boolean failFast,
 													 @Lazy ReservationService reservationService,
 													 @Autowired MessageSource messages) {
-		super(minimumArrivalAheadDays, maxAdvanceTime, minDuration, maxDuration, reservationService, messages);
+		super(minimumArrivalAheadDays, maxAdvanceTime, minDuration, maxDuration, failFast, reservationService, messages);
 	}
 
 	@Override
@@ -0,0 +1,14 @@
+package com.reservations.validation;
+
+/**
+ * Relative cost of checking a {@link ReservationValidationRule}. Rules are checked from the cheapest to the most
+ * expensive one.
+ */
+public enum ReservationValidationCost {
+	// Pure calculations over the reservation itself
+	IN_MEMORY,
+	// Rules that might query the Database
+	DATABASE,
+	// Rules that call other services
+	REMOTE
+}
@@ -0,0 +1,41 @@
+package com.reservations.validation;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+
+import com.google.common.collect.Sets;
+import com.reservations.exception.ReservationValidationException;
+
+/**
+ * Errors found while validating a single {@link com.reservations.entity.Reservation}. A new result is created for
+ * every validation, so it's never shared between threads.
+ */
+public final class ReservationValidationResult {
+	// Most of the validations succeed, so the set is only created with the first error
+	private Set<ReservationValidatorError> errors;
+
+	public void addError(ReservationValidatorError error) {
+		if (Objects.isNull(errors)) {
+			errors = Sets.newHashSet();
+		}
+		errors.add(error);
+	}
+
+	public boolean isValid() {
+		return Objects.isNull(errors);
+	}
+
+	public Set<ReservationValidatorError> getErrors() {
+		return isValid() ? Collections.emptySet() : Collections.unmodifiableSet(errors);
+	}
+
+	/**
+	 * Throws a {@link ReservationValidationException} with all the errors, if there is at least one
+	 */
+	public void throwIfInvalid() {
+		if (!isValid()) {
+			throw new ReservationValidationException(errors);
+		}
+	}
+}
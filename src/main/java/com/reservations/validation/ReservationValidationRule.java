@@ -0,0 +1,51 @@
+package com.reservations.validation;
+
+import java.util.function.Predicate;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import com.reservations.entity.Reservation;
+
+/**
+ * Business rule that a {@link Reservation} must satisfy, along with the error reported when it doesn't. Rules are
+ * immutable and the outcome of every check is registered in the {@link ReservationValidationResult} of the call, so
+ * the same rule can be checked by several threads at the same time.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ReservationValidationRule {
+	private final Predicate<Reservation> violation;
+	@Getter
+	private final ReservationValidatorError error;
+	@Getter
+	private final ReservationValidationCost cost;
+
+	/**
+	 * Creates a rule that is violated when the {@link Predicate} received as parameter is true, and that is checked
+	 * in memory
+	 */
+	public static ReservationValidationRule violatedWhen(Predicate<Reservation> violation, ReservationValidatorError error) {
+		return violatedWhen(violation, error, ReservationValidationCost.IN_MEMORY);
+	}
+
+	/**
+	 * Creates a rule that is violated when the {@link Predicate} received as parameter is true, with the cost of
+	 * checking it
+	 */
+	public static ReservationValidationRule violatedWhen(Predicate<Reservation> violation, ReservationValidatorError error, ReservationValidationCost cost) {
+		return new ReservationValidationRule(violation, error, cost);
+	}
+
+	/**
+	 * Checks the rule for the reservation, adding its error to the result if it's violated. Returns true only if the
+	 * rule is satisfied.
+	 */
+	public boolean check(Reservation reservation, ReservationValidationResult result) {
+		if (violation.test(reservation)) {
+			result.addError(error);
+			return false;
+		}
+		return true;
+	}
+}
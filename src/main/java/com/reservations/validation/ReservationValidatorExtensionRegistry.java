@@ -0,0 +1,20 @@
+package com.reservations.validation;
+
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.reservations.entity.EventType;
+import com.reservations.extensibility.registry.ExtensionRegistry;
+
+/**
+ * {@link ReservationValidatorExtension} used for each {@link EventType}, resolved on start among all the registered ones
+ */
+@Component
+public class ReservationValidatorExtensionRegistry extends ExtensionRegistry<EventType, ReservationValidatorExtension> {
+	@Autowired
+	public ReservationValidatorExtensionRegistry(Set<ReservationValidatorExtension> reservationValidatorExtensions) {
+		super(EventType.class, reservationValidatorExtensions);
+	}
+}
@@ -0,0 +1,89 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import com.reservations.entity.utils.UuidUtils;
+
+/**
+ * Replaces the text of booking_identifier_uuid by its 16 bytes, keeping the column and index names. The rows are
+ * converted in Java by pages of ids, because MySQL and H2 don't share any function to parse hexadecimal text, nor the
+ * syntax to rename a column.
+ *
+ * The column is VARBINARY(16) rather than BINARY(16): H2 only reports VARBINARY, and the schema validation of a
+ * converted byte[] attribute only matches by type name, which must then be the same in both databases.
+ */
+public class V005__Store_booking_identifier_as_binary extends BaseJavaMigration {
+	private static final int PAGE_SIZE = 1000;
+
+	private static final List<String> MYSQL_SWAP_COLUMNS = Arrays.asList(
+			"ALTER TABLE `reservations` DROP INDEX `ux_reservations_booking_identifier_uuid`, DROP COLUMN `booking_identifier_uuid`",
+			"ALTER TABLE `reservations` CHANGE COLUMN `booking_identifier_bytes` `booking_identifier_uuid` VARBINARY(16) NOT NULL",
+			"CREATE UNIQUE INDEX `ux_reservations_booking_identifier_uuid` ON `reservations` (`booking_identifier_uuid`)");
+	private static final List<String> H2_SWAP_COLUMNS = Arrays.asList(
+			"DROP INDEX `ux_reservations_booking_identifier_uuid`",
+			"ALTER TABLE `reservations` DROP COLUMN `booking_identifier_uuid`",
+			"ALTER TABLE `reservations` ALTER COLUMN `booking_identifier_bytes` RENAME TO `booking_identifier_uuid`",
+			"ALTER TABLE `reservations` ALTER COLUMN `booking_identifier_uuid` SET NOT NULL",
+			"CREATE UNIQUE INDEX `ux_reservations_booking_identifier_uuid` ON `reservations` (`booking_identifier_uuid`)");
+
+	@Override
+	public void migrate(Context context) throws Exception {
+		Connection connection = context.getConnection();
+		List<String> swapColumns = swapColumns(connection.getMetaData().getDatabaseProductName());
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("ALTER TABLE `reservations` ADD COLUMN `booking_identifier_bytes` VARBINARY(16)");
+		}
+		convert(connection);
+		try (Statement statement = connection.createStatement()) {
+			for (String sql : swapColumns) {
+				statement.execute(sql);
+			}
+		}
+	}
+
+	private void convert(Connection connection) throws SQLException {
+		try (PreparedStatement select = connection.prepareStatement("SELECT `id`, `booking_identifier_uuid` FROM `reservations` WHERE `id` > ? ORDER BY `id` LIMIT " + PAGE_SIZE);
+			 PreparedStatement update = connection.prepareStatement("UPDATE `reservations` SET `booking_identifier_bytes` = ? WHERE `id` = ?")) {
+			long lastId = 0L;
+			int converted;
+			do {
+				converted = 0;
+				select.setLong(1, lastId);
+				try (ResultSet rows = select.executeQuery()) {
+					while (rows.next()) {
+						lastId = rows.getLong(1);
+						String bookingIdentifierUuid = rows.getString(2);
+						if (!UuidUtils.isValid(bookingIdentifierUuid)) {
+							throw new IllegalStateException(String.format("Invalid booking_identifier_uuid=%s in reservation with id=%d", bookingIdentifierUuid, lastId));
+						}
+						update.setBytes(1, UuidUtils.toBytes(bookingIdentifierUuid));
+						update.setLong(2, lastId);
+						update.addBatch();
+						converted++;
+					}
+				}
+				update.executeBatch();
+			} while (converted == PAGE_SIZE);
+		}
+	}
+
+	private List<String> swapColumns(String databaseProductName) {
+		switch (databaseProductName) {
+			case "MySQL":
+				return MYSQL_SWAP_COLUMNS;
+			case "H2":
+				return H2_SWAP_COLUMNS;
+			default:
+				throw new IllegalStateException(String.format("Unsupported database=%s", databaseProductName));
+		}
+	}
+}
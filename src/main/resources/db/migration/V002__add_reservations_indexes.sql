@@ -0,0 +1,5 @@
+-- Lookups by booking identifier (update and cancellation)
+CREATE UNIQUE INDEX `ux_reservations_booking_identifier_uuid` ON `reservations` (`booking_identifier_uuid`);
+
+-- Reservations by status overlapping a range of dates (availability)
+CREATE INDEX `ix_reservations_status_arrival_departure` ON `reservations` (`status`, `arrival_date`, `departure_date`);
@@ -0,0 +1,8 @@
+-- Quantity of ACTIVE reservations occupying each night, maintained in the same transaction as the reservations
+CREATE TABLE IF NOT EXISTS `reservation_daily_occupancy` (
+	`date`					date				NOT NULL,
+	`active_count`	bigint(20)		NOT NULL DEFAULT 0,
+	PRIMARY KEY (`date`)
+)
+	ENGINE = InnoDB
+	DEFAULT CHARSET = utf8;
@@ -0,0 +1,9 @@
+-- Identifiers of the reservations, allocated by Hibernate in blocks so the inserts can be batched. It starts after the
+-- existing reservations, the AUTO_INCREMENT of the column is kept for rows inserted outside the application
+CREATE TABLE IF NOT EXISTS `reservations_id_sequence` (
+	`next_val`	bigint(20)		NOT NULL
+)
+	ENGINE = InnoDB
+	DEFAULT CHARSET = utf8;
+
+INSERT INTO `reservations_id_sequence` (`next_val`) SELECT COALESCE(MAX(`id`), 0) + 1 FROM `reservations`;
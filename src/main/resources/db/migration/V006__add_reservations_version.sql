@@ -0,0 +1,3 @@
+-- Version of each reservation, incremented by every update. An update or cancellation only applies if the row wasn't
+-- written since the reservation was read, so the daily occupancy is never released or occupied twice
+ALTER TABLE `reservations` ADD COLUMN `version` bigint(20) NOT NULL DEFAULT 0;
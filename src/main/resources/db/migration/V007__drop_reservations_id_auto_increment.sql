@@ -0,0 +1,7 @@
+-- Identifiers are only allocated through reservations_id_sequence. The AUTO_INCREMENT counter of the column was kept by
+-- V004, but it's independent from the sequence, so rows inserted without an id would eventually take the ids allocated
+-- by the application. Any row inserted that way in the meantime is skipped by the sequence, and inserting without an id
+-- fails from now on
+UPDATE `reservations_id_sequence` SET `next_val` = GREATEST(`next_val`, (SELECT COALESCE(MAX(`id`), 0) + 1 FROM `reservations`));
+
+ALTER TABLE `reservations` MODIFY COLUMN `id` bigint(20) unsigned NOT NULL;
@@ -12,6 +12,7 @@ import com.google.common.collect.Lists;
 import com.reservations.entity.DateRange;
 import com.reservations.entity.Reservation;
 import com.reservations.entity.ReservationStatus;
+import com.reservations.entity.ReservationStay;
 import com.reservations.entity.utils.DateUtils;
 import com.reservations.validation.ReservationValidatorError;
 
@@ -59,6 +60,15 @@ public class TestUtils {
 		return reservations;
 	}
 
+	public static ReservationStay stayOf(Reservation reservation) {
+		return ReservationStay.builder()
+				.bookingIdentifierUuid(reservation.getBookingIdentifierUuid())
+				.arrivalDate(reservation.getArrivalDate())
+				.departureDate(reservation.getDepartureDate())
+				.version(reservation.getVersion() == null ? 0L : reservation.getVersion())
+				.build();
+	}
+
 	public static ReservationValidatorError basicError(List<String> errors, String description) {
 		return ReservationValidatorError.builder()
 				.fields(errors)
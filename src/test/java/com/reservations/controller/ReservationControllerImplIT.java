@@ -0,0 +1,126 @@
+package com.reservations.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.Matchers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.reservations.Application;
+import com.reservations.executor.RequestTaskExecutor;
+
+/**
+ * Verifies that the requests run on the bounded executors, and that a saturated executor completes its requests with
+ * 503 without affecting the requests of the other one.
+ */
+@SpringBootTest(classes = Application.class, properties = {
+		"reservations.executor.reads.pool-size=1",
+		"reservations.executor.reads.queue-capacity=1"})
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+public class ReservationControllerImplIT extends AbstractTestNGSpringContextTests {
+	private static final String RESERVATIONS_PATH = "/api/v1/reservations";
+	// Bounds the time a blocked task waits, in case a test ends without releasing it
+	private static final long RELEASE_TIMEOUT_SECONDS = 5L;
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	@Qualifier("readRequestTaskExecutor")
+	private RequestTaskExecutor readRequestTaskExecutor;
+
+	private CountDownLatch release;
+
+	@BeforeMethod
+	public void setup() {
+		release = new CountDownLatch(1);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		release.countDown();
+	}
+
+	@Test
+	public void testGetAvailability_returnsOk() throws Exception {
+		MvcResult result = mockMvc.perform(get(RESERVATIONS_PATH + "/availability"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	public void testGetAvailabilityWithSaturatedReadExecutor_returnsServiceUnavailable() throws Exception {
+		saturateReadExecutor();
+
+		MvcResult result = mockMvc.perform(get(RESERVATIONS_PATH + "/availability"))
+				.andReturn();
+
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(jsonPath("$.error", Matchers.containsString("reads")));
+	}
+
+	@Test
+	public void testCancelReservationWithSaturatedReadExecutor_runsOnWriteExecutor() throws Exception {
+		saturateReadExecutor();
+
+		MvcResult result = mockMvc.perform(delete(RESERVATIONS_PATH + "/" + UUID.randomUUID()))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isNotFound());
+	}
+
+	/**
+	 * Keeps the only thread of the read executor busy and fills its queue until the end of the test
+	 */
+	private void saturateReadExecutor() throws InterruptedException {
+		// The tasks blocked by the previous test may still be finishing. The queue is already empty and the thread isn't
+		// active yet while it takes the last one, so only the completed tasks tell they are all done
+		ThreadPoolExecutor executor = readRequestTaskExecutor.getThreadPoolExecutor();
+		while (executor.getCompletedTaskCount() < executor.getTaskCount()) {
+			Thread.sleep(10L);
+		}
+		CountDownLatch latch = release;
+		CountDownLatch started = new CountDownLatch(1);
+		readRequestTaskExecutor.execute(() -> {
+			started.countDown();
+			awaitRelease(latch);
+		});
+		// The thread is already there, so the first task also goes through the queue until the thread takes it
+		started.await(1, TimeUnit.SECONDS);
+		readRequestTaskExecutor.execute(() -> awaitRelease(latch));
+	}
+
+	// The latch is received as parameter, since the one of the next test may have replaced it when a task starts
+	private static void awaitRelease(CountDownLatch latch) {
+		try {
+			latch.await(RELEASE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -6,6 +6,7 @@ import static com.reservations.TestUtils.basicReservation;
 import static com.reservations.TestUtils.differentReservation;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -14,6 +15,10 @@ import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.mockito.Mock;
 import org.springframework.http.HttpStatus;
@@ -21,20 +26,32 @@ import org.springframework.http.ResponseEntity;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.reservations.entity.DateRange;
 import com.reservations.entity.Reservation;
+import com.reservations.entity.ReservationAvailability;
+import com.reservations.entity.ReservationResult;
 import com.reservations.entity.ReservationStatus;
+import com.reservations.exception.BatchSizeExceededException;
+import com.reservations.exception.CapacityExceededException;
 import com.reservations.exception.InvalidRangeException;
 import com.reservations.exception.ReservationNotFoundException;
+import com.reservations.exception.RequestRejectedException;
 import com.reservations.exception.ReservationValidationException;
+import com.reservations.pipeline.ReservationWritePipeline;
 import com.reservations.service.ReservationService;
 
 public class ReservationControllerImplTest {
 	private static final int AVAILABILITY_DEFAULT_DAYS = 30;
+	private static final int BATCH_MAX_SIZE = 2;
+	private static final String AVAILABILITY_TAG = "1-2-3";
+	private static final String AVAILABILITY_ETAG = "\"" + AVAILABILITY_TAG + "\"";
 
 	@Mock
 	private ReservationService reservationService;
+	@Mock
+	private ReservationWritePipeline reservationWritePipeline;
 
 	private ReservationControllerImpl reservationControllerImpl;
 
@@ -42,7 +59,7 @@ public class ReservationControllerImplTest {
 	public void setup() {
 		initMocks(this);
 
-		reservationControllerImpl = new ReservationControllerImpl(reservationService, AVAILABILITY_DEFAULT_DAYS);
+		reservationControllerImpl = new ReservationControllerImpl(reservationService, Optional.empty(), AVAILABILITY_DEFAULT_DAYS, BATCH_MAX_SIZE);
 	}
 
 	@Test
@@ -54,7 +71,7 @@ public class ReservationControllerImplTest {
 		InvalidRangeException exception = new InvalidRangeException(dateRange);
 		when(reservationService.getAvailability(dateRange)).thenThrow(exception);
 
-		ResponseEntity responseEntity = reservationControllerImpl.getAvailability(dateRange.getStart(), dateRange.getEnd()).call();
+		ResponseEntity responseEntity = reservationControllerImpl.getAvailability(dateRange.getStart(), dateRange.getEnd(), null).call();
 
 		verify(reservationService, times(1)).getAvailability(dateRange);
 		assertThat(responseEntity.getStatusCode()).isEqualByComparingTo(exception.getResponseStatus());
@@ -69,13 +86,92 @@ public class ReservationControllerImplTest {
 				.build();
 		when(reservationService.getAvailability(dateRange)).thenThrow(new NullPointerException(DEFAULT_ERROR_MESSAGE));
 
-		ResponseEntity responseEntity = reservationControllerImpl.getAvailability(dateRange.getStart(), dateRange.getEnd()).call();
+		ResponseEntity responseEntity = reservationControllerImpl.getAvailability(dateRange.getStart(), dateRange.getEnd(), null).call();
 
 		verify(reservationService, times(1)).getAvailability(dateRange);
 		assertThat(responseEntity.getStatusCode()).isEqualByComparingTo(HttpStatus.INTERNAL_SERVER_ERROR);
 		assertThat(responseEntity.getBody()).isEqualTo(DEFAULT_ERROR_MESSAGE);
 	}
 
+	@Test
+	public void testGetAvailability_returnsAvailabilityWithETag() throws Exception {
+		DateRange dateRange = defaultDateRange();
+		Set<ReservationAvailability> availability = Sets.newHashSet(ReservationAvailability.builder()
+				.date(dateRange.getStart())
+				.availability(1L)
+				.build());
+		when(reservationService.getAvailabilityTag(dateRange)).thenReturn(Optional.of(AVAILABILITY_TAG));
+		when(reservationService.getAvailability(dateRange)).thenReturn(availability);
+
+		ResponseEntity responseEntity = reservationControllerImpl.getAvailability(dateRange.getStart(), dateRange.getEnd(), null).call();
+
+		assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(responseEntity.getHeaders().getETag()).isEqualTo(AVAILABILITY_ETAG);
+		assertThat(responseEntity.getBody()).isEqualTo(availability);
+	}
+
+	@Test
+	public void testGetAvailability_returnsNotModifiedWithoutCalculatingAvailabilityWhenETagMatches() throws Exception {
+		DateRange dateRange = defaultDateRange();
+		when(reservationService.getAvailabilityTag(dateRange)).thenReturn(Optional.of(AVAILABILITY_TAG));
+
+		ResponseEntity responseEntity = reservationControllerImpl.getAvailability(dateRange.getStart(), dateRange.getEnd(), AVAILABILITY_ETAG).call();
+
+		verify(reservationService, never()).getAvailability(any());
+		assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		assertThat(responseEntity.getHeaders().getETag()).isEqualTo(AVAILABILITY_ETAG);
+		assertThat(responseEntity.getBody()).isNull();
+	}
+
+	@Test
+	public void testGetAvailability_returnsNotModifiedWhenAnyETagOfTheListMatches() throws Exception {
+		DateRange dateRange = defaultDateRange();
+		when(reservationService.getAvailabilityTag(dateRange)).thenReturn(Optional.of(AVAILABILITY_TAG));
+
+		ResponseEntity responseEntity = reservationControllerImpl.getAvailability(dateRange.getStart(), dateRange.getEnd(), "\"other\", W/" + AVAILABILITY_ETAG).call();
+
+		verify(reservationService, never()).getAvailability(any());
+		assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+	}
+
+	@Test
+	public void testGetAvailability_returnsAvailabilityWhenETagDoesNotMatch() throws Exception {
+		DateRange dateRange = defaultDateRange();
+		when(reservationService.getAvailabilityTag(dateRange)).thenReturn(Optional.of(AVAILABILITY_TAG));
+
+		ResponseEntity responseEntity = reservationControllerImpl.getAvailability(dateRange.getStart(), dateRange.getEnd(), "\"other\"").call();
+
+		verify(reservationService, times(1)).getAvailability(dateRange);
+		assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(responseEntity.getHeaders().getETag()).isEqualTo(AVAILABILITY_ETAG);
+	}
+
+	@Test
+	public void testGetAvailability_returnsAvailabilityWithoutETagWhenItCannotBeTagged() throws Exception {
+		DateRange dateRange = defaultDateRange();
+		when(reservationService.getAvailabilityTag(dateRange)).thenReturn(Optional.empty());
+
+		ResponseEntity responseEntity = reservationControllerImpl.getAvailability(dateRange.getStart(), dateRange.getEnd(), "*").call();
+
+		verify(reservationService, times(1)).getAvailability(dateRange);
+		assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(responseEntity.getHeaders().getETag()).isNull();
+	}
+
+	@Test
+	public void testCreateReservationWithWritePipeline_createsThroughPipeline() throws Exception {
+		reservationControllerImpl = new ReservationControllerImpl(reservationService, Optional.of(reservationWritePipeline), AVAILABILITY_DEFAULT_DAYS, BATCH_MAX_SIZE);
+		Reservation reservation = basicReservation();
+		when(reservationWritePipeline.createReservation(reservation)).thenReturn(reservation);
+
+		ResponseEntity responseEntity = reservationControllerImpl.createReservation(reservation).call();
+
+		verify(reservationWritePipeline, times(1)).createReservation(reservation);
+		verify(reservationService, never()).createReservation(any());
+		assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		assertThat(responseEntity.getBody()).isEqualTo(reservation);
+	}
+
 	@Test
 	public void testCreateReservation_noErrors() throws Exception {
 		Reservation reservation = basicReservation();
@@ -88,6 +184,19 @@ public class ReservationControllerImplTest {
 		assertThat(responseEntity.getBody()).isEqualTo(reservation);
 	}
 
+	@Test
+	public void testCreateReservation_returnsConflictWhenCapacityExceededExceptionIsThrown() throws Exception {
+		Reservation reservation = basicReservation();
+		CapacityExceededException exception = new CapacityExceededException(reservation.getArrivalDate(), reservation.getDepartureDate());
+		when(reservationService.createReservation(reservation)).thenThrow(exception);
+
+		ResponseEntity responseEntity = reservationControllerImpl.createReservation(reservation).call();
+
+		verify(reservationService, times(1)).createReservation(reservation);
+		assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+		assertThat(responseEntity.getBody()).isEqualTo(exception.getResponseBody());
+	}
+
 	@Test
 	public void testCreateReservation_returnsBadRequestWhenReservationValidationExceptionIsThrown() throws Exception {
 		Reservation reservation = basicReservation();
@@ -112,6 +221,66 @@ public class ReservationControllerImplTest {
 		assertThat(responseEntity.getBody()).isEqualTo(DEFAULT_ERROR_MESSAGE);
 	}
 
+	@Test
+	public void testCreateReservations_returnsCreatedWhenAllReservationsAreCreated() throws Exception {
+		List<Reservation> reservations = Lists.newArrayList(basicReservation(), basicReservation());
+		List<ReservationResult> results = reservations.stream().map(ReservationResult::created).collect(Collectors.toList());
+		when(reservationService.createReservations(reservations, false)).thenReturn(results);
+
+		ResponseEntity responseEntity = reservationControllerImpl.createReservations(reservations, false).call();
+
+		verify(reservationService, times(1)).createReservations(reservations, false);
+		assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		assertThat(responseEntity.getBody()).isEqualTo(results);
+	}
+
+	@Test
+	public void testCreateReservations_returnsMultiStatusWhenAnyReservationIsNotCreated() throws Exception {
+		Reservation reservation = basicReservation();
+		List<Reservation> reservations = Lists.newArrayList(reservation, basicReservation());
+		List<ReservationResult> results = Lists.newArrayList(
+				ReservationResult.notCreated(),
+				ReservationResult.failed(HttpStatus.CONFLICT, new CapacityExceededException(reservation.getArrivalDate(), reservation.getDepartureDate()).getResponseBody()));
+		when(reservationService.createReservations(reservations, true)).thenReturn(results);
+
+		ResponseEntity responseEntity = reservationControllerImpl.createReservations(reservations, true).call();
+
+		assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.MULTI_STATUS);
+		assertThat(responseEntity.getBody()).isEqualTo(results);
+	}
+
+	@Test
+	public void testCreateReservationsAboveMaxSize_returnsBadRequestWithoutCallingService() throws Exception {
+		List<Reservation> reservations = Lists.newArrayList(basicReservation(), basicReservation(), basicReservation());
+
+		ResponseEntity responseEntity = reservationControllerImpl.createReservations(reservations, false).call();
+
+		verify(reservationService, never()).createReservations(any(), anyBoolean());
+		assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		assertThat(responseEntity.getBody()).isEqualTo(new BatchSizeExceededException(reservations.size(), BATCH_MAX_SIZE).getResponseBody());
+	}
+
+	@Test
+	public void testCreateReservationsEmpty_returnsBadRequestWithoutCallingService() throws Exception {
+		ResponseEntity responseEntity = reservationControllerImpl.createReservations(Lists.newArrayList(), false).call();
+
+		verify(reservationService, never()).createReservations(any(), anyBoolean());
+		assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	public void testCreateReservations_returnsConflictWhenCapacityExceededExceptionIsThrown() throws Exception {
+		Reservation reservation = basicReservation();
+		List<Reservation> reservations = Lists.newArrayList(reservation);
+		CapacityExceededException exception = new CapacityExceededException(reservation.getArrivalDate(), reservation.getDepartureDate());
+		when(reservationService.createReservations(reservations, false)).thenThrow(exception);
+
+		ResponseEntity responseEntity = reservationControllerImpl.createReservations(reservations, false).call();
+
+		assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+		assertThat(responseEntity.getBody()).isEqualTo(exception.getResponseBody());
+	}
+
 	@Test
 	public void testUpdateReservation_noErrors() throws Exception {
 		Reservation reservation = basicReservation();
@@ -172,6 +341,19 @@ public class ReservationControllerImplTest {
 		assertThat(responseEntity.getBody()).isEqualTo(DEFAULT_ERROR_MESSAGE);
 	}
 
+	@Test
+	public void testCancelReservationWithWritePipeline_cancelsThroughPipeline() throws Exception {
+		reservationControllerImpl = new ReservationControllerImpl(reservationService, Optional.of(reservationWritePipeline), AVAILABILITY_DEFAULT_DAYS, BATCH_MAX_SIZE);
+		Reservation reservation = basicReservation();
+		when(reservationService.getByBookingIdentifierUuidAndStatus(reservation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE)).thenReturn(reservation);
+
+		ResponseEntity responseEntity = reservationControllerImpl.cancelReservation(reservation.getBookingIdentifierUuid()).call();
+
+		verify(reservationWritePipeline, times(1)).cancelReservation(reservation);
+		verify(reservationService, never()).cancelReservation(any());
+		assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+	}
+
 	@Test
 	public void testCancelReservation_noErrors() throws Exception {
 		Reservation reservation = basicReservation();
@@ -226,4 +408,21 @@ public class ReservationControllerImplTest {
 		assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
 		assertThat(responseEntity.getBody()).isEqualTo(DEFAULT_ERROR_MESSAGE);
 	}
+
+	private DateRange defaultDateRange() {
+		return DateRange.builder()
+				.start(LocalDate.now())
+				.end(LocalDate.now().plusDays(AVAILABILITY_DEFAULT_DAYS))
+				.build();
+	}
+
+	@Test
+	public void testHandleRequestRejectedException_returnsServiceUnavailable() {
+		RequestRejectedException exception = new RequestRejectedException("reads");
+
+		ResponseEntity responseEntity = reservationControllerImpl.handleReservationServiceException(exception);
+
+		assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		assertThat(responseEntity.getBody()).isEqualTo(exception.getResponseBody());
+	}
 }
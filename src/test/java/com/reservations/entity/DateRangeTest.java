@@ -66,4 +66,24 @@ public class DateRangeTest {
 
 		assertThat(dateRange.isPast()).isFalse();
 	}
+
+	@Test
+	public void testDays_includesStartAndEnd() {
+		DateRange dateRange = DateRange.builder()
+				.start(LocalDate.now())
+				.end(LocalDate.now().plusDays(2))
+				.build();
+
+		assertThat(dateRange.days()).isEqualTo(EpochDayRange.of(LocalDate.now().toEpochDay(), LocalDate.now().plusDays(3).toEpochDay()));
+	}
+
+	@Test
+	public void testNights_excludesEnd() {
+		DateRange dateRange = DateRange.builder()
+				.start(LocalDate.now())
+				.end(LocalDate.now().plusDays(2))
+				.build();
+
+		assertThat(dateRange.nights()).isEqualTo(EpochDayRange.of(LocalDate.now().toEpochDay(), LocalDate.now().plusDays(2).toEpochDay()));
+	}
 }
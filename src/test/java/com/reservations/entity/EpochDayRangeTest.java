@@ -0,0 +1,127 @@
+package com.reservations.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+public class EpochDayRangeTest {
+	private static final long TODAY = LocalDate.now().toEpochDay();
+
+	@Test
+	public void testOfEndBeforeStart_isEmpty() {
+		assertThat(EpochDayRange.of(TODAY, TODAY - 1)).isEqualTo(EpochDayRange.EMPTY);
+		assertThat(EpochDayRange.of(TODAY, TODAY).isEmpty()).isTrue();
+	}
+
+	@Test
+	public void testInclusive_includesEnd() {
+		EpochDayRange range = EpochDayRange.inclusive(LocalDate.now(), LocalDate.now().plusDays(2));
+
+		assertThat(range.getStart()).isEqualTo(TODAY);
+		assertThat(range.getEnd()).isEqualTo(TODAY + 3);
+		assertThat(range.size()).isEqualTo(3);
+	}
+
+	@Test
+	public void testNights_excludesDepartureDate() {
+		EpochDayRange nights = EpochDayRange.nights(LocalDate.now(), LocalDate.now().plusDays(2));
+
+		assertThat(nights).isEqualTo(EpochDayRange.of(TODAY, TODAY + 2));
+		assertThat(nights.endDate()).isEqualTo(LocalDate.now().plusDays(2));
+	}
+
+	@Test
+	public void testNightsWithSameArrivalAndDepartureDate_includesArrivalDate() {
+		EpochDayRange nights = EpochDayRange.nights(LocalDate.now(), LocalDate.now());
+
+		assertThat(nights).isEqualTo(EpochDayRange.of(TODAY, TODAY + 1));
+		assertThat(nights.endDate()).isEqualTo(LocalDate.now().plusDays(1));
+	}
+
+	@Test
+	public void testNightsWithDepartureBeforeArrival_isEmpty() {
+		assertThat(EpochDayRange.nights(LocalDate.now(), LocalDate.now().minusDays(1)).isEmpty()).isTrue();
+	}
+
+	@Test
+	public void testContainsDay_excludesEnd() {
+		EpochDayRange range = EpochDayRange.of(TODAY, TODAY + 2);
+
+		assertThat(range.contains(TODAY - 1)).isFalse();
+		assertThat(range.contains(TODAY)).isTrue();
+		assertThat(range.contains(TODAY + 1)).isTrue();
+		assertThat(range.contains(TODAY + 2)).isFalse();
+	}
+
+	@Test
+	public void testContainsRange() {
+		EpochDayRange range = EpochDayRange.of(TODAY, TODAY + 5);
+
+		assertThat(range.contains(EpochDayRange.of(TODAY + 1, TODAY + 5))).isTrue();
+		assertThat(range.contains(EpochDayRange.of(TODAY - 1, TODAY + 2))).isFalse();
+		assertThat(range.contains(EpochDayRange.of(TODAY + 4, TODAY + 6))).isFalse();
+		assertThat(range.contains(EpochDayRange.EMPTY)).isTrue();
+	}
+
+	@Test
+	public void testIntersect_overlappingDays() {
+		EpochDayRange range = EpochDayRange.of(TODAY, TODAY + 5);
+
+		assertThat(range.intersect(EpochDayRange.of(TODAY + 3, TODAY + 8))).isEqualTo(EpochDayRange.of(TODAY + 3, TODAY + 5));
+		assertThat(range.intersect(EpochDayRange.of(TODAY - 3, TODAY + 1))).isEqualTo(EpochDayRange.of(TODAY, TODAY + 1));
+	}
+
+	@Test
+	public void testIntersectDisjointRanges_isEmpty() {
+		EpochDayRange range = EpochDayRange.of(TODAY, TODAY + 5);
+
+		assertThat(range.intersect(EpochDayRange.of(TODAY + 5, TODAY + 8)).isEmpty()).isTrue();
+	}
+
+	@Test
+	public void testSpan_includesBothRangesAndTheDaysBetweenThem() {
+		EpochDayRange range = EpochDayRange.of(TODAY, TODAY + 5);
+
+		assertThat(range.span(EpochDayRange.of(TODAY + 3, TODAY + 8))).isEqualTo(EpochDayRange.of(TODAY, TODAY + 8));
+		assertThat(range.span(EpochDayRange.of(TODAY + 10, TODAY + 12))).isEqualTo(EpochDayRange.of(TODAY, TODAY + 12));
+	}
+
+	@Test
+	public void testSpanWithEmptyRange_ignoresIt() {
+		EpochDayRange range = EpochDayRange.of(TODAY, TODAY + 5);
+
+		assertThat(range.span(EpochDayRange.EMPTY)).isEqualTo(range);
+		assertThat(EpochDayRange.EMPTY.span(range)).isEqualTo(range);
+	}
+
+	@Test
+	public void testIndexOf_isPositionFromStart() {
+		EpochDayRange range = EpochDayRange.of(TODAY, TODAY + 5);
+
+		assertThat(range.indexOf(TODAY)).isEqualTo(0);
+		assertThat(range.indexOf(TODAY + 4)).isEqualTo(4);
+	}
+
+	@Test
+	public void testForEach_visitsEveryDayInOrder() {
+		List<Long> days = Lists.newArrayList();
+
+		EpochDayRange.of(TODAY, TODAY + 3).forEach(days::add);
+
+		assertThat(days).containsExactly(TODAY, TODAY + 1, TODAY + 2);
+	}
+
+	@Test
+	public void testDates() {
+		EpochDayRange range = EpochDayRange.of(TODAY, TODAY + 3);
+
+		assertThat(range.startDate()).isToday();
+		assertThat(range.lastDate()).isEqualTo(LocalDate.now().plusDays(2));
+		assertThat(range.endDate()).isEqualTo(LocalDate.now().plusDays(3));
+	}
+}
@@ -0,0 +1,39 @@
+package com.reservations.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class UuidAttributeConverterTest {
+	private UuidAttributeConverter uuidAttributeConverter;
+
+	@BeforeMethod
+	public void setup() {
+		uuidAttributeConverter = new UuidAttributeConverter();
+	}
+
+	@Test
+	public void testConvertToDatabaseColumn_notNull() {
+		assertThat(uuidAttributeConverter.convertToDatabaseColumn(UUID.randomUUID().toString())).hasSize(16);
+	}
+
+	@Test
+	public void testConvertToDatabaseColumn_null() {
+		assertThat(uuidAttributeConverter.convertToDatabaseColumn(null)).isNull();
+	}
+
+	@Test
+	public void testConvertToEntityAttribute_returnsSameUuid() {
+		String uuid = UUID.randomUUID().toString();
+
+		assertThat(uuidAttributeConverter.convertToEntityAttribute(uuidAttributeConverter.convertToDatabaseColumn(uuid))).isEqualTo(uuid);
+	}
+
+	@Test
+	public void testConvertToEntityAttribute_null() {
+		assertThat(uuidAttributeConverter.convertToEntityAttribute(null)).isNull();
+	}
+}
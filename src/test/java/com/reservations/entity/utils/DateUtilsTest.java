@@ -12,6 +12,7 @@ import java.util.Date;
 import org.testng.annotations.Test;
 
 import com.reservations.entity.DateRange;
+import com.reservations.entity.EpochDayRange;
 
 public class DateUtilsTest {
 	@Test
@@ -21,6 +22,13 @@ public class DateUtilsTest {
 		assertThat(DateUtils.toLocalDate(date)).isToday();
 	}
 
+	@Test
+	public void testToLocalDate_fromSqlDate() {
+		java.sql.Date date = java.sql.Date.valueOf(LocalDate.now());
+
+		assertThat(DateUtils.toLocalDate(date)).isToday();
+	}
+
 	@Test
 	public void testToLocalDate_fromNull() {
 		Date date = null;
@@ -199,4 +207,16 @@ public class DateUtilsTest {
 
 		assertThat(DateUtils.daysBetweenInclusive(dateRange)).isEmpty();
 	}
+
+	@Test
+	public void testToDates_includesEveryDayOfTheRangeInOrder() {
+		LocalDate today = LocalDate.now();
+
+		assertThat(DateUtils.toDates(EpochDayRange.inclusive(today, today.plusDays(2)))).containsExactly(today, today.plusDays(1), today.plusDays(2));
+	}
+
+	@Test
+	public void testToDatesEmptyRange_isEmpty() {
+		assertThat(DateUtils.toDates(EpochDayRange.EMPTY)).isEmpty();
+	}
 }
@@ -0,0 +1,46 @@
+package com.reservations.entity.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+
+import org.testng.annotations.Test;
+
+public class UuidUtilsTest {
+	@Test
+	public void testIsValid_canonicalUuid() {
+		assertThat(UuidUtils.isValid(UUID.randomUUID().toString())).isTrue();
+		assertThat(UuidUtils.isValid(UUID.randomUUID().toString().toUpperCase())).isTrue();
+	}
+
+	@Test
+	public void testIsValid_otherText() {
+		assertThat(UuidUtils.isValid(null)).isFalse();
+		assertThat(UuidUtils.isValid("")).isFalse();
+		assertThat(UuidUtils.isValid("1-1-1-1-1")).isFalse();
+		assertThat(UuidUtils.isValid(UUID.randomUUID().toString() + "0")).isFalse();
+	}
+
+	@Test
+	public void testToBytes_mostSignificantFirst() {
+		assertThat(UuidUtils.toBytes("00010203-0405-0607-0809-0a0b0c0d0e0f"))
+				.containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15);
+	}
+
+	@Test
+	public void testToBytes_fromNull() {
+		assertThat(UuidUtils.toBytes(null)).isNull();
+	}
+
+	@Test
+	public void testFromBytes_returnsLowerCaseText() {
+		String uuid = UUID.randomUUID().toString();
+
+		assertThat(UuidUtils.fromBytes(UuidUtils.toBytes(uuid.toUpperCase()))).isEqualTo(uuid);
+	}
+
+	@Test
+	public void testFromBytes_fromNull() {
+		assertThat(UuidUtils.fromBytes(null)).isNull();
+	}
+}
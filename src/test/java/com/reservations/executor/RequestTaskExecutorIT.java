@@ -0,0 +1,122 @@
+package com.reservations.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.Matchers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.reservations.Application;
+
+/**
+ * Verifies that a request is completed with 503 when both its executor and the thread that fails its rejected tasks
+ * are saturated, even with the EntityManager bound to the thread handling the request by the open EntityManager in view.
+ */
+@SpringBootTest(classes = Application.class, properties = {
+		"spring.jpa.open-in-view=true",
+		"reservations.executor.reads.pool-size=1",
+		"reservations.executor.reads.queue-capacity=1",
+		"reservations.executor.writes.pool-size=1",
+		"reservations.executor.writes.queue-capacity=1"})
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+public class RequestTaskExecutorIT extends AbstractTestNGSpringContextTests {
+	private static final String RESERVATIONS_PATH = "/api/v1/reservations";
+	// Bounds the time a blocked task waits, in case a test ends without releasing it
+	private static final long RELEASE_TIMEOUT_SECONDS = 5L;
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	@Qualifier("readRequestTaskExecutor")
+	private RequestTaskExecutor readRequestTaskExecutor;
+	@Autowired
+	@Qualifier("writeRequestTaskExecutor")
+	private RequestTaskExecutor writeRequestTaskExecutor;
+
+	private CountDownLatch release;
+
+	@BeforeMethod
+	public void setup() throws InterruptedException {
+		release = new CountDownLatch(1);
+		saturate(readRequestTaskExecutor);
+		saturate(writeRequestTaskExecutor);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		release.countDown();
+	}
+
+	@Test
+	public void testGetAvailabilityWithSaturatedExecutors_returnsServiceUnavailable() throws Exception {
+		MvcResult result = mockMvc.perform(get(RESERVATIONS_PATH + "/availability"))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(jsonPath("$.error", Matchers.containsString("reads")))
+				.andReturn();
+
+		assertThat(result.getRequest().isAsyncStarted()).isFalse();
+	}
+
+	@Test
+	public void testCancelReservationWithSaturatedExecutors_returnsServiceUnavailable() throws Exception {
+		mockMvc.perform(delete(RESERVATIONS_PATH + "/" + UUID.randomUUID()))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(jsonPath("$.error", Matchers.containsString("writes")));
+	}
+
+	/**
+	 * Keeps the only thread of the executor and the thread of its rejected tasks busy, and fills both queues until the
+	 * end of the test
+	 */
+	private void saturate(RequestTaskExecutor requestTaskExecutor) throws InterruptedException {
+		// The tasks blocked by the previous test may still be finishing, only the completed tasks tell they are all done
+		ThreadPoolExecutor executor = requestTaskExecutor.getThreadPoolExecutor();
+		while (executor.getCompletedTaskCount() < executor.getTaskCount()) {
+			Thread.sleep(10L);
+		}
+		CountDownLatch latch = release;
+		CountDownLatch started = new CountDownLatch(1);
+		requestTaskExecutor.execute(() -> {
+			started.countDown();
+			awaitRelease(latch);
+		});
+		started.await(1, TimeUnit.SECONDS);
+		requestTaskExecutor.execute(() -> awaitRelease(latch));
+		// The executor is full, so the next ones go to the thread of the rejected tasks
+		CountDownLatch rejectedStarted = new CountDownLatch(1);
+		requestTaskExecutor.execute(() -> {
+			rejectedStarted.countDown();
+			awaitRelease(latch);
+		});
+		rejectedStarted.await(1, TimeUnit.SECONDS);
+		requestTaskExecutor.execute(() -> awaitRelease(latch));
+	}
+
+	// The latch is received as parameter, since the one of the next test may have replaced it when a task starts
+	private static void awaitRelease(CountDownLatch latch) {
+		try {
+			latch.await(RELEASE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.reservations.executor;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import org.mockito.Mock;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class RequestTaskExecutorRouterTest {
+	private static final Runnable TASK = () -> {
+	};
+
+	@Mock
+	private AsyncTaskExecutor readExecutor;
+	@Mock
+	private AsyncTaskExecutor writeExecutor;
+
+	private RequestTaskExecutorRouter requestTaskExecutorRouter;
+
+	@BeforeMethod
+	public void setup() {
+		initMocks(this);
+		requestTaskExecutorRouter = new RequestTaskExecutorRouter(readExecutor, writeExecutor);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	public void testSubmitWithinGetRequest_usesReadExecutor() {
+		bindRequest("GET");
+
+		requestTaskExecutorRouter.submit(TASK);
+
+		verify(readExecutor).submit(TASK);
+		verify(writeExecutor, never()).submit(TASK);
+	}
+
+	@Test
+	public void testSubmitWithinPostRequest_usesWriteExecutor() {
+		bindRequest("POST");
+
+		requestTaskExecutorRouter.submit(TASK);
+
+		verify(writeExecutor).submit(TASK);
+		verify(readExecutor, never()).submit(TASK);
+	}
+
+	@Test
+	public void testSubmitWithinDeleteRequest_usesWriteExecutor() {
+		bindRequest("DELETE");
+
+		requestTaskExecutorRouter.execute(TASK);
+
+		verify(writeExecutor).execute(TASK);
+		verify(readExecutor, never()).execute(TASK);
+	}
+
+	@Test
+	public void testSubmitOutsideRequest_usesWriteExecutor() {
+		requestTaskExecutorRouter.submit(TASK);
+
+		verify(writeExecutor).submit(TASK);
+		verify(readExecutor, never()).submit(TASK);
+	}
+
+	private void bindRequest(String method) {
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(method, "/api/v1/reservations")));
+	}
+}
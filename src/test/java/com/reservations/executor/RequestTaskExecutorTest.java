@@ -0,0 +1,253 @@
+package com.reservations.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.reservations.exception.RequestRejectedException;
+
+public class RequestTaskExecutorTest {
+	private static final int POOL_SIZE = 1;
+	private static final int QUEUE_CAPACITY = 1;
+	private static final long BLOCKED_MS = 100L;
+	private static final long SHORT_WAIT_MS = 10L;
+	private static final long LONG_WAIT_MS = 5000L;
+	// Bounds the time a blocked task waits, in case a test ends without releasing it
+	private static final long RELEASE_TIMEOUT_SECONDS = 5L;
+
+	private CountDownLatch release;
+	private RequestTaskExecutor requestTaskExecutor;
+
+	@BeforeMethod
+	public void setup() {
+		release = new CountDownLatch(1);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		release.countDown();
+		requestTaskExecutor.shutdown();
+	}
+
+	@Test
+	public void testSubmitWithFullQueue_runsTaskMarkedAsRejectedOnAnotherThread() throws Exception {
+		requestTaskExecutor = saturatedExecutor(RejectionPolicy.ABORT, SHORT_WAIT_MS);
+		AtomicReference<RequestTaskExecutor> rejecting = new AtomicReference<>();
+		AtomicReference<Thread> runner = new AtomicReference<>();
+
+		requestTaskExecutor.submit(() -> {
+			rejecting.set(RequestTaskExecutor.rejecting());
+			runner.set(Thread.currentThread());
+		}).get(1, TimeUnit.SECONDS);
+
+		assertThat(rejecting.get()).isSameAs(requestTaskExecutor);
+		assertThat(runner.get().getName()).startsWith("test-rejected-");
+		assertThat(RequestTaskExecutor.rejecting()).isNull();
+	}
+
+	@Test
+	public void testSubmitWithFullQueueAndBusyRejectionThread_runsTaskMarkedAsRejectedOnCallerThread() throws Exception {
+		requestTaskExecutor = saturatedExecutor(RejectionPolicy.ABORT, SHORT_WAIT_MS);
+		CountDownLatch latch = release;
+		CountDownLatch started = new CountDownLatch(1);
+		// Keeps the thread of the rejected tasks busy, and fills its queue
+		requestTaskExecutor.execute(() -> {
+			started.countDown();
+			awaitRelease(latch);
+		});
+		requestTaskExecutor.execute(() -> awaitRelease(latch));
+		started.await(1, TimeUnit.SECONDS);
+		AtomicReference<RequestTaskExecutor> rejecting = new AtomicReference<>();
+		AtomicReference<Thread> runner = new AtomicReference<>();
+
+		requestTaskExecutor.execute(() -> {
+			rejecting.set(RequestTaskExecutor.rejecting());
+			runner.set(Thread.currentThread());
+		});
+
+		assertThat(rejecting.get()).isSameAs(requestTaskExecutor);
+		assertThat(runner.get()).isSameAs(Thread.currentThread());
+		assertThat(RequestTaskExecutor.rejecting()).isNull();
+		assertThat(metrics()).containsEntry("executor.test.rejected", 3L);
+	}
+
+	@Test
+	public void testExecuteRequestWithFullQueueAndBusyRejectionThread_respondsServiceUnavailableWithoutRunningTask() throws Exception {
+		requestTaskExecutor = saturatedExecutor(RejectionPolicy.ABORT, SHORT_WAIT_MS);
+		CountDownLatch latch = release;
+		CountDownLatch started = new CountDownLatch(1);
+		requestTaskExecutor.execute(() -> {
+			started.countDown();
+			awaitRelease(latch);
+		});
+		requestTaskExecutor.execute(() -> awaitRelease(latch));
+		started.await(1, TimeUnit.SECONDS);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAsyncSupported(true);
+		request.startAsync();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		AtomicBoolean run = new AtomicBoolean();
+
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+		try {
+			requestTaskExecutor.execute(() -> run.set(true));
+		} finally {
+			RequestContextHolder.resetRequestAttributes();
+		}
+
+		assertThat(run.get()).isFalse();
+		assertThat(request.isAsyncStarted()).isFalse();
+		assertThat(response.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+		assertThat(response.getContentAsString()).contains("executor=test");
+		assertThat(metrics()).containsEntry("executor.test.rejected", 3L);
+	}
+
+	@Test
+	public void testSubmitWithFullQueueAndWait_queuesTaskOnceThereIsRoom() throws Exception {
+		requestTaskExecutor = saturatedExecutor(RejectionPolicy.WAIT, LONG_WAIT_MS);
+		AtomicReference<RequestTaskExecutor> rejecting = new AtomicReference<>();
+		CountDownLatch latch = release;
+		new Thread(() -> {
+			sleep(BLOCKED_MS);
+			latch.countDown();
+		}).start();
+
+		requestTaskExecutor.submit(() -> rejecting.set(RequestTaskExecutor.rejecting())).get(1, TimeUnit.SECONDS);
+
+		assertThat(rejecting.get()).isNull();
+		assertThat(metrics()).containsEntry("executor.test.rejected", 0L);
+	}
+
+	@Test
+	public void testSubmitWithFullQueueAndWait_rejectsTaskIfThereIsNoRoom() throws Exception {
+		requestTaskExecutor = saturatedExecutor(RejectionPolicy.WAIT, SHORT_WAIT_MS);
+		AtomicReference<RequestTaskExecutor> rejecting = new AtomicReference<>();
+
+		requestTaskExecutor.submit(() -> rejecting.set(RequestTaskExecutor.rejecting())).get(1, TimeUnit.SECONDS);
+
+		assertThat(rejecting.get()).isSameAs(requestTaskExecutor);
+		assertThat(metrics()).containsEntry("executor.test.rejected", 1L);
+	}
+
+	@Test
+	public void testPreProcessRejectedTask_throwsRequestRejectedException() throws Exception {
+		requestTaskExecutor = saturatedExecutor(RejectionPolicy.ABORT, SHORT_WAIT_MS);
+		RejectedRequestInterceptor interceptor = new RejectedRequestInterceptor();
+
+		Future<?> future = requestTaskExecutor.submit(() -> {
+			interceptor.preProcess(null, () -> null);
+			return null;
+		});
+
+		try {
+			future.get(1, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			assertThat(e.getCause()).isInstanceOf(RequestRejectedException.class)
+					.hasMessageContaining("test");
+			return;
+		}
+		throw new AssertionError("The rejected task wasn't failed");
+	}
+
+	@Test
+	public void testPreProcessAcceptedTask_doesNotThrow() throws Exception {
+		requestTaskExecutor = executor(RejectionPolicy.ABORT, SHORT_WAIT_MS);
+		RejectedRequestInterceptor interceptor = new RejectedRequestInterceptor();
+
+		Future<?> future = requestTaskExecutor.submit(() -> {
+			interceptor.preProcess(null, () -> null);
+			return null;
+		});
+
+		assertThat(future.get(1, TimeUnit.SECONDS)).isNull();
+	}
+
+	@Test
+	public void testMetrics_reportsActiveQueuedAndRejectedTasks() throws Exception {
+		requestTaskExecutor = saturatedExecutor(RejectionPolicy.ABORT, SHORT_WAIT_MS);
+		requestTaskExecutor.submit(() -> {
+		}).get(1, TimeUnit.SECONDS);
+
+		assertThat(metrics()).containsEntry("executor.test.active", 1)
+				.containsEntry("executor.test.queued", 1)
+				.containsEntry("executor.test.pool-size", 1)
+				.containsEntry("executor.test.rejected", 1L);
+	}
+
+	@Test
+	public void testMetrics_reportsTimeWaitingInTheQueue() throws Exception {
+		requestTaskExecutor = executor(RejectionPolicy.ABORT, SHORT_WAIT_MS);
+		CountDownLatch latch = release;
+		requestTaskExecutor.execute(() -> awaitRelease(latch));
+		Future<?> queued = requestTaskExecutor.submit(() -> {
+		});
+
+		sleep(BLOCKED_MS);
+		release.countDown();
+		queued.get(1, TimeUnit.SECONDS);
+
+		assertThat(metrics().get("executor.test.wait-time.max-ms").longValue()).isGreaterThanOrEqualTo(BLOCKED_MS);
+		assertThat(metrics().get("executor.test.wait-time.mean-ms").longValue()).isPositive();
+	}
+
+	/**
+	 * Creates an executor whose only thread is busy and whose queue is full
+	 */
+	private RequestTaskExecutor saturatedExecutor(RejectionPolicy rejectionPolicy, long rejectionWaitMs) throws InterruptedException {
+		RequestTaskExecutor executor = executor(rejectionPolicy, rejectionWaitMs);
+		CountDownLatch latch = release;
+		CountDownLatch started = new CountDownLatch(1);
+		executor.execute(() -> {
+			started.countDown();
+			awaitRelease(latch);
+		});
+		executor.execute(() -> awaitRelease(latch));
+		started.await(1, TimeUnit.SECONDS);
+		return executor;
+	}
+
+	private RequestTaskExecutor executor(RejectionPolicy rejectionPolicy, long rejectionWaitMs) {
+		RequestTaskExecutor executor = new RequestTaskExecutor("test", POOL_SIZE, QUEUE_CAPACITY, rejectionPolicy, rejectionWaitMs);
+		executor.initialize();
+		return executor;
+	}
+
+	// The latch is received as parameter, since the one of the next test may have replaced it when a task starts
+	private static void awaitRelease(CountDownLatch latch) {
+		try {
+			latch.await(RELEASE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private Map<String, Number> metrics() {
+		return requestTaskExecutor.metrics().stream()
+				.collect(Collectors.toMap(Metric::getName, Metric::getValue));
+	}
+}
@@ -0,0 +1,88 @@
+package com.reservations.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class VirtualThreadTaskExecutorTest {
+	// Bounds the time a blocked task waits, in case a test ends without releasing it
+	private static final long RELEASE_TIMEOUT_SECONDS = 5L;
+
+	private VirtualThreadTaskExecutor virtualThreadTaskExecutor;
+
+	@BeforeMethod
+	public void setup() {
+		// Platform threads stand in for the virtual ones, which the JDK running the tests may not support
+		virtualThreadTaskExecutor = new VirtualThreadTaskExecutor(new CustomizableThreadFactory("test-"));
+	}
+
+	@Test
+	public void testSubmit_runsEveryTaskOnANewThread() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch running = new CountDownLatch(3);
+
+		Future<?> first = virtualThreadTaskExecutor.submit(() -> awaitRelease(running, release));
+		Future<?> second = virtualThreadTaskExecutor.submit(() -> awaitRelease(running, release));
+		Future<?> third = virtualThreadTaskExecutor.submit(() -> awaitRelease(running, release));
+
+		assertThat(running.await(1, TimeUnit.SECONDS)).isTrue();
+		assertThat(metrics())
+				.containsEntry("executor.virtual.active", 3L)
+				.containsEntry("executor.virtual.started", 3L);
+		release.countDown();
+		first.get(1, TimeUnit.SECONDS);
+		second.get(1, TimeUnit.SECONDS);
+		third.get(1, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testSubmitWithFailingTask_stopsCountingItAsActive() throws Exception {
+		Future<?> future = virtualThreadTaskExecutor.submit(() -> {
+			throw new IllegalStateException();
+		});
+
+		assertThatThrownBy(() -> future.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+		// The counter is decreased after the future completes
+		awaitIdle();
+		assertThat(metrics())
+				.containsEntry("executor.virtual.active", 0L)
+				.containsEntry("executor.virtual.started", 1L);
+	}
+
+	@Test
+	public void testCreateWithoutVirtualThreadSupport_throwsIllegalStateException() {
+		if (!VirtualThreads.isSupported()) {
+			assertThatThrownBy(VirtualThreadTaskExecutor::new).isInstanceOf(IllegalStateException.class);
+		}
+	}
+
+	private void awaitIdle() throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+		while (metrics().get("executor.virtual.active").longValue() > 0 && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+	}
+
+	private static void awaitRelease(CountDownLatch running, CountDownLatch release) {
+		running.countDown();
+		try {
+			release.await(RELEASE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private Map<String, Number> metrics() {
+		return virtualThreadTaskExecutor.metrics().stream().collect(Collectors.toMap(Metric::getName, Metric::getValue));
+	}
+}
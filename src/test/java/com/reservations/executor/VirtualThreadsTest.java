@@ -0,0 +1,36 @@
+package com.reservations.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+import org.testng.annotations.Test;
+
+public class VirtualThreadsTest {
+	private static final int VIRTUAL_THREADS_VERSION = 21;
+
+	@Test
+	public void testFactory_isOnlyPresentSinceJava21() {
+		Optional<ThreadFactory> factory = VirtualThreads.factory("test-");
+
+		assertThat(factory.isPresent()).isEqualTo(javaVersion() >= VIRTUAL_THREADS_VERSION);
+		assertThat(VirtualThreads.isSupported()).isEqualTo(factory.isPresent());
+	}
+
+	@Test
+	public void testFactory_createsNamedThreads() {
+		VirtualThreads.factory("test-").ifPresent(factory -> {
+			Thread thread = factory.newThread(() -> {
+			});
+
+			assertThat(thread.getName()).isEqualTo("test-0");
+			assertThat(thread.isDaemon()).isTrue();
+		});
+	}
+
+	private static int javaVersion() {
+		String version = System.getProperty("java.specification.version");
+		return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+	}
+}
@@ -0,0 +1,72 @@
+package com.reservations.extensibility.registry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import org.mockito.Mock;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Sets;
+import com.reservations.entity.EventType;
+import com.reservations.exception.extension.ExtensionNotFoundException;
+import com.reservations.validation.DefaultReservationValidatorExtensionImpl;
+import com.reservations.validation.ReservationCreationValidatorExtensionImpl;
+import com.reservations.validation.ReservationValidatorExtension;
+
+public class ExtensionRegistryTest {
+	@Mock
+	private DefaultReservationValidatorExtensionImpl defaultReservationValidatorExtension;
+	@Mock
+	private ReservationCreationValidatorExtensionImpl reservationCreationValidatorExtension;
+
+	@BeforeMethod
+	public void setup() {
+		initMocks(this);
+
+		when(defaultReservationValidatorExtension.isDefault()).thenReturn(true);
+		when(reservationCreationValidatorExtension.isDefault()).thenReturn(false);
+		when(reservationCreationValidatorExtension.supports(EventType.CREATION)).thenReturn(true);
+	}
+
+	@Test
+	public void testGet_returnsCustomExtensionOfEachContext() {
+		ExtensionRegistry<EventType, ReservationValidatorExtension> registry = new ExtensionRegistry<>(EventType.class,
+				Sets.newHashSet(defaultReservationValidatorExtension, reservationCreationValidatorExtension));
+
+		assertThat(registry.get(EventType.CREATION)).isEqualTo(reservationCreationValidatorExtension);
+	}
+
+	@Test
+	public void testGet_returnsDefaultExtensionOfContextsWithoutCustomExtension() {
+		ExtensionRegistry<EventType, ReservationValidatorExtension> registry = new ExtensionRegistry<>(EventType.class,
+				Sets.newHashSet(defaultReservationValidatorExtension, reservationCreationValidatorExtension));
+
+		assertThat(registry.get(EventType.UPDATE)).isEqualTo(defaultReservationValidatorExtension);
+		assertThat(registry.get(EventType.CANCELLATION)).isEqualTo(defaultReservationValidatorExtension);
+	}
+
+	@Test
+	public void testGet_doesNotCheckTheCandidatesAgain() {
+		ExtensionRegistry<EventType, ReservationValidatorExtension> registry = new ExtensionRegistry<>(EventType.class,
+				Sets.newHashSet(defaultReservationValidatorExtension, reservationCreationValidatorExtension));
+		clearInvocations(defaultReservationValidatorExtension, reservationCreationValidatorExtension);
+
+		registry.get(EventType.CREATION);
+
+		verify(reservationCreationValidatorExtension, never()).isDefault();
+		verify(reservationCreationValidatorExtension, never()).supports(EventType.CREATION);
+	}
+
+	@Test
+	public void testCreateWithoutCandidateForSomeContext_throwsExtensionNotFoundException() {
+		assertThatThrownBy(() -> new ExtensionRegistry<>(EventType.class, Sets.newHashSet(reservationCreationValidatorExtension)))
+				.isInstanceOf(ExtensionNotFoundException.class)
+				.hasMessageContaining(EventType.UPDATE.name());
+	}
+}
@@ -0,0 +1,16 @@
+package com.reservations.identifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+
+import org.testng.annotations.Test;
+
+public class RandomBookingIdentifierGeneratorTest {
+	@Test
+	public void testGenerate_returnsVersion4Uuid() {
+		String bookingIdentifierUuid = new RandomBookingIdentifierGenerator().generate();
+
+		assertThat(UUID.fromString(bookingIdentifierUuid).version()).isEqualTo(4);
+	}
+}
@@ -0,0 +1,119 @@
+package com.reservations.identifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigInteger;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.reservations.entity.utils.UuidUtils;
+
+public class TimeOrderedBookingIdentifierGeneratorTest {
+	private static final Instant NOW = Instant.parse("2019-02-11T12:00:00.123Z");
+	private static final int UUIDS = 1000;
+	private static final int RANDOM_BITS = 74;
+	// More threads than generators, so several of them share each one
+	private static final int THREADS = 32;
+
+	@Test
+	public void testGenerate_returnsVersion7UuidStartingWithTheMilliseconds() {
+		TimeOrderedBookingIdentifierGenerator generator = new TimeOrderedBookingIdentifierGenerator(Clock.fixed(NOW, ZoneOffset.UTC));
+
+		String bookingIdentifierUuid = generator.generate();
+
+		UUID uuid = UUID.fromString(bookingIdentifierUuid);
+		assertThat(UuidUtils.isValid(bookingIdentifierUuid)).isTrue();
+		assertThat(uuid.version()).isEqualTo(7);
+		assertThat(uuid.variant()).isEqualTo(2);
+		assertThat(uuid.getMostSignificantBits() >>> 16).isEqualTo(NOW.toEpochMilli());
+	}
+
+	@Test
+	public void testGenerateWithinTheSameMillisecond_returnsDifferentUuids() {
+		TimeOrderedBookingIdentifierGenerator generator = new TimeOrderedBookingIdentifierGenerator(Clock.fixed(NOW, ZoneOffset.UTC));
+
+		assertThat(generator.generate()).isNotEqualTo(generator.generate());
+	}
+
+	@Test
+	public void testGenerateWithinTheSameMillisecond_doesntShareRandomBitsWithPreviousUuids() {
+		TimeOrderedBookingIdentifierGenerator generator = new TimeOrderedBookingIdentifierGenerator(Clock.fixed(NOW, ZoneOffset.UTC));
+		List<BigInteger> randomBits = Stream.generate(generator::generate)
+				.limit(UUIDS)
+				.map(TimeOrderedBookingIdentifierGeneratorTest::randomBits)
+				.collect(Collectors.toList());
+
+		assertThat(randomBits).doesNotHaveDuplicates();
+		// Every random bit is set in about half of the UUIDs, so no bit is fixed within the millisecond
+		for (int bit = 0; bit < RANDOM_BITS; bit++) {
+			int position = bit;
+			assertThat(randomBits.stream().filter(bits -> bits.testBit(position)).count()).isBetween(UUIDS * 4L / 10, UUIDS * 6L / 10);
+		}
+		// The next UUID isn't the previous one plus a constant step, as with a counter
+		List<BigInteger> steps = IntStream.range(1, randomBits.size())
+				.mapToObj(i -> randomBits.get(i).subtract(randomBits.get(i - 1)))
+				.collect(Collectors.toList());
+		assertThat(steps).doesNotHaveDuplicates();
+	}
+
+	@Test
+	public void testGenerateFromThreadsSharingGenerators_returnsDifferentUuids() throws Exception {
+		TimeOrderedBookingIdentifierGenerator generator = new TimeOrderedBookingIdentifierGenerator(Clock.fixed(NOW, ZoneOffset.UTC));
+		ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<List<String>>> futures = Lists.newArrayList();
+			for (int i = 0; i < THREADS; i++) {
+				futures.add(executorService.submit(() -> Stream.generate(generator::generate).limit(UUIDS).collect(Collectors.toList())));
+			}
+
+			List<String> uuids = Lists.newArrayList();
+			for (Future<List<String>> future : futures) {
+				uuids.addAll(future.get(1, TimeUnit.MINUTES));
+			}
+			assertThat(uuids).hasSize(THREADS * UUIDS).doesNotHaveDuplicates();
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testGenerateLater_sortsAfterAsTextAndAsBytes() {
+		String earlier = new TimeOrderedBookingIdentifierGenerator(Clock.fixed(NOW, ZoneOffset.UTC)).generate();
+		String later = new TimeOrderedBookingIdentifierGenerator(Clock.fixed(NOW.plusMillis(1), ZoneOffset.UTC)).generate();
+
+		assertThat(later.compareTo(earlier)).isPositive();
+		assertThat(compareUnsigned(UuidUtils.toBytes(later), UuidUtils.toBytes(earlier))).isPositive();
+	}
+
+	/**
+	 * Returns the 74 random bits of the UUID: the 12 after the version followed by the 62 after the variant
+	 */
+	private static BigInteger randomBits(String bookingIdentifierUuid) {
+		UUID uuid = UUID.fromString(bookingIdentifierUuid);
+		return BigInteger.valueOf(uuid.getMostSignificantBits() & 0x0FFFL).shiftLeft(62)
+				.or(BigInteger.valueOf(uuid.getLeastSignificantBits() & 0x3FFFFFFFFFFFFFFFL));
+	}
+
+	private static int compareUnsigned(byte[] first, byte[] second) {
+		for (int i = 0; i < first.length; i++) {
+			int comparison = Integer.compare(Byte.toUnsignedInt(first[i]), Byte.toUnsignedInt(second[i]));
+			if (comparison != 0) {
+				return comparison;
+			}
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,126 @@
+package com.reservations.journal;
+
+import static com.reservations.TestUtils.basicReservation;
+import static com.reservations.TestUtils.stayOf;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.mockito.Mock;
+import org.springframework.util.FileSystemUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.reservations.entity.EventType;
+import com.reservations.entity.Reservation;
+import com.reservations.entity.ReservationStatus;
+import com.reservations.entity.ReservationStay;
+import com.reservations.occupancy.OccupancyLedger;
+import com.reservations.repository.ReservationRepository;
+
+public class JournalVerifierTest {
+	private static final int HORIZON_DAYS = 6;
+	private static final int CAPACITY = 10;
+	private static final int SEGMENT_SIZE_BYTES = 1024;
+
+	@Mock
+	private ReservationRepository reservationRepository;
+
+	private Path directory;
+	private ReservationJournal reservationJournal;
+	private JournalVerifier journalVerifier;
+
+	@BeforeMethod
+	public void setup() throws IOException {
+		initMocks(this);
+		directory = Files.createTempDirectory("journal");
+		OccupancyLedger occupancyLedger = new OccupancyLedger(HORIZON_DAYS, CAPACITY);
+		reservationJournal = new ReservationJournal(occupancyLedger, directory.toString(), SEGMENT_SIZE_BYTES);
+		journalVerifier = new JournalVerifier(reservationJournal, reservationRepository, occupancyLedger);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		reservationJournal.close();
+		FileSystemUtils.deleteRecursively(directory.toFile());
+	}
+
+	@Test
+	public void testVerifyWithSameStays_isConsistent() {
+		Reservation reservation = basicReservation(day(1), day(3));
+		reservation.setVersion(0L);
+		reservationJournal.rebase(Lists.newArrayList());
+		reservationJournal.append(EventType.CREATION, reservation);
+		mockActiveStays(Lists.newArrayList(stayOf(reservation)));
+
+		JournalVerification verification = journalVerifier.verify();
+
+		assertThat(verification.isRecoverable()).isTrue();
+		assertThat(verification.isConsistent()).isTrue();
+		assertThat(verification.getSequence()).isEqualTo(1L);
+		assertThat(verification.getJournalReservations()).isEqualTo(1L);
+		assertThat(verification.getDatabaseReservations()).isEqualTo(1L);
+	}
+
+	@Test
+	public void testVerifyWithDifferentStays_reportsEachDifference() {
+		Reservation same = basicReservation(day(1), day(2));
+		Reservation moved = basicReservation(day(1), day(2));
+		Reservation onlyJournaled = basicReservation(day(2), day(3));
+		Reservation onlyPersisted = basicReservation(day(3), day(4));
+		reservationJournal.rebase(Lists.newArrayList(stayOf(same), stayOf(moved), stayOf(onlyJournaled)));
+		mockActiveStays(Lists.newArrayList(
+				stayOf(same),
+				new ReservationStay(moved.getBookingIdentifierUuid(), day(2), day(3), 1L),
+				stayOf(onlyPersisted)));
+
+		JournalVerification verification = journalVerifier.verify();
+
+		assertThat(verification.isConsistent()).isFalse();
+		assertThat(verification.getMissing()).isEqualTo(1L);
+		assertThat(verification.getUnexpected()).isEqualTo(1L);
+		assertThat(verification.getMismatched()).isEqualTo(1L);
+		// Only the quantities are reported
+		assertThat(verification.toString()).doesNotContain(moved.getBookingIdentifierUuid())
+				.doesNotContain(onlyJournaled.getBookingIdentifierUuid())
+				.doesNotContain(onlyPersisted.getBookingIdentifierUuid());
+	}
+
+	@Test
+	public void testVerifyWithStaysBeyondHorizon_ignoresThem() {
+		reservationJournal.rebase(Lists.newArrayList(stayOf(basicReservation(day(HORIZON_DAYS), day(HORIZON_DAYS + 1)))));
+		mockActiveStays(Lists.newArrayList());
+
+		JournalVerification verification = journalVerifier.verify();
+
+		assertThat(verification.isConsistent()).isTrue();
+		assertThat(verification.getJournalReservations()).isEqualTo(0L);
+	}
+
+	@Test
+	public void testVerifyWithoutJournal_isNotRecoverable() {
+		JournalVerification verification = journalVerifier.verify();
+
+		assertThat(verification.isRecoverable()).isFalse();
+		assertThat(verification.isConsistent()).isFalse();
+	}
+
+	private void mockActiveStays(List<ReservationStay> stays) {
+		when(reservationRepository.streamStaysByDateRangeAndStatus(any(LocalDate.class), any(LocalDate.class), eq(ReservationStatus.ACTIVE)))
+				.thenAnswer(invocation -> stays.stream());
+	}
+
+	private static LocalDate day(int daysFromToday) {
+		return LocalDate.now().plusDays(daysFromToday);
+	}
+}
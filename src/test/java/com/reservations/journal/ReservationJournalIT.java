@@ -0,0 +1,107 @@
+package com.reservations.journal;
+
+import static com.reservations.TestUtils.basicReservation;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.reservations.Application;
+import com.reservations.entity.EventType;
+import com.reservations.entity.Reservation;
+import com.reservations.occupancy.DailyOccupancyReconciler;
+import com.reservations.occupancy.OccupancyLedger;
+import com.reservations.repository.DailyOccupancyRepository;
+import com.reservations.repository.ReservationRepository;
+import com.reservations.service.ReservationService;
+
+/**
+ * Verifies that the writes of {@link ReservationService} are journaled, that the journal matches the database through
+ * the /journal endpoint, and that the ledger is rebuilt from it in the order the writes were committed.
+ */
+@SpringBootTest(classes = Application.class, properties = {
+		"reservations.journal.enabled=true",
+		"reservations.journal.directory=target/journal-it",
+		"endpoints.journal.enabled=true"})
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+public class ReservationJournalIT extends AbstractTestNGSpringContextTests {
+	@Autowired
+	private ReservationService reservationService;
+	@Autowired
+	private ReservationJournal reservationJournal;
+	@Autowired
+	private DailyOccupancyReconciler dailyOccupancyReconciler;
+	@Autowired
+	private OccupancyLedger occupancyLedger;
+	@Autowired
+	private ReservationRepository reservationRepository;
+	@Autowired
+	private DailyOccupancyRepository dailyOccupancyRepository;
+	@Autowired
+	private MockMvc mockMvc;
+
+	@BeforeMethod
+	public void setup() {
+		reservationRepository.deleteAll();
+		dailyOccupancyRepository.deleteAll();
+		dailyOccupancyReconciler.reconcile();
+	}
+
+	@Test
+	public void testWrites_areJournaledAndMatchDatabase() throws Exception {
+		Reservation kept = reservationService.createReservation(newReservation());
+		Reservation cancelled = reservationService.createReservation(newReservation());
+		reservationService.cancelReservation(cancelled);
+
+		mockMvc.perform(get("/journal"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.recoverable").value(true))
+				.andExpect(jsonPath("$.consistent").value(true))
+				.andExpect(jsonPath("$.journalReservations").value(1))
+				.andExpect(jsonPath("$.bookingIdentifiers").doesNotExist());
+		assertThat(reservationJournal.read().get().getStays()).containsOnlyKeys(kept.getBookingIdentifierUuid());
+	}
+
+	@Test
+	public void testRecover_rebuildsLedgerWithoutReadingDatabase() {
+		Reservation reservation = reservationService.createReservation(newReservation());
+		long[] occupancy = occupancyLedger.getOccupancy(occupancyLedger.getHorizon());
+		occupancyLedger.clear();
+
+		assertThat(reservationJournal.recover()).isTrue();
+
+		assertThat(occupancyLedger.getOccupancy(occupancyLedger.getHorizon())).containsExactly(occupancy);
+		assertThat(occupancyLedger.hasCapacity(reservation.getArrivalDate(), reservation.getDepartureDate(), null)).isTrue();
+	}
+
+	@Test
+	public void testRecoverWithOlderVersionJournaledAfterCancellation_keepsItCancelled() {
+		Reservation reservation = reservationService.createReservation(newReservation());
+		Reservation created = reservationRepository.findOne(reservation.getId());
+		reservationService.cancelReservation(reservation);
+		// A write committed before the cancellation, but journaled after it
+		reservationJournal.append(EventType.UPDATE, created);
+		occupancyLedger.clear();
+
+		dailyOccupancyReconciler.start();
+
+		assertThat(occupancyLedger.getOccupancy(occupancyLedger.getHorizon())).containsOnly(0L);
+		assertThat(reservationJournal.read().get().getStays()).isEmpty();
+	}
+
+	private static Reservation newReservation() {
+		Reservation reservation = basicReservation();
+		reservation.setId(null);
+		return reservation;
+	}
+}
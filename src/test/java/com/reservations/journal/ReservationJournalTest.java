@@ -0,0 +1,236 @@
+package com.reservations.journal;
+
+import static com.reservations.TestUtils.basicReservation;
+import static com.reservations.TestUtils.stayOf;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.util.FileSystemUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.reservations.entity.EventType;
+import com.reservations.entity.Reservation;
+import com.reservations.entity.ReservationStay;
+import com.reservations.occupancy.OccupancyLedger;
+
+public class ReservationJournalTest {
+	private static final int HORIZON_DAYS = 6;
+	private static final int CAPACITY = 10;
+	private static final int SEGMENT_SIZE_BYTES = 1024;
+
+	private Path directory;
+	private OccupancyLedger occupancyLedger;
+	private ReservationJournal reservationJournal;
+
+	@BeforeMethod
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("journal");
+		occupancyLedger = new OccupancyLedger(HORIZON_DAYS, CAPACITY);
+		reservationJournal = new ReservationJournal(occupancyLedger, directory.toString(), SEGMENT_SIZE_BYTES);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		reservationJournal.close();
+		FileSystemUtils.deleteRecursively(directory.toFile());
+	}
+
+	@Test
+	public void testRecoverWithoutJournal_returnsFalse() {
+		occupancyLedger.add(basicReservation().getBookingIdentifierUuid(), day(1), day(2));
+
+		assertThat(reservationJournal.recover()).isFalse();
+
+		assertThat(occupancyLedger.getOccupancy(occupancyLedger.getHorizon())).containsExactly(0L, 1L, 0L, 0L, 0L, 0L);
+	}
+
+	@Test
+	public void testRecover_reloadsLedgerFromSnapshotAndRecordsAfterIt() {
+		Reservation kept = reservation(day(1), day(3));
+		Reservation cancelled = reservation(day(2), day(3));
+		Reservation moved = reservation(day(1), day(2));
+		reservationJournal.rebase(Lists.newArrayList(stayOf(kept), stayOf(cancelled)));
+		cancelled.setVersion(1L);
+		reservationJournal.append(EventType.CANCELLATION, cancelled);
+		reservationJournal.append(EventType.CREATION, moved);
+		moved.setArrivalDate(day(4));
+		moved.setDepartureDate(day(5));
+		moved.setVersion(1L);
+		reservationJournal.append(EventType.UPDATE, moved);
+		reservationJournal.close();
+
+		OccupancyLedger recoveredLedger = new OccupancyLedger(HORIZON_DAYS, CAPACITY);
+		ReservationJournal recoveredJournal = new ReservationJournal(recoveredLedger, directory.toString(), SEGMENT_SIZE_BYTES);
+		try {
+			assertThat(recoveredJournal.recover()).isTrue();
+
+			assertThat(recoveredLedger.getOccupancy(recoveredLedger.getHorizon())).containsExactly(0L, 1L, 1L, 0L, 1L, 0L);
+			assertThat(metrics(recoveredJournal))
+					.containsEntry("journal.recovery.reservations", 2L)
+					.containsEntry("journal.recovery.replayed-records", 3L)
+					.containsEntry("journal.sequence", 3L);
+		} finally {
+			recoveredJournal.close();
+		}
+	}
+
+	@Test
+	public void testRecoverWithOlderVersionAppendedAfterCancellation_ignoresIt() {
+		Reservation updated = reservation(day(1), day(3));
+		updated.setVersion(1L);
+		Reservation cancelled = reservation(day(1), day(3));
+		cancelled.setBookingIdentifierUuid(updated.getBookingIdentifierUuid());
+		cancelled.setVersion(2L);
+		reservationJournal.rebase(Lists.newArrayList());
+		// The update was committed before the cancellation, but its record is appended after it
+		reservationJournal.append(EventType.CANCELLATION, cancelled);
+		reservationJournal.append(EventType.UPDATE, updated);
+		reservationJournal.close();
+
+		assertThat(journal().recover()).isTrue();
+
+		assertThat(occupancyLedger.getOccupancy(occupancyLedger.getHorizon())).containsOnly(0L);
+		assertThat(reservationJournal.read().get().getStays()).isEmpty();
+		assertThat(reservationJournal.read().get().getCancelled()).containsOnlyKeys(updated.getBookingIdentifierUuid());
+	}
+
+	@Test
+	public void testAppendOlderVersionOfCancelledStayAfterSnapshot_ignoresIt() {
+		Reservation cancelled = reservation(day(1), day(3));
+		reservationJournal.rebase(Lists.newArrayList(stayOf(cancelled)));
+		cancelled.setVersion(1L);
+		reservationJournal.append(EventType.CANCELLATION, cancelled);
+		reservationJournal.snapshot();
+		cancelled.setVersion(0L);
+
+		reservationJournal.append(EventType.UPDATE, cancelled);
+
+		assertThat(reservationJournal.read().get().getStays()).isEmpty();
+	}
+
+	@Test
+	public void testRecoverWithPartiallyWrittenRecord_ignoresItAndTheFollowingOnes() throws IOException {
+		Reservation first = reservation(day(1), day(2));
+		Reservation second = reservation(day(2), day(3));
+		reservationJournal.rebase(Lists.newArrayList());
+		reservationJournal.append(EventType.CREATION, first);
+		reservationJournal.append(EventType.CREATION, second);
+		reservationJournal.close();
+		// Only part of the second record reached the file
+		try (RandomAccessFile segment = new RandomAccessFile(files(".journal").get(0).toFile(), "rw")) {
+			segment.seek(JournalRecord.SIZE + JournalRecord.SIZE / 2);
+			segment.write(new byte[JournalRecord.SIZE / 2]);
+		}
+
+		assertThat(journal().recover()).isTrue();
+
+		assertThat(occupancyLedger.getOccupancy(occupancyLedger.getHorizon())).containsExactly(0L, 1L, 0L, 0L, 0L, 0L);
+	}
+
+	@Test
+	public void testRecoverWithCorruptedSnapshot_returnsFalse() throws IOException {
+		reservationJournal.rebase(Lists.newArrayList(stayOf(reservation(day(1), day(2)))));
+		reservationJournal.close();
+		Path snapshot = files(".snapshot").get(0);
+		byte[] bytes = Files.readAllBytes(snapshot);
+		bytes[bytes.length / 2] ^= 1;
+		Files.write(snapshot, bytes);
+
+		assertThat(journal().recover()).isFalse();
+
+		assertThat(occupancyLedger.getOccupancy(occupancyLedger.getHorizon())).containsOnly(0L);
+	}
+
+	@Test
+	public void testAppendBeyondSegment_startsNewGenerationAndDeletesPreviousOnes() throws IOException {
+		reservationJournal = new ReservationJournal(occupancyLedger, directory.toString(), 2 * JournalRecord.SIZE);
+		reservationJournal.rebase(Lists.newArrayList());
+		for (int i = 0; i < 5; i++) {
+			reservationJournal.append(EventType.CREATION, reservation(day(1), day(2)));
+		}
+		reservationJournal.close();
+
+		assertThat(metrics(reservationJournal)).containsEntry("journal.generation", 2L);
+		assertThat(files(".journal")).hasSize(1);
+		assertThat(files(".snapshot")).hasSize(1);
+		assertThat(journal().recover()).isTrue();
+		assertThat(occupancyLedger.getOccupancy(occupancyLedger.getHorizon())).containsExactly(0L, 5L, 0L, 0L, 0L, 0L);
+	}
+
+	@Test
+	public void testSnapshot_startsNewGenerationOnlyAfterRecords() {
+		reservationJournal.rebase(Lists.newArrayList());
+
+		reservationJournal.snapshot();
+		assertThat(metrics(reservationJournal)).containsEntry("journal.generation", 1L);
+
+		reservationJournal.append(EventType.CREATION, reservation(day(1), day(2)));
+		reservationJournal.snapshot();
+		assertThat(metrics(reservationJournal))
+				.containsEntry("journal.generation", 2L)
+				.containsEntry("journal.segment.used-bytes", 0)
+				.containsEntry("journal.snapshots", 2L);
+	}
+
+	@Test
+	public void testRebaseWithoutKnownStay_keepsItAsCancelled() {
+		Reservation cancelled = reservation(day(1), day(2));
+		reservationJournal.rebase(Lists.newArrayList(stayOf(cancelled)));
+		reservationJournal.rebase(Lists.newArrayList());
+
+		reservationJournal.append(EventType.UPDATE, cancelled);
+
+		assertThat(reservationJournal.read().get().getStays()).isEmpty();
+		assertThat(reservationJournal.read().get().getCancelled()).containsOnlyKeys(cancelled.getBookingIdentifierUuid());
+	}
+
+	@Test
+	public void testRebase_replacesRecordedStays() {
+		reservationJournal.rebase(Lists.newArrayList());
+		reservationJournal.append(EventType.CREATION, reservation(day(1), day(2)));
+
+		reservationJournal.rebase(Lists.newArrayList(stayOf(reservation(day(3), day(4)))));
+
+		assertThat(reservationJournal.read().get().getStays().values())
+				.extracting(ReservationStay::getArrivalDate)
+				.containsExactly(day(3));
+	}
+
+	private static Reservation reservation(LocalDate arrivalDate, LocalDate departureDate) {
+		Reservation reservation = basicReservation(arrivalDate, departureDate);
+		reservation.setVersion(0L);
+		return reservation;
+	}
+
+	private ReservationJournal journal() {
+		reservationJournal = new ReservationJournal(occupancyLedger, directory.toString(), SEGMENT_SIZE_BYTES);
+		return reservationJournal;
+	}
+
+	private List<Path> files(String suffix) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.toString().endsWith(suffix)).collect(Collectors.toList());
+		}
+	}
+
+	private static Map<String, Number> metrics(ReservationJournal reservationJournal) {
+		return reservationJournal.metrics().stream().collect(Collectors.toMap(Metric::getName, Metric::getValue));
+	}
+
+	private static LocalDate day(int daysFromToday) {
+		return LocalDate.now().plusDays(daysFromToday);
+	}
+}
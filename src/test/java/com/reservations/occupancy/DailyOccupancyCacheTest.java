@@ -0,0 +1,173 @@
+package com.reservations.occupancy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.actuate.metrics.Metric;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.reservations.entity.EpochDayRange;
+
+public class DailyOccupancyCacheTest {
+	private static final long MAXIMUM_SIZE = 10L;
+	private static final long EXPIRE_AFTER_WRITE_MS = 60000L;
+	private static final long TODAY = LocalDate.now().toEpochDay();
+	// Bounds the time a blocked load waits, in case a test ends without releasing it
+	private static final long RELEASE_TIMEOUT_SECONDS = 5L;
+
+	private DailyOccupancyCache dailyOccupancyCache;
+	// Ranges requested to the loader, which returns the epoch-day of each day as its occupancy
+	private List<EpochDayRange> loadedRanges;
+	private Function<EpochDayRange, long[]> loader;
+
+	@BeforeMethod
+	public void setup() {
+		dailyOccupancyCache = new DailyOccupancyCache(MAXIMUM_SIZE, EXPIRE_AFTER_WRITE_MS);
+		loadedRanges = Collections.synchronizedList(Lists.newArrayList());
+		loader = days -> {
+			loadedRanges.add(days);
+			long[] occupancy = new long[days.size()];
+			days.forEach(day -> occupancy[days.indexOf(day)] = day);
+			return occupancy;
+		};
+	}
+
+	@Test
+	public void testGetOccupancyNotCached_loadsWholeRange() {
+		long[] occupancy = dailyOccupancyCache.getOccupancy(range(0, 3), loader);
+
+		assertThat(occupancy).containsExactly(TODAY, TODAY + 1, TODAY + 2);
+		assertThat(loadedRanges).containsExactly(range(0, 3));
+	}
+
+	@Test
+	public void testGetOccupancyCached_doesntLoad() {
+		dailyOccupancyCache.getOccupancy(range(0, 3), loader);
+
+		long[] occupancy = dailyOccupancyCache.getOccupancy(range(1, 3), loader);
+
+		assertThat(occupancy).containsExactly(TODAY + 1, TODAY + 2);
+		assertThat(loadedRanges).containsExactly(range(0, 3));
+	}
+
+	@Test
+	public void testGetOccupancyOverlappingCachedRange_loadsOnlyMissingDays() {
+		dailyOccupancyCache.getOccupancy(range(0, 3), loader);
+
+		long[] occupancy = dailyOccupancyCache.getOccupancy(range(1, 5), loader);
+
+		assertThat(occupancy).containsExactly(TODAY + 1, TODAY + 2, TODAY + 3, TODAY + 4);
+		assertThat(loadedRanges).containsExactly(range(0, 3), range(3, 5));
+	}
+
+	@Test
+	public void testInvalidate_reloadsOnlyInvalidatedDays() {
+		dailyOccupancyCache.getOccupancy(range(0, 5), loader);
+
+		dailyOccupancyCache.invalidate(range(2, 3));
+		dailyOccupancyCache.getOccupancy(range(0, 5), loader);
+
+		assertThat(loadedRanges).containsExactly(range(0, 5), range(2, 3));
+	}
+
+	@Test
+	public void testInvalidateAll_reloadsEveryDay() {
+		dailyOccupancyCache.getOccupancy(range(0, 5), loader);
+
+		dailyOccupancyCache.invalidateAll();
+		dailyOccupancyCache.getOccupancy(range(0, 5), loader);
+
+		assertThat(loadedRanges).containsExactly(range(0, 5), range(0, 5));
+	}
+
+	@Test
+	public void testGetOccupancyInvalidatedWhileLoading_returnsLoadedOccupancyWithoutCachingIt() {
+		// A write is committed and invalidates the days after they were read, but before they were cached
+		Function<EpochDayRange, long[]> invalidatedLoader = days -> {
+			long[] occupancy = loader.apply(days);
+			dailyOccupancyCache.invalidate(range(1, 2));
+			return occupancy;
+		};
+
+		assertThat(dailyOccupancyCache.getOccupancy(range(0, 3), invalidatedLoader)).containsExactly(TODAY, TODAY + 1, TODAY + 2);
+		dailyOccupancyCache.getOccupancy(range(0, 3), loader);
+
+		assertThat(loadedRanges).containsExactly(range(0, 3), range(0, 3));
+		assertThat(metrics()).containsEntry("cache.daily-occupancy.load.discarded", 1L);
+	}
+
+	@Test
+	public void testGetOccupancyWhileSameRangeIsLoading_sharesLoad() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Function<EpochDayRange, long[]> blockingLoader = days -> {
+			started.countDown();
+			try {
+				release.await(RELEASE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return loader.apply(days);
+		};
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<long[]> first = executor.submit(() -> dailyOccupancyCache.getOccupancy(range(0, 3), blockingLoader));
+			assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+			Future<long[]> second = executor.submit(() -> dailyOccupancyCache.getOccupancy(range(0, 3), blockingLoader));
+			awaitMetric("cache.daily-occupancy.load.coalesced", 1L);
+			release.countDown();
+
+			assertThat(first.get(1, TimeUnit.SECONDS)).containsExactly(TODAY, TODAY + 1, TODAY + 2);
+			assertThat(second.get(1, TimeUnit.SECONDS)).containsExactly(TODAY, TODAY + 1, TODAY + 2);
+			assertThat(loadedRanges).containsExactly(range(0, 3));
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testMetrics_reportHitsMissesAndEvictions() {
+		dailyOccupancyCache.getOccupancy(range(0, 3), loader);
+		dailyOccupancyCache.getOccupancy(range(0, 3), loader);
+		// Exceeds the maximum size, so some days are evicted
+		dailyOccupancyCache.getOccupancy(range(3, 3 + MAXIMUM_SIZE), loader);
+
+		Map<String, Number> metrics = metrics();
+
+		assertThat(metrics).containsEntry("cache.daily-occupancy.hit", 3L)
+				.containsEntry("cache.daily-occupancy.miss", 3L + MAXIMUM_SIZE)
+				.containsEntry("cache.daily-occupancy.size", MAXIMUM_SIZE)
+				.containsEntry("cache.daily-occupancy.load", 2L)
+				.containsEntry("cache.daily-occupancy.load.coalesced", 0L);
+		assertThat(metrics.get("cache.daily-occupancy.eviction").longValue()).isPositive();
+	}
+
+	private void awaitMetric(String name, long expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+		while (metrics().get(name).longValue() < expected && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+	}
+
+	private Map<String, Number> metrics() {
+		return dailyOccupancyCache.metrics().stream().collect(Collectors.toMap(Metric::getName, Metric::getValue));
+	}
+
+	private static EpochDayRange range(long startDaysFromToday, long endDaysFromToday) {
+		return EpochDayRange.of(TODAY + startDaysFromToday, TODAY + endDaysFromToday);
+	}
+}
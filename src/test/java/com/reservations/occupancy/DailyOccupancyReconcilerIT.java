@@ -0,0 +1,83 @@
+package com.reservations.occupancy;
+
+import static com.reservations.TestUtils.basicReservation;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.reservations.Application;
+import com.reservations.entity.Reservation;
+import com.reservations.repository.DailyOccupancyRepository;
+import com.reservations.repository.ReservationRepository;
+import com.reservations.service.ReservationService;
+
+/**
+ * Verifies that the daily occupancy table is maintained by every write of {@link ReservationService}, and that the
+ * reconciliation restores it from the reservations.
+ */
+@SpringBootTest(classes = Application.class)
+@ActiveProfiles("integration")
+public class DailyOccupancyReconcilerIT extends AbstractTestNGSpringContextTests {
+	@Autowired
+	private ReservationService reservationService;
+	@Autowired
+	private DailyOccupancyReconciler dailyOccupancyReconciler;
+	@Autowired
+	private ReservationRepository reservationRepository;
+	@Autowired
+	private DailyOccupancyRepository dailyOccupancyRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeMethod
+	public void setup() {
+		reservationRepository.deleteAll();
+		dailyOccupancyRepository.deleteAll();
+		dailyOccupancyReconciler.reconcile();
+	}
+
+	@Test
+	public void testCreateAndCancelReservation_updatesDailyOccupancy() {
+		Reservation reservation = newReservation();
+
+		reservationService.createReservation(reservation);
+
+		assertThat(activeCount(reservation.getArrivalDate())).isEqualTo(1L);
+		assertThat(activeCount(reservation.getDepartureDate())).isZero();
+
+		reservationService.cancelReservation(reservation);
+
+		assertThat(activeCount(reservation.getArrivalDate())).isZero();
+	}
+
+	@Test
+	public void testReconcile_restoresDailyOccupancyFromReservations() {
+		Reservation reservation = newReservation();
+		reservationService.createReservation(reservation);
+		jdbcTemplate.update("UPDATE reservation_daily_occupancy SET active_count = 5");
+
+		dailyOccupancyReconciler.reconcile();
+
+		assertThat(activeCount(reservation.getArrivalDate())).isEqualTo(1L);
+		assertThat(activeCount(reservation.getDepartureDate())).isZero();
+	}
+
+	private static Reservation newReservation() {
+		Reservation reservation = basicReservation();
+		reservation.setId(null);
+		return reservation;
+	}
+
+	private long activeCount(LocalDate date) {
+		return jdbcTemplate.queryForObject("SELECT active_count FROM reservation_daily_occupancy WHERE date = ?", Long.class, Date.valueOf(date));
+	}
+}
@@ -0,0 +1,172 @@
+package com.reservations.occupancy;
+
+import static com.reservations.entity.utils.DateUtils.toDate;
+import static com.reservations.TestUtils.basicReservation;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.reservations.TestUtils;
+import com.reservations.entity.DailyOccupancy;
+import com.reservations.entity.Reservation;
+import com.reservations.entity.ReservationStatus;
+import com.reservations.journal.ReservationJournal;
+import com.reservations.repository.DailyOccupancyRepository;
+import com.reservations.repository.ReservationRepository;
+
+public class DailyOccupancyReconcilerTest {
+	private static final int HORIZON_DAYS = 5;
+	private static final int CAPACITY = 10;
+
+	@Mock
+	private ReservationRepository reservationRepository;
+	@Mock
+	private DailyOccupancyRepository dailyOccupancyRepository;
+	@Mock
+	private DailyOccupancyCache dailyOccupancyCache;
+	@Mock
+	private ReservationJournal reservationJournal;
+	@Captor
+	private ArgumentCaptor<List<DailyOccupancy>> savedCaptor;
+
+	private OccupancyLedger occupancyLedger;
+	private DailyOccupancyReconciler dailyOccupancyReconciler;
+
+	@BeforeMethod
+	public void setup() {
+		initMocks(this);
+
+		occupancyLedger = new OccupancyLedger(HORIZON_DAYS, CAPACITY);
+		dailyOccupancyReconciler = new DailyOccupancyReconciler(reservationRepository, dailyOccupancyRepository, occupancyLedger, dailyOccupancyCache, Optional.empty());
+	}
+
+	@Test
+	public void testReconcile_streamsReservationsAndCorrectsRowsAndLedger() {
+		List<Reservation> reservations = Lists.newArrayList(
+				basicReservation(day(0), day(2)),
+				basicReservation(day(1), day(2)),
+				// Starts before today, only the nights from today onwards are counted
+				basicReservation(day(-1), day(1)));
+		mockActiveReservations(reservations);
+		// Today is correct, tomorrow is wrong, the day after tomorrow is missing and the one beyond the horizon is stale
+		when(dailyOccupancyRepository.findFromDateForUpdate(toDate(day(0)))).thenReturn(Lists.newArrayList(
+				new DailyOccupancy(day(0), 2L),
+				new DailyOccupancy(day(1), 5L),
+				new DailyOccupancy(day(3), 0L),
+				new DailyOccupancy(day(4), 0L),
+				new DailyOccupancy(day(HORIZON_DAYS), 1L)));
+
+		dailyOccupancyReconciler.reconcile();
+
+		verify(reservationRepository, times(1)).streamStaysByDateRangeAndStatus(day(0), day(HORIZON_DAYS), ReservationStatus.ACTIVE);
+		verify(dailyOccupancyRepository, times(1)).save(savedCaptor.capture());
+		assertThat(savedCaptor.getValue()).containsExactlyInAnyOrder(
+				new DailyOccupancy(day(1), 2L),
+				new DailyOccupancy(day(2), 0L),
+				new DailyOccupancy(day(HORIZON_DAYS), 0L));
+		assertThat(occupancyLedger.getOccupancy(occupancyLedger.getHorizon())).containsExactly(2L, 2L, 0L, 0L, 0L);
+		verify(dailyOccupancyCache, times(1)).invalidateAll();
+	}
+
+	@Test
+	public void testRefresh_replacesLedgerOccupancyWithoutLockingRows() {
+		occupancyLedger.add(basicReservation().getBookingIdentifierUuid(), day(0), day(2));
+		// Another instance occupied tomorrow and today was cancelled, the day after tomorrow has no row
+		when(dailyOccupancyRepository.findByDateBetween(toDate(day(0)), toDate(day(HORIZON_DAYS - 1)))).thenReturn(Lists.newArrayList(
+				new DailyOccupancy(day(0), 0L),
+				new DailyOccupancy(day(1), 3L),
+				new DailyOccupancy(day(3), 1L)));
+
+		dailyOccupancyReconciler.refresh();
+
+		assertThat(occupancyLedger.getOccupancy(occupancyLedger.getHorizon())).containsExactly(0L, 3L, 0L, 1L, 0L);
+		verify(dailyOccupancyRepository, never()).findFromDateForUpdate(any(Date.class));
+		verify(reservationRepository, never()).streamStaysByDateRangeAndStatus(any(LocalDate.class), any(LocalDate.class), any(ReservationStatus.class));
+	}
+
+	@Test
+	public void testReconcile_replacesPreviousLedgerState() {
+		occupancyLedger.add(basicReservation().getBookingIdentifierUuid(), day(3), day(4));
+		mockActiveReservations(Lists.newArrayList());
+		when(dailyOccupancyRepository.findFromDateForUpdate(toDate(day(0)))).thenReturn(Lists.newArrayList());
+
+		dailyOccupancyReconciler.reconcile();
+
+		assertThat(occupancyLedger.getOccupancy(occupancyLedger.getHorizon())).containsOnly(0L);
+	}
+
+	@Test
+	public void testStartWithRecoverableJournal_skipsReadingReservations() {
+		dailyOccupancyReconciler = new DailyOccupancyReconciler(reservationRepository, dailyOccupancyRepository, occupancyLedger, dailyOccupancyCache, Optional.of(reservationJournal));
+		when(reservationJournal.recover()).thenReturn(true);
+
+		dailyOccupancyReconciler.start();
+
+		verify(reservationRepository, never()).streamStaysByDateRangeAndStatus(any(LocalDate.class), any(LocalDate.class), any(ReservationStatus.class));
+		verify(dailyOccupancyRepository, never()).findFromDateForUpdate(any(Date.class));
+		verify(dailyOccupancyCache, times(1)).invalidateAll();
+	}
+
+	@Test
+	public void testStartWithoutRecoverableJournal_reconcilesAndRebasesJournal() {
+		dailyOccupancyReconciler = new DailyOccupancyReconciler(reservationRepository, dailyOccupancyRepository, occupancyLedger, dailyOccupancyCache, Optional.of(reservationJournal));
+		Reservation reservation = basicReservation(day(0), day(2));
+		mockActiveReservations(Lists.newArrayList(reservation));
+		when(dailyOccupancyRepository.findFromDateForUpdate(toDate(day(0)))).thenReturn(Lists.newArrayList());
+
+		dailyOccupancyReconciler.start();
+
+		verify(reservationJournal, times(1)).recover();
+		// The stays read from the database become the next snapshot of the journal
+		verify(reservationJournal, times(1)).rebase(Lists.newArrayList(TestUtils.stayOf(reservation)));
+		assertThat(occupancyLedger.getOccupancy(occupancyLedger.getHorizon())).containsExactly(1L, 1L, 0L, 0L, 0L);
+	}
+
+	@Test
+	public void testStartWithoutJournal_reconciles() {
+		mockActiveReservations(Lists.newArrayList());
+		when(dailyOccupancyRepository.findFromDateForUpdate(toDate(day(0)))).thenReturn(Lists.newArrayList());
+
+		dailyOccupancyReconciler.start();
+
+		verify(reservationRepository, times(1)).streamStaysByDateRangeAndStatus(day(0), day(HORIZON_DAYS), ReservationStatus.ACTIVE);
+	}
+
+	@Test
+	public void testEnsureNights_createsOnlyMissingRows() {
+		when(dailyOccupancyRepository.findByDateBetween(toDate(day(1)), toDate(day(3)))).thenReturn(Lists.newArrayList(new DailyOccupancy(day(2), 3L)));
+
+		dailyOccupancyReconciler.ensureNights(day(1), day(4));
+
+		verify(dailyOccupancyRepository, times(1)).save(savedCaptor.capture());
+		assertThat(savedCaptor.getValue()).containsExactly(
+				new DailyOccupancy(day(1), 0L),
+				new DailyOccupancy(day(3), 0L));
+	}
+
+	private void mockActiveReservations(List<Reservation> reservations) {
+		when(reservationRepository.streamStaysByDateRangeAndStatus(any(LocalDate.class), any(LocalDate.class), eq(ReservationStatus.ACTIVE)))
+				.thenAnswer(invocation -> reservations.stream().map(TestUtils::stayOf));
+	}
+
+	private static LocalDate day(int daysFromToday) {
+		return LocalDate.now().plusDays(daysFromToday);
+	}
+}
@@ -0,0 +1,293 @@
+package com.reservations.occupancy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Sets;
+import com.reservations.TestUtils;
+import com.reservations.entity.DateRange;
+import com.reservations.entity.Reservation;
+
+public class OccupancyLedgerTest {
+	private static final int HORIZON_DAYS = 10;
+	private static final int CAPACITY = 2;
+
+	private OccupancyLedger occupancyLedger;
+
+	@BeforeMethod
+	public void setup() {
+		occupancyLedger = new OccupancyLedger(HORIZON_DAYS, CAPACITY);
+	}
+
+	@Test
+	public void testGetHorizon_startsTodayAndIncludesHorizonDays() {
+		DateRange horizon = occupancyLedger.getHorizon();
+
+		assertThat(horizon.getStart()).isToday();
+		assertThat(horizon.getEnd()).isEqualTo(LocalDate.now().plusDays(HORIZON_DAYS - 1));
+	}
+
+	@Test
+	public void testCoversRangeWithinHorizon_true() {
+		assertThat(occupancyLedger.covers(range(0, HORIZON_DAYS - 1))).isTrue();
+	}
+
+	@Test
+	public void testCoversRangeBeyondHorizon_false() {
+		assertThat(occupancyLedger.covers(range(0, HORIZON_DAYS))).isFalse();
+	}
+
+	@Test
+	public void testCoversRangeInThePast_false() {
+		assertThat(occupancyLedger.covers(range(-1, 1))).isFalse();
+	}
+
+	@Test
+	public void testCoversStayWithinHorizon_true() {
+		assertThat(occupancyLedger.coversStay(day(0), day(HORIZON_DAYS))).isTrue();
+	}
+
+	@Test
+	public void testCoversStayBeyondHorizon_false() {
+		assertThat(occupancyLedger.coversStay(day(HORIZON_DAYS - 1), day(HORIZON_DAYS + 1))).isFalse();
+	}
+
+	@Test
+	public void testAdd_occupiesAllNightsExceptDepartureDate() {
+		occupancyLedger.add(booking(), day(1), day(4));
+
+		assertThat(occupancyLedger.getOccupancy(range(0, 5))).containsExactly(0L, 1L, 1L, 1L, 0L, 0L);
+	}
+
+	@Test
+	public void testAddWithSameArrivalAndDepartureDate_occupiesArrivalDate() {
+		occupancyLedger.add(booking(), day(2), day(2));
+
+		assertThat(occupancyLedger.getOccupancy(range(1, 3))).containsExactly(0L, 1L, 0L);
+	}
+
+	@Test
+	public void testAddWithInvalidRange_doesNothing() {
+		occupancyLedger.add(booking(), day(3), day(2));
+
+		assertThat(occupancyLedger.getOccupancy(range(0, HORIZON_DAYS - 1))).containsOnly(0L);
+	}
+
+	@Test
+	public void testAddPartiallyOutsideHorizon_onlyRegistersNightsWithinHorizon() {
+		occupancyLedger.add(booking(), day(-2), day(2));
+		occupancyLedger.add(booking(), day(HORIZON_DAYS - 1), day(HORIZON_DAYS + 2));
+
+		assertThat(occupancyLedger.getOccupancy(range(0, HORIZON_DAYS - 1))).containsExactly(1L, 1L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 1L);
+	}
+
+	@Test
+	public void testAddExistingBooking_movesItsNights() {
+		String booking = booking();
+		occupancyLedger.add(booking, day(1), day(3));
+
+		occupancyLedger.add(booking, day(2), day(5));
+
+		assertThat(occupancyLedger.getOccupancy(range(0, 5))).containsExactly(0L, 0L, 1L, 1L, 1L, 0L);
+	}
+
+	@Test
+	public void testRelease_releasesNightsOfTheBooking() {
+		String booking = booking();
+		occupancyLedger.add(booking, day(1), day(3));
+		occupancyLedger.add(booking(), day(1), day(3));
+
+		occupancyLedger.release(booking);
+
+		assertThat(occupancyLedger.getOccupancy(range(0, 3))).containsExactly(0L, 1L, 1L, 0L);
+	}
+
+	@Test
+	public void testReleaseUnknownBooking_doesNothing() {
+		occupancyLedger.add(booking(), day(1), day(3));
+
+		occupancyLedger.release(booking());
+
+		assertThat(occupancyLedger.getOccupancy(range(0, 3))).containsExactly(0L, 1L, 1L, 0L);
+	}
+
+	@Test
+	public void testHasCapacityWithFullNightsOutsideTheStay_true() {
+		occupancyLedger.add(booking(), day(1), day(2));
+		occupancyLedger.add(booking(), day(1), day(2));
+		occupancyLedger.add(booking(), day(4), day(5));
+		occupancyLedger.add(booking(), day(4), day(5));
+
+		assertThat(occupancyLedger.hasCapacity(day(2), day(4), booking())).isTrue();
+	}
+
+	@Test
+	public void testHasCapacityWithOneFullNight_false() {
+		occupancyLedger.add(booking(), day(3), day(4));
+		occupancyLedger.add(booking(), day(3), day(4));
+
+		assertThat(occupancyLedger.hasCapacity(day(2), day(5), null)).isFalse();
+	}
+
+	@Test
+	public void testHasCapacityWithFullNightOccupiedByExcludedBooking_true() {
+		String booking = booking();
+		occupancyLedger.add(booking, day(3), day(4));
+		occupancyLedger.add(booking(), day(3), day(4));
+
+		assertThat(occupancyLedger.hasCapacity(day(2), day(5), booking)).isTrue();
+	}
+
+	@Test
+	public void testTryReserveWithCapacity_occupiesNights() {
+		occupancyLedger.add(booking(), day(1), day(2));
+
+		assertThat(occupancyLedger.tryReserve(booking(), day(1), day(3))).isTrue();
+		assertThat(occupancyLedger.getOccupancy(range(0, 3))).containsExactly(0L, 2L, 1L, 0L);
+	}
+
+	@Test
+	public void testTryReserveWithOneNightAtFullCapacity_returnsFalseAndDoesntOccupyAnyNight() {
+		occupancyLedger.add(booking(), day(2), day(3));
+		occupancyLedger.add(booking(), day(2), day(3));
+
+		assertThat(occupancyLedger.tryReserve(booking(), day(1), day(4))).isFalse();
+		assertThat(occupancyLedger.getOccupancy(range(0, 4))).containsExactly(0L, 0L, 2L, 0L, 0L);
+	}
+
+	@Test
+	public void testTryReserveOnDepartureDateOfFullNight_true() {
+		occupancyLedger.add(booking(), day(1), day(2));
+		occupancyLedger.add(booking(), day(1), day(2));
+
+		assertThat(occupancyLedger.tryReserve(booking(), day(2), day(3))).isTrue();
+	}
+
+	@Test
+	public void testTryReserveExistingBookingOverlappingOwnNights_ignoresReleasedNights() {
+		String booking = booking();
+		occupancyLedger.add(booking, day(1), day(3));
+		occupancyLedger.add(booking(), day(2), day(3));
+
+		assertThat(occupancyLedger.tryReserve(booking, day(2), day(4))).isTrue();
+		assertThat(occupancyLedger.getOccupancy(range(0, 4))).containsExactly(0L, 0L, 2L, 1L, 0L);
+	}
+
+	@Test
+	public void testTryReserveExistingBookingToFullNight_returnsFalseAndKeepsOldNights() {
+		String booking = booking();
+		occupancyLedger.add(booking, day(1), day(2));
+		occupancyLedger.add(booking(), day(3), day(4));
+		occupancyLedger.add(booking(), day(3), day(4));
+
+		assertThat(occupancyLedger.tryReserve(booking, day(2), day(4))).isFalse();
+		assertThat(occupancyLedger.getOccupancy(range(0, 4))).containsExactly(0L, 1L, 0L, 2L, 0L);
+
+		occupancyLedger.release(booking);
+		assertThat(occupancyLedger.getOccupancy(range(0, 4))).containsExactly(0L, 0L, 0L, 2L, 0L);
+	}
+
+	@Test
+	public void testClear_removesAllOccupancy() {
+		String booking = booking();
+		occupancyLedger.add(booking, day(1), day(3));
+
+		occupancyLedger.clear();
+		occupancyLedger.release(booking);
+
+		assertThat(occupancyLedger.getOccupancy(range(0, HORIZON_DAYS - 1))).containsOnly(0L);
+	}
+
+	@Test
+	public void testReload_replacesAllOccupancy() {
+		String booking = booking();
+		occupancyLedger.add(booking, day(1), day(3));
+		Reservation reservation = TestUtils.basicReservation(day(2), day(4));
+
+		occupancyLedger.reload(Stream.of(TestUtils.stayOf(reservation)));
+		occupancyLedger.release(booking);
+
+		assertThat(occupancyLedger.getOccupancy(range(0, 4))).containsExactly(0L, 0L, 1L, 1L, 0L);
+		// The reloaded booking is also tracked, so it can be excluded from the capacity check
+		occupancyLedger.add(booking(), day(2), day(4));
+		assertThat(occupancyLedger.hasCapacity(day(2), day(4), reservation.getBookingIdentifierUuid())).isTrue();
+	}
+
+	@Test
+	public void testRefresh_replacesOccupancyAndKeepsBookings() {
+		String booking = booking();
+		occupancyLedger.add(booking, day(1), day(3));
+
+		// Another instance occupied the first night and the one before the horizon is ignored
+		occupancyLedger.refresh(day(-1), new long[]{2L, 0L, 2L, 1L});
+		occupancyLedger.release(booking);
+
+		assertThat(occupancyLedger.getOccupancy(range(0, 3))).containsExactly(0L, 1L, 0L, 0L);
+	}
+
+	@Test
+	public void testRefreshWithSameOccupancy_doesNotChangeVersion() {
+		occupancyLedger.add(booking(), day(1), day(2));
+		long version = occupancyLedger.getVersion();
+
+		occupancyLedger.refresh(day(0), new long[]{0L, 1L, 0L});
+
+		assertThat(occupancyLedger.getVersion()).isEqualTo(version);
+		occupancyLedger.refresh(day(0), new long[]{1L, 1L, 0L});
+		assertThat(occupancyLedger.getVersion()).isNotEqualTo(version);
+	}
+
+	@Test
+	public void testGetVersionAfterEveryChange_changes() {
+		String booking = booking();
+		Set<Long> versions = Sets.newHashSet(occupancyLedger.getVersion());
+
+		occupancyLedger.add(booking, day(1), day(3));
+		versions.add(occupancyLedger.getVersion());
+		assertThat(occupancyLedger.tryReserve(booking, day(2), day(4))).isTrue();
+		versions.add(occupancyLedger.getVersion());
+		occupancyLedger.release(booking);
+		versions.add(occupancyLedger.getVersion());
+		occupancyLedger.reload(Stream.empty());
+		versions.add(occupancyLedger.getVersion());
+		occupancyLedger.clear();
+		versions.add(occupancyLedger.getVersion());
+
+		assertThat(versions).hasSize(6);
+	}
+
+	@Test
+	public void testGetVersionWithoutChanges_doesNotChange() {
+		occupancyLedger.add(booking(), day(1), day(3));
+		occupancyLedger.add(booking(), day(1), day(3));
+		long version = occupancyLedger.getVersion();
+
+		assertThat(occupancyLedger.tryReserve(booking(), day(1), day(3))).isFalse();
+		occupancyLedger.release(booking());
+		occupancyLedger.getOccupancy(range(0, 3));
+
+		assertThat(occupancyLedger.getVersion()).isEqualTo(version);
+	}
+
+	private static String booking() {
+		return UUID.randomUUID().toString();
+	}
+
+	private static LocalDate day(int daysFromToday) {
+		return LocalDate.now().plusDays(daysFromToday);
+	}
+
+	private static DateRange range(int startDaysFromToday, int endDaysFromToday) {
+		return DateRange.builder()
+				.start(day(startDaysFromToday))
+				.end(day(endDaysFromToday))
+				.build();
+	}
+}
@@ -0,0 +1,131 @@
+package com.reservations.occupancy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SingleFlightTest {
+	private static final String KEY = "key";
+	// Bounds the time a blocked computation waits, in case a test ends without releasing it
+	private static final long RELEASE_TIMEOUT_SECONDS = 5L;
+
+	private SingleFlight<String, Integer> singleFlight;
+	private AtomicInteger computations;
+	private ExecutorService executor;
+
+	@BeforeMethod
+	public void setup() {
+		singleFlight = new SingleFlight<>();
+		computations = new AtomicInteger();
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testExecuteWithoutFlight_runsSupplier() {
+		Integer value = singleFlight.execute(KEY, computations::incrementAndGet);
+
+		assertThat(value).isEqualTo(1);
+		assertThat(singleFlight.executed()).isEqualTo(1L);
+		assertThat(singleFlight.coalesced()).isZero();
+	}
+
+	@Test
+	public void testExecuteAfterFlightCompleted_runsSupplierAgain() {
+		singleFlight.execute(KEY, computations::incrementAndGet);
+
+		Integer value = singleFlight.execute(KEY, computations::incrementAndGet);
+
+		assertThat(value).isEqualTo(2);
+		assertThat(singleFlight.executed()).isEqualTo(2L);
+	}
+
+	@Test
+	public void testExecuteWhileInFlight_sharesResult() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Future<Integer> first = executor.submit(() -> singleFlight.execute(KEY, blocking(started, release, computations::incrementAndGet)));
+		assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+		Future<Integer> second = executor.submit(() -> singleFlight.execute(KEY, computations::incrementAndGet));
+		awaitCoalesced(1L);
+		release.countDown();
+
+		assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo(1);
+		assertThat(second.get(1, TimeUnit.SECONDS)).isEqualTo(1);
+		assertThat(computations.get()).isEqualTo(1);
+		assertThat(singleFlight.executed()).isEqualTo(1L);
+	}
+
+	@Test
+	public void testExecuteWhileOtherKeyInFlight_runsSupplier() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Future<Integer> first = executor.submit(() -> singleFlight.execute(KEY, blocking(started, release, computations::incrementAndGet)));
+		assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+		Integer value = singleFlight.execute("other", computations::incrementAndGet);
+		release.countDown();
+
+		// The other key is computed while the first one is still blocked
+		assertThat(value).isEqualTo(1);
+		assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo(2);
+		assertThat(singleFlight.executed()).isEqualTo(2L);
+		assertThat(singleFlight.coalesced()).isZero();
+	}
+
+	@Test
+	public void testExecuteWhileFailingFlight_throwsSameException() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		IllegalStateException failure = new IllegalStateException("failed");
+		Future<Integer> first = executor.submit(() -> singleFlight.execute(KEY, blocking(started, release, () -> {
+			throw failure;
+		})));
+		assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+		Future<Integer> second = executor.submit(() -> singleFlight.execute(KEY, computations::incrementAndGet));
+		awaitCoalesced(1L);
+		release.countDown();
+
+		assertThatThrownBy(() -> first.get(1, TimeUnit.SECONDS)).hasCause(failure);
+		assertThatThrownBy(() -> second.get(1, TimeUnit.SECONDS)).hasCause(failure);
+		assertThat(computations.get()).isZero();
+		// The failure isn't kept
+		assertThat(singleFlight.execute(KEY, computations::incrementAndGet)).isEqualTo(1);
+	}
+
+	private void awaitCoalesced(long expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+		while (singleFlight.coalesced() < expected && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+	}
+
+	private static <V> Supplier<V> blocking(CountDownLatch started, CountDownLatch release, Supplier<V> supplier) {
+		return () -> {
+			started.countDown();
+			try {
+				release.await(RELEASE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return supplier.get();
+		};
+	}
+}
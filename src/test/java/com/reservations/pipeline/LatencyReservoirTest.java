@@ -0,0 +1,36 @@
+package com.reservations.pipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.testng.annotations.Test;
+
+public class LatencyReservoirTest {
+	@Test
+	public void testPercentileWithoutSamples_returnsZero() {
+		assertThat(new LatencyReservoir(10).percentile(99)).isEqualTo(0L);
+	}
+
+	@Test
+	public void testPercentile_returnsTheSampleAtItsRank() {
+		LatencyReservoir latencyReservoir = new LatencyReservoir(100);
+		for (long latency = 100L; latency > 0; latency--) {
+			latencyReservoir.record(latency);
+		}
+
+		assertThat(latencyReservoir.percentile(50)).isEqualTo(50L);
+		assertThat(latencyReservoir.percentile(99)).isEqualTo(99L);
+		assertThat(latencyReservoir.percentile(100)).isEqualTo(100L);
+		assertThat(latencyReservoir.percentile(0)).isEqualTo(1L);
+	}
+
+	@Test
+	public void testRecordBeyondItsSize_keepsTheLatestSamples() {
+		LatencyReservoir latencyReservoir = new LatencyReservoir(2);
+
+		latencyReservoir.record(1000L);
+		latencyReservoir.record(1L);
+		latencyReservoir.record(2L);
+
+		assertThat(latencyReservoir.percentile(100)).isEqualTo(2L);
+	}
+}
@@ -0,0 +1,53 @@
+package com.reservations.pipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class RateWindowTest {
+	private static final int WINDOW_SECONDS = 4;
+
+	private AtomicLong clock;
+	private RateWindow rateWindow;
+
+	@BeforeMethod
+	public void setup() {
+		clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+		rateWindow = new RateWindow(WINDOW_SECONDS, clock::get);
+	}
+
+	@Test
+	public void testPerSecondWithinCurrentSecond_excludesIt() {
+		rateWindow.mark(8L);
+
+		assertThat(rateWindow.perSecond()).isEqualTo(0.0);
+	}
+
+	@Test
+	public void testPerSecond_returnsTheMeanOfTheCompletedSeconds() {
+		rateWindow.mark(8L);
+		advanceSeconds(1);
+		rateWindow.mark(4L);
+		advanceSeconds(1);
+
+		assertThat(rateWindow.perSecond()).isEqualTo(3.0);
+	}
+
+	@Test
+	public void testPerSecondAfterTheWindow_excludesTheOlderSeconds() {
+		rateWindow.mark(8L);
+		advanceSeconds(WINDOW_SECONDS);
+		rateWindow.mark(4L);
+		advanceSeconds(1);
+
+		assertThat(rateWindow.perSecond()).isEqualTo(1.0);
+	}
+
+	private void advanceSeconds(long seconds) {
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+	}
+}
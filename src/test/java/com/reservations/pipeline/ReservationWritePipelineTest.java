@@ -0,0 +1,227 @@
+package com.reservations.pipeline;
+
+import static com.reservations.TestUtils.basicError;
+import static com.reservations.TestUtils.basicReservation;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.reservations.entity.Reservation;
+import com.reservations.exception.CapacityExceededException;
+import com.reservations.exception.RequestRejectedException;
+import com.reservations.exception.ReservationValidationException;
+import com.reservations.occupancy.OccupancyLedger;
+import com.reservations.service.ReservationService;
+import com.reservations.service.ReservationWrite;
+
+public class ReservationWritePipelineTest {
+	private static final int BATCH_SIZE = 3;
+	// Long enough that only a full batch is applied before the test times out
+	private static final long MAX_LINGER_MS = 60000L;
+	private static final int QUEUE_CAPACITY = 10;
+	private static final long TIMEOUT_SECONDS = 5L;
+
+	@Mock
+	private ReservationService reservationService;
+	@Mock
+	private OccupancyLedger occupancyLedger;
+
+	private ReservationWritePipeline reservationWritePipeline;
+	private ExecutorService callers;
+
+	@BeforeMethod
+	public void setup() {
+		initMocks(this);
+		reservationWritePipeline = new ReservationWritePipeline(reservationService, occupancyLedger, 1, 0L, QUEUE_CAPACITY);
+		callers = Executors.newFixedThreadPool(BATCH_SIZE);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		reservationWritePipeline.stop();
+		callers.shutdownNow();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testCreateReservation_reservesAndAppliesIt() {
+		Reservation reservation = basicReservation();
+		ArgumentCaptor<List<ReservationWrite>> writes = ArgumentCaptor.forClass(List.class);
+		reservationWritePipeline.start();
+
+		Reservation created = reservationWritePipeline.createReservation(reservation);
+
+		assertThat(created).isEqualTo(reservation);
+		verify(reservationService, times(1)).reserveCreation(reservation);
+		verify(reservationService, times(1)).applyWrites(writes.capture());
+		assertThat(writes.getValue()).extracting(ReservationWrite::getReservation).containsExactly(reservation);
+		assertThat(writes.getValue()).extracting(ReservationWrite::isCreation).containsExactly(true);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testCancelReservation_validatesAndAppliesIt() {
+		Reservation reservation = basicReservation();
+		ArgumentCaptor<List<ReservationWrite>> writes = ArgumentCaptor.forClass(List.class);
+		reservationWritePipeline.start();
+
+		reservationWritePipeline.cancelReservation(reservation);
+
+		verify(reservationService, times(1)).validateCancellation(reservation);
+		verify(reservationService, times(1)).applyWrites(writes.capture());
+		assertThat(writes.getValue()).extracting(ReservationWrite::getReservation).containsExactly(reservation);
+		assertThat(writes.getValue()).extracting(ReservationWrite::isCreation).containsExactly(false);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testCreateReservationsConcurrently_appliesThemInASingleBatch() throws Exception {
+		reservationWritePipeline = new ReservationWritePipeline(reservationService, occupancyLedger, BATCH_SIZE, MAX_LINGER_MS, QUEUE_CAPACITY);
+		ArgumentCaptor<List<ReservationWrite>> writes = ArgumentCaptor.forClass(List.class);
+		reservationWritePipeline.start();
+
+		List<Future<Reservation>> results = Lists.newArrayList();
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			Reservation reservation = basicReservation();
+			results.add(callers.submit(() -> reservationWritePipeline.createReservation(reservation)));
+		}
+
+		// The batch is applied once full, without waiting for the linger
+		for (Future<Reservation> result : results) {
+			assertThat(result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isNotNull();
+		}
+		verify(reservationService, times(1)).applyWrites(writes.capture());
+		assertThat(writes.getValue()).hasSize(BATCH_SIZE);
+		assertThat(metrics())
+				.containsEntry("pipeline.writes.commits", 1L)
+				.containsEntry("pipeline.writes.batch-size.mean", (double) BATCH_SIZE);
+	}
+
+	@Test
+	public void testCreateReservationWithFailedWrite_throwsItsFailure() {
+		Reservation reservation = basicReservation();
+		doAnswer(invocation -> {
+			List<ReservationWrite> writes = invocation.getArgument(0);
+			writes.forEach(write -> write.setFailure(new CapacityExceededException(reservation.getArrivalDate(), reservation.getDepartureDate())));
+			return null;
+		}).when(reservationService).applyWrites(anyList());
+		reservationWritePipeline.start();
+
+		assertThatThrownBy(() -> reservationWritePipeline.createReservation(reservation))
+				.isInstanceOf(CapacityExceededException.class);
+
+		// The batch itself was committed
+		assertThat(metrics())
+				.containsEntry("pipeline.writes.commits", 1L)
+				.containsEntry("pipeline.writes.rollbacks", 0L);
+	}
+
+	@Test
+	public void testCreateReservationWithFailingBatch_throwsTheErrorOfTheBatch() {
+		doThrow(new IllegalStateException()).when(reservationService).applyWrites(anyList());
+		reservationWritePipeline.start();
+
+		assertThatThrownBy(() -> reservationWritePipeline.createReservation(basicReservation()))
+				.isInstanceOf(IllegalStateException.class);
+
+		assertThat(metrics())
+				.containsEntry("pipeline.writes.commits", 0L)
+				.containsEntry("pipeline.writes.rollbacks", 1L);
+	}
+
+	@Test
+	public void testCreateReservationInvalid_throwsWithoutQueueingIt() {
+		Reservation reservation = basicReservation();
+		doThrow(new ReservationValidationException(Sets.newHashSet(basicError()))).when(reservationService).reserveCreation(reservation);
+		reservationWritePipeline.start();
+
+		assertThatThrownBy(() -> reservationWritePipeline.createReservation(reservation))
+				.isInstanceOf(ReservationValidationException.class);
+
+		verify(reservationService, never()).applyWrites(anyList());
+	}
+
+	@Test
+	public void testCreateReservationWhenStopped_throwsRequestRejectedException() {
+		assertThatThrownBy(() -> reservationWritePipeline.createReservation(basicReservation()))
+				.isInstanceOf(RequestRejectedException.class);
+
+		verify(reservationService, never()).reserveCreation(any(Reservation.class));
+		verify(reservationService, never()).applyWrites(anyList());
+	}
+
+	@Test
+	public void testCreateReservationStoppedBeforeQueueingIt_throwsRequestRejectedExceptionAndReleasesItsNights() throws Exception {
+		Reservation reservation = basicReservation();
+		// The pipeline is stopped, and its queue drained, after the creation was accepted but before it's queued
+		doAnswer(invocation -> {
+			reservationWritePipeline.stop();
+			return null;
+		}).when(reservationService).reserveCreation(reservation);
+		reservationWritePipeline.start();
+
+		Future<Reservation> result = callers.submit(() -> reservationWritePipeline.createReservation(reservation));
+
+		assertThatThrownBy(() -> result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+				.hasCauseInstanceOf(RequestRejectedException.class);
+		verify(occupancyLedger, times(1)).release(reservation.getBookingIdentifierUuid());
+		verify(reservationService, never()).applyWrites(anyList());
+	}
+
+	@Test
+	public void testCancelReservationStoppedBeforeQueueingIt_throwsRequestRejectedException() throws Exception {
+		Reservation reservation = basicReservation();
+		doAnswer(invocation -> {
+			reservationWritePipeline.stop();
+			return null;
+		}).when(reservationService).validateCancellation(reservation);
+		reservationWritePipeline.start();
+
+		Future<?> result = callers.submit(() -> reservationWritePipeline.cancelReservation(reservation));
+
+		assertThatThrownBy(() -> result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+				.hasCauseInstanceOf(RequestRejectedException.class);
+		verify(occupancyLedger, never()).release(any());
+		verify(reservationService, never()).applyWrites(anyList());
+	}
+
+	@Test
+	public void testMetrics_exposesLatencyOfCommittedWrites() {
+		reservationWritePipeline.start();
+
+		reservationWritePipeline.createReservation(basicReservation());
+
+		Map<String, Number> metrics = metrics();
+		assertThat(metrics).containsEntry("pipeline.writes.queued", 0);
+		assertThat(metrics.get("pipeline.writes.latency.max-ms").doubleValue()).isPositive();
+		assertThat(metrics.get("pipeline.writes.latency.p50-ms").doubleValue()).isEqualTo(metrics.get("pipeline.writes.latency.max-ms").doubleValue());
+	}
+
+	private Map<String, Number> metrics() {
+		return reservationWritePipeline.metrics().stream().collect(Collectors.toMap(Metric::getName, Metric::getValue));
+	}
+}
@@ -0,0 +1,85 @@
+package com.reservations.repository;
+
+import static com.reservations.entity.utils.DateUtils.toDate;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.testng.AbstractTransactionalTestNGSpringContextTests;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.reservations.Application;
+import com.reservations.entity.DailyOccupancy;
+
+/**
+ * Runs the conditional updates of the daily occupancy table against the schema created by the Flyway migrations
+ */
+@SpringBootTest(classes = Application.class)
+@ActiveProfiles("integration")
+public class DailyOccupancyRepositoryIT extends AbstractTransactionalTestNGSpringContextTests {
+	private static final long CAPACITY = 2L;
+
+	@Autowired
+	private DailyOccupancyRepository dailyOccupancyRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private LocalDate start;
+
+	@BeforeMethod
+	public void setup() {
+		dailyOccupancyRepository.deleteAll();
+		start = LocalDate.now().plusDays(10);
+		dailyOccupancyRepository.save(Lists.newArrayList(
+				new DailyOccupancy(start, 0L),
+				new DailyOccupancy(start.plusDays(1), CAPACITY),
+				new DailyOccupancy(start.plusDays(2), 1L)));
+	}
+
+	@Test
+	public void testOccupyNightsBelowCapacity_occupiesAllOfThem() {
+		assertThat(dailyOccupancyRepository.occupy(toDate(start.plusDays(2)), toDate(start.plusDays(3)), CAPACITY)).isEqualTo(1);
+
+		assertThat(activeCount(start.plusDays(2))).isEqualTo(CAPACITY);
+	}
+
+	@Test
+	public void testOccupyWithOneNightAtFullCapacity_skipsThatNight() {
+		assertThat(dailyOccupancyRepository.occupy(toDate(start), toDate(start.plusDays(3)), CAPACITY)).isEqualTo(2);
+	}
+
+	@Test
+	public void testReleaseNightWithoutOccupancy_keepsItAtZero() {
+		assertThat(dailyOccupancyRepository.release(toDate(start), toDate(start.plusDays(2)))).isEqualTo(1);
+
+		assertThat(activeCount(start)).isZero();
+		assertThat(activeCount(start.plusDays(1))).isEqualTo(CAPACITY - 1);
+	}
+
+	@Test
+	public void testFindByDateBetween_includesBothDates() {
+		assertThat(dailyOccupancyRepository.findByDateBetween(toDate(start.plusDays(1)), toDate(start.plusDays(2))))
+				.extracting(DailyOccupancy::getDate)
+				.containsExactlyInAnyOrder(start.plusDays(1), start.plusDays(2));
+		assertThat(dailyOccupancyRepository.countByDateBetween(toDate(start), toDate(start.plusDays(5)))).isEqualTo(3L);
+	}
+
+	@Test
+	public void testFindByDateRangeForUpdate_excludesTheEndDate() {
+		assertThat(dailyOccupancyRepository.findByDateRangeForUpdate(toDate(start), toDate(start.plusDays(2))))
+				.extracting(DailyOccupancy::getDate)
+				.containsExactly(start, start.plusDays(1));
+	}
+
+	private long activeCount(LocalDate date) {
+		// The conditional updates bypass the persistence context, so the row is read directly
+		return jdbcTemplate.queryForObject("SELECT active_count FROM reservation_daily_occupancy WHERE date = ?", Long.class, Date.valueOf(date));
+	}
+}
@@ -0,0 +1,135 @@
+package com.reservations.repository;
+
+import static com.reservations.TestUtils.basicReservation;
+import static com.reservations.TestUtils.stayOf;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.reservations.Application;
+import com.reservations.entity.Reservation;
+import com.reservations.entity.ReservationStatus;
+import com.reservations.entity.ReservationStay;
+import com.reservations.entity.utils.UuidUtils;
+
+/**
+ * Runs the repository queries against the schema created by the Flyway migrations, and verifies that the hot queries
+ * are resolved through the indexes instead of scanning the whole table.
+ */
+@SpringBootTest(classes = Application.class)
+@ActiveProfiles("integration")
+public class ReservationRepositoryIT extends AbstractTestNGSpringContextTests {
+	private static final String BOOKING_IDENTIFIER_INDEX = "UX_RESERVATIONS_BOOKING_IDENTIFIER_UUID";
+	private static final String STATUS_AND_DATES_INDEX = "IX_RESERVATIONS_STATUS_ARRIVAL_DEPARTURE";
+
+	@Autowired
+	private ReservationRepository reservationRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeMethod
+	public void setup() {
+		reservationRepository.deleteAll();
+	}
+
+	@Test
+	public void testFindByBookingIdentifierUuidAndStatus_usesBookingIdentifierIndex() {
+		String plan = explain("SELECT * FROM reservations WHERE booking_identifier_uuid = X'00000000000000000000000000000000' AND status = 'ACTIVE'");
+
+		assertThat(plan).contains(BOOKING_IDENTIFIER_INDEX);
+	}
+
+	@Test
+	public void testFindReservationsByDateRangeAndStatus_usesStatusAndDatesIndex() {
+		String plan = explain("SELECT * FROM reservations WHERE status = 'ACTIVE' AND arrival_date < '2019-01-31' AND departure_date > '2019-01-01' ORDER BY arrival_date ASC");
+
+		assertThat(plan).contains(STATUS_AND_DATES_INDEX);
+	}
+
+	@Test
+	public void testStreamStaysByDateRangeAndStatus_returnsOnlyOverlappingActiveReservations() {
+		LocalDate start = LocalDate.now().plusDays(10);
+		LocalDate end = start.plusDays(2);
+		Reservation endsOnStart = save(basicReservation(start.minusDays(1), start), ReservationStatus.ACTIVE);
+		Reservation overlapsStart = save(basicReservation(start.minusDays(1), start.plusDays(1)), ReservationStatus.ACTIVE);
+		Reservation overlapsEnd = save(basicReservation(end.minusDays(1), end.plusDays(1)), ReservationStatus.ACTIVE);
+		Reservation startsOnEnd = save(basicReservation(end, end.plusDays(1)), ReservationStatus.ACTIVE);
+		Reservation cancelled = save(basicReservation(start, end), ReservationStatus.CANCELLED);
+
+		List<ReservationStay> stays = transactionTemplate.execute(status -> {
+			try (Stream<ReservationStay> stream = reservationRepository.streamStaysByDateRangeAndStatus(start, end, ReservationStatus.ACTIVE)) {
+				return stream.collect(Collectors.toList());
+			}
+		});
+
+		assertThat(stays).containsExactly(stayOf(overlapsStart), stayOf(overlapsEnd))
+				.doesNotContain(stayOf(endsOnStart), stayOf(startsOnEnd), stayOf(cancelled));
+	}
+
+	@Test
+	public void testFindByBookingIdentifierUuidAndStatus_storesTheIdentifierAsBytes() {
+		Reservation reservation = save(basicReservation(LocalDate.now(), LocalDate.now().plusDays(1)), ReservationStatus.ACTIVE);
+
+		assertThat(reservationRepository.findByBookingIdentifierUuidAndStatus(reservation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE))
+				.contains(reservation);
+		assertThat(jdbcTemplate.queryForObject("SELECT booking_identifier_uuid FROM reservations WHERE id = ?", byte[].class, reservation.getId()))
+				.containsExactly(UuidUtils.toBytes(reservation.getBookingIdentifierUuid()));
+	}
+
+	@Test
+	public void testSaveSeveralReservations_allocatesConsecutiveIdsFromTheSequenceTable() {
+		List<Reservation> reservations = Stream.generate(() -> basicReservation(LocalDate.now(), LocalDate.now().plusDays(1)))
+				.limit(3)
+				.peek(reservation -> {
+					reservation.setId(null);
+					reservation.setStatus(ReservationStatus.ACTIVE);
+				})
+				.collect(Collectors.toList());
+
+		reservationRepository.save(reservations);
+
+		List<Long> ids = reservations.stream().map(Reservation::getId).collect(Collectors.toList());
+		assertThat(ids).doesNotContainNull();
+		assertThat(ids.get(1)).isEqualTo(ids.get(0) + 1);
+		assertThat(ids.get(2)).isEqualTo(ids.get(0) + 2);
+		// The whole block was allocated at once, so the next one starts after all of them
+		assertThat(jdbcTemplate.queryForObject("SELECT next_val FROM reservations_id_sequence", Long.class)).isGreaterThan(ids.get(2));
+	}
+
+	@Test
+	public void testFindByBookingIdentifierUuidAndStatusAfterCancelling_doesNotReturnTheReservation() {
+		Reservation reservation = save(basicReservation(LocalDate.now(), LocalDate.now().plusDays(1)), ReservationStatus.ACTIVE);
+		reservationRepository.findByBookingIdentifierUuidAndStatus(reservation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE);
+
+		reservation.setStatus(ReservationStatus.CANCELLED);
+		reservationRepository.save(reservation);
+
+		assertThat(reservationRepository.findByBookingIdentifierUuidAndStatus(reservation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE))
+				.isEmpty();
+		assertThat(reservationRepository.findOne(reservation.getId()).getStatus()).isEqualTo(ReservationStatus.CANCELLED);
+	}
+
+	private Reservation save(Reservation reservation, ReservationStatus status) {
+		reservation.setId(null);
+		reservation.setStatus(status);
+		return reservationRepository.save(reservation);
+	}
+
+	private String explain(String query) {
+		return jdbcTemplate.queryForObject("EXPLAIN " + query, String.class).toUpperCase();
+	}
+}
@@ -0,0 +1,134 @@
+package com.reservations.service;
+
+import static com.reservations.TestUtils.basicReservation;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.actuate.metrics.Metric;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.reservations.entity.Reservation;
+
+public class ActiveReservationCacheTest {
+	private static final long MAXIMUM_SIZE = 2L;
+	private static final long EXPIRE_AFTER_WRITE_MS = 60000L;
+
+	private ActiveReservationCache activeReservationCache;
+	private AtomicInteger loads;
+
+	@BeforeMethod
+	public void setup() {
+		activeReservationCache = new ActiveReservationCache(MAXIMUM_SIZE, EXPIRE_AFTER_WRITE_MS);
+		loads = new AtomicInteger();
+	}
+
+	@Test
+	public void testGetTwice_loadsOnce() {
+		Reservation reservation = basicReservation();
+
+		activeReservationCache.get(reservation.getBookingIdentifierUuid(), loader(reservation));
+		Optional<Reservation> result = activeReservationCache.get(reservation.getBookingIdentifierUuid(), loader(reservation));
+
+		assertThat(loads.get()).isEqualTo(1);
+		assertThat(result).contains(reservation);
+	}
+
+	@Test
+	public void testGetUnknownTwice_loadsOnce() {
+		String bookingIdentifierUuid = UUID.randomUUID().toString();
+		activeReservationCache.get(bookingIdentifierUuid, loader(null));
+		Optional<Reservation> result = activeReservationCache.get(bookingIdentifierUuid, loader(null));
+
+		assertThat(loads.get()).isEqualTo(1);
+		assertThat(result).isEmpty();
+	}
+
+	@Test
+	public void testGetAfterModifyingReturnedReservation_returnsCachedReservation() {
+		Reservation reservation = basicReservation();
+		activeReservationCache.put(reservation);
+
+		activeReservationCache.get(reservation.getBookingIdentifierUuid(), loader(null)).get().setArrivalDate(null);
+		reservation.setDepartureDate(null);
+
+		Reservation result = activeReservationCache.get(reservation.getBookingIdentifierUuid(), loader(null)).get();
+		assertThat(result.getArrivalDate()).isNotNull();
+		assertThat(result.getDepartureDate()).isNotNull();
+		assertThat(loads.get()).isZero();
+	}
+
+	@Test
+	public void testGetAfterRemove_returnsEmptyWithoutLoading() {
+		Reservation reservation = basicReservation();
+		activeReservationCache.put(reservation);
+
+		activeReservationCache.remove(reservation.getBookingIdentifierUuid());
+
+		assertThat(activeReservationCache.get(reservation.getBookingIdentifierUuid(), loader(reservation))).isEmpty();
+		assertThat(loads.get()).isZero();
+	}
+
+	@Test
+	public void testGetUpperCaseAfterRemove_returnsEmptyWithoutLoading() {
+		Reservation reservation = basicReservation();
+		activeReservationCache.get(reservation.getBookingIdentifierUuid().toUpperCase(), loader(reservation));
+
+		activeReservationCache.remove(reservation.getBookingIdentifierUuid());
+
+		assertThat(activeReservationCache.get(reservation.getBookingIdentifierUuid().toUpperCase(), loader(reservation))).isEmpty();
+		assertThat(loads.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testGetUpperCase_loadsLowerCase() {
+		Reservation reservation = basicReservation();
+
+		activeReservationCache.get(reservation.getBookingIdentifierUuid().toUpperCase(), key -> {
+			assertThat(key).isEqualTo(reservation.getBookingIdentifierUuid());
+			return loader(reservation).apply(key);
+		});
+
+		assertThat(activeReservationCache.get(reservation.getBookingIdentifierUuid(), loader(reservation))).contains(reservation);
+		assertThat(loads.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testGetWithFailingLoader_throwsSameExceptionAndDoesNotCache() {
+		Reservation reservation = basicReservation();
+
+		assertThatThrownBy(() -> activeReservationCache.get(reservation.getBookingIdentifierUuid(), key -> {
+			throw new IllegalArgumentException(key);
+		})).isInstanceOf(IllegalArgumentException.class);
+
+		assertThat(activeReservationCache.get(reservation.getBookingIdentifierUuid(), loader(reservation))).contains(reservation);
+	}
+
+	@Test
+	public void testMetrics_reportsHitsAndMisses() {
+		Reservation reservation = basicReservation();
+		activeReservationCache.get(reservation.getBookingIdentifierUuid(), loader(reservation));
+		activeReservationCache.get(reservation.getBookingIdentifierUuid(), loader(reservation));
+
+		Map<String, Number> metrics = activeReservationCache.metrics().stream()
+				.collect(Collectors.toMap(Metric::getName, Metric::getValue));
+
+		assertThat(metrics).containsEntry("cache.active-reservations.hit", 1L)
+				.containsEntry("cache.active-reservations.miss", 1L)
+				.containsEntry("cache.active-reservations.size", 1L);
+	}
+
+	private Function<String, Optional<Reservation>> loader(Reservation reservation) {
+		return key -> {
+			loads.incrementAndGet();
+			return Optional.ofNullable(reservation);
+		};
+	}
+}
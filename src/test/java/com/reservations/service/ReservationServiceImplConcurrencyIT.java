@@ -0,0 +1,132 @@
+package com.reservations.service;
+
+import static com.reservations.TestUtils.basicReservation;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.reservations.Application;
+import com.reservations.entity.Reservation;
+import com.reservations.exception.CapacityExceededException;
+import com.reservations.exception.ReservationValidationException;
+import com.reservations.occupancy.DailyOccupancyReconciler;
+import com.reservations.repository.DailyOccupancyRepository;
+import com.reservations.repository.ReservationRepository;
+
+/**
+ * Stress test that creates and cancels overlapping reservations from several threads at the same time through the
+ * repositories, verifying that the quantity of ACTIVE reservations persisted for each night never exceeds the capacity
+ * and matches the daily occupancy table.
+ */
+@SpringBootTest(classes = Application.class)
+@ActiveProfiles("integration")
+public class ReservationServiceImplConcurrencyIT extends AbstractTestNGSpringContextTests {
+	private static final int THREADS = 8;
+	private static final int OPERATIONS_PER_THREAD = 50;
+	// Arrivals are spread over a few nights only, so the capacity is contended
+	private static final int ARRIVAL_DAYS = 3;
+	private static final int MAX_DURATION_DAYS = 3;
+
+	@Autowired
+	private ReservationService reservationService;
+	@Autowired
+	private DailyOccupancyReconciler dailyOccupancyReconciler;
+	@Autowired
+	private ReservationRepository reservationRepository;
+	@Autowired
+	private DailyOccupancyRepository dailyOccupancyRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Value("${reservations.max-capacity}")
+	private long maxCapacity;
+
+	private ExecutorService executorService;
+
+	@BeforeMethod
+	public void setup() {
+		reservationRepository.deleteAll();
+		dailyOccupancyRepository.deleteAll();
+		dailyOccupancyReconciler.reconcile();
+		executorService = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		executorService.shutdownNow();
+	}
+
+	@Test
+	public void testConcurrentCreationsAndCancellations_neverExceedCapacity() throws Exception {
+		Queue<Reservation> createdReservations = new ConcurrentLinkedQueue<>();
+		AtomicInteger rejectedReservations = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = Lists.newArrayList();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(executorService.submit(() -> {
+				start.await();
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+					Reservation cancellable = random.nextInt(4) == 0 ? createdReservations.poll() : null;
+					if (cancellable != null) {
+						reservationService.cancelReservation(cancellable);
+					} else {
+						LocalDate arrivalDate = LocalDate.now().plusDays(1 + random.nextInt(ARRIVAL_DAYS));
+						Reservation reservation = basicReservation(arrivalDate, arrivalDate.plusDays(1 + random.nextInt(MAX_DURATION_DAYS)));
+						reservation.setId(null);
+						try {
+							createdReservations.add(reservationService.createReservation(reservation));
+						} catch (CapacityExceededException | ReservationValidationException e) {
+							// The validation rejects the reservations whose nights were already full when it checked them
+							rejectedReservations.incrementAndGet();
+						}
+					}
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(1, TimeUnit.MINUTES);
+		}
+
+		// The capacity was actually contended, and it was never exceeded
+		assertThat(rejectedReservations.get()).isPositive();
+		LocalDate lastNight = LocalDate.now().plusDays(ARRIVAL_DAYS + MAX_DURATION_DAYS - 1);
+		for (LocalDate date = LocalDate.now().plusDays(1); !date.isAfter(lastNight); date = date.plusDays(1)) {
+			long active = activeReservations(date);
+			assertThat(active).as("active reservations on %s", date).isLessThanOrEqualTo(maxCapacity);
+			assertThat(activeCount(date)).as("daily occupancy on %s", date).isEqualTo(active);
+		}
+	}
+
+	private long activeReservations(LocalDate date) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reservations WHERE status = 'ACTIVE' AND arrival_date <= ? AND departure_date > ?",
+				Long.class, Date.valueOf(date), Date.valueOf(date));
+	}
+
+	private long activeCount(LocalDate date) {
+		return jdbcTemplate.queryForObject("SELECT active_count FROM reservation_daily_occupancy WHERE date = ?", Long.class, Date.valueOf(date));
+	}
+}
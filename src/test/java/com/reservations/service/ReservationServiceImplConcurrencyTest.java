@@ -0,0 +1,197 @@
+package com.reservations.service;
+
+import static com.reservations.entity.utils.DateUtils.toLocalDate;
+import static com.reservations.TestUtils.basicReservation;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.mockito.Mock;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.reservations.entity.DailyOccupancy;
+import com.reservations.entity.DateRange;
+import com.reservations.entity.EventType;
+import com.reservations.entity.Reservation;
+import com.reservations.entity.ReservationStatus;
+import com.reservations.exception.CapacityExceededException;
+import com.reservations.occupancy.OccupancyLedger;
+import com.reservations.identifier.TimeOrderedBookingIdentifierGenerator;
+import com.reservations.occupancy.DailyOccupancyCache;
+import com.reservations.occupancy.DailyOccupancyReconciler;
+import com.reservations.repository.DailyOccupancyRepository;
+import com.reservations.repository.ReservationRepository;
+import com.reservations.validation.DefaultReservationValidatorExtensionImpl;
+import com.reservations.validation.ReservationCancellationValidatorExtensionImpl;
+import com.reservations.validation.ReservationCreationValidatorExtensionImpl;
+import com.reservations.validation.ReservationValidatorExtensionRegistry;
+
+/**
+ * Stress test that creates and cancels overlapping reservations from several threads at the same time, verifying
+ * that the quantity of ACTIVE reservations persisted for each night never exceeds the capacity.
+ */
+public class ReservationServiceImplConcurrencyTest {
+	private static final int MAX_CAPACITY = 10;
+	private static final int HORIZON_DAYS = 10;
+	private static final int THREADS = 16;
+	private static final int OPERATIONS_PER_THREAD = 500;
+
+	@Mock
+	private ReservationRepository reservationRepository;
+	@Mock
+	private DailyOccupancyRepository dailyOccupancyRepository;
+	@Mock
+	private DailyOccupancyReconciler dailyOccupancyReconciler;
+	@Mock
+	private ReservationCreationValidatorExtensionImpl reservationCreationValidatorExtension;
+	@Mock
+	private ReservationCancellationValidatorExtensionImpl reservationCancellationValidatorExtension;
+
+	private OccupancyLedger occupancyLedger;
+	private ReservationServiceImpl reservationService;
+	private ExecutorService executorService;
+
+	// Persisted reservations and the maximum occupancy ever observed by the repository for any night
+	private final Set<Reservation> persistedReservations = Sets.newIdentityHashSet();
+	private int maximumObservedOccupancy;
+
+	@BeforeMethod
+	public void setup() {
+		initMocks(this);
+
+		when(reservationCreationValidatorExtension.supports(EventType.CREATION)).thenReturn(true);
+		when(reservationCancellationValidatorExtension.supports(EventType.CANCELLATION)).thenReturn(true);
+		when(reservationRepository.save(any(Reservation.class))).thenAnswer(invocation -> {
+			Reservation reservation = invocation.getArgument(0);
+			synchronized (persistedReservations) {
+				persistedReservations.add(reservation);
+				for (long occupied : persistedOccupancy()) {
+					maximumObservedOccupancy = (int) Math.max(maximumObservedOccupancy, occupied);
+				}
+			}
+			return reservation;
+		});
+		when(reservationRepository.findByBookingIdentifierUuidAndStatusForUpdate(anyString(), eq(ReservationStatus.ACTIVE))).thenAnswer(invocation -> {
+			synchronized (persistedReservations) {
+				return persistedReservations.stream()
+						.filter(reservation -> reservation.getBookingIdentifierUuid().equals(invocation.getArgument(0)))
+						.filter(reservation -> reservation.getStatus() == ReservationStatus.ACTIVE)
+						.findFirst();
+			}
+		});
+		// The daily occupancy table always accepts, so the ledger is the only one protecting the capacity. The nights
+		// the ledger rejects are always full when they are checked again in the table
+		when(dailyOccupancyRepository.countByDateBetween(any(Date.class), any(Date.class)))
+				.thenAnswer(invocation -> ChronoUnit.DAYS.between(toLocalDate(invocation.getArgument(0)), toLocalDate(invocation.getArgument(1))) + 1);
+		when(dailyOccupancyRepository.occupy(any(Date.class), any(Date.class), anyLong()))
+				.thenAnswer(invocation -> (int) ChronoUnit.DAYS.between(toLocalDate(invocation.getArgument(0)), toLocalDate(invocation.getArgument(1))));
+		when(dailyOccupancyRepository.findByDateBetween(any(Date.class), any(Date.class)))
+				.thenAnswer(invocation -> LongStream.rangeClosed(toLocalDate(invocation.getArgument(0)).toEpochDay(), toLocalDate(invocation.getArgument(1)).toEpochDay())
+						.mapToObj(day -> new DailyOccupancy(LocalDate.ofEpochDay(day), (long) MAX_CAPACITY))
+						.collect(Collectors.toList()));
+
+		occupancyLedger = new OccupancyLedger(HORIZON_DAYS, MAX_CAPACITY);
+		reservationService = new ReservationServiceImpl(reservationRepository,
+				dailyOccupancyRepository,
+				dailyOccupancyReconciler,
+				new ReservationValidatorExtensionRegistry(Sets.newHashSet(
+						new DefaultReservationValidatorExtensionImpl(),
+						reservationCreationValidatorExtension,
+						reservationCancellationValidatorExtension)),
+				occupancyLedger,
+				new DailyOccupancyCache(HORIZON_DAYS, TimeUnit.MINUTES.toMillis(1)),
+				new ActiveReservationCache(0L, 0L),
+				new TimeOrderedBookingIdentifierGenerator(),
+				Optional.empty(),
+				MAX_CAPACITY);
+		executorService = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		executorService.shutdownNow();
+	}
+
+	@Test
+	public void testConcurrentCreationsAndCancellations_neverExceedCapacity() throws Exception {
+		Queue<Reservation> createdReservations = new ConcurrentLinkedQueue<>();
+		AtomicInteger rejectedReservations = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = Lists.newArrayList();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(executorService.submit(() -> {
+				start.await();
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+					Reservation cancellable = random.nextInt(4) == 0 ? createdReservations.poll() : null;
+					if (cancellable != null) {
+						reservationService.cancelReservation(cancellable);
+					} else {
+						LocalDate arrivalDate = LocalDate.now().plusDays(1 + random.nextInt(5));
+						Reservation reservation = basicReservation(arrivalDate, arrivalDate.plusDays(1 + random.nextInt(3)));
+						try {
+							createdReservations.add(reservationService.createReservation(reservation));
+						} catch (CapacityExceededException e) {
+							rejectedReservations.incrementAndGet();
+						}
+					}
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(1, TimeUnit.MINUTES);
+		}
+
+		// The capacity was actually contended, and it was never exceeded
+		assertThat(rejectedReservations.get()).isPositive();
+		assertThat(maximumObservedOccupancy).isLessThanOrEqualTo(MAX_CAPACITY);
+		// The ledger matches what was persisted
+		synchronized (persistedReservations) {
+			assertThat(occupancyLedger.getOccupancy(occupancyLedger.getHorizon())).containsExactly(persistedOccupancy());
+		}
+	}
+
+	/**
+	 * Calculates the quantity of ACTIVE persisted reservations for each night within the horizon
+	 */
+	private long[] persistedOccupancy() {
+		DateRange horizon = occupancyLedger.getHorizon();
+		long[] occupancy = new long[HORIZON_DAYS];
+		persistedReservations.stream()
+				.filter(reservation -> ReservationStatus.ACTIVE.equals(reservation.getStatus()))
+				.forEach(reservation -> {
+					for (LocalDate date = reservation.getArrivalDate(); date.isBefore(reservation.getDepartureDate()); date = date.plusDays(1)) {
+						occupancy[(int) (date.toEpochDay() - horizon.getStart().toEpochDay())]++;
+					}
+				});
+		return occupancy;
+	}
+}
@@ -0,0 +1,161 @@
+package com.reservations.service;
+
+import static com.reservations.TestUtils.basicReservation;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.reservations.Application;
+import com.reservations.entity.Reservation;
+import com.reservations.entity.ReservationStatus;
+import com.reservations.exception.ReservationNotFoundException;
+import com.reservations.occupancy.DailyOccupancyReconciler;
+import com.reservations.repository.DailyOccupancyRepository;
+import com.reservations.repository.ReservationRepository;
+
+/**
+ * Verifies that writes of {@link ReservationService} based on copies of a reservation read before another write was
+ * committed, such as the ones from concurrent requests, other instances or the cache, are applied over the current
+ * reservation and don't modify the daily occupancy twice.
+ */
+@SpringBootTest(classes = Application.class)
+@ActiveProfiles("integration")
+public class ReservationServiceImplIT extends AbstractTestNGSpringContextTests {
+	@Autowired
+	private ReservationService reservationService;
+	@Autowired
+	private DailyOccupancyReconciler dailyOccupancyReconciler;
+	@Autowired
+	private ReservationRepository reservationRepository;
+	@Autowired
+	private DailyOccupancyRepository dailyOccupancyRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private ExecutorService executorService;
+
+	@BeforeMethod
+	public void setup() {
+		reservationRepository.deleteAll();
+		dailyOccupancyRepository.deleteAll();
+		dailyOccupancyReconciler.reconcile();
+		executorService = Executors.newFixedThreadPool(2);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		executorService.shutdownNow();
+	}
+
+	@Test
+	public void testCancelReservationTwiceConcurrently_releasesNightsOnce() throws Exception {
+		Reservation reservation = reservationService.createReservation(newReservation());
+		reservationService.createReservation(newReservation());
+		// Both cancellations read the reservation before any of them is committed
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		List<Future<?>> cancellations = Stream.of(copy(reservation), copy(reservation))
+				.map(copy -> executorService.submit(() -> {
+					barrier.await();
+					reservationService.cancelReservation(copy);
+					return null;
+				}))
+				.collect(Collectors.toList());
+
+		int cancelled = 0;
+		for (Future<?> cancellation : cancellations) {
+			try {
+				cancellation.get();
+				cancelled++;
+			} catch (ExecutionException e) {
+				// The other cancellation was committed first
+			}
+		}
+
+		assertThat(cancelled).isEqualTo(1);
+		assertThat(activeCount(reservation.getArrivalDate())).isEqualTo(1L);
+		assertThat(reservationRepository.findOne(reservation.getId()).getStatus()).isEqualTo(ReservationStatus.CANCELLED);
+	}
+
+	@Test
+	public void testCancelReservationWithOutdatedCopy_throwsReservationNotFoundExceptionAndReleasesNightsOnce() {
+		Reservation reservation = reservationService.createReservation(newReservation());
+		Reservation outdated = copy(reservation);
+		reservationService.cancelReservation(reservation);
+
+		assertThatThrownBy(() -> reservationService.cancelReservation(outdated))
+				.isInstanceOf(ReservationNotFoundException.class);
+
+		assertThat(activeCount(reservation.getArrivalDate())).isZero();
+	}
+
+	@Test
+	public void testUpdateReservationWithOutdatedCopy_movesCurrentNights() {
+		Reservation reservation = reservationService.createReservation(newReservation());
+		Reservation outdated = copy(reservation);
+		LocalDate arrivalDate = reservation.getArrivalDate();
+		reservationService.updateReservation(reservation, Reservation.builder()
+				.arrivalDate(arrivalDate.plusDays(1))
+				.departureDate(arrivalDate.plusDays(2))
+				.build());
+
+		reservationService.updateReservation(outdated, Reservation.builder()
+				.arrivalDate(arrivalDate.plusDays(2))
+				.departureDate(arrivalDate.plusDays(3))
+				.build());
+
+		assertThat(activeCount(arrivalDate)).isZero();
+		assertThat(activeCount(arrivalDate.plusDays(1))).isZero();
+		assertThat(activeCount(arrivalDate.plusDays(2))).isEqualTo(1L);
+	}
+
+	@Test
+	public void testUpdateReservationTwice_appliesBothUpdates() {
+		Reservation reservation = reservationService.createReservation(newReservation());
+		LocalDate arrivalDate = reservation.getArrivalDate();
+
+		reservationService.updateReservation(reservation, Reservation.builder()
+				.arrivalDate(arrivalDate.plusDays(1))
+				.departureDate(arrivalDate.plusDays(2))
+				.build());
+		reservationService.updateReservation(reservation, Reservation.builder()
+				.arrivalDate(arrivalDate.plusDays(2))
+				.departureDate(arrivalDate.plusDays(3))
+				.build());
+
+		assertThat(activeCount(arrivalDate.plusDays(1))).isZero();
+		assertThat(activeCount(arrivalDate.plusDays(2))).isEqualTo(1L);
+	}
+
+	private static Reservation newReservation() {
+		Reservation reservation = basicReservation();
+		reservation.setId(null);
+		return reservation;
+	}
+
+	private static Reservation copy(Reservation reservation) {
+		return reservation.toBuilder().build();
+	}
+
+	private long activeCount(LocalDate date) {
+		return jdbcTemplate.queryForObject("SELECT active_count FROM reservation_daily_occupancy WHERE date = ?", Long.class, Date.valueOf(date));
+	}
+}
@@ -1,5 +1,8 @@
 package com.reservations.service;
 
+import static com.reservations.entity.utils.DateUtils.toLocalDate;
+import static com.reservations.entity.utils.DateUtils.toDate;
+import static com.reservations.TestUtils.DEFAULT_ERROR_MESSAGE;
 import static com.reservations.TestUtils.basicError;
 import static com.reservations.TestUtils.basicReservation;
 import static com.reservations.TestUtils.basicReservationsWithinRange;
@@ -8,7 +11,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -17,48 +21,64 @@ import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 import java.time.LocalDate;
-import java.util.Arrays;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
-import org.apache.commons.lang.RandomStringUtils;
 import org.mockito.Mock;
-import org.mockito.invocation.InvocationOnMock;
-import org.mockito.stubbing.Answer;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.reservations.entity.DailyOccupancy;
 import com.reservations.entity.DateRange;
 import com.reservations.entity.EventType;
 import com.reservations.entity.Reservation;
 import com.reservations.entity.ReservationAvailability;
+import com.reservations.entity.ReservationResult;
 import com.reservations.entity.ReservationStatus;
 import com.reservations.entity.utils.DateUtils;
+import com.reservations.exception.CapacityExceededException;
 import com.reservations.exception.InvalidRangeException;
+import com.reservations.exception.ReservationModifiedException;
 import com.reservations.exception.ReservationNotFoundException;
 import com.reservations.exception.ReservationValidationException;
 import com.reservations.exception.extension.ExtensionNotFoundException;
+import com.reservations.identifier.TimeOrderedBookingIdentifierGenerator;
+import com.reservations.journal.ReservationJournal;
+import com.reservations.occupancy.DailyOccupancyCache;
+import com.reservations.occupancy.DailyOccupancyReconciler;
+import com.reservations.occupancy.OccupancyLedger;
+import com.reservations.repository.DailyOccupancyRepository;
 import com.reservations.repository.ReservationRepository;
 import com.reservations.validation.DefaultReservationValidatorExtensionImpl;
 import com.reservations.validation.ReservationCancellationValidatorExtensionImpl;
 import com.reservations.validation.ReservationCreationValidatorExtensionImpl;
 import com.reservations.validation.ReservationUpdateValidatorExtensionImpl;
+import com.reservations.validation.ReservationValidatorExtensionRegistry;
 
 public class ReservationServiceImplTest {
 	private static final long MAX_CAPACITY = 10L;
-	private static final int PAGE_SIZE = 10;
+	private static final int HORIZON_DAYS = 10;
+	private static final long CACHE_MAXIMUM_SIZE = 100L;
+	private static final long CACHE_EXPIRE_AFTER_WRITE_MS = 60000L;
 
 	@Mock
 	private ReservationRepository reservationRepository;
 	@Mock
+	private DailyOccupancyRepository dailyOccupancyRepository;
+	@Mock
+	private DailyOccupancyReconciler dailyOccupancyReconciler;
+	@Mock
 	private DefaultReservationValidatorExtensionImpl defaultReservationValidatorExtension;
 	@Mock
 	private ReservationCreationValidatorExtensionImpl reservationCreationValidatorExtension;
@@ -66,50 +86,148 @@ public class ReservationServiceImplTest {
 	private ReservationUpdateValidatorExtensionImpl reservationUpdateValidatorExtension;
 	@Mock
 	private ReservationCancellationValidatorExtensionImpl reservationCancellationValidatorExtension;
+	@Mock
+	private ReservationJournal reservationJournal;
 
+	private OccupancyLedger occupancyLedger;
 	private ReservationServiceImpl reservationService;
 
 	@BeforeMethod
 	public void setup() {
 		initMocks(this);
 
+		// Saving returns the reservation itself, as the copy managed by the transaction
+		when(reservationRepository.save(any(Reservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		// By default, all the nights have a row in the daily occupancy table and are below the capacity
+		when(dailyOccupancyRepository.countByDateBetween(any(Date.class), any(Date.class)))
+				.thenAnswer(invocation -> ChronoUnit.DAYS.between(toLocalDate(invocation.getArgument(0)), toLocalDate(invocation.getArgument(1))) + 1);
+		when(dailyOccupancyRepository.occupy(any(Date.class), any(Date.class), anyLong()))
+				.thenAnswer(invocation -> (int) ChronoUnit.DAYS.between(toLocalDate(invocation.getArgument(0)), toLocalDate(invocation.getArgument(1))));
+		when(dailyOccupancyRepository.findByDateRangeForUpdate(any(Date.class), any(Date.class)))
+				.thenAnswer(invocation -> LongStream.range(toLocalDate(invocation.getArgument(0)).toEpochDay(), toLocalDate(invocation.getArgument(1)).toEpochDay())
+						.mapToObj(day -> new DailyOccupancy(LocalDate.ofEpochDay(day), 0L))
+						.collect(Collectors.toList()));
+		occupancyLedger = new OccupancyLedger(HORIZON_DAYS, (int) MAX_CAPACITY);
+		// The validator of each event type is resolved when the registry is created
+		when(defaultReservationValidatorExtension.isDefault()).thenReturn(true);
+		when(reservationCreationValidatorExtension.supports(EventType.CREATION)).thenReturn(true);
+		when(reservationUpdateValidatorExtension.supports(EventType.UPDATE)).thenReturn(true);
+		when(reservationCancellationValidatorExtension.supports(EventType.CANCELLATION)).thenReturn(true);
+
 		reservationService = new ReservationServiceImpl(reservationRepository,
-				Sets.newHashSet(
+				dailyOccupancyRepository,
+				dailyOccupancyReconciler,
+				new ReservationValidatorExtensionRegistry(Sets.newHashSet(
 						defaultReservationValidatorExtension,
 						reservationCreationValidatorExtension,
 						reservationUpdateValidatorExtension,
-						reservationCancellationValidatorExtension),
+						reservationCancellationValidatorExtension)),
+				occupancyLedger,
+				new DailyOccupancyCache(CACHE_MAXIMUM_SIZE, CACHE_EXPIRE_AFTER_WRITE_MS),
+				new ActiveReservationCache(CACHE_MAXIMUM_SIZE, CACHE_EXPIRE_AFTER_WRITE_MS),
+				new TimeOrderedBookingIdentifierGenerator(),
+				Optional.of(reservationJournal),
 				MAX_CAPACITY);
 	}
 
 	@Test
-	public void testCheckAvailability_returnsTrue() {
-		String bookingIdentifierUuid = UUID.randomUUID().toString();
+	public void testCheckAvailabilityBeyondLedgerHorizon_returnsTrue() {
 		DateRange dateRange = DateRange.builder()
-				.start(LocalDate.now())
-				.end(LocalDate.now().plusDays(1))
+				.start(LocalDate.now().plusDays(HORIZON_DAYS))
+				.end(LocalDate.now().plusDays(HORIZON_DAYS + 2))
 				.build();
-		when(reservationRepository.findQuantityByDateRangeAndStatusOmittingBookingIdentifierUuid(dateRange.getStart(), dateRange.getEnd(), ReservationStatus.ACTIVE, bookingIdentifierUuid)).thenReturn(MAX_CAPACITY - 1);
+		// The departure date is at full capacity, but it isn't occupied by the stay
+		when(dailyOccupancyRepository.findByDateBetween(toDate(dateRange.getStart()), toDate(dateRange.getEnd().minusDays(1)))).thenReturn(Lists.newArrayList(
+				new DailyOccupancy(dateRange.getStart(), MAX_CAPACITY - 1)));
 
-		boolean available = reservationService.checkAvailability(dateRange, bookingIdentifierUuid);
+		boolean available = reservationService.checkAvailability(dateRange, UUID.randomUUID().toString());
 
-		verify(reservationRepository, times(1)).findQuantityByDateRangeAndStatusOmittingBookingIdentifierUuid(dateRange.getStart(), dateRange.getEnd(), ReservationStatus.ACTIVE, bookingIdentifierUuid);
+		verify(dailyOccupancyRepository, times(1)).findByDateBetween(toDate(dateRange.getStart()), toDate(dateRange.getEnd().minusDays(1)));
 		assertThat(available).isTrue();
 	}
 
 	@Test
-	public void testCheckAvailabilityWithMaximumCapacity_returnsFalse() {
+	public void testCheckAvailabilityBeyondLedgerHorizonWithMaximumCapacity_returnsFalse() {
+		DateRange dateRange = DateRange.builder()
+				.start(LocalDate.now().plusDays(HORIZON_DAYS))
+				.end(LocalDate.now().plusDays(HORIZON_DAYS + 2))
+				.build();
+		when(dailyOccupancyRepository.findByDateBetween(toDate(dateRange.getStart()), toDate(dateRange.getEnd().minusDays(1)))).thenReturn(Lists.newArrayList(
+				new DailyOccupancy(dateRange.getStart(), MAX_CAPACITY - 1),
+				new DailyOccupancy(dateRange.getStart().plusDays(1), MAX_CAPACITY)));
+
+		boolean available = reservationService.checkAvailability(dateRange, UUID.randomUUID().toString());
+
+		assertThat(available).isFalse();
+	}
+
+	@Test
+	public void testCheckAvailabilityWithinLedgerHorizonWithFullNightsOutsideTheStay_returnsTrueWithoutQueryingRepository() {
+		DateRange dateRange = DateRange.builder()
+				.start(LocalDate.now().plusDays(2))
+				.end(LocalDate.now().plusDays(4))
+				.build();
+		// The nights before the arrival date and the departure date itself are at full capacity
+		for (int i = 0; i < MAX_CAPACITY; i++) {
+			occupancyLedger.add(UUID.randomUUID().toString(), LocalDate.now().plusDays(1), dateRange.getStart());
+			occupancyLedger.add(UUID.randomUUID().toString(), dateRange.getEnd(), dateRange.getEnd().plusDays(1));
+		}
+
+		boolean available = reservationService.checkAvailability(dateRange, UUID.randomUUID().toString());
+
+		verify(dailyOccupancyRepository, never()).findByDateBetween(any(Date.class), any(Date.class));
+		assertThat(available).isTrue();
+	}
+
+	@Test
+	public void testCheckAvailabilityWithinLedgerHorizonWithOneFullNight_returnsFalse() {
+		DateRange dateRange = DateRange.builder()
+				.start(LocalDate.now().plusDays(2))
+				.end(LocalDate.now().plusDays(4))
+				.build();
+		for (int i = 0; i < MAX_CAPACITY; i++) {
+			occupancyLedger.add(UUID.randomUUID().toString(), dateRange.getEnd().minusDays(1), dateRange.getEnd());
+		}
+		stubDailyOccupancy(MAX_CAPACITY);
+
+		boolean available = reservationService.checkAvailability(dateRange, UUID.randomUUID().toString());
+
+		assertThat(available).isFalse();
+	}
+
+	@Test
+	public void testCheckAvailabilityWithinLedgerHorizonWithFullNightOccupiedByTheSameBooking_returnsTrue() {
 		String bookingIdentifierUuid = UUID.randomUUID().toString();
 		DateRange dateRange = DateRange.builder()
-				.start(LocalDate.now())
-				.end(LocalDate.now().plusDays(1))
+				.start(LocalDate.now().plusDays(2))
+				.end(LocalDate.now().plusDays(4))
 				.build();
-		when(reservationRepository.findQuantityByDateRangeAndStatusOmittingBookingIdentifierUuid(dateRange.getStart(), dateRange.getEnd(), ReservationStatus.ACTIVE, bookingIdentifierUuid)).thenReturn(MAX_CAPACITY);
+		occupancyLedger.add(bookingIdentifierUuid, dateRange.getStart(), dateRange.getEnd());
+		for (int i = 0; i < MAX_CAPACITY - 1; i++) {
+			occupancyLedger.add(UUID.randomUUID().toString(), dateRange.getStart(), dateRange.getEnd());
+		}
 
 		boolean available = reservationService.checkAvailability(dateRange, bookingIdentifierUuid);
-		
-		verify(reservationRepository, times(1)).findQuantityByDateRangeAndStatusOmittingBookingIdentifierUuid(dateRange.getStart(), dateRange.getEnd(), ReservationStatus.ACTIVE, bookingIdentifierUuid);
-		assertThat(available).isFalse();
+
+		assertThat(available).isTrue();
+	}
+
+	@Test
+	public void testCheckAvailabilityWithinLedgerHorizonWithFullNightReleasedByAnotherInstance_returnsTrue() {
+		DateRange dateRange = DateRange.builder()
+				.start(LocalDate.now().plusDays(2))
+				.end(LocalDate.now().plusDays(4))
+				.build();
+		// The ledger of this instance doesn't know about the cancellations yet
+		for (int i = 0; i < MAX_CAPACITY; i++) {
+			occupancyLedger.add(UUID.randomUUID().toString(), dateRange.getStart(), dateRange.getEnd());
+		}
+		stubDailyOccupancy(MAX_CAPACITY - 1);
+
+		boolean available = reservationService.checkAvailability(dateRange, UUID.randomUUID().toString());
+
+		verify(dailyOccupancyRepository, times(1)).findByDateBetween(toDate(dateRange.getStart()), toDate(dateRange.getEnd().minusDays(1)));
+		assertThat(available).isTrue();
 	}
 
 	@Test
@@ -124,41 +242,26 @@ public class ReservationServiceImplTest {
 			reservationService.checkAvailability(dateRange, bookingIdentifierUuid);
 			failBecauseExceptionWasNotThrown(InvalidRangeException.class);
 		} catch (InvalidRangeException e) {
-			verify(reservationRepository, never()).findQuantityByDateRangeAndStatusOmittingBookingIdentifierUuid(any(LocalDate.class), any(LocalDate.class), any(ReservationStatus.class), any(String.class));
+			verify(dailyOccupancyRepository, never()).findByDateBetween(any(Date.class), any(Date.class));
 			assertThat(e.getResponseStatus()).isEqualByComparingTo(HttpStatus.BAD_REQUEST);
 			assertThat(e.getMessage()).contains(dateRange.getStart().toString(), dateRange.getEnd().toString());
 		}
 	}
 
 	@Test
-	public void testGetAvailabilityForTodayAndTomorrow_fetchesPagesUntilEmptyAndReturnsAvailabilityForTodayAndTomorrow() {
+	public void testGetAvailabilityForTodayAndTomorrow_returnsAvailabilityFromLedgerWithoutFetchingReservations() {
 		DateRange dateRange = DateRange.builder()
 				.start(LocalDate.now())
 				.end(LocalDate.now().plusDays(1))
 				.build();
 		Reservation firstReservation = basicReservation(dateRange);
 		Reservation secondReservation = basicReservation(dateRange);
-		List<Reservation> reservations = Arrays.asList(firstReservation, secondReservation);
-		// We'll receive a Page<Reservation> only the first time, and then an empty Page
-		when(reservationRepository.findReservationsByDateRangeAndStatus(eq(dateRange.getStart()), eq(dateRange.getEnd()), eq(ReservationStatus.ACTIVE), any(Pageable.class)))
-				.thenAnswer(new Answer<Object>() {
-						private int callNumber = 0;
-			
-						@Override
-						public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
-							Pageable pageable = new PageRequest(callNumber, PAGE_SIZE);
-							if (callNumber == 0) {
-								callNumber++;
-								return new PageImpl<>(reservations, pageable, reservations.size()
-								);
-							} else {
-								return new PageImpl<>(Lists.newArrayList(), pageable, 0);
-							}
-						}});
+		occupancyLedger.add(firstReservation.getBookingIdentifierUuid(), firstReservation.getArrivalDate(), firstReservation.getDepartureDate());
+		occupancyLedger.add(secondReservation.getBookingIdentifierUuid(), secondReservation.getArrivalDate(), secondReservation.getDepartureDate());
 
 		Set<ReservationAvailability> availabilitySet = reservationService.getAvailability(dateRange);
 
-		verify(reservationRepository, times(2)).findReservationsByDateRangeAndStatus(eq(dateRange.getStart()), eq(dateRange.getEnd()), eq(ReservationStatus.ACTIVE), any(Pageable.class));
+		verify(dailyOccupancyRepository, never()).findByDateBetween(any(Date.class), any(Date.class));
 		// Contains one more date because the range is inclusive
 		assertThat(availabilitySet.size()).isEqualTo(2);
 		// It's occupied the first date but free the second date (it's the departure date from both reservations)
@@ -174,53 +277,65 @@ public class ReservationServiceImplTest {
 	}
 
 	@Test
-	public void testGetAvailabilityFor30Days_fetchesMultiplePagesUntilEmptyAndReturnsAvailabilityFor31Days() {
+	public void testGetAvailabilityFor30DaysBeyondLedgerHorizon_readsDailyOccupancyAndReturnsAvailabilityFor31Days() {
 		int datesQuantity = 30;
 		DateRange dateRange = DateRange.builder()
 				.start(LocalDate.now())
 				.end(LocalDate.now().plusDays(datesQuantity))
 				.build();
-		// We create 30 reservations, each one starting on one day and finishing the next day
-		List<Reservation> completeReservations = basicReservationsWithinRange(dateRange);
-		List<Reservation> firstChunk = completeReservations.subList(0, PAGE_SIZE);
-		List<Reservation> secondChunk = completeReservations.subList(PAGE_SIZE, (PAGE_SIZE * 2));
-		List<Reservation> thirdChunk = completeReservations.subList(PAGE_SIZE * 2, (PAGE_SIZE * 3));
-		List<List<Reservation>> chunksList = Arrays.asList(firstChunk, secondChunk, thirdChunk);
-		// We'll receive a Page<Reservation> only three times, and then an empty Page
-		when(reservationRepository.findReservationsByDateRangeAndStatus(eq(dateRange.getStart()), eq(dateRange.getEnd()), eq(ReservationStatus.ACTIVE), any(Pageable.class)))
-				.thenAnswer(new Answer<Object>() {
-					private int callNumber = 0;
-
-					@Override
-					public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
-						Pageable pageable = new PageRequest(callNumber, 10);
-						if (callNumber < 3) {
-							List<Reservation> chunk = chunksList.get(callNumber);
-							callNumber++;
-							return new PageImpl<>(chunk, pageable, chunk.size());
-						} else {
-							return new PageImpl<>(Lists.newArrayList(), pageable, 0);
-						}
-					}});
+		// Every night is occupied with one reservation, except the last one which has no row
+		when(dailyOccupancyRepository.findByDateBetween(toDate(dateRange.getStart()), toDate(dateRange.getEnd()))).thenReturn(DateUtils.daysBetween(dateRange).stream()
+				.map(localDate -> new DailyOccupancy(localDate, 1L))
+				.collect(Collectors.toList()));
 
 		Set<ReservationAvailability> availabilitySet = reservationService.getAvailability(dateRange);
 
-		verify(reservationRepository, times(4)).findReservationsByDateRangeAndStatus(eq(dateRange.getStart()), eq(dateRange.getEnd()), eq(ReservationStatus.ACTIVE), any(Pageable.class));
+		verify(dailyOccupancyRepository, times(1)).findByDateBetween(toDate(dateRange.getStart()), toDate(dateRange.getEnd()));
+		verify(reservationRepository, never()).streamStaysByDateRangeAndStatus(any(LocalDate.class), any(LocalDate.class), any(ReservationStatus.class));
 		// Contains one more because the range is inclusive
 		assertThat(availabilitySet.size()).isEqualTo(datesQuantity + 1);
-		// For each date between the start and the end (exclusive) it's occupied with one reservation
 		DateUtils.daysBetween(dateRange).forEach(localDate -> assertThat(availabilitySet)
 				.containsOnlyOnce(ReservationAvailability.builder()
 						.date(localDate)
 						.availability(MAX_CAPACITY - 1L)
 						.build()));
-		// The end date is not occupied (it's the departure date from the last reservation)
 		assertThat(availabilitySet).containsOnlyOnce(ReservationAvailability.builder()
 				.date(dateRange.getEnd())
 				.availability(MAX_CAPACITY)
 				.build());
 	}
 
+	@Test
+	public void testGetAvailabilityBeyondLedgerHorizonTwice_readsDailyOccupancyOnce() {
+		DateRange dateRange = DateRange.builder()
+				.start(LocalDate.now().plusDays(HORIZON_DAYS))
+				.end(LocalDate.now().plusDays(HORIZON_DAYS + 2))
+				.build();
+
+		reservationService.getAvailability(dateRange);
+		reservationService.getAvailability(dateRange);
+
+		verify(dailyOccupancyRepository, times(1)).findByDateBetween(toDate(dateRange.getStart()), toDate(dateRange.getEnd()));
+	}
+
+	@Test
+	public void testCancelReservationBeyondLedgerHorizon_invalidatesCachedNights() {
+		Reservation reservation = basicReservation(LocalDate.now().plusDays(HORIZON_DAYS), LocalDate.now().plusDays(HORIZON_DAYS + 1));
+		stubActiveReservation(reservation);
+		DateRange dateRange = DateRange.builder()
+				.start(reservation.getArrivalDate())
+				.end(reservation.getArrivalDate().plusDays(2))
+				.build();
+		reservationService.getAvailability(dateRange);
+
+		reservationService.cancelReservation(reservation);
+		reservationService.getAvailability(dateRange);
+
+		// Only the night of the reservation is read again
+		verify(dailyOccupancyRepository, times(1)).findByDateBetween(toDate(dateRange.getStart()), toDate(dateRange.getEnd()));
+		verify(dailyOccupancyRepository, times(1)).findByDateBetween(toDate(reservation.getArrivalDate()), toDate(reservation.getArrivalDate()));
+	}
+
 	@Test
 	public void testGetAvailabilityWithInvalidRange_throwsInvalidRangeException() {
 		DateRange dateRange = DateRange.builder()
@@ -241,34 +356,163 @@ public class ReservationServiceImplTest {
 		assertInvalidRangeException(dateRange);
 	}
 
+	@Test
+	public void testGetAvailabilityTagWithinLedgerHorizon_changesAfterCreatingReservation() {
+		DateRange dateRange = DateRange.builder()
+				.start(LocalDate.now())
+				.end(LocalDate.now().plusDays(HORIZON_DAYS - 1))
+				.build();
+		Optional<String> tag = reservationService.getAvailabilityTag(dateRange);
+
+		assertThat(tag).isPresent();
+		assertThat(reservationService.getAvailabilityTag(dateRange)).isEqualTo(tag);
+		reservationService.createReservation(basicReservation());
+		assertThat(reservationService.getAvailabilityTag(dateRange)).isPresent().isNotEqualTo(tag);
+	}
+
+	@Test
+	public void testGetAvailabilityTagForDifferentRanges_isDifferent() {
+		DateRange dateRange = DateRange.builder()
+				.start(LocalDate.now())
+				.end(LocalDate.now().plusDays(1))
+				.build();
+		DateRange otherDateRange = DateRange.builder()
+				.start(LocalDate.now())
+				.end(LocalDate.now().plusDays(2))
+				.build();
+
+		assertThat(reservationService.getAvailabilityTag(dateRange)).isNotEqualTo(reservationService.getAvailabilityTag(otherDateRange));
+	}
+
+	@Test
+	public void testGetAvailabilityTagBeyondLedgerHorizon_isEmpty() {
+		DateRange dateRange = DateRange.builder()
+				.start(LocalDate.now())
+				.end(LocalDate.now().plusDays(HORIZON_DAYS))
+				.build();
+
+		assertThat(reservationService.getAvailabilityTag(dateRange)).isEmpty();
+	}
+
+	@Test
+	public void testGetAvailabilityTagWithInvalidRange_isEmpty() {
+		DateRange dateRange = DateRange.builder()
+				.start(LocalDate.now().plusDays(1))
+				.end(LocalDate.now())
+				.build();
+
+		assertThat(reservationService.getAvailabilityTag(dateRange)).isEmpty();
+	}
+
 	@Test
 	public void testCreateReservation_noErrors() {
 		Reservation reservation = basicReservation();
-		when(reservationCreationValidatorExtension.supports(EventType.CREATION)).thenReturn(true);
 
 		Reservation updatedReservation = reservationService.createReservation(reservation);
 
 		verify(reservationRepository, times(1)).save(reservation);
+		verify(dailyOccupancyRepository, times(1)).occupy(toDate(reservation.getArrivalDate()), toDate(reservation.getDepartureDate()), MAX_CAPACITY);
+		verify(dailyOccupancyReconciler, never()).ensureNights(any(LocalDate.class), any(LocalDate.class));
+		verify(reservationJournal, times(1)).append(EventType.CREATION, reservation);
+		assertThat(occupancyLedger.getOccupancy(DateRange.builder()
+				.start(reservation.getArrivalDate())
+				.end(reservation.getDepartureDate())
+				.build())).containsExactly(1L, 0L);
 
 		reservation.setStatus(ReservationStatus.ACTIVE);
 		assertThat(updatedReservation).isEqualTo(reservation);
 	}
 
 	@Test
-	public void testCreateReservationWithoutValidator_throwsExtensionNotFoundException() {
+	public void testCreateRegistryWithoutDefaultValidator_throwsExtensionNotFoundException() {
+		// Missing validators are detected on start, instead of on the first request of each event type
+		assertThatThrownBy(() -> new ReservationValidatorExtensionRegistry(Sets.newHashSet(
+				reservationCreationValidatorExtension,
+				reservationCancellationValidatorExtension)))
+				.isInstanceOf(ExtensionNotFoundException.class)
+				.hasMessageContaining(EventType.UPDATE.name());
+	}
+
+	@Test
+	public void testCreateReservationWithoutCapacity_throwsCapacityExceededException() {
 		Reservation reservation = basicReservation();
+		for (int i = 0; i < MAX_CAPACITY; i++) {
+			occupancyLedger.add(UUID.randomUUID().toString(), reservation.getArrivalDate(), reservation.getDepartureDate());
+		}
+		stubDailyOccupancy(MAX_CAPACITY);
 
 		assertThatThrownBy(() -> reservationService.createReservation(reservation))
-				.isInstanceOf(ExtensionNotFoundException.class)
-				.hasMessageContaining(EventType.CREATION.name());
+				.isInstanceOf(CapacityExceededException.class)
+				.hasMessageContaining(reservation.getArrivalDate().toString());
 
 		verify(reservationRepository, never()).save(any(Reservation.class));
 	}
 
+	@Test
+	public void testCreateReservationWithFullLedgerAndCapacityInDailyOccupancy_createsReservation() {
+		Reservation reservation = basicReservation();
+		// Another instance cancelled one of the reservations since the ledger was refreshed
+		for (int i = 0; i < MAX_CAPACITY; i++) {
+			occupancyLedger.add(UUID.randomUUID().toString(), reservation.getArrivalDate(), reservation.getDepartureDate());
+		}
+		stubDailyOccupancy(MAX_CAPACITY - 1);
+
+		reservationService.createReservation(reservation);
+
+		verify(reservationRepository, times(1)).save(reservation);
+		verify(dailyOccupancyRepository, times(1)).occupy(toDate(reservation.getArrivalDate()), toDate(reservation.getDepartureDate()), MAX_CAPACITY);
+		assertThat(occupancyLedger.getOccupancy(DateRange.builder()
+				.start(reservation.getArrivalDate())
+				.end(reservation.getArrivalDate())
+				.build())).containsExactly(MAX_CAPACITY + 1);
+	}
+
+	@Test
+	public void testCreateReservationFailingToPersist_releasesReservedNights() {
+		Reservation reservation = basicReservation();
+		when(reservationRepository.save(reservation)).thenThrow(new IllegalStateException(DEFAULT_ERROR_MESSAGE));
+
+		assertThatThrownBy(() -> reservationService.createReservation(reservation))
+				.isInstanceOf(IllegalStateException.class);
+
+		verify(reservationJournal, never()).append(any(EventType.class), any(Reservation.class));
+		assertThat(occupancyLedger.getOccupancy(DateRange.builder()
+				.start(reservation.getArrivalDate())
+				.end(reservation.getDepartureDate())
+				.build())).containsOnly(0L);
+	}
+
+	@Test
+	public void testCreateReservationWithoutCapacityInDailyOccupancy_throwsCapacityExceededExceptionAndReleasesReservedNights() {
+		Reservation reservation = basicReservation();
+		// Another instance occupied the last night
+		when(dailyOccupancyRepository.occupy(any(Date.class), any(Date.class), anyLong())).thenReturn(0);
+
+		assertThatThrownBy(() -> reservationService.createReservation(reservation))
+				.isInstanceOf(CapacityExceededException.class);
+
+		assertThat(occupancyLedger.getOccupancy(DateRange.builder()
+				.start(reservation.getArrivalDate())
+				.end(reservation.getDepartureDate())
+				.build())).containsOnly(0L);
+	}
+
+	@Test
+	public void testCreateReservationWithMissingDailyOccupancyRows_createsThemBeforeOccupying() {
+		Reservation reservation = basicReservation();
+		when(dailyOccupancyRepository.countByDateBetween(any(Date.class), any(Date.class))).thenReturn(0L);
+		// Another writer creates the same rows at the same time
+		doThrow(new DataIntegrityViolationException(DEFAULT_ERROR_MESSAGE)).when(dailyOccupancyReconciler).ensureNights(any(LocalDate.class), any(LocalDate.class));
+
+		reservationService.createReservation(reservation);
+
+		verify(dailyOccupancyReconciler, times(1)).ensureNights(reservation.getArrivalDate(), reservation.getDepartureDate());
+		verify(dailyOccupancyRepository, times(1)).occupy(toDate(reservation.getArrivalDate()), toDate(reservation.getDepartureDate()), MAX_CAPACITY);
+	}
+
 	@Test
 	public void testCreateReservationInvalid_throwsReservationValidationException() {
 		Reservation reservation = basicReservation();
-		when(reservationCreationValidatorExtension.supports(EventType.CREATION)).thenReturn(true);
 		doThrow(new ReservationValidationException(Sets.newHashSet(basicError()))).when(reservationCreationValidatorExtension).validate(reservation);
 
 		try {
@@ -280,6 +524,260 @@ public class ReservationServiceImplTest {
 		}
 	}
 
+	@Test
+	public void testCreateReservations_createsAllReservationsInASingleSave() {
+		Reservation firstReservation = basicReservation();
+		Reservation secondReservation = differentReservation(firstReservation);
+
+		List<ReservationResult> results = reservationService.createReservations(Lists.newArrayList(firstReservation, secondReservation), false);
+
+		assertThat(results).containsExactly(ReservationResult.created(firstReservation), ReservationResult.created(secondReservation));
+		verify(reservationRepository, times(1)).save(Lists.newArrayList(firstReservation, secondReservation));
+		verify(dailyOccupancyRepository, times(1)).occupy(toDate(firstReservation.getArrivalDate()), toDate(firstReservation.getDepartureDate()), MAX_CAPACITY);
+		verify(dailyOccupancyRepository, times(1)).occupy(toDate(secondReservation.getArrivalDate()), toDate(secondReservation.getDepartureDate()), MAX_CAPACITY);
+		assertThat(firstReservation.getStatus()).isEqualTo(ReservationStatus.ACTIVE);
+		assertThat(secondReservation.getStatus()).isEqualTo(ReservationStatus.ACTIVE);
+	}
+
+	@Test
+	public void testCreateReservationsWithoutCapacityForTheLastOne_createsTheOthers() {
+		Reservation firstReservation = basicReservation();
+		Reservation secondReservation = basicReservation();
+		for (int i = 0; i < MAX_CAPACITY - 1; i++) {
+			occupancyLedger.add(UUID.randomUUID().toString(), firstReservation.getArrivalDate(), firstReservation.getDepartureDate());
+		}
+		stubDailyOccupancy(MAX_CAPACITY);
+
+		List<ReservationResult> results = reservationService.createReservations(Lists.newArrayList(firstReservation, secondReservation), false);
+
+		// The second reservation is checked against the night occupied by the first one
+		assertThat(results).hasSize(2);
+		assertThat(results.get(0)).isEqualTo(ReservationResult.created(firstReservation));
+		assertThat(results.get(1).getStatus()).isEqualTo(HttpStatus.CONFLICT.value());
+		verify(reservationRepository, times(1)).save(Lists.newArrayList(firstReservation));
+		assertThat(occupancyLedger.getOccupancy(DateRange.builder()
+				.start(firstReservation.getArrivalDate())
+				.end(firstReservation.getArrivalDate())
+				.build())).containsExactly(MAX_CAPACITY);
+	}
+
+	@Test
+	public void testCreateReservationsAtomicWithInvalidReservation_createsNoneAndReleasesReservedNights() {
+		Reservation validReservation = basicReservation();
+		Reservation invalidReservation = differentReservation(validReservation);
+		doThrow(new ReservationValidationException(Sets.newHashSet(basicError()))).when(reservationCreationValidatorExtension).validate(invalidReservation);
+
+		List<ReservationResult> results = reservationService.createReservations(Lists.newArrayList(validReservation, invalidReservation), true);
+
+		assertThat(results).containsExactly(
+				ReservationResult.notCreated(),
+				ReservationResult.failed(HttpStatus.BAD_REQUEST, Sets.newHashSet(basicError())));
+		verify(reservationRepository, never()).save(anyIterable());
+		verify(dailyOccupancyRepository, never()).occupy(any(Date.class), any(Date.class), anyLong());
+		assertThat(occupancyLedger.getOccupancy(DateRange.builder()
+				.start(validReservation.getArrivalDate())
+				.end(validReservation.getDepartureDate())
+				.build())).containsOnly(0L);
+	}
+
+	@Test
+	public void testCreateReservationsFailingToPersist_releasesReservedNights() {
+		Reservation reservation = basicReservation();
+		when(dailyOccupancyRepository.occupy(any(Date.class), any(Date.class), anyLong())).thenReturn(0);
+
+		assertThatThrownBy(() -> reservationService.createReservations(Lists.newArrayList(reservation), false))
+				.isInstanceOf(CapacityExceededException.class);
+
+		assertThat(occupancyLedger.getOccupancy(DateRange.builder()
+				.start(reservation.getArrivalDate())
+				.end(reservation.getDepartureDate())
+				.build())).containsOnly(0L);
+	}
+
+	@Test
+	public void testApplyWrites_persistsAllWritesInASingleSave() {
+		Reservation creation = basicReservation();
+		Reservation cancellation = basicReservation(creation.getDepartureDate(), creation.getDepartureDate().plusDays(1));
+		stubActiveReservation(cancellation);
+		occupancyLedger.add(cancellation.getBookingIdentifierUuid(), cancellation.getArrivalDate(), cancellation.getDepartureDate());
+		DailyOccupancy cancelledNight = new DailyOccupancy(cancellation.getArrivalDate(), 1L);
+		DailyOccupancy createdNight = new DailyOccupancy(creation.getArrivalDate(), 0L);
+		when(dailyOccupancyRepository.findByDateRangeForUpdate(any(Date.class), any(Date.class))).thenReturn(Lists.newArrayList(cancelledNight, createdNight));
+		reservationService.reserveCreation(creation);
+
+		List<ReservationWrite> writes = Lists.newArrayList(ReservationWrite.creation(creation), ReservationWrite.cancellation(cancellation));
+		reservationService.applyWrites(writes);
+
+		assertThat(writes).extracting(ReservationWrite::isFailed).containsOnly(false);
+		verify(reservationRepository, times(1)).save(Lists.newArrayList(creation, cancellation));
+		verify(reservationJournal, times(1)).append(EventType.CREATION, creation);
+		verify(reservationJournal, times(1)).append(EventType.CANCELLATION, cancellation);
+		verify(dailyOccupancyRepository, times(1)).findByDateRangeForUpdate(any(Date.class), any(Date.class));
+		verify(dailyOccupancyRepository, never()).occupy(any(Date.class), any(Date.class), anyLong());
+		assertThat(creation.getStatus()).isEqualTo(ReservationStatus.ACTIVE);
+		assertThat(cancellation.getStatus()).isEqualTo(ReservationStatus.CANCELLED);
+		assertThat(createdNight.getActiveCount()).isEqualTo(1L);
+		assertThat(cancelledNight.getActiveCount()).isEqualTo(0L);
+		assertThat(occupancyLedger.getOccupancy(DateRange.builder()
+				.start(creation.getArrivalDate())
+				.end(creation.getArrivalDate())
+				.build())).containsExactly(1L);
+		assertThat(occupancyLedger.getOccupancy(DateRange.builder()
+				.start(cancellation.getArrivalDate())
+				.end(cancellation.getArrivalDate())
+				.build())).containsExactly(0L);
+	}
+
+	@Test
+	public void testApplyWritesWithoutCapacityInDailyOccupancy_failsOnlyTheCreationsBeyondIt() {
+		Reservation firstReservation = basicReservation();
+		Reservation secondReservation = basicReservation();
+		// Another instance occupied all but one of the places of the night
+		DailyOccupancy night = new DailyOccupancy(firstReservation.getArrivalDate(), MAX_CAPACITY - 1);
+		when(dailyOccupancyRepository.findByDateRangeForUpdate(any(Date.class), any(Date.class))).thenReturn(Lists.newArrayList(night));
+		reservationService.reserveCreation(firstReservation);
+		reservationService.reserveCreation(secondReservation);
+
+		List<ReservationWrite> writes = Lists.newArrayList(ReservationWrite.creation(firstReservation), ReservationWrite.creation(secondReservation));
+		reservationService.applyWrites(writes);
+
+		assertThat(writes.get(0).isFailed()).isFalse();
+		assertThat(writes.get(1).getFailure()).isInstanceOf(CapacityExceededException.class);
+		verify(reservationRepository, times(1)).save(Lists.newArrayList(firstReservation));
+		assertThat(night.getActiveCount()).isEqualTo(MAX_CAPACITY);
+		assertThat(occupancyLedger.getOccupancy(DateRange.builder()
+				.start(firstReservation.getArrivalDate())
+				.end(firstReservation.getArrivalDate())
+				.build())).containsExactly(1L);
+	}
+
+	@Test
+	public void testApplyWritesWithCancellationBeforeCreation_createsOnTheReleasedNight() {
+		Reservation cancellation = basicReservation();
+		Reservation creation = basicReservation();
+		stubActiveReservation(cancellation);
+		occupancyLedger.add(cancellation.getBookingIdentifierUuid(), cancellation.getArrivalDate(), cancellation.getDepartureDate());
+		DailyOccupancy night = new DailyOccupancy(creation.getArrivalDate(), MAX_CAPACITY);
+		when(dailyOccupancyRepository.findByDateRangeForUpdate(any(Date.class), any(Date.class))).thenReturn(Lists.newArrayList(night));
+		reservationService.reserveCreation(creation);
+
+		List<ReservationWrite> writes = Lists.newArrayList(ReservationWrite.cancellation(cancellation), ReservationWrite.creation(creation));
+		reservationService.applyWrites(writes);
+
+		assertThat(writes).extracting(ReservationWrite::isFailed).containsOnly(false);
+		verify(reservationRepository, times(1)).save(Lists.newArrayList(cancellation, creation));
+		assertThat(night.getActiveCount()).isEqualTo(MAX_CAPACITY);
+	}
+
+	@Test
+	public void testApplyWritesWithDuplicateCancellation_releasesNightsOnce() {
+		Reservation cancellation = basicReservation();
+		stubActiveReservation(cancellation);
+		occupancyLedger.add(cancellation.getBookingIdentifierUuid(), cancellation.getArrivalDate(), cancellation.getDepartureDate());
+		DailyOccupancy night = new DailyOccupancy(cancellation.getArrivalDate(), 2L);
+		when(dailyOccupancyRepository.findByDateRangeForUpdate(any(Date.class), any(Date.class))).thenReturn(Lists.newArrayList(night));
+
+		List<ReservationWrite> writes = Lists.newArrayList(ReservationWrite.cancellation(cancellation), ReservationWrite.cancellation(cancellation.toBuilder().build()));
+		reservationService.applyWrites(writes);
+
+		assertThat(writes.get(0).isFailed()).isFalse();
+		assertThat(writes.get(1).getFailure()).isInstanceOf(ReservationNotFoundException.class);
+		verify(reservationRepository, times(1)).findByBookingIdentifierUuidAndStatusForUpdate(cancellation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE);
+		verify(reservationRepository, times(1)).save(Lists.newArrayList(cancellation));
+		verify(reservationJournal, times(1)).append(EventType.CANCELLATION, cancellation);
+		assertThat(night.getActiveCount()).isEqualTo(1L);
+	}
+
+	@Test
+	public void testApplyWritesWithCancellationNoLongerActive_failsItWithoutReleasingNights() {
+		Reservation cancellation = basicReservation();
+		Reservation creation = basicReservation();
+		when(reservationRepository.findByBookingIdentifierUuidAndStatusForUpdate(cancellation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE)).thenReturn(Optional.empty());
+		DailyOccupancy night = new DailyOccupancy(creation.getArrivalDate(), 1L);
+		when(dailyOccupancyRepository.findByDateRangeForUpdate(any(Date.class), any(Date.class))).thenReturn(Lists.newArrayList(night));
+		reservationService.reserveCreation(creation);
+
+		List<ReservationWrite> writes = Lists.newArrayList(ReservationWrite.cancellation(cancellation), ReservationWrite.creation(creation));
+		reservationService.applyWrites(writes);
+
+		assertThat(writes.get(0).getFailure()).isInstanceOf(ReservationNotFoundException.class)
+				.hasMessageContaining(cancellation.getBookingIdentifierUuid());
+		assertThat(writes.get(1).isFailed()).isFalse();
+		verify(reservationRepository, times(1)).save(Lists.newArrayList(creation));
+		verify(reservationJournal, never()).append(EventType.CANCELLATION, cancellation);
+		assertThat(night.getActiveCount()).isEqualTo(2L);
+	}
+
+	@Test
+	public void testApplyWritesWithOutdatedCancellation_releasesCurrentNights() {
+		Reservation cancellation = basicReservation();
+		Reservation currentReservation = cancellation.toBuilder()
+				.arrivalDate(cancellation.getArrivalDate().plusDays(1))
+				.departureDate(cancellation.getDepartureDate().plusDays(1))
+				.build();
+		stubActiveReservation(currentReservation);
+		DailyOccupancy night = new DailyOccupancy(currentReservation.getArrivalDate(), 1L);
+		when(dailyOccupancyRepository.findByDateRangeForUpdate(any(Date.class), any(Date.class))).thenReturn(Lists.newArrayList(night));
+
+		List<ReservationWrite> writes = Lists.newArrayList(ReservationWrite.cancellation(cancellation));
+		reservationService.applyWrites(writes);
+
+		verify(dailyOccupancyRepository, times(1)).findByDateRangeForUpdate(toDate(currentReservation.getArrivalDate()), toDate(currentReservation.getDepartureDate()));
+		verify(reservationRepository, times(1)).save(Lists.newArrayList(currentReservation));
+		assertThat(writes.get(0).getReservation()).isSameAs(currentReservation);
+		assertThat(currentReservation.getStatus()).isEqualTo(ReservationStatus.CANCELLED);
+		assertThat(night.getActiveCount()).isZero();
+	}
+
+	@Test
+	public void testApplyWritesWithMissingDailyOccupancyRows_createsThemOnceForAllTheNights() {
+		Reservation firstReservation = basicReservation(LocalDate.now().plusDays(2), LocalDate.now().plusDays(3));
+		Reservation secondReservation = basicReservation(LocalDate.now().plusDays(4), LocalDate.now().plusDays(5));
+		when(dailyOccupancyRepository.countByDateBetween(any(Date.class), any(Date.class))).thenReturn(0L);
+		when(dailyOccupancyRepository.findByDateRangeForUpdate(any(Date.class), any(Date.class))).thenReturn(Lists.newArrayList(
+				new DailyOccupancy(firstReservation.getArrivalDate(), 0L),
+				new DailyOccupancy(firstReservation.getDepartureDate(), 0L),
+				new DailyOccupancy(secondReservation.getArrivalDate(), 0L)));
+		reservationService.reserveCreation(firstReservation);
+		reservationService.reserveCreation(secondReservation);
+
+		reservationService.applyWrites(Lists.newArrayList(ReservationWrite.creation(firstReservation), ReservationWrite.creation(secondReservation)));
+
+		verify(dailyOccupancyReconciler, times(1)).ensureNights(firstReservation.getArrivalDate(), secondReservation.getDepartureDate());
+		verify(dailyOccupancyRepository, times(1)).findByDateRangeForUpdate(toDate(firstReservation.getArrivalDate()), toDate(secondReservation.getDepartureDate()));
+	}
+
+	@Test
+	public void testApplyWritesFailingToPersist_releasesReservedNights() {
+		Reservation reservation = basicReservation();
+		when(dailyOccupancyRepository.findByDateRangeForUpdate(any(Date.class), any(Date.class))).thenReturn(Lists.newArrayList(
+				new DailyOccupancy(reservation.getArrivalDate(), 0L)));
+		when(reservationRepository.save(anyIterable())).thenThrow(new IllegalStateException(DEFAULT_ERROR_MESSAGE));
+		reservationService.reserveCreation(reservation);
+
+		assertThatThrownBy(() -> reservationService.applyWrites(Lists.newArrayList(ReservationWrite.creation(reservation))))
+				.isInstanceOf(IllegalStateException.class);
+
+		assertThat(occupancyLedger.getOccupancy(DateRange.builder()
+				.start(reservation.getArrivalDate())
+				.end(reservation.getDepartureDate())
+				.build())).containsOnly(0L);
+	}
+
+	@Test
+	public void testReserveCreationWithoutCapacity_throwsCapacityExceededException() {
+		Reservation reservation = basicReservation();
+		for (int i = 0; i < MAX_CAPACITY; i++) {
+			occupancyLedger.add(UUID.randomUUID().toString(), reservation.getArrivalDate(), reservation.getDepartureDate());
+		}
+		stubDailyOccupancy(MAX_CAPACITY);
+
+		assertThatThrownBy(() -> reservationService.reserveCreation(reservation))
+				.isInstanceOf(CapacityExceededException.class);
+
+		verify(reservationRepository, never()).save(any(Reservation.class));
+	}
+
 	@Test
 	public void testGetByBookingIdentifierUuidAndStatusActive_noErrors() {
 		Reservation reservation = basicReservation();
@@ -319,15 +817,119 @@ public class ReservationServiceImplTest {
 		}
 	}
 
+	@Test
+	public void testGetByBookingIdentifierUuidAndStatusActiveTwice_queriesRepositoryOnce() {
+		Reservation reservation = basicReservation();
+		when(reservationRepository.findByBookingIdentifierUuidAndStatus(reservation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE)).thenReturn(Optional.of(reservation));
+
+		reservationService.getByBookingIdentifierUuidAndStatus(reservation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE);
+		Reservation result = reservationService.getByBookingIdentifierUuidAndStatus(reservation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE);
+
+		verify(reservationRepository, times(1)).findByBookingIdentifierUuidAndStatus(reservation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE);
+		assertThat(result).isEqualTo(reservation).isNotSameAs(reservation);
+	}
+
+	@Test
+	public void testGetByBookingIdentifierUuidAndStatusCancelledTwice_queriesRepositoryTwice() {
+		Reservation reservation = basicReservation();
+		when(reservationRepository.findByBookingIdentifierUuidAndStatus(reservation.getBookingIdentifierUuid(), ReservationStatus.CANCELLED)).thenReturn(Optional.of(reservation));
+
+		reservationService.getByBookingIdentifierUuidAndStatus(reservation.getBookingIdentifierUuid(), ReservationStatus.CANCELLED);
+		reservationService.getByBookingIdentifierUuidAndStatus(reservation.getBookingIdentifierUuid(), ReservationStatus.CANCELLED);
+
+		verify(reservationRepository, times(2)).findByBookingIdentifierUuidAndStatus(reservation.getBookingIdentifierUuid(), ReservationStatus.CANCELLED);
+	}
+
+	@Test
+	public void testGetByBookingIdentifierUuidUnknownTwice_queriesRepositoryOnce() {
+		String bookingIdentifierUuid = UUID.randomUUID().toString();
+		when(reservationRepository.findByBookingIdentifierUuidAndStatus(bookingIdentifierUuid, ReservationStatus.ACTIVE)).thenReturn(Optional.empty());
+
+		for (int i = 0; i < 2; i++) {
+			assertThatThrownBy(() -> reservationService.getByBookingIdentifierUuidAndStatus(bookingIdentifierUuid, ReservationStatus.ACTIVE))
+					.isInstanceOf(ReservationNotFoundException.class);
+		}
+
+		verify(reservationRepository, times(1)).findByBookingIdentifierUuidAndStatus(bookingIdentifierUuid, ReservationStatus.ACTIVE);
+	}
+
+	@Test
+	public void testGetByBookingIdentifierUuidAfterCreatingReservation_doesNotQueryRepository() {
+		Reservation reservation = basicReservation();
+		reservationService.createReservation(reservation);
+
+		Reservation result = reservationService.getByBookingIdentifierUuidAndStatus(reservation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE);
+
+		verify(reservationRepository, never()).findByBookingIdentifierUuidAndStatus(any(), any());
+		assertThat(result).isEqualTo(reservation);
+	}
+
+	@Test
+	public void testGetByBookingIdentifierUuidAfterUpdatingReservation_returnsUpdatedReservationWithoutQueryingRepository() {
+		Reservation reservation = basicReservation();
+		stubActiveReservation(reservation);
+		reservation.setStatus(ReservationStatus.ACTIVE);
+		when(reservationRepository.findByBookingIdentifierUuidAndStatus(reservation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE)).thenReturn(Optional.of(reservation));
+		occupancyLedger.add(reservation.getBookingIdentifierUuid(), reservation.getArrivalDate(), reservation.getDepartureDate());
+		Reservation oldReservation = reservationService.getByBookingIdentifierUuidAndStatus(reservation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE);
+		Reservation newReservation = differentReservation(reservation);
+		reservationService.updateReservation(oldReservation, newReservation);
+
+		Reservation result = reservationService.getByBookingIdentifierUuidAndStatus(reservation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE);
+
+		verify(reservationRepository, times(1)).findByBookingIdentifierUuidAndStatus(reservation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE);
+		assertThat(result.getArrivalDate()).isEqualTo(newReservation.getArrivalDate());
+		assertThat(result.getDepartureDate()).isEqualTo(newReservation.getDepartureDate());
+	}
+
+	@Test
+	public void testGetByBookingIdentifierUuidAfterCancellingReservation_throwsReservationNotFoundExceptionWithoutQueryingRepository() {
+		Reservation reservation = basicReservation();
+		stubActiveReservation(reservation);
+		reservationService.cancelReservation(reservation);
+
+		assertThatThrownBy(() -> reservationService.getByBookingIdentifierUuidAndStatus(reservation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE))
+				.isInstanceOf(ReservationNotFoundException.class);
+
+		verify(reservationRepository, never()).findByBookingIdentifierUuidAndStatus(any(), any());
+	}
+
+	@Test
+	public void testGetByBookingIdentifierUuidNotAUuid_throwsReservationNotFoundExceptionWithoutQueryingRepository() {
+		assertThatThrownBy(() -> reservationService.getByBookingIdentifierUuidAndStatus("not-a-uuid", ReservationStatus.ACTIVE))
+				.isInstanceOf(ReservationNotFoundException.class)
+				.hasMessageContaining("not-a-uuid");
+
+		verify(reservationRepository, never()).findByBookingIdentifierUuidAndStatus(any(), any());
+	}
+
 	@Test
 	public void testUpdateReservation_onlyArrivalDateAndDepartureDateAreModified() {
 		Reservation reservation = basicReservation();
+		stubActiveReservation(reservation);
 		Reservation newReservation = differentReservation(reservation);
-		when(reservationUpdateValidatorExtension.supports(EventType.UPDATE)).thenReturn(true);
+
+		LocalDate oldArrivalDate = reservation.getArrivalDate();
+		occupancyLedger.add(reservation.getBookingIdentifierUuid(), reservation.getArrivalDate(), reservation.getDepartureDate());
+		DailyOccupancy oldNight = new DailyOccupancy(oldArrivalDate, 1L);
+		DailyOccupancy newNight = new DailyOccupancy(newReservation.getArrivalDate(), 0L);
+		when(dailyOccupancyRepository.findByDateRangeForUpdate(any(Date.class), any(Date.class))).thenReturn(Lists.newArrayList(oldNight, newNight));
 
 		Reservation result = reservationService.updateReservation(reservation, newReservation);
 
 		verify(reservationRepository, times(1)).save(any(Reservation.class));
+		// The rows of the old and the new nights are locked at once
+		verify(dailyOccupancyRepository, times(1)).findByDateRangeForUpdate(toDate(oldArrivalDate), toDate(newReservation.getDepartureDate()));
+		verify(dailyOccupancyRepository, never()).release(any(Date.class), any(Date.class));
+		verify(dailyOccupancyRepository, never()).occupy(any(Date.class), any(Date.class), anyLong());
+		assertThat(oldNight.getActiveCount()).isEqualTo(0L);
+		assertThat(newNight.getActiveCount()).isEqualTo(1L);
+		verify(reservationJournal, times(1)).append(EventType.UPDATE, result);
+		// The reservation was moved one night forward
+		assertThat(occupancyLedger.getOccupancy(DateRange.builder()
+				.start(oldArrivalDate)
+				.end(newReservation.getDepartureDate())
+				.build())).containsExactly(0L, 1L, 0L);
 		assertThat(result).isNotEqualTo(newReservation);
 		assertThat(reservation.getId()).isEqualTo(result.getId());
 		assertThat(reservation.getCreatedOn()).isEqualTo(result.getCreatedOn());
@@ -342,10 +944,10 @@ public class ReservationServiceImplTest {
 	@Test
 	public void testUpdateReservation_arrivalDateAndDepartureDateAreModifiedIfNotNull() {
 		Reservation reservation = basicReservation();
+		stubActiveReservation(reservation);
 		Reservation newReservation = differentReservation(reservation);
 		newReservation.setArrivalDate(null);
 		newReservation.setDepartureDate(null);
-		when(reservationUpdateValidatorExtension.supports(EventType.UPDATE)).thenReturn(true);
 
 		Reservation result = reservationService.updateReservation(reservation, newReservation);
 
@@ -356,22 +958,54 @@ public class ReservationServiceImplTest {
 	}
 
 	@Test
-	public void testUpdateReservationWithoutValidator_throwsExtensionNotFoundException() {
+	public void testUpdateReservationWithoutCapacity_throwsCapacityExceededExceptionAndKeepsOldNights() {
 		Reservation reservation = basicReservation();
+		stubActiveReservation(reservation);
 		Reservation newReservation = differentReservation(reservation);
+		LocalDate oldArrivalDate = reservation.getArrivalDate();
+		occupancyLedger.add(reservation.getBookingIdentifierUuid(), reservation.getArrivalDate(), reservation.getDepartureDate());
+		for (int i = 0; i < MAX_CAPACITY; i++) {
+			occupancyLedger.add(UUID.randomUUID().toString(), newReservation.getArrivalDate().plusDays(1), newReservation.getDepartureDate().plusDays(1));
+		}
+		newReservation.setDepartureDate(newReservation.getDepartureDate().plusDays(1));
+		stubDailyOccupancy(MAX_CAPACITY);
 
 		assertThatThrownBy(() -> reservationService.updateReservation(reservation, newReservation))
-				.isInstanceOf(ExtensionNotFoundException.class)
-				.hasMessageContaining(EventType.UPDATE.name());
+				.isInstanceOf(CapacityExceededException.class);
 
 		verify(reservationRepository, never()).save(any(Reservation.class));
+		assertThat(occupancyLedger.getOccupancy(DateRange.builder()
+				.start(oldArrivalDate)
+				.end(oldArrivalDate.plusDays(1))
+				.build())).containsExactly(1L, 0L);
+	}
+
+	@Test
+	public void testUpdateReservationWithoutCapacityInDailyOccupancy_throwsCapacityExceededExceptionAndRestoresOldNights() {
+		Reservation reservation = basicReservation();
+		stubActiveReservation(reservation);
+		Reservation newReservation = differentReservation(reservation);
+		LocalDate oldArrivalDate = reservation.getArrivalDate();
+		// Another instance occupied all the places of the new night
+		when(dailyOccupancyRepository.findByDateRangeForUpdate(any(Date.class), any(Date.class))).thenReturn(Lists.newArrayList(
+				new DailyOccupancy(oldArrivalDate, 1L),
+				new DailyOccupancy(newReservation.getArrivalDate(), MAX_CAPACITY)));
+		occupancyLedger.add(reservation.getBookingIdentifierUuid(), reservation.getArrivalDate(), reservation.getDepartureDate());
+
+		assertThatThrownBy(() -> reservationService.updateReservation(reservation, newReservation))
+				.isInstanceOf(CapacityExceededException.class);
+
+		assertThat(occupancyLedger.getOccupancy(DateRange.builder()
+				.start(oldArrivalDate)
+				.end(oldArrivalDate.plusDays(2))
+				.build())).containsExactly(1L, 0L, 0L);
 	}
 
 	@Test
 	public void testUpdateReservationInvalid_throwsReservationValidationException() {
 		Reservation reservation = basicReservation();
+		stubActiveReservation(reservation);
 		Reservation newReservation = differentReservation(reservation);
-		when(reservationUpdateValidatorExtension.supports(EventType.UPDATE)).thenReturn(true);
 		doThrow(new ReservationValidationException(Sets.newHashSet(basicError()))).when(reservationUpdateValidatorExtension).validate(reservation);
 
 		try {
@@ -386,29 +1020,63 @@ public class ReservationServiceImplTest {
 	@Test
 	public void testCancelReservation_noErrors() {
 		Reservation reservation = basicReservation();
-		when(reservationCancellationValidatorExtension.supports(EventType.CANCELLATION)).thenReturn(true);
+		stubActiveReservation(reservation);
+		occupancyLedger.add(reservation.getBookingIdentifierUuid(), reservation.getArrivalDate(), reservation.getDepartureDate());
 
 		reservationService.cancelReservation(reservation);
 
 		reservation.setStatus(ReservationStatus.CANCELLED);
 		verify(reservationRepository, times(1)).save(reservation);
+		verify(dailyOccupancyRepository, times(1)).release(toDate(reservation.getArrivalDate()), toDate(reservation.getDepartureDate()));
+		verify(reservationJournal, times(1)).append(EventType.CANCELLATION, reservation);
+		assertThat(occupancyLedger.getOccupancy(DateRange.builder()
+				.start(reservation.getArrivalDate())
+				.end(reservation.getDepartureDate())
+				.build())).containsExactly(0L, 0L);
 	}
 
 	@Test
-	public void testCancelReservationWithoutValidator_throwsExtensionNotFoundException() {
+	public void testCancelReservationModifiedByAnotherRequest_throwsReservationModifiedExceptionWithoutReleasingNights() {
 		Reservation reservation = basicReservation();
+		stubActiveReservation(reservation);
+		occupancyLedger.add(reservation.getBookingIdentifierUuid(), reservation.getArrivalDate(), reservation.getDepartureDate());
+		doThrow(new ObjectOptimisticLockingFailureException(Reservation.class, reservation.getId())).when(reservationRepository).flush();
 
 		assertThatThrownBy(() -> reservationService.cancelReservation(reservation))
-				.isInstanceOf(ExtensionNotFoundException.class)
-				.hasMessageContaining(EventType.CANCELLATION.name());
+				.isInstanceOf(ReservationModifiedException.class)
+				.hasMessageContaining(reservation.getBookingIdentifierUuid());
+
+		verify(dailyOccupancyRepository, never()).release(any(Date.class), any(Date.class));
+		verify(reservationJournal, never()).append(any(EventType.class), any(Reservation.class));
+		assertThat(occupancyLedger.getOccupancy(DateRange.builder()
+				.start(reservation.getArrivalDate())
+				.end(reservation.getDepartureDate())
+				.build())).containsExactly(1L, 0L);
+	}
 
-		verify(reservationRepository, never()).save(any(Reservation.class));
+	@Test
+	public void testUpdateReservationModifiedByAnotherRequest_throwsReservationModifiedExceptionAndRestoresOldNights() {
+		Reservation reservation = basicReservation();
+		stubActiveReservation(reservation);
+		Reservation newReservation = differentReservation(reservation);
+		LocalDate oldArrivalDate = reservation.getArrivalDate();
+		occupancyLedger.add(reservation.getBookingIdentifierUuid(), reservation.getArrivalDate(), reservation.getDepartureDate());
+		doThrow(new ObjectOptimisticLockingFailureException(Reservation.class, reservation.getId())).when(reservationRepository).flush();
+
+		assertThatThrownBy(() -> reservationService.updateReservation(reservation, newReservation))
+				.isInstanceOf(ReservationModifiedException.class);
+
+		verify(dailyOccupancyRepository, never()).findByDateRangeForUpdate(any(Date.class), any(Date.class));
+		assertThat(occupancyLedger.getOccupancy(DateRange.builder()
+				.start(oldArrivalDate)
+				.end(oldArrivalDate.plusDays(2))
+				.build())).containsExactly(1L, 0L, 0L);
 	}
 
 	@Test
 	public void testCancelReservationInvalid_throwsReservationValidationException() {
 		Reservation reservation = basicReservation();
-		when(reservationCancellationValidatorExtension.supports(EventType.CANCELLATION)).thenReturn(true);
+		stubActiveReservation(reservation);
 		doThrow(new ReservationValidationException(Sets.newHashSet(basicError()))).when(reservationCancellationValidatorExtension).validate(reservation);
 
 		try {
@@ -420,6 +1088,70 @@ public class ReservationServiceImplTest {
 		}
 	}
 
+	@Test
+	public void testUpdateReservationNoLongerActive_throwsReservationNotFoundException() {
+		Reservation reservation = basicReservation();
+		when(reservationRepository.findByBookingIdentifierUuidAndStatusForUpdate(reservation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE)).thenReturn(Optional.empty());
+
+		assertThatThrownBy(() -> reservationService.updateReservation(reservation, differentReservation(reservation)))
+				.isInstanceOf(ReservationNotFoundException.class)
+				.hasMessageContaining(reservation.getBookingIdentifierUuid());
+
+		verify(reservationRepository, never()).save(any(Reservation.class));
+		verify(dailyOccupancyRepository, never()).findByDateRangeForUpdate(any(Date.class), any(Date.class));
+	}
+
+	@Test
+	public void testUpdateReservationOutdated_patchesCurrentReservation() {
+		Reservation reservation = basicReservation();
+		Reservation currentReservation = reservation.toBuilder()
+				.arrivalDate(reservation.getArrivalDate().plusDays(2))
+				.departureDate(reservation.getDepartureDate().plusDays(2))
+				.build();
+		stubActiveReservation(currentReservation);
+		Reservation newReservation = Reservation.builder()
+				.departureDate(currentReservation.getDepartureDate().plusDays(1))
+				.build();
+
+		Reservation result = reservationService.updateReservation(reservation, newReservation);
+
+		verify(dailyOccupancyRepository, times(1)).findByDateRangeForUpdate(toDate(currentReservation.getArrivalDate()), toDate(newReservation.getDepartureDate()));
+		assertThat(result.getArrivalDate()).isEqualTo(reservation.getArrivalDate().plusDays(2));
+		assertThat(result.getDepartureDate()).isEqualTo(newReservation.getDepartureDate());
+	}
+
+	@Test
+	public void testCancelReservationNoLongerActive_throwsReservationNotFoundExceptionWithoutReleasingNights() {
+		Reservation reservation = basicReservation();
+		occupancyLedger.add(reservation.getBookingIdentifierUuid(), reservation.getArrivalDate(), reservation.getDepartureDate());
+		when(reservationRepository.findByBookingIdentifierUuidAndStatusForUpdate(reservation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE)).thenReturn(Optional.empty());
+
+		assertThatThrownBy(() -> reservationService.cancelReservation(reservation))
+				.isInstanceOf(ReservationNotFoundException.class)
+				.hasMessageContaining(reservation.getBookingIdentifierUuid());
+
+		verify(reservationRepository, never()).save(any(Reservation.class));
+		verify(dailyOccupancyRepository, never()).release(any(Date.class), any(Date.class));
+		verify(reservationJournal, never()).append(any(EventType.class), any(Reservation.class));
+	}
+
+	/**
+	 * Makes every night of the daily occupancy table have the same occupancy
+	 */
+	private void stubDailyOccupancy(long activeCount) {
+		when(dailyOccupancyRepository.findByDateBetween(any(Date.class), any(Date.class)))
+				.thenAnswer(invocation -> LongStream.rangeClosed(toLocalDate(invocation.getArgument(0)).toEpochDay(), toLocalDate(invocation.getArgument(1)).toEpochDay())
+						.mapToObj(day -> new DailyOccupancy(LocalDate.ofEpochDay(day), activeCount))
+						.collect(Collectors.toList()));
+	}
+
+	/**
+	 * Makes the reservation the one read again from the database before writing it
+	 */
+	private void stubActiveReservation(Reservation reservation) {
+		when(reservationRepository.findByBookingIdentifierUuidAndStatusForUpdate(reservation.getBookingIdentifierUuid(), ReservationStatus.ACTIVE)).thenReturn(Optional.of(reservation));
+	}
+
 	/**
 	 * Checks that {@link InvalidRangeException} is thrown for the dateRange received as parameter
 	 */
@@ -428,7 +1160,7 @@ public class ReservationServiceImplTest {
 			reservationService.getAvailability(dateRange);
 			failBecauseExceptionWasNotThrown(InvalidRangeException.class);
 		} catch (InvalidRangeException e) {
-			verify(reservationRepository, never()).findReservationsByDateRangeAndStatus(any(LocalDate.class), any(LocalDate.class), any(ReservationStatus.class), any(Pageable.class));
+			verify(dailyOccupancyRepository, never()).findByDateBetween(any(Date.class), any(Date.class));
 			assertThat(e.getResponseStatus()).isEqualByComparingTo(HttpStatus.BAD_REQUEST);
 			assertThat(e.getMessage()).contains(dateRange.getStart().toString(), dateRange.getEnd().toString());
 		}
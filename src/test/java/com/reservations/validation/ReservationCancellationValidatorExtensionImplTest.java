@@ -31,6 +31,7 @@ public class ReservationCancellationValidatorExtensionImplTest {
 	private static final int MAX_ADVANCE_DAYS = 30;
 	private static final int MIN_DURATION = 1;
 	private static final int MAX_DURATION = 3;
+	private static final boolean FAIL_FAST = false;
 
 	private ReservationCancellationValidatorExtensionImpl reservationCancellationValidatorExtension;
 
@@ -52,6 +53,7 @@ public class ReservationCancellationValidatorExtensionImplTest {
 				MAX_ADVANCE_DAYS,
 				MIN_DURATION,
 				MAX_DURATION,
+				FAIL_FAST,
 				reservationService,
 				messages);
 	}
@@ -103,6 +105,7 @@ public class ReservationCancellationValidatorExtensionImplTest {
 				MAX_ADVANCE_DAYS,
 				MIN_DURATION,
 				MAX_DURATION,
+				FAIL_FAST,
 				reservationService,
 				messages);
 
@@ -6,20 +6,30 @@ import static com.reservations.TestUtils.basicReservation;
 import static com.reservations.validation.ReservationValidatorConstants.ARRIVAL_DATE_FIELD;
 import static com.reservations.validation.ReservationValidatorConstants.DEPARTURE_DATE_FIELD;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.mockito.Mock;
 import org.springframework.context.MessageSource;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.Lists;
 import com.reservations.entity.DateRange;
 import com.reservations.entity.Reservation;
 import com.reservations.exception.ReservationValidationException;
@@ -34,6 +44,9 @@ public class ReservationCompleteValidatorExtensionTest {
 	private static final int MAX_ADVANCE_DAYS = 30;
 	private static final int MIN_DURATION = 1;
 	private static final int MAX_DURATION = 3;
+	private static final boolean FAIL_FAST = false;
+	private static final int THREADS = 8;
+	private static final int VALIDATIONS_PER_THREAD = 1000;
 
 	private ReservationCompleteValidatorExtension reservationCompleteValidatorExtension;
 
@@ -53,6 +66,7 @@ public class ReservationCompleteValidatorExtensionTest {
 				MAX_ADVANCE_DAYS,
 				MIN_DURATION,
 				MAX_DURATION,
+				FAIL_FAST,
 				reservationService,
 				messages);
 	}
@@ -179,4 +193,86 @@ public class ReservationCompleteValidatorExtensionTest {
 			assertThat(e.getErrors()).containsOnly(basicError(Arrays.asList(ARRIVAL_DATE_FIELD, DEPARTURE_DATE_FIELD), DEFAULT_ERROR_MESSAGE));
 		}
 	}
+
+	@Test
+	public void testInvalidReservationReportingAllErrors_checksAvailability() {
+		DateRange dateRange = DateRange.builder()
+				.start(LocalDate.now())
+				.end(LocalDate.now().plusDays(MIN_DURATION))
+				.build();
+		Reservation reservation = basicReservation(dateRange);
+		when(reservationService.checkAvailability(dateRange, reservation.getBookingIdentifierUuid())).thenReturn(false);
+
+		assertThatThrownBy(() -> reservationCompleteValidatorExtension.validate(reservation))
+				.isInstanceOfSatisfying(ReservationValidationException.class, e -> assertThat(e.getErrors()).containsExactlyInAnyOrder(
+						basicError(Collections.singletonList(ARRIVAL_DATE_FIELD), DEFAULT_ERROR_MESSAGE),
+						basicError(Arrays.asList(ARRIVAL_DATE_FIELD, DEPARTURE_DATE_FIELD), DEFAULT_ERROR_MESSAGE)));
+		verify(reservationService, times(1)).checkAvailability(dateRange, reservation.getBookingIdentifierUuid());
+	}
+
+	@Test
+	public void testInvalidReservationFailingFast_reportsInMemoryErrorsWithoutCheckingAvailability() {
+		ReservationCompleteValidatorExtension failFastValidatorExtension = failFastValidatorExtension();
+		Reservation reservation = basicReservation(LocalDate.now(), LocalDate.now().plusDays(MAX_DURATION + 1));
+
+		assertThatThrownBy(() -> failFastValidatorExtension.validate(reservation))
+				.isInstanceOfSatisfying(ReservationValidationException.class, e -> assertThat(e.getErrors()).containsExactlyInAnyOrder(
+						basicError(Collections.singletonList(ARRIVAL_DATE_FIELD), DEFAULT_ERROR_MESSAGE),
+						basicError(Arrays.asList(ARRIVAL_DATE_FIELD, DEPARTURE_DATE_FIELD), DEFAULT_ERROR_MESSAGE)));
+		verify(reservationService, never()).checkAvailability(any(DateRange.class), any(String.class));
+	}
+
+	@Test
+	public void testReservationWithoutAvailabilityFailingFast_throwsReservationValidationException() {
+		ReservationCompleteValidatorExtension failFastValidatorExtension = failFastValidatorExtension();
+		DateRange dateRange = DateRange.builder()
+				.start(LocalDate.now().plusDays(MIN_ARRIVAL_AHEAD_DAYS))
+				.end(LocalDate.now().plusDays(MIN_ARRIVAL_AHEAD_DAYS).plusDays(MIN_DURATION))
+				.build();
+		Reservation reservation = basicReservation(dateRange);
+		when(reservationService.checkAvailability(dateRange, reservation.getBookingIdentifierUuid())).thenReturn(false);
+
+		assertThatThrownBy(() -> failFastValidatorExtension.validate(reservation))
+				.isInstanceOfSatisfying(ReservationValidationException.class, e -> assertThat(e.getErrors())
+						.containsOnly(basicError(Arrays.asList(ARRIVAL_DATE_FIELD, DEPARTURE_DATE_FIELD), DEFAULT_ERROR_MESSAGE)));
+	}
+
+	@Test
+	public void testConcurrentValidations_reportOnlyTheirOwnErrors() throws Exception {
+		Reservation validReservation = basicReservation(LocalDate.now().plusDays(MIN_ARRIVAL_AHEAD_DAYS), LocalDate.now().plusDays(MIN_ARRIVAL_AHEAD_DAYS + MIN_DURATION));
+		Reservation invalidReservation = basicReservation(LocalDate.now(), LocalDate.now().plusDays(MIN_DURATION));
+		when(reservationService.checkAvailability(any(DateRange.class), any(String.class))).thenReturn(true);
+		ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<?>> futures = Lists.newArrayList();
+			for (int i = 0; i < THREADS; i++) {
+				futures.add(executorService.submit(() -> {
+					for (int j = 0; j < VALIDATIONS_PER_THREAD; j++) {
+						// A valid reservation never receives the errors of another validation running at the same time
+						reservationCompleteValidatorExtension.validate(validReservation);
+						assertThatThrownBy(() -> reservationCompleteValidatorExtension.validate(invalidReservation))
+								.isInstanceOfSatisfying(ReservationValidationException.class, e -> assertThat(e.getErrors())
+										.containsOnly(basicError(Collections.singletonList(ARRIVAL_DATE_FIELD), DEFAULT_ERROR_MESSAGE)));
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get(1, TimeUnit.MINUTES);
+			}
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	private ReservationCompleteValidatorExtension failFastValidatorExtension() {
+		return new ReservationCreationValidatorExtensionImpl(
+				MIN_ARRIVAL_AHEAD_DAYS,
+				MAX_ADVANCE_DAYS,
+				MIN_DURATION,
+				MAX_DURATION,
+				true,
+				reservationService,
+				messages);
+	}
 }
@@ -19,6 +19,7 @@ public class ReservationCreationValidatorExtensionImplTest {
 	private static final int MAX_ADVANCE_DAYS = 30;
 	private static final int MIN_DURATION = 1;
 	private static final int MAX_DURATION = 3;
+	private static final boolean FAIL_FAST = false;
 
 	private ReservationCreationValidatorExtensionImpl reservationCreationValidatorExtension;
 
@@ -38,6 +39,7 @@ public class ReservationCreationValidatorExtensionImplTest {
 				MAX_ADVANCE_DAYS,
 				MIN_DURATION,
 				MAX_DURATION,
+				FAIL_FAST,
 				reservationService,
 				messages);
 	}
@@ -0,0 +1,57 @@
+package com.reservations.validation;
+
+import static com.reservations.TestUtils.DEFAULT_ERROR_MESSAGE;
+import static com.reservations.TestUtils.basicError;
+import static com.reservations.TestUtils.basicReservation;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Collections;
+
+import org.testng.annotations.Test;
+
+import com.reservations.exception.ReservationValidationException;
+
+public class ReservationValidationResultTest {
+	@Test
+	public void testWithoutErrors_isValid() {
+		ReservationValidationResult result = new ReservationValidationResult();
+
+		result.throwIfInvalid();
+
+		assertThat(result.isValid()).isTrue();
+		assertThat(result.getErrors()).isEmpty();
+	}
+
+	@Test
+	public void testWithErrors_throwsReservationValidationExceptionWithAllOfThem() {
+		ReservationValidationResult result = new ReservationValidationResult();
+		ReservationValidatorError otherError = basicError(Collections.singletonList("field"), DEFAULT_ERROR_MESSAGE);
+
+		result.addError(basicError());
+		result.addError(otherError);
+
+		assertThat(result.isValid()).isFalse();
+		assertThatThrownBy(result::throwIfInvalid)
+				.isInstanceOfSatisfying(ReservationValidationException.class, e -> assertThat(e.getErrors())
+						.containsExactlyInAnyOrder(basicError(), otherError));
+	}
+
+	@Test
+	public void testRuleViolated_addsItsErrorToTheResult() {
+		ReservationValidationResult result = new ReservationValidationResult();
+		ReservationValidationRule rule = ReservationValidationRule.violatedWhen(reservation -> true, basicError());
+
+		assertThat(rule.check(basicReservation(), result)).isFalse();
+		assertThat(result.getErrors()).containsOnly(basicError());
+	}
+
+	@Test
+	public void testRuleSatisfied_keepsTheResultValid() {
+		ReservationValidationResult result = new ReservationValidationResult();
+		ReservationValidationRule rule = ReservationValidationRule.violatedWhen(reservation -> false, basicError());
+
+		assertThat(rule.check(basicReservation(), result)).isTrue();
+		assertThat(result.isValid()).isTrue();
+	}
+}
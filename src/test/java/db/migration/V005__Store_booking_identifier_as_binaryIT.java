@@ -0,0 +1,72 @@
+package db.migration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.reservations.entity.utils.UuidUtils;
+
+/**
+ * Runs the migration over a database with reservations created before it, which the application context never has
+ */
+public class V005__Store_booking_identifier_as_binaryIT {
+	private static final String PREVIOUS_VERSION = "004";
+	private static final String INSERT_RESERVATION = "INSERT INTO reservations (id, status, arrival_date, departure_date, booking_identifier_uuid) " +
+			"VALUES (?, 'ACTIVE', CURRENT_DATE, CURRENT_DATE, ?)";
+
+	private DataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeMethod
+	public void setup() {
+		dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "user", "sa");
+		Flyway.configure()
+				.dataSource(dataSource)
+				.target(PREVIOUS_VERSION)
+				.load()
+				.migrate();
+		jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@Test
+	public void testMigrate_convertsEveryIdentifierToItsBytes() {
+		// More than a page of reservations
+		String[] bookingIdentifierUuids = new String[1500];
+		for (int i = 0; i < bookingIdentifierUuids.length; i++) {
+			bookingIdentifierUuids[i] = UUID.randomUUID().toString();
+			jdbcTemplate.update(INSERT_RESERVATION, i + 1, bookingIdentifierUuids[i]);
+		}
+
+		migrate();
+
+		for (int i = 0; i < bookingIdentifierUuids.length; i++) {
+			byte[] bytes = jdbcTemplate.queryForObject("SELECT booking_identifier_uuid FROM reservations WHERE id = ?", byte[].class, i + 1);
+			assertThat(UuidUtils.fromBytes(bytes)).isEqualTo(bookingIdentifierUuids[i]);
+		}
+	}
+
+	@Test
+	public void testMigrateWithInvalidIdentifier_fails() {
+		jdbcTemplate.update(INSERT_RESERVATION, 1, "not-a-uuid");
+
+		assertThatThrownBy(this::migrate)
+				.isInstanceOf(FlywayException.class);
+	}
+
+	private void migrate() {
+		Flyway.configure()
+				.dataSource(dataSource)
+				.load()
+				.migrate();
+	}
+}
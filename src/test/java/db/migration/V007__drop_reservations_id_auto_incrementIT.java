@@ -0,0 +1,68 @@
+package db.migration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.reservations.entity.utils.UuidUtils;
+
+/**
+ * Runs the migration over a database with reservations inserted through the AUTO_INCREMENT counter after the sequence
+ * table was created, which the application context never has
+ */
+public class V007__drop_reservations_id_auto_incrementIT {
+	private static final String PREVIOUS_VERSION = "006";
+	private static final String INSERT_RESERVATION_WITHOUT_ID = "INSERT INTO reservations (status, arrival_date, departure_date, booking_identifier_uuid) " +
+			"VALUES ('ACTIVE', CURRENT_DATE, CURRENT_DATE, ?)";
+
+	private DataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeMethod
+	public void setup() {
+		dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "user", "sa");
+		Flyway.configure()
+				.dataSource(dataSource)
+				.target(PREVIOUS_VERSION)
+				.load()
+				.migrate();
+		jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@Test
+	public void testMigrate_startsSequenceAfterReservationsInsertedWithoutId() {
+		for (int i = 0; i < 3; i++) {
+			jdbcTemplate.update(INSERT_RESERVATION_WITHOUT_ID, (Object) UuidUtils.toBytes(UUID.randomUUID().toString()));
+		}
+
+		migrate();
+
+		assertThat(jdbcTemplate.queryForObject("SELECT next_val FROM reservations_id_sequence", Long.class))
+				.isGreaterThan(jdbcTemplate.queryForObject("SELECT MAX(id) FROM reservations", Long.class));
+	}
+
+	@Test
+	public void testMigrate_rejectsReservationsInsertedWithoutId() {
+		migrate();
+
+		assertThatThrownBy(() -> jdbcTemplate.update(INSERT_RESERVATION_WITHOUT_ID, (Object) UuidUtils.toBytes(UUID.randomUUID().toString())))
+				.isInstanceOf(DataIntegrityViolationException.class);
+	}
+
+	private void migrate() {
+		Flyway.configure()
+				.dataSource(dataSource)
+				.load()
+				.migrate();
+	}
+}